@@ -1,6 +1,8 @@
 package com.grash;
 
+import com.grash.configuration.SchedulingProperties;
 import com.grash.dto.UserSignupRequest;
+import com.grash.job.TriggerScheduler;
 import com.grash.model.*;
 import com.grash.model.enums.Language;
 import com.grash.model.enums.PlanFeatures;
@@ -9,6 +11,7 @@ import com.grash.model.enums.RoleType;
 import com.grash.service.*;
 import com.grash.utils.Helper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,14 +19,23 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import java.util.*;
 
+@Slf4j
 @SpringBootApplication
 @RequiredArgsConstructor
 @EnableCaching
 public class ApiApplication implements CommandLineRunner {
 
+    private static final String BOOTSTRAP_TRIGGER_OWNER = "bootstrap";
+    private static final String SCHEDULES_TASK = "schedules";
+    private static final String DEFAULT_ROLES_TASK = "defaultRoles";
+
     private final UserService userService;
     private final UserInvitationService userInvitationService;
     @Value("${superAdmin.role.name}")
@@ -32,8 +44,10 @@ public class ApiApplication implements CommandLineRunner {
     private final RoleService roleService;
     private final CompanyService companyService;
     private final SubscriptionPlanService subscriptionPlanService;
-    private final SubscriptionService subscriptionService;
     private final ScheduleService scheduleService;
+    private final BootstrapHealthIndicator bootstrapHealthIndicator;
+    private final TriggerScheduler triggerScheduler;
+    private final SchedulingProperties schedulingProperties;
 
     public static void main(String[] args) {
         SpringApplication.run(ApiApplication.class, args);
@@ -103,52 +117,79 @@ public class ApiApplication implements CommandLineRunner {
                     .features(new HashSet<>(Arrays.asList(PlanFeatures.values())))
                     .yearlyCostPerUser(800).build());
         }
-        Collection<Schedule> schedules = scheduleService.getAll();
-        schedules.forEach(scheduleService::scheduleWorkOrder);
-        Collection<Subscription> subscriptions = subscriptionService.getAll();
-        subscriptions.forEach(subscriptionService::scheduleEnd);
+        //schedule triggers are armed by their owning node, see ClusterCoordinator
+        runInBackground(SCHEDULES_TASK, this::initializeScheduleNextDueDates);
+        runInBackground(DEFAULT_ROLES_TASK, this::updateDefaultRoles);
+    }
 
-        List<Role> defaultRoles = roleService.findDefaultRoles();
-        List<Role> upToDateRoles = Helper.getDefaultRoles();
-        List<Role> rolesToUpdate = new ArrayList<>();
+    /**
+     * Runs a startup task which does not have to hold back startup, the node is only reported ready once it is done
+     */
+    private void runInBackground(String task, Runnable runnable) {
+        bootstrapHealthIndicator.start(task);
+        triggerScheduler.schedule(BOOTSTRAP_TRIGGER_OWNER, task, () -> {
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                log.error("Startup task {} failed", task, e);
+            } finally {
+                bootstrapHealthIndicator.complete(task);
+            }
+        }, new Date());
+    }
 
-        for (Role defaultRole : defaultRoles) {
-            for (Role upToDateRole : upToDateRoles) {
-                if (defaultRole.getCode().equals(upToDateRole.getCode())) {
-                    if (!CollectionUtils.isEqualCollection(defaultRole.getCreatePermissions(),
-                            upToDateRole.getCreatePermissions()) ||
-                            !CollectionUtils.isEqualCollection(defaultRole.getEditOtherPermissions(),
-                                    upToDateRole.getEditOtherPermissions()) ||
-                            !CollectionUtils.isEqualCollection(defaultRole.getDeleteOtherPermissions(),
-                                    upToDateRole.getDeleteOtherPermissions()) ||
-                            !CollectionUtils.isEqualCollection(defaultRole.getViewOtherPermissions(),
-                                    upToDateRole.getViewOtherPermissions()) ||
-                            !CollectionUtils.isEqualCollection(defaultRole.getViewPermissions(),
-                                    upToDateRole.getViewPermissions())) {
-                        // Update the role in the database
-                        defaultRole.getCreatePermissions().clear();
-                        defaultRole.getEditOtherPermissions().clear();
-                        defaultRole.getDeleteOtherPermissions().clear();
-                        defaultRole.getViewOtherPermissions().clear();
-                        defaultRole.getViewPermissions().clear();
+    private void initializeScheduleNextDueDates() {
+        int pageSize = schedulingProperties.getPageSize();
+        int initialized;
+        do {
+            //each page runs in its own transaction and leaves the query
+            initialized = scheduleService.initializeNextDueDates(new Date(), pageSize);
+        } while (initialized == pageSize);
+    }
+
+    private void updateDefaultRoles() {
+        List<Role> upToDateRoles = Helper.getDefaultRoles();
+        Pageable pageable = PageRequest.of(0, schedulingProperties.getPageSize(), Sort.by("id"));
+        Slice<Role> defaultRoles;
+        do {
+            defaultRoles = roleService.findDefaultRoles(pageable);
+            List<Role> rolesToUpdate = new ArrayList<>();
+            for (Role defaultRole : defaultRoles) {
+                for (Role upToDateRole : upToDateRoles) {
+                    if (defaultRole.getCode().equals(upToDateRole.getCode())) {
+                        if (!CollectionUtils.isEqualCollection(defaultRole.getCreatePermissions(),
+                                upToDateRole.getCreatePermissions()) ||
+                                !CollectionUtils.isEqualCollection(defaultRole.getEditOtherPermissions(),
+                                        upToDateRole.getEditOtherPermissions()) ||
+                                !CollectionUtils.isEqualCollection(defaultRole.getDeleteOtherPermissions(),
+                                        upToDateRole.getDeleteOtherPermissions()) ||
+                                !CollectionUtils.isEqualCollection(defaultRole.getViewOtherPermissions(),
+                                        upToDateRole.getViewOtherPermissions()) ||
+                                !CollectionUtils.isEqualCollection(defaultRole.getViewPermissions(),
+                                        upToDateRole.getViewPermissions())) {
+                            // Update the role in the database
+                            defaultRole.getCreatePermissions().clear();
+                            defaultRole.getEditOtherPermissions().clear();
+                            defaultRole.getDeleteOtherPermissions().clear();
+                            defaultRole.getViewOtherPermissions().clear();
+                            defaultRole.getViewPermissions().clear();
 
-                        defaultRole.getCreatePermissions().addAll(upToDateRole.getCreatePermissions());
-                        defaultRole.getEditOtherPermissions().addAll(upToDateRole.getEditOtherPermissions());
-                        defaultRole.getDeleteOtherPermissions().addAll(upToDateRole.getDeleteOtherPermissions());
-                        defaultRole.getViewOtherPermissions().addAll(upToDateRole.getViewOtherPermissions());
-                        defaultRole.getViewPermissions().addAll(upToDateRole.getViewPermissions());
+                            defaultRole.getCreatePermissions().addAll(upToDateRole.getCreatePermissions());
+                            defaultRole.getEditOtherPermissions().addAll(upToDateRole.getEditOtherPermissions());
+                            defaultRole.getDeleteOtherPermissions().addAll(upToDateRole.getDeleteOtherPermissions());
+                            defaultRole.getViewOtherPermissions().addAll(upToDateRole.getViewOtherPermissions());
+                            defaultRole.getViewPermissions().addAll(upToDateRole.getViewPermissions());
 
-                        rolesToUpdate.add(defaultRole);
-                        // Optionally, you can break the loop if you only want to update the first occurrence of the
-                        // role
-                        // break;
+                            rolesToUpdate.add(defaultRole);
+                        }
+                        // If the roles match, no need to check further, break the loop
+                        break;
                     }
-                    // If the roles match, no need to check further, break the loop
-                    break;
                 }
             }
-        }
-        if (!rolesToUpdate.isEmpty()) roleService.saveAll(rolesToUpdate);
+            if (!rolesToUpdate.isEmpty()) roleService.saveAll(rolesToUpdate);
+            pageable = defaultRoles.nextPageable();
+        } while (defaultRoles.hasNext());
     }
 
     @NotNull
@@ -2,30 +2,33 @@ package com.grash.aspect;
 
 import com.grash.exception.CustomException;
 import com.grash.model.File;
-import com.grash.model.OwnUser;
 import com.grash.model.abstracts.CompanyAudit;
-import com.grash.model.enums.RoleType;
 import com.grash.security.CustomUserDetail;
 import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import javax.persistence.Entity;
 import javax.persistence.EntityManager;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.util.List;
-import java.util.Optional;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
 
 import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
 
@@ -34,8 +37,19 @@ import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
 @RequiredArgsConstructor
 public class TenantAspect {
 
-    private final EntityManager entityManager;
+    private static final int MAX_IDS_PER_QUERY = 1000;
     private static final ThreadLocal<Boolean> ignoreCompanyCheck = ThreadLocal.withInitial(() -> false);
+    /**
+     * Getters of the fields which may reference a {@link CompanyAudit}, per request body class
+     */
+    private static final ConcurrentMap<Class<?>, List<MethodHandle>> accessorPlans = new ConcurrentHashMap<>();
+    /**
+     * Indexes of the @RequestBody parameters per handler method
+     */
+    private static final ConcurrentMap<Method, int[]> requestBodyIndexes = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, String> tableNames = new ConcurrentHashMap<>();
+
+    private final EntityManager entityManager;
 
     public static void disableCompanyCheck() {
         ignoreCompanyCheck.set(true);
@@ -48,46 +62,112 @@ public class TenantAspect {
     @Before("@annotation(org.springframework.web.bind.annotation.PostMapping) || @annotation(org.springframework.web.bind.annotation.PatchMapping)")
     public void validateTenant(JoinPoint joinPoint) {
         if (ignoreCompanyCheck.get()) return;
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-        Parameter[] parameters = method.getParameters();
-        for (int i = 0; i < parameters.length; i++) {
-            Parameter parameter = parameters[i];
-            if (parameter.isAnnotationPresent(RequestBody.class)) {
-                Object arg = joinPoint.getArgs()[i]; // Get the requestBody
-                if (arg instanceof List) {
-                    List<?> list = (List<?>) arg;
-                    list.forEach(this::validateObject);
-                } else {
-                    validateObject(arg);
-                }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetail)) return;
+        CustomUserDetail userDetail = (CustomUserDetail) authentication.getPrincipal();
+        if (userDetail.isSuperAdmin()) return;
+
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Map<Class<?>, Set<Long>> referencedIds = new HashMap<>();
+        for (int index : requestBodyIndexes.computeIfAbsent(method, TenantAspect::getRequestBodyIndexes)) {
+            Object arg = joinPoint.getArgs()[index]; // Get the requestBody
+            if (arg instanceof List) {
+                List<?> list = (List<?>) arg;
+                list.forEach(element -> collectReferencedIds(element, referencedIds));
+            } else {
+                collectReferencedIds(arg, referencedIds);
             }
         }
+        referencedIds.forEach((entityClass, ids) -> validateIds(entityClass, ids, userDetail));
     }
 
-    private void validateObject(Object obj) {
-        Field[] fields = getAllFields(obj.getClass());
-        for (Field field : fields) {
-            field.setAccessible(true);
-            Object fieldValue = null;
+    private void collectReferencedIds(Object obj, Map<Class<?>, Set<Long>> referencedIds) {
+        if (obj == null) return;
+        for (MethodHandle getter : accessorPlans.computeIfAbsent(obj.getClass(), TenantAspect::getAccessorPlan)) {
+            Object fieldValue;
             try {
-                fieldValue = field.get(obj); // Get the value of the field inside request body
-            } catch (IllegalAccessException e) {
+                fieldValue = getter.invoke(obj); // Get the value of the field inside request body
+            } catch (Throwable e) {
                 throw new RuntimeException(e);
             }
-            if (fieldValue instanceof List) {
-                List<?> list = (List<?>) fieldValue;
-                list.forEach(this::validateFieldElement);
+            if (fieldValue instanceof Collection) {
+                Collection<?> collection = (Collection<?>) fieldValue;
+                collection.forEach(element -> collectReferencedId(element, referencedIds));
             } else {
-                validateFieldElement(fieldValue);
+                collectReferencedId(fieldValue, referencedIds);
             }
         }
     }
 
-    private void validateFieldElement(Object object) {
+    private void collectReferencedId(Object object, Map<Class<?>, Set<Long>> referencedIds) {
         if (object instanceof CompanyAudit) {
             CompanyAudit companyAudit = (CompanyAudit) object;
-            entityManager.find(object.getClass(), companyAudit.getId()); // should fail here if from other company because of @PostLoad
+            if (companyAudit.getId() == null) return;
+            referencedIds.computeIfAbsent(getEntityClass(object.getClass()), k -> new HashSet<>())
+                    .add(companyAudit.getId());
+        }
+    }
+
+    /**
+     * Runs unfiltered by the tenant filter on purpose: rows of other companies must be found to be rejected.
+     */
+    private void validateIds(Class<?> entityClass, Set<Long> ids, CustomUserDetail userDetail) {
+        boolean file = File.class.isAssignableFrom(entityClass);
+        String sql = "select distinct company_id from " + tableNames.computeIfAbsent(entityClass,
+                this::getTableName) + " where id in (:ids)";
+        List<Long> idList = new ArrayList<>(ids);
+        for (int i = 0; i < idList.size(); i += MAX_IDS_PER_QUERY) {
+            List<?> companyIds = entityManager.createNativeQuery(sql)
+                    .setParameter("ids", idList.subList(i, Math.min(i + MAX_IDS_PER_QUERY, idList.size())))
+                    .getResultList();
+            for (Object companyId : companyIds) {
+                if (!userDetail.canLoad(((Number) companyId).longValue(), file)) {
+                    throw new CustomException("validateTenant: the user (id=" + userDetail.getUser().getId() + ") is " +
+                            "not authorized to reference " + entityClass.getSimpleName() + " of company " + companyId,
+                            HttpStatus.FORBIDDEN);
+                }
+            }
+        }
+    }
+
+    private String getTableName(Class<?> entityClass) {
+        SessionFactoryImplementor sessionFactory =
+                entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        return ((AbstractEntityPersister) sessionFactory.getMetamodel().entityPersister(entityClass)).getTableName();
+    }
+
+    private static Class<?> getEntityClass(Class<?> clazz) {
+        Class<?> current = clazz;
+        while (current != null && !current.isAnnotationPresent(Entity.class)) {
+            current = current.getSuperclass();
         }
+        return current == null ? clazz : current;
+    }
+
+    private static int[] getRequestBodyIndexes(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        return IntStream.range(0, parameterAnnotations.length)
+                .filter(i -> Arrays.stream(parameterAnnotations[i]).anyMatch(RequestBody.class::isInstance))
+                .toArray();
+    }
+
+    private static List<MethodHandle> getAccessorPlan(Class<?> clazz) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<MethodHandle> getters = new ArrayList<>();
+        for (Field field : getAllFields(clazz)) {
+            if (Modifier.isStatic(field.getModifiers()) || !mayReferenceCompanyAudit(field.getType())) continue;
+            field.setAccessible(true);
+            try {
+                getters.add(lookup.unreflectGetter(field));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return Collections.unmodifiableList(getters);
+    }
+
+    private static boolean mayReferenceCompanyAudit(Class<?> type) {
+        return Collection.class.isAssignableFrom(type) || CompanyAudit.class.isAssignableFrom(type)
+                || type.isAssignableFrom(CompanyAudit.class);
     }
 }
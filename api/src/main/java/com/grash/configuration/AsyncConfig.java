@@ -1,24 +1,124 @@
 package com.grash.configuration;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * One pool per workload, configured under {@code async.executors.<workload>}, so that a burst of one kind of work can
+ * neither starve the others nor spill into the request threads beyond what its rejection policy allows. Each pool
+ * reports its queue size and active threads under {@code async.queue.size} and {@code async.active}, the time its
+ * tasks waited and ran under {@code async.task.wait} and {@code async.task.duration}, and its rejected tasks under
+ * {@code async.rejected}, all tagged by executor.
+ */
+@Slf4j
 @Configuration
 @EnableAsync
+@RequiredArgsConstructor
 public class AsyncConfig implements AsyncConfigurer {
 
+    /**
+     * Bean names, to be given to {@code @Async} or to a {@code @Qualifier}
+     */
+    public static final String NOTIFICATIONS_EXECUTOR = "notificationsExecutor";
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+    public static final String PUSH_EXECUTOR = "pushExecutor";
+
+    private final AsyncProperties asyncProperties;
+    private final MeterRegistry meterRegistry;
+
+    @Bean(NOTIFICATIONS_EXECUTOR)
+    public ThreadPoolTaskExecutor notificationsExecutor() {
+        return executor("notifications");
+    }
+
+    @Bean(MAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor mailExecutor() {
+        return executor("mail");
+    }
+
+    @Bean(PUSH_EXECUTOR)
+    public ThreadPoolTaskExecutor pushExecutor() {
+        return executor("push");
+    }
+
+    /**
+     * Used by the {@code @Async} methods which do not name their executor
+     */
     @Override
     public Executor getAsyncExecutor() {
+        return notificationsExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (throwable, method, params) -> log.error("Async method {} failed", method.getName(), throwable);
+    }
+
+    private ThreadPoolTaskExecutor executor(String name) {
+        AsyncProperties.Pool pool = asyncProperties.getExecutors().getOrDefault(name, new AsyncProperties.Pool());
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(3);
-        executor.setMaxPoolSize(3);
-        executor.setQueueCapacity(11);
-        executor.setThreadNamePrefix("MyExecutor-");
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(Math.max(pool.getCoreSize(), pool.getMaxSize()));
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setThreadNamePrefix(name + "-");
+        executor.setRejectedExecutionHandler(rejectionHandler(name, pool.getRejectionPolicy()));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        Timer wait = Timer.builder("async.task.wait").tag("executor", name).register(meterRegistry);
+        Timer duration = Timer.builder("async.task.duration").tag("executor", name).register(meterRegistry);
+        executor.setTaskDecorator(task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                long start = System.nanoTime();
+                wait.record(start - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            };
+        });
         executor.initialize();
+        Gauge.builder("async.queue.size", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .tag("executor", name).register(meterRegistry);
+        Gauge.builder("async.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("executor", name).register(meterRegistry);
         return executor;
     }
-}
\ No newline at end of file
+
+    private RejectedExecutionHandler rejectionHandler(String name, AsyncProperties.RejectionPolicy policy) {
+        Counter rejected = Counter.builder("async.rejected").tag("executor", name)
+                .tag("policy", policy.name().toLowerCase()).register(meterRegistry);
+        RejectedExecutionHandler handler;
+        switch (policy) {
+            case SHED:
+                handler = (task, threadPool) -> log.warn("Executor {} saturated, dropping a task", name);
+                break;
+            case ABORT:
+                handler = new ThreadPoolExecutor.AbortPolicy();
+                break;
+            default:
+                handler = new ThreadPoolExecutor.CallerRunsPolicy();
+        }
+        RejectedExecutionHandler delegate = handler;
+        return (task, threadPool) -> {
+            rejected.increment();
+            delegate.rejectedExecution(task, threadPool);
+        };
+    }
+}
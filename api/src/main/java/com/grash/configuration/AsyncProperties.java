@@ -0,0 +1,48 @@
+package com.grash.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "async")
+public class AsyncProperties {
+    /**
+     * Pools by workload, see the names in {@link AsyncConfig}. A workload without an entry gets the defaults of
+     * {@link Pool}.
+     */
+    private Map<String, Pool> executors = new HashMap<>();
+
+    @Data
+    public static class Pool {
+        private int coreSize = 2;
+        private int maxSize = 2;
+        /**
+         * Tasks waiting for a thread, threads above the core size are only started once it is full.
+         */
+        private int queueCapacity = 100;
+        /**
+         * What happens to a task submitted while the queue is full and all the threads are busy.
+         */
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+    }
+
+    public enum RejectionPolicy {
+        /**
+         * Run the task in the submitting thread, slowing the producer down
+         */
+        CALLER_RUNS,
+        /**
+         * Drop the task, for best effort work
+         */
+        SHED,
+        /**
+         * Throw a {@link org.springframework.core.task.TaskRejectedException} to the submitting thread
+         */
+        ABORT
+    }
+}
@@ -0,0 +1,55 @@
+package com.grash.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "events")
+public class EventBusProperties {
+    /**
+     * Threads per consumer. The events of a work order always go to the same one, so a consumer sees them in order.
+     */
+    private int partitions = 2;
+    /**
+     * Events waiting in a partition.
+     */
+    private int queueCapacity = 10000;
+    /**
+     * Longest time publishing waits for room in a full partition, the event is dropped for that consumer beyond it.
+     */
+    private Duration offerTimeout = Duration.ofMillis(100);
+    /**
+     * Events handed to a consumer at once.
+     */
+    private int maxBatchSize = 100;
+    private Outbox outbox = new Outbox();
+
+    /**
+     * The {@code domain_event_outbox} table holding the events of the durable consumers.
+     */
+    @Data
+    public static class Outbox {
+        /**
+         * How often the events of each durable consumer are drained.
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+        /**
+         * Claimed events are left to the node which claimed them for this long, then handed again by any node, should
+         * it have died while consuming them.
+         */
+        private Duration claimTimeout = Duration.ofMinutes(5);
+        /**
+         * Times the events are handed to a consumer failing on them, the first one included, before they are moved
+         * to the dead letters.
+         */
+        private int maxAttempts = 10;
+        /**
+         * Delay before the first retry, doubled on each following one.
+         */
+        private Duration initialBackoff = Duration.ofSeconds(10);
+    }
+}
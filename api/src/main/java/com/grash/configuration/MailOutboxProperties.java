@@ -0,0 +1,47 @@
+package com.grash.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "mail.outbox")
+public class MailOutboxProperties {
+    /**
+     * How often the outbox is drained.
+     */
+    private Duration pollInterval = Duration.ofSeconds(2);
+    /**
+     * Mails claimed at once.
+     */
+    private int batchSize = 20;
+    /**
+     * Claimed mails are left to the node which claimed them for this long, then sent again by any node, should it
+     * have died while sending them.
+     */
+    private Duration claimTimeout = Duration.ofMinutes(5);
+    /**
+     * Mails sent per second at most by a node, to stay below the limits of the SMTP provider.
+     */
+    private double maxRate = 10;
+    /**
+     * Sends of a mail, the first one included, before it is moved to the dead letters.
+     */
+    private int maxAttempts = 5;
+    /**
+     * Delay before the first retry, doubled on each following one.
+     */
+    private Duration initialBackoff = Duration.ofMinutes(1);
+    /**
+     * Mails given up on are kept this long for investigation, then deleted with their bodies, which may hold
+     * invitation or password reset links.
+     */
+    private Duration deadLetterRetention = Duration.ofDays(7);
+    /**
+     * The SMTP connection is kept open between mails and closed after being unused for this long.
+     */
+    private Duration connectionIdleTimeout = Duration.ofSeconds(30);
+}
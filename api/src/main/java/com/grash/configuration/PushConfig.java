@@ -0,0 +1,23 @@
+package com.grash.configuration;
+
+import io.github.jav.exposerversdk.PushClient;
+import io.github.jav.exposerversdk.PushClientException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+@Configuration
+public class PushConfig {
+
+    /**
+     * Shared by all the sends, the client is stateless apart from its HTTP client
+     */
+    @Bean
+    public PushClient pushClient(PushProperties pushProperties) throws PushClientException, MalformedURLException {
+        PushClient pushClient = new PushClient();
+        pushClient.setBaseApiUrl(new URL(pushProperties.getBaseUrl()));
+        return pushClient;
+    }
+}
@@ -0,0 +1,49 @@
+package com.grash.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "push")
+public class PushProperties {
+    /**
+     * Base URL of the Expo push API, pointed at a local stand-in in tests.
+     */
+    private String baseUrl = "https://exp.host/--/api/v2";
+    /**
+     * Messages waiting to be sent, further messages are dropped while it is full.
+     */
+    private int queueCapacity = 10000;
+    /**
+     * How long messages are gathered before being sent together.
+     */
+    private Duration flushInterval = Duration.ofMillis(500);
+    /**
+     * Messages per request, Expo accepts up to 100.
+     */
+    private int chunkSize = 100;
+    /**
+     * Sends of a message, the first one included, before it is given up.
+     */
+    private int maxAttempts = 3;
+    /**
+     * Delay before the first retry, doubled on each following one.
+     */
+    private Duration initialBackoff = Duration.ofSeconds(2);
+    /**
+     * How long after a send its receipt is fetched. Expo keeps receipts for a day.
+     */
+    private Duration receiptDelay = Duration.ofMinutes(15);
+    /**
+     * How often ready receipts are fetched.
+     */
+    private Duration receiptPollInterval = Duration.ofMinutes(1);
+    /**
+     * Tickets awaiting their receipt, the receipts of further sends are not checked while it is reached.
+     */
+    private int maxPendingReceipts = 100000;
+}
@@ -1,13 +1,21 @@
 package com.grash.configuration;
 
 import com.grash.job.DeleteDemoCompaniesJob;
+import com.grash.job.ExpireSubscriptionsJob;
+import com.grash.job.GeneratePreventiveMaintenanceJob;
+import com.grash.job.NotificationRetentionJob;
+import com.grash.job.WorkOrderDueDateMonitorJob;
+import lombok.RequiredArgsConstructor;
 import org.quartz.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@RequiredArgsConstructor
 public class QuartzConfig {
 
+    private final SchedulingProperties schedulingProperties;
+
     @Bean
     public JobDetail deleteDemoCompaniesJobDetail() {
         return JobBuilder.newJob(DeleteDemoCompaniesJob.class)
@@ -25,4 +33,84 @@ public class QuartzConfig {
                         .repeatForever())
                 .build();
     }
+
+    @Bean
+    public JobDetail generatePreventiveMaintenanceJobDetail() {
+        return JobBuilder.newJob(GeneratePreventiveMaintenanceJob.class)
+                .withIdentity("generatePreventiveMaintenanceJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger generatePreventiveMaintenanceTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(generatePreventiveMaintenanceJobDetail())
+                .withIdentity("generatePreventiveMaintenanceTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMilliseconds(schedulingProperties.getPreventiveMaintenance().getPollInterval()
+                                .toMillis())
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail expireSubscriptionsJobDetail() {
+        return JobBuilder.newJob(ExpireSubscriptionsJob.class)
+                .withIdentity("expireSubscriptionsJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger expireSubscriptionsTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(expireSubscriptionsJobDetail())
+                .withIdentity("expireSubscriptionsTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMilliseconds(schedulingProperties.getSubscriptionExpiry().getSweepInterval()
+                                .toMillis())
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail workOrderDueDateMonitorJobDetail() {
+        return JobBuilder.newJob(WorkOrderDueDateMonitorJob.class)
+                .withIdentity("workOrderDueDateMonitorJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger workOrderDueDateMonitorTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(workOrderDueDateMonitorJobDetail())
+                .withIdentity("workOrderDueDateMonitorTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMilliseconds(schedulingProperties.getDueDateMonitor().getPollInterval()
+                                .toMillis())
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail notificationRetentionJobDetail() {
+        return JobBuilder.newJob(NotificationRetentionJob.class)
+                .withIdentity("notificationRetentionJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger notificationRetentionTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(notificationRetentionJobDetail())
+                .withIdentity("notificationRetentionTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMilliseconds(schedulingProperties.getNotificationRetention().getSweepInterval()
+                                .toMillis())
+                        .repeatForever())
+                .build();
+    }
 }
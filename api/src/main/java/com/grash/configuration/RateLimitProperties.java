@@ -0,0 +1,41 @@
+package com.grash.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    /**
+     * Maximum number of keys (IPs, users) tracked per policy before the least recently used are evicted, starting over
+     * with a full bucket. Should exceed the keys active within the longest period of a policy.
+     */
+    private long maximumKeys = 100000;
+
+    /**
+     * Named policies, referenced by {@link com.grash.security.RateLimited} or by key in the rate limiter service.
+     */
+    private Map<String, Policy> policies = new HashMap<>();
+
+    @Data
+    public static class Policy {
+        /**
+         * All limits must have a token left for a request to go through.
+         */
+        private List<Limit> limits = new ArrayList<>();
+    }
+
+    @Data
+    public static class Limit {
+        private long capacity;
+        private Duration period;
+    }
+}
@@ -0,0 +1,180 @@
+package com.grash.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "scheduling")
+public class SchedulingProperties {
+    /**
+     * Worker threads shared by all the in-memory triggers.
+     */
+    private int triggerPoolSize = 2;
+    /**
+     * Only the triggers firing within this horizon are kept in memory, the later ones are loaded as their time
+     * approaches.
+     */
+    private Duration triggerHorizon = Duration.ofHours(6);
+    /**
+     * Rows loaded per page when arming triggers or running the startup tasks.
+     */
+    private int pageSize = 500;
+
+    private PreventiveMaintenance preventiveMaintenance = new PreventiveMaintenance();
+
+    private SubscriptionExpiry subscriptionExpiry = new SubscriptionExpiry();
+
+    private DueDateMonitor dueDateMonitor = new DueDateMonitor();
+
+    private Cluster cluster = new Cluster();
+
+    private Batch batch = new Batch();
+
+    private TenantPurge tenantPurge = new TenantPurge();
+
+    private NotificationDigest notificationDigest = new NotificationDigest();
+
+    private NotificationRetention notificationRetention = new NotificationRetention();
+
+    @Data
+    public static class PreventiveMaintenance {
+        /**
+         * How often due schedules are polled.
+         */
+        private Duration pollInterval = Duration.ofMinutes(1);
+        /**
+         * Schedules locked and processed per transaction.
+         */
+        private int batchSize = 50;
+        private CatchUpPolicy catchUp = CatchUpPolicy.LATEST;
+        /**
+         * Occurrences older than this when polled are considered missed.
+         */
+        private Duration missedThreshold = Duration.ofHours(1);
+        /**
+         * Upper bound of the work orders created for one schedule in one poll with {@link CatchUpPolicy#ALL}.
+         */
+        private int maxCatchUpOccurrences = 100;
+        /**
+         * Delay before a schedule whose work orders could not be generated is polled again, doubled with every
+         * consecutive failure up to {@link #maxFailureBackoff}.
+         */
+        private Duration failureBackoff = Duration.ofMinutes(1);
+        private Duration maxFailureBackoff = Duration.ofHours(6);
+    }
+
+    @Data
+    public static class SubscriptionExpiry {
+        /**
+         * How often ended subscriptions are reset to the free plan.
+         */
+        private Duration sweepInterval = Duration.ofMinutes(1);
+        /**
+         * Subscriptions locked and reset per transaction.
+         */
+        private int batchSize = 100;
+    }
+
+    @Data
+    public static class DueDateMonitor {
+        private Duration pollInterval = Duration.ofMinutes(1);
+        /**
+         * An open work order is urgent from this long before its due date.
+         */
+        private Duration dueSoon = Duration.ofDays(2);
+        /**
+         * Due dates passed longer ago than this when the monitor runs again after an outage are not reported.
+         */
+        private Duration maxCatchUp = Duration.ofDays(1);
+    }
+
+    @Data
+    public static class Cluster {
+        private Duration heartbeatInterval = Duration.ofSeconds(10);
+        /**
+         * A node which has not sent a heartbeat for this long is considered lost and its share is rebalanced.
+         */
+        private Duration nodeTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * Batch jobs allowed to run at the same time on a node.
+         */
+        private int maxConcurrentJobs = 2;
+        /**
+         * Rows per transaction of the jobs iterating over a table.
+         */
+        private int chunkSize = 100;
+    }
+
+    @Data
+    public static class TenantPurge {
+        /**
+         * Companies purged together, their rows being deleted by the same statements.
+         */
+        private int companiesPerPurge = 20;
+        /**
+         * Rows deleted by the first statement on a table, then adjusted to the time the statements take.
+         */
+        private int chunkSize = 500;
+        private int minChunkSize = 50;
+        private int maxChunkSize = 5000;
+        /**
+         * Longest time a chunk should hold its row locks.
+         */
+        private Duration maxLockTime = Duration.ofMillis(200);
+        /**
+         * Pause between two chunks.
+         */
+        private Duration pause = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class NotificationDigest {
+        /**
+         * Notifications of a user in digest mode are gathered for this long after the first one.
+         */
+        private Duration window = Duration.ofMinutes(15);
+        /**
+         * Notifications listed in a digest email, the count covers all of them.
+         */
+        private int maxListed = 50;
+    }
+
+    @Data
+    public static class NotificationRetention {
+        /**
+         * How often read notifications are archived.
+         */
+        private Duration sweepInterval = Duration.ofHours(1);
+        /**
+         * Read notifications created longer ago than this are moved to the archive table.
+         */
+        private Duration retention = Duration.ofDays(90);
+        /**
+         * Notifications moved per transaction.
+         */
+        private int batchSize = 1000;
+    }
+
+    public enum CatchUpPolicy {
+        /**
+         * Create a work order for every missed occurrence
+         */
+        ALL,
+        /**
+         * Create a work order for the latest missed occurrence only
+         */
+        LATEST,
+        /**
+         * Drop missed occurrences
+         */
+        SKIP
+    }
+}
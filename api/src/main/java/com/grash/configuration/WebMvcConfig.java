@@ -1,11 +1,15 @@
 package com.grash.configuration;
 
 import com.grash.security.CurrentUserResolver;
+import com.grash.security.RateLimitInterceptor;
+import com.grash.security.TenantFilterInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -18,6 +22,8 @@ public class WebMvcConfig implements WebMvcConfigurer {
 
     private static final long MAX_AGE_SECS = 3600;
     private final CurrentUserResolver currentUserResolver;
+    private final TenantFilterInterceptor tenantFilterInterceptor;
+    private final RateLimitInterceptor rateLimitInterceptor;
     @Value("${frontend.url}")
     private String frontendUrl;
 
@@ -34,6 +40,13 @@ public class WebMvcConfig implements WebMvcConfigurer {
         argumentResolvers.add(currentUserResolver);
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor);
+        //after the open-in-view interceptor binding the session
+        registry.addInterceptor(tenantFilterInterceptor).order(Ordered.LOWEST_PRECEDENCE);
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/images/**")
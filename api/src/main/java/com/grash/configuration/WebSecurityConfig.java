@@ -57,6 +57,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers("/login/oauth2/**").permitAll()
                 .antMatchers("/fast-spring/**").permitAll()
                 .antMatchers("/health-check").permitAll()
+                // liveness and readiness probes, the details of the health staying hidden from anonymous requests
+                .antMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**").permitAll()
                 .antMatchers("/mail/send").permitAll()
                 .antMatchers("/subscription-plans").permitAll()
                 .antMatchers("/files/download/tos", "/files/download/privacy-policy").permitAll()
@@ -1,15 +1,20 @@
 package com.grash.configuration;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final WebSocketProperties webSocketProperties;
     @Value("${frontend.url}")
     private String frontendUrl;
 
@@ -25,4 +30,20 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins(frontendUrl)
                 .withSockJS();
     }
+
+    /**
+     * A session whose pending frames exceed these limits is closed instead of holding the outbound threads
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(webSocketProperties.getSendBufferSizeLimit());
+        registration.setSendTimeLimit((int) webSocketProperties.getSendTimeLimit().toMillis());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(webSocketProperties.getOutboundPoolSize())
+                .maxPoolSize(webSocketProperties.getOutboundPoolSize());
+    }
 }
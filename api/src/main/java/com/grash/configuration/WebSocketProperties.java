@@ -0,0 +1,47 @@
+package com.grash.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "websocket")
+public class WebSocketProperties {
+    /**
+     * Notifications of a user gathered within this window are sent in one frame.
+     */
+    private Duration coalesceWindow = Duration.ofMillis(200);
+    /**
+     * Notifications of a user waiting for the next frame, the oldest are dropped beyond it. The clients reload the
+     * list anyway when it is opened.
+     */
+    private int maxPendingPerUser = 100;
+    /**
+     * Bytes waiting to be written to a session, a session above it is closed as a slow consumer.
+     */
+    private int sendBufferSizeLimit = 512 * 1024;
+    /**
+     * Longest time a write to a session may take before the session is closed as a slow consumer.
+     */
+    private Duration sendTimeLimit = Duration.ofSeconds(10);
+    /**
+     * Threads writing the frames to the sessions.
+     */
+    private int outboundPoolSize = 4;
+    /**
+     * Pause before listening again to the notifications relayed by the other nodes after losing the connection.
+     */
+    private Duration relayReconnectDelay = Duration.ofSeconds(5);
+    /**
+     * How often the connection listening to the relayed notifications is checked while idle, so that a connection
+     * silently dropped by the network is noticed and opened again.
+     */
+    private Duration relayKeepaliveInterval = Duration.ofSeconds(30);
+    /**
+     * Longest wait for the database to answer on the listening connection before it is considered lost.
+     */
+    private Duration relaySocketTimeout = Duration.ofSeconds(30);
+}
@@ -5,6 +5,7 @@ import com.grash.dto.agent.AgentChatResponse;
 import com.grash.dto.agent.AgentDraftActionResponse;
 import com.grash.dto.agent.AgentPromptRequest;
 import com.grash.model.OwnUser;
+import com.grash.security.RateLimited;
 import com.grash.service.AgentDraftService;
 import com.grash.service.AgentService;
 import com.grash.service.UserService;
@@ -35,6 +36,7 @@ public class AgentController {
     private final AgentDraftService agentDraftService;
     private final UserService userService;
 
+    @RateLimited("agent-chat")
     @PostMapping("/chat")
     public ResponseEntity<AgentChatResponse> handlePrompt(
             HttpServletRequest httpServletRequest,
@@ -42,7 +42,7 @@ public class AssetCategoryController {
     public Collection<AssetCategory> getAll(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
                 return assetCategoryService.findByCompanySettings(user.getCompany().getCompanySettings().getId());
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
         } else return assetCategoryService.getAll();
@@ -56,7 +56,7 @@ public class AssetCategoryController {
             @ApiResponse(code = 404, message = "AssetCategory not found")})
     public AssetCategory getById(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
             Optional<AssetCategory> optionalAssetCategory = assetCategoryService.findById(id);
             if (optionalAssetCategory.isPresent()) {
                 return assetCategoryService.findById(id).get();
@@ -71,7 +71,7 @@ public class AssetCategoryController {
             @ApiResponse(code = 403, message = "Access denied")})
     public AssetCategory create(@ApiParam("AssetCategory") @Valid @RequestBody AssetCategory assetCategoryReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             return assetCategoryService.create(assetCategoryReq);
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -87,7 +87,7 @@ public class AssetCategoryController {
                                HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         Optional<AssetCategory> optionalAssetCategory = assetCategoryService.findById(id);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             if (optionalAssetCategory.isPresent()) {
                 return assetCategoryService.update(id, assetCategory);
             } else {
@@ -107,7 +107,7 @@ public class AssetCategoryController {
 
         Optional<AssetCategory> optionalAssetCategory = assetCategoryService.findById(id);
         if (optionalAssetCategory.isPresent()) {
-            if (optionalAssetCategory.get().getCreatedBy().equals(user.getId()) || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (optionalAssetCategory.get().getCreatedBy().equals(user.getId()) || user.getRole().canDeleteOthers(PermissionEntity.CATEGORIES)) {
                 assetCategoryService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
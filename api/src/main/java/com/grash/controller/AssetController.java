@@ -65,9 +65,9 @@ public class AssetController {
                                                      HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.ASSETS)) {
+            if (user.getRole().canView(PermissionEntity.ASSETS)) {
                 searchCriteria.filterCompany(user);
-                boolean canViewOthers = user.getRole().getViewOtherPermissions().contains(PermissionEntity.ASSETS);
+                boolean canViewOthers = user.getRole().canViewOthers(PermissionEntity.ASSETS);
                 if (!canViewOthers) {
                     searchCriteria.filterCreatedBy(user);
                 }
@@ -115,8 +115,8 @@ public class AssetController {
     private AssetShowDTO getAsset(Optional<Asset> optionalAsset, OwnUser user) {
         if (optionalAsset.isPresent()) {
             Asset savedAsset = optionalAsset.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.ASSETS) &&
-                    (user.getRole().getViewOtherPermissions().contains(PermissionEntity.ASSETS) || savedAsset.getCreatedBy().equals(user.getId()))) {
+            if (user.getRole().canView(PermissionEntity.ASSETS) &&
+                    (user.getRole().canViewOthers(PermissionEntity.ASSETS) || savedAsset.getCreatedBy().equals(user.getId()))) {
                 return assetMapper.toShowDto(savedAsset, assetService);
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
@@ -167,7 +167,7 @@ public class AssetController {
         Optional<Asset> optionalAsset = assetService.findById(id);
         if (optionalAsset.isPresent()) {
             Asset savedAsset = optionalAsset.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.ASSETS)) {
+            if (user.getRole().canView(PermissionEntity.ASSETS)) {
                 return assetService.findAssetChildren(id, pageable.getSort()).stream().map(asset -> assetMapper.toShowDto(asset,
                         assetService)).collect(Collectors.toList());
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
@@ -182,7 +182,7 @@ public class AssetController {
             @ApiResponse(code = 403, message = "Access denied")})
     public AssetShowDTO create(@ApiParam("Asset") @Valid @RequestBody Asset assetReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.ASSETS)) {
+        if (user.getRole().canCreate(PermissionEntity.ASSETS)) {
             if (assetReq.getBarCode() != null) {
                 Optional<Asset> optionalAssetWithSameBarCode =
                         assetService.findByBarcodeAndCompany(assetReq.getBarCode(), user.getCompany().getId());
@@ -221,7 +221,7 @@ public class AssetController {
         if (optionalAsset.isPresent()) {
             Asset savedAsset = optionalAsset.get();
             em.detach(savedAsset);
-            if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.ASSETS) || savedAsset.getCreatedBy().equals(user.getId())
+            if (user.getRole().canEditOthers(PermissionEntity.ASSETS) || savedAsset.getCreatedBy().equals(user.getId())
             ) {
                 if (!asset.getStatus().isReallyDown() && savedAsset.getStatus().isReallyDown()) {
                     assetService.stopDownTime(savedAsset.getId(), Helper.getLocale(user));
@@ -281,7 +281,7 @@ public class AssetController {
         if (optionalAsset.isPresent()) {
             Asset savedAsset = optionalAsset.get();
             if (savedAsset.getCreatedBy().equals(user.getId()) ||
-                    user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.ASSETS)) {
+                    user.getRole().canDeleteOthers(PermissionEntity.ASSETS)) {
                 assetService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
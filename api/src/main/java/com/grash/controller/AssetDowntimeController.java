@@ -44,7 +44,7 @@ public class AssetDowntimeController {
             @ApiResponse(code = 404, message = "AssetDowntime not found")})
     public AssetDowntime getById(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.ASSETS)) {
+        if (user.getRole().canView(PermissionEntity.ASSETS)) {
             Optional<AssetDowntime> optionalAssetDowntime = assetDowntimeService.findById(id);
             if (optionalAssetDowntime.isPresent()) {
                 return assetDowntimeService.findById(id).get();
@@ -66,7 +66,7 @@ public class AssetDowntimeController {
         if (optionalAsset.get().getRealCreatedAt().after(assetDowntimeReq.getStartsOn())) {
             throw new CustomException("The downtime can't occur before the asset in service date", HttpStatus.NOT_ACCEPTABLE);
         }
-        if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.ASSETS) || optionalAsset.get().getCreatedBy().equals(user.getId())) {
+        if (user.getRole().canEditOthers(PermissionEntity.ASSETS) || optionalAsset.get().getCreatedBy().equals(user.getId())) {
             return assetDowntimeService.create(assetDowntimeReq);
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -96,7 +96,7 @@ public class AssetDowntimeController {
                                HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         Optional<AssetDowntime> optionalAssetDowntime = assetDowntimeService.findById(id);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             if (optionalAssetDowntime.isPresent()) {
                 if (canPatchAsset(optionalAssetDowntime.get().getAsset(), user)) {
                     return assetDowntimeService.update(id, assetDowntime);
@@ -129,6 +129,6 @@ public class AssetDowntimeController {
     }
 
     private boolean canPatchAsset(Asset asset, OwnUser user) {
-        return user.getRole().getEditOtherPermissions().contains(PermissionEntity.ASSETS) || asset.getCreatedBy().equals(user.getId());
+        return user.getRole().canEditOthers(PermissionEntity.ASSETS) || asset.getCreatedBy().equals(user.getId());
     }
 }
@@ -8,6 +8,7 @@ import com.grash.model.SuperAccountRelation;
 import com.grash.repository.SuperAccountRelationRepository;
 import com.grash.security.CurrentUser;
 import com.grash.security.JwtTokenProvider;
+import com.grash.security.RateLimited;
 import com.grash.service.EmailService2;
 import com.grash.service.UserService;
 import com.grash.service.VerificationTokenService;
@@ -45,6 +46,7 @@ public class AuthController {
     @Value("${frontend.url}")
     private String frontendUrl;
 
+    @RateLimited("login")
     @PostMapping(
             path = "/signin",
             produces = {
@@ -63,6 +65,7 @@ public class AuthController {
         return new ResponseEntity<>(authResponse, HttpStatus.OK);
     }
 
+    @RateLimited("signup")
     @PostMapping(
             path = "/signup",
             produces = {
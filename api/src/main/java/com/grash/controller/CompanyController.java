@@ -62,7 +62,7 @@ public class CompanyController {
 
         if (optionalCompany.isPresent()) {
             Company savedCompany = optionalCompany.get();
-            if (!user.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS))
+            if (!user.getRole().canView(PermissionEntity.SETTINGS))
                 throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
             return companyMapper.toShowDto(companyService.update(id, company));
         } else throw new CustomException("Company not found", HttpStatus.NOT_FOUND);
@@ -46,7 +46,7 @@ public class CostCategoryController {
     public Collection<CostCategory> getAll(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
                 CompanySettings companySettings = user.getCompany().getCompanySettings();
                 return costCategoryService.findByCompanySettings(companySettings.getId());
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
@@ -61,7 +61,7 @@ public class CostCategoryController {
             @ApiResponse(code = 404, message = "CostCategory not found")})
     public CostCategory getById(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
             Optional<CostCategory> costCategoryOptional = costCategoryService.findById(id);
             if (costCategoryOptional.isPresent()) {
                 CostCategory costCategory = costCategoryOptional.get();
@@ -78,7 +78,7 @@ public class CostCategoryController {
             @ApiResponse(code = 403, message = "Access denied")})
     public CostCategory create(@ApiParam("CostCategory") @Valid @RequestBody CostCategory costCategoryReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             return costCategoryService.create(costCategoryReq);
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -92,10 +92,10 @@ public class CostCategoryController {
     public CostCategory patch(@ApiParam("CostCategory") @Valid @RequestBody CategoryPatchDTO costCategory, @ApiParam("id") @PathVariable("id") Long id,
                               HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             if (costCategoryService.findById(id).isPresent()) {
                 CostCategory savedCostCategory = costCategoryService.findById(id).get();
-                if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES) &&
+                if (user.getRole().canCreate(PermissionEntity.CATEGORIES) &&
                         user.getRole().getCompanySettings().getId().equals(savedCostCategory.getCompanySettings().getId())) {
                     return costCategoryService.update(id, costCategory);
                 } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
@@ -117,7 +117,7 @@ public class CostCategoryController {
         if (optionalCostCategory.isPresent()) {
             if (user.getCompany().getCompanySettings().getId().equals(optionalCostCategory.get().getCompanySettings().getId())
                     &&
-                    (optionalCostCategory.get().getCreatedBy()==null || optionalCostCategory.get().getCreatedBy().equals(user.getId()) || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.CATEGORIES))) {
+                    (optionalCostCategory.get().getCreatedBy()==null || optionalCostCategory.get().getCreatedBy().equals(user.getId()) || user.getRole().canDeleteOthers(PermissionEntity.CATEGORIES))) {
                 costCategoryService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
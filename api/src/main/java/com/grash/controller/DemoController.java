@@ -46,7 +46,7 @@ public class DemoController {
     @GetMapping("/generate-account")
     public SuccessResponse generateAccount(HttpServletRequest req) {
         String clientIp = req.getRemoteAddr(); // use IP as the key
-        if (!rateLimiterService.resolveBucket(clientIp).tryConsume(1)) {
+        if (!rateLimiterService.tryConsume(RateLimiterService.DEMO_POLICY, clientIp)) {
             return new SuccessResponse(false, "Rate limit exceeded. Try again later.");
         }
         UserSignupRequest userSignupRequest = new UserSignupRequest();
@@ -5,6 +5,7 @@ import com.grash.exception.CustomException;
 import com.grash.factory.StorageServiceFactory;
 import com.grash.model.OwnUser;
 import com.grash.model.enums.PermissionEntity;
+import com.grash.security.RateLimited;
 import com.grash.service.*;
 import com.grash.utils.CsvFileGenerator;
 import com.grash.utils.Helper;
@@ -26,6 +27,7 @@ import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 
 @RestController
+@RateLimited("export")
 @RequestMapping("/export")
 @Api(tags = "export")
 @RequiredArgsConstructor
@@ -46,7 +48,7 @@ public class ExportController {
     public ResponseEntity<SuccessResponse> exportWorkOrders(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.WORK_ORDERS)) {
+        if (user.getRole().canViewOthers(PermissionEntity.WORK_ORDERS)) {
             ByteArrayOutputStream target = new ByteArrayOutputStream();
             OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
             csvFileGenerator.writeWorkOrdersToCsv(workOrderService.findByCompany(user.getCompany().getId()),
@@ -65,7 +67,7 @@ public class ExportController {
     public ResponseEntity<SuccessResponse> exportAssets(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.ASSETS)) {
+        if (user.getRole().canViewOthers(PermissionEntity.ASSETS)) {
             ByteArrayOutputStream target = new ByteArrayOutputStream();
             OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
             csvFileGenerator.writeAssetsToCsv(assetService.findByCompany(user.getCompany().getId()),
@@ -84,7 +86,7 @@ public class ExportController {
     public ResponseEntity<SuccessResponse> exportLocations(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.LOCATIONS)) {
+        if (user.getRole().canViewOthers(PermissionEntity.LOCATIONS)) {
             ByteArrayOutputStream target = new ByteArrayOutputStream();
             OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
             csvFileGenerator.writeLocationsToCsv(locationService.findByCompany(user.getCompany().getId()),
@@ -103,7 +105,7 @@ public class ExportController {
     public ResponseEntity<SuccessResponse> exportParts(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS)) {
+        if (user.getRole().canViewOthers(PermissionEntity.PARTS_AND_MULTIPARTS)) {
             ByteArrayOutputStream target = new ByteArrayOutputStream();
             OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
             csvFileGenerator.writePartsToCsv(partService.findByCompany(user.getCompany().getId()), outputStreamWriter
@@ -122,7 +124,7 @@ public class ExportController {
     public ResponseEntity<SuccessResponse> exportMeters(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.METERS)) {
+        if (user.getRole().canViewOthers(PermissionEntity.METERS)) {
             ByteArrayOutputStream target = new ByteArrayOutputStream();
             OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
             csvFileGenerator.writeMetersToCsv(meterService.findByCompany(user.getCompany().getId()),
@@ -52,7 +52,7 @@ public class FileController {
                                               @RequestParam("type") FileType fileType,
                                               @RequestParam(value = "taskId", required = false) Integer taskId) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.FILES) &&
+        if (user.getRole().canCreate(PermissionEntity.FILES) &&
                 user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.FILE)) {
             Collection<File> result = new ArrayList<>();
             Arrays.asList(filesReq).forEach(fileReq -> {
@@ -77,9 +77,9 @@ public class FileController {
                                                     HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.FILES)) {
+            if (user.getRole().canView(PermissionEntity.FILES)) {
                 searchCriteria.filterCompany(user);
-                boolean canViewOthers = user.getRole().getViewOtherPermissions().contains(PermissionEntity.FILES);
+                boolean canViewOthers = user.getRole().canViewOthers(PermissionEntity.FILES);
                 if (!canViewOthers) {
                     searchCriteria.filterCreatedBy(user);
                 }
@@ -105,8 +105,8 @@ public class FileController {
         Optional<File> optionalFile = fileService.findById(id);
         if (optionalFile.isPresent()) {
             File savedFile = optionalFile.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.FILES) &&
-                    (user.getRole().getViewOtherPermissions().contains(PermissionEntity.FILES) || savedFile.getCreatedBy().equals(user.getId()))) {
+            if (user.getRole().canView(PermissionEntity.FILES) &&
+                    (user.getRole().canViewOthers(PermissionEntity.FILES) || savedFile.getCreatedBy().equals(user.getId()))) {
                 return fileMapper.toShowDto(savedFile);
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
@@ -126,7 +126,7 @@ public class FileController {
 
         if (optionalFile.isPresent()) {
             File savedFile = optionalFile.get();
-            if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.FILES) || savedFile.getCreatedBy().equals(user.getId())) {
+            if (user.getRole().canEditOthers(PermissionEntity.FILES) || savedFile.getCreatedBy().equals(user.getId())) {
                 savedFile.setName(file.getName());
                 return fileMapper.toShowDto(fileService.update(savedFile));
             } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
@@ -146,7 +146,7 @@ public class FileController {
         if (optionalFile.isPresent()) {
             File savedFile = optionalFile.get();
             if (user.getId().equals(savedFile.getCreatedBy())
-                    || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.FILES)) {
+                    || user.getRole().canDeleteOthers(PermissionEntity.FILES)) {
                 fileService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
@@ -74,7 +74,7 @@ public class GeneralPreferencesController {
         if (optionalGeneralPreferences.isPresent()) {
             GeneralPreferences savedGeneralPreferences = optionalGeneralPreferences.get();
             if (savedGeneralPreferences.getCompanySettings().getId().equals(user.getCompany().getCompanySettings().getId())
-                    && user.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS)) {
+                    && user.getRole().canView(PermissionEntity.SETTINGS)) {
                 return generalPreferencesService.update(id, generalPreferences);
             } else {
                 throw new CustomException("You don't have permission", HttpStatus.NOT_ACCEPTABLE);
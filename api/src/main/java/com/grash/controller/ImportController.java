@@ -39,7 +39,7 @@ public class ImportController {
     public ImportResponse importWorkOrders(@Valid @RequestBody List<WorkOrderImportDTO> toImport,
                                            HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.WORK_ORDERS)
+        if (user.getRole().canCreate(PermissionEntity.WORK_ORDERS)
                 && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.IMPORT_CSV)) {
             return importService.importWorkOrders(toImport, user.getCompany());
         } else {
@@ -51,7 +51,7 @@ public class ImportController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public ImportResponse importAssets(@Valid @RequestBody List<AssetImportDTO> toImport, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.ASSETS)
+        if (user.getRole().canCreate(PermissionEntity.ASSETS)
                 && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.IMPORT_CSV)) {
             return importService.importAssets(toImport, user.getCompany());
         } else {
@@ -64,7 +64,7 @@ public class ImportController {
     public ImportResponse importLocations(@Valid @RequestBody List<LocationImportDTO> toImport,
                                           HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.LOCATIONS)
+        if (user.getRole().canCreate(PermissionEntity.LOCATIONS)
                 && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.IMPORT_CSV)) {
             return importService.importLocations(toImport, user.getCompany());
         } else {
@@ -76,7 +76,7 @@ public class ImportController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public ImportResponse importMeters(@Valid @RequestBody List<MeterImportDTO> toImport, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.METERS) && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.IMPORT_CSV)) {
+        if (user.getRole().canCreate(PermissionEntity.METERS) && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.IMPORT_CSV)) {
             return importService.importMeters(toImport, user.getCompany());
         } else {
             throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
@@ -87,7 +87,7 @@ public class ImportController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public ImportResponse importParts(@Valid @RequestBody List<PartImportDTO> toImport, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS)
+        if (user.getRole().canCreate(PermissionEntity.PARTS_AND_MULTIPARTS)
                 && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.IMPORT_CSV)) {
             return importService.importParts(toImport, user.getCompany());
         } else {
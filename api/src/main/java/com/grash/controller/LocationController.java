@@ -55,10 +55,10 @@ public class LocationController {
     public List<LocationShowDTO> getAll(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.LOCATIONS)) {
+            if (user.getRole().canView(PermissionEntity.LOCATIONS)) {
                 return locationService.findByCompany(user.getCompany().getId()).stream().filter(location -> {
                     boolean canViewOthers =
-                            user.getRole().getViewOtherPermissions().contains(PermissionEntity.LOCATIONS);
+                            user.getRole().canViewOthers(PermissionEntity.LOCATIONS);
                     return canViewOthers || location.getCreatedBy().equals(user.getId());
                 }).map(location -> locationMapper.toShowDto(location, locationService)).collect(Collectors.toList());
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
@@ -73,9 +73,9 @@ public class LocationController {
                                                         HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.LOCATIONS)) {
+            if (user.getRole().canView(PermissionEntity.LOCATIONS)) {
                 searchCriteria.filterCompany(user);
-                boolean canViewOthers = user.getRole().getViewOtherPermissions().contains(PermissionEntity.ASSETS);
+                boolean canViewOthers = user.getRole().canViewOthers(PermissionEntity.ASSETS);
                 if (!canViewOthers) {
                     searchCriteria.filterCreatedBy(user);
                 }
@@ -101,7 +101,7 @@ public class LocationController {
         Optional<Location> optionalLocation = locationService.findById(id);
         if (optionalLocation.isPresent()) {
             Location savedLocation = optionalLocation.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.LOCATIONS)) {
+            if (user.getRole().canView(PermissionEntity.LOCATIONS)) {
                 return locationService.findLocationChildren(id, pageable.getSort()).stream().map(location -> locationMapper.toShowDto(location, locationService)).collect(Collectors.toList());
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
 
@@ -130,8 +130,8 @@ public class LocationController {
         Optional<Location> optionalLocation = locationService.findById(id);
         if (optionalLocation.isPresent()) {
             Location savedLocation = optionalLocation.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.LOCATIONS) &&
-                    (user.getRole().getViewOtherPermissions().contains(PermissionEntity.LOCATIONS) || savedLocation.getCreatedBy().equals(user.getId()))) {
+            if (user.getRole().canView(PermissionEntity.LOCATIONS) &&
+                    (user.getRole().canViewOthers(PermissionEntity.LOCATIONS) || savedLocation.getCreatedBy().equals(user.getId()))) {
                 return locationMapper.toShowDto(savedLocation, locationService);
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
@@ -145,7 +145,7 @@ public class LocationController {
     public LocationShowDTO create(@ApiParam("Location") @Valid @RequestBody Location locationReq,
                                   HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.LOCATIONS)) {
+        if (user.getRole().canCreate(PermissionEntity.LOCATIONS)) {
             Location savedLocation = locationService.create(locationReq, user.getCompany());
             locationService.notify(savedLocation, Helper.getLocale(user));
             return locationMapper.toShowDto(savedLocation, locationService);
@@ -166,7 +166,7 @@ public class LocationController {
         if (optionalLocation.isPresent()) {
             Location savedLocation = optionalLocation.get();
             em.detach(savedLocation);
-            if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.LOCATIONS) || savedLocation.getCreatedBy().equals(user.getId())) {
+            if (user.getRole().canEditOthers(PermissionEntity.LOCATIONS) || savedLocation.getCreatedBy().equals(user.getId())) {
                 if (location.getParentLocation() != null && location.getParentLocation().getId().equals(id))
                     throw new CustomException("Parent location cannot be the same id", HttpStatus.NOT_ACCEPTABLE);
 
@@ -190,7 +190,7 @@ public class LocationController {
         if (optionalLocation.isPresent()) {
             Location savedLocation = optionalLocation.get();
             if (savedLocation.getCreatedBy().equals(user.getId()) ||
-                    user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.LOCATIONS)) {
+                    user.getRole().canDeleteOthers(PermissionEntity.LOCATIONS)) {
                 locationService.delete(id);
                 return new ResponseEntity(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
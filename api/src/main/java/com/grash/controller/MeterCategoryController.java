@@ -42,7 +42,7 @@ public class MeterCategoryController {
     public Collection<MeterCategory> getAll(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
                 return meterCategoryService.findByCompany(user.getCompany().getId());
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
         } else return meterCategoryService.getAll();
@@ -56,7 +56,7 @@ public class MeterCategoryController {
             @ApiResponse(code = 404, message = "MeterCategory not found")})
     public MeterCategory getById(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
             Optional<MeterCategory> optionalMeterCategory = meterCategoryService.findById(id);
             if (optionalMeterCategory.isPresent()) {
                 MeterCategory savedMeterCategory = optionalMeterCategory.get();
@@ -73,7 +73,7 @@ public class MeterCategoryController {
             @ApiResponse(code = 403, message = "Access denied")})
     public MeterCategory create(@ApiParam("MeterCategory") @Valid @RequestBody MeterCategory meterCategoryReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             return meterCategoryService.create(meterCategoryReq);
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -88,7 +88,7 @@ public class MeterCategoryController {
                                HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         Optional<MeterCategory> optionalMeterCategory = meterCategoryService.findById(id);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
 
             if (optionalMeterCategory.isPresent()) {
                 MeterCategory savedMeterCategory = optionalMeterCategory.get();
@@ -110,7 +110,7 @@ public class MeterCategoryController {
         Optional<MeterCategory> optionalMeterCategory = meterCategoryService.findById(id);
         if (optionalMeterCategory.isPresent()) {
             MeterCategory savedMeterCategory = optionalMeterCategory.get();
-            if (savedMeterCategory.getCreatedBy().equals(user.getId()) || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (savedMeterCategory.getCreatedBy().equals(user.getId()) || user.getRole().canDeleteOthers(PermissionEntity.CATEGORIES)) {
                 meterCategoryService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
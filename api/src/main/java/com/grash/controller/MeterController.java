@@ -56,9 +56,9 @@ public class MeterController {
     public ResponseEntity<Page<MeterShowDTO>> search(@RequestBody SearchCriteria searchCriteria, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.METERS)) {
+            if (user.getRole().canView(PermissionEntity.METERS)) {
                 searchCriteria.filterCompany(user);
-                boolean canViewOthers = user.getRole().getViewOtherPermissions().contains(PermissionEntity.METERS);
+                boolean canViewOthers = user.getRole().canViewOthers(PermissionEntity.METERS);
                 if (!canViewOthers) {
                     searchCriteria.getFilterFields().add(FilterField.builder()
                             .field("createdBy")
@@ -100,8 +100,8 @@ public class MeterController {
         Optional<Meter> optionalMeter = meterService.findById(id);
         if (optionalMeter.isPresent()) {
             Meter savedMeter = optionalMeter.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.METERS) &&
-                    (user.getRole().getViewOtherPermissions().contains(PermissionEntity.METERS) ||
+            if (user.getRole().canView(PermissionEntity.METERS) &&
+                    (user.getRole().canViewOthers(PermissionEntity.METERS) ||
                             (savedMeter.getCreatedBy().equals(user.getId())) || savedMeter.getUsers().stream().anyMatch(u -> u.getId().equals(user.getId())))) {
                 return meterMapper.toShowDto(savedMeter, readingService);
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
@@ -115,7 +115,7 @@ public class MeterController {
             @ApiResponse(code = 403, message = "Access denied")})
     public MeterShowDTO create(@ApiParam("Meter") @Valid @RequestBody Meter meterReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.METERS)
+        if (user.getRole().canCreate(PermissionEntity.METERS)
                 && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.METER)) {
             Meter savedMeter = meterService.create(meterReq);
             meterService.notify(savedMeter, Helper.getLocale(user));
@@ -137,7 +137,7 @@ public class MeterController {
         if (optionalMeter.isPresent()) {
             Meter savedMeter = optionalMeter.get();
             em.detach(savedMeter);
-            if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.METERS) || savedMeter.getCreatedBy().equals(user.getId())) {
+            if (user.getRole().canEditOthers(PermissionEntity.METERS) || savedMeter.getCreatedBy().equals(user.getId())) {
                 Meter patchedMeter = meterService.update(id, meter);
                 meterService.patchNotify(savedMeter, patchedMeter, Helper.getLocale(user));
                 return meterMapper.toShowDto(patchedMeter, readingService);
@@ -172,7 +172,7 @@ public class MeterController {
         if (optionalMeter.isPresent()) {
             Meter savedMeter = optionalMeter.get();
             if (savedMeter.getCreatedBy().equals(user.getId()) ||
-                    user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.METERS)) {
+                    user.getRole().canDeleteOthers(PermissionEntity.METERS)) {
                 meterService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
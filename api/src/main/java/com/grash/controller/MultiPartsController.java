@@ -44,9 +44,9 @@ public class MultiPartsController {
     public Collection<MultiPartsShowDTO> getAll(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS)) {
+            if (user.getRole().canView(PermissionEntity.PARTS_AND_MULTIPARTS)) {
                 return multiPartsService.findByCompany(user.getCompany().getId()).stream().filter(multiPart -> {
-                    boolean canViewOthers = user.getRole().getViewOtherPermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS);
+                    boolean canViewOthers = user.getRole().canViewOthers(PermissionEntity.PARTS_AND_MULTIPARTS);
                     return canViewOthers || multiPart.getCreatedBy().equals(user.getId());
                 }).map(multiPartsMapper::toShowDto).collect(Collectors.toList());
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
@@ -64,8 +64,8 @@ public class MultiPartsController {
         Optional<MultiParts> optionalMultiParts = multiPartsService.findById(id);
         if (optionalMultiParts.isPresent()) {
             MultiParts savedMultiParts = optionalMultiParts.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS) &&
-                    (user.getRole().getViewOtherPermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS) || savedMultiParts.getCreatedBy().equals(user.getId()))) {
+            if (user.getRole().canView(PermissionEntity.PARTS_AND_MULTIPARTS) &&
+                    (user.getRole().canViewOthers(PermissionEntity.PARTS_AND_MULTIPARTS) || savedMultiParts.getCreatedBy().equals(user.getId()))) {
                 return multiPartsMapper.toShowDto(savedMultiParts);
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
@@ -78,7 +78,7 @@ public class MultiPartsController {
             @ApiResponse(code = 403, message = "Access denied")})
     public MultiPartsShowDTO create(@ApiParam("MultiParts") @Valid @RequestBody MultiParts multiPartsReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS)) {
+        if (user.getRole().canCreate(PermissionEntity.PARTS_AND_MULTIPARTS)) {
             return multiPartsMapper.toShowDto(multiPartsService.create(multiPartsReq));
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -96,7 +96,7 @@ public class MultiPartsController {
 
         if (optionalMultiParts.isPresent()) {
             MultiParts savedMultiParts = optionalMultiParts.get();
-            if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS) || savedMultiParts.getCreatedBy().equals(user.getId())) {
+            if (user.getRole().canEditOthers(PermissionEntity.PARTS_AND_MULTIPARTS) || savedMultiParts.getCreatedBy().equals(user.getId())) {
                 return multiPartsMapper.toShowDto(multiPartsService.update(id, multiParts));
             } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
         } else throw new CustomException("MultiParts not found", HttpStatus.NOT_FOUND);
@@ -121,7 +121,7 @@ public class MultiPartsController {
         Optional<MultiParts> optionalMultiParts = multiPartsService.findById(id);
         if (optionalMultiParts.isPresent()) {
             MultiParts savedMultiParts = optionalMultiParts.get();
-            if (savedMultiParts.getId().equals(user.getId()) || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS)) {
+            if (savedMultiParts.getId().equals(user.getId()) || user.getRole().canDeleteOthers(PermissionEntity.PARTS_AND_MULTIPARTS)) {
                 multiPartsService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
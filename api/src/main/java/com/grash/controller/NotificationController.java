@@ -76,6 +76,13 @@ public class NotificationController {
         return new SuccessResponse(true, "Notifications read");
     }
 
+    @GetMapping("/unread-count")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public SuccessResponse getUnreadCount(HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        return new SuccessResponse(true, String.valueOf(notificationService.getUnreadCount(user.getId())));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("permitAll()")
     @ApiResponses(value = {//
@@ -42,7 +42,7 @@ public class PartCategoryController {
     public Collection<PartCategory> getAll(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
                 return partCategoryService.findByCompanySettings(user.getCompany().getCompanySettings().getId());
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
         } else return partCategoryService.getAll();
@@ -56,7 +56,7 @@ public class PartCategoryController {
             @ApiResponse(code = 404, message = "PartCategory not found")})
     public PartCategory getById(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
             Optional<PartCategory> optionalPartCategory = partCategoryService.findById(id);
             if (optionalPartCategory.isPresent()) {
                 return partCategoryService.findById(id).get();
@@ -71,7 +71,7 @@ public class PartCategoryController {
             @ApiResponse(code = 403, message = "Access denied")})
     public PartCategory create(@ApiParam("PartCategory") @Valid @RequestBody PartCategory partCategoryReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             return partCategoryService.create(partCategoryReq);
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -87,7 +87,7 @@ public class PartCategoryController {
                                HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         Optional<PartCategory> optionalPartCategory = partCategoryService.findById(id);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             if (optionalPartCategory.isPresent()) {
                 return partCategoryService.update(id, partCategory);
             } else {
@@ -107,7 +107,7 @@ public class PartCategoryController {
 
         Optional<PartCategory> optionalPartCategory = partCategoryService.findById(id);
         if (optionalPartCategory.isPresent()) {
-            if (optionalPartCategory.get().getCreatedBy().equals(user.getId()) || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (optionalPartCategory.get().getCreatedBy().equals(user.getId()) || user.getRole().canDeleteOthers(PermissionEntity.CATEGORIES)) {
                 partCategoryService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
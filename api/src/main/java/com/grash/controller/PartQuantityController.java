@@ -229,7 +229,7 @@ public class PartQuantityController {
             PartQuantity savedPartQuantity = optionalPartQuantity.get();
             if
             (user.getId().equals(savedPartQuantity.getCreatedBy())
-                    || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS)) {
+                    || user.getRole().canDeleteOthers(PermissionEntity.PARTS_AND_MULTIPARTS)) {
                 partQuantityService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
@@ -42,7 +42,7 @@ public class PurchaseOrderCategoryController {
     public Collection<PurchaseOrderCategory> getAll(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
                 return PurchaseOrderCategoryService.findByCompanySettings(user.getCompany().getCompanySettings().getId());
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
         } else return PurchaseOrderCategoryService.getAll();
@@ -56,7 +56,7 @@ public class PurchaseOrderCategoryController {
             @ApiResponse(code = 404, message = "PurchaseOrderCategory not found")})
     public PurchaseOrderCategory getById(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
             Optional<PurchaseOrderCategory> optionalPurchaseOrderCategory = PurchaseOrderCategoryService.findById(id);
             if (optionalPurchaseOrderCategory.isPresent()) {
                 PurchaseOrderCategory savedPurchaseOrderCategory = optionalPurchaseOrderCategory.get();
@@ -73,7 +73,7 @@ public class PurchaseOrderCategoryController {
             @ApiResponse(code = 403, message = "Access denied")})
     public PurchaseOrderCategory create(@ApiParam("PurchaseOrderCategory") @Valid @RequestBody PurchaseOrderCategory PurchaseOrderCategoryReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             return PurchaseOrderCategoryService.create(PurchaseOrderCategoryReq);
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -87,7 +87,7 @@ public class PurchaseOrderCategoryController {
     public PurchaseOrderCategory patch(@ApiParam("PurchaseOrderCategory") @Valid @RequestBody CategoryPatchDTO categoryPatchDTO, @ApiParam("id") @PathVariable("id") Long id,
                                        HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             Optional<PurchaseOrderCategory> optionalPurchaseOrderCategory = PurchaseOrderCategoryService.findById(id);
             if (optionalPurchaseOrderCategory.isPresent()) {
                 PurchaseOrderCategory savedPurchaseOrderCategory = optionalPurchaseOrderCategory.get();
@@ -109,7 +109,7 @@ public class PurchaseOrderCategoryController {
         Optional<PurchaseOrderCategory> optionalPurchaseOrderCategory = PurchaseOrderCategoryService.findById(id);
         if (optionalPurchaseOrderCategory.isPresent()) {
             PurchaseOrderCategory savedPurchaseOrderCategory = optionalPurchaseOrderCategory.get();
-            if (savedPurchaseOrderCategory.getCreatedBy().equals(user.getId()) || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (savedPurchaseOrderCategory.getCreatedBy().equals(user.getId()) || user.getRole().canDeleteOthers(PermissionEntity.CATEGORIES)) {
                 PurchaseOrderCategoryService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
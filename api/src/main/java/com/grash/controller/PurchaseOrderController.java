@@ -59,10 +59,10 @@ public class PurchaseOrderController {
                                                              HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.PURCHASE_ORDERS)) {
+            if (user.getRole().canView(PermissionEntity.PURCHASE_ORDERS)) {
                 searchCriteria.filterCompany(user);
                 boolean canViewOthers =
-                        user.getRole().getViewOtherPermissions().contains(PermissionEntity.PURCHASE_ORDERS);
+                        user.getRole().canViewOthers(PermissionEntity.PURCHASE_ORDERS);
                 if (!canViewOthers) {
                     searchCriteria.filterCreatedBy(user);
                 }
@@ -82,8 +82,8 @@ public class PurchaseOrderController {
         Optional<PurchaseOrder> optionalPurchaseOrder = purchaseOrderService.findById(id);
         if (optionalPurchaseOrder.isPresent()) {
             PurchaseOrder savedPurchaseOrder = optionalPurchaseOrder.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.PURCHASE_ORDERS) &&
-                    (user.getRole().getViewOtherPermissions().contains(PermissionEntity.PURCHASE_ORDERS) || savedPurchaseOrder.getCreatedBy().equals(user.getId()))) {
+            if (user.getRole().canView(PermissionEntity.PURCHASE_ORDERS) &&
+                    (user.getRole().canViewOthers(PermissionEntity.PURCHASE_ORDERS) || savedPurchaseOrder.getCreatedBy().equals(user.getId()))) {
                 return setPartQuantities(purchaseOrderMapper.toShowDto(savedPurchaseOrder));
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
@@ -97,7 +97,7 @@ public class PurchaseOrderController {
     public PurchaseOrderShowDTO create(@ApiParam("PurchaseOrder") @Valid @RequestBody PurchaseOrder purchaseOrderReq,
                                        HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.PURCHASE_ORDERS)
+        if (user.getRole().canCreate(PermissionEntity.PURCHASE_ORDERS)
                 && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.PURCHASE_ORDER)) {
             PurchaseOrder savedPurchaseOrder = purchaseOrderService.create(purchaseOrderReq);
             Collection<Workflow> workflows =
@@ -117,12 +117,13 @@ public class PurchaseOrderController {
                 put("message", message);
             }};
             Collection<OwnUser> usersToNotify = userService.findByCompany(user.getCompany().getId()).stream()
-                    .filter(user1 -> user1.isEnabled() && user1.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS) ||
+                    .filter(user1 -> user1.isEnabled() && user1.getRole().canView(PermissionEntity.SETTINGS) ||
                             user1.getRole().getCode().equals(RoleCode.LIMITED_ADMIN)).collect(Collectors.toList());
             notificationService.createMultiple(usersToNotify.stream().map(user1 -> new Notification(message, user1,
                     NotificationType.PURCHASE_ORDER, result.getId())).collect(Collectors.toList()), true, title);
             Collection<OwnUser> usersToMail =
-                    usersToNotify.stream().filter(user1 -> user1.getUserSettings().shouldEmailUpdatesForPurchaseOrders()).collect(Collectors.toList());
+                    usersToNotify.stream().filter(user1 -> user1.getUserSettings().shouldEmailUpdatesForPurchaseOrders()
+                            && !user1.getUserSettings().isNotificationDigest()).collect(Collectors.toList());
             emailService2.sendMessageUsingThymeleafTemplate(usersToMail.stream().map(OwnUser::getEmail).toArray(String[]::new), messageSource.getMessage("new_po", null, Helper.getLocale(user)), mailVariables, "new-purchase-order.html", Helper.getLocale(user));
             return result;
         } else throw new
@@ -144,7 +145,7 @@ public class PurchaseOrderController {
 
         if (optionalPurchaseOrder.isPresent()) {
             PurchaseOrder savedPurchaseOrder = optionalPurchaseOrder.get();
-            if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.PURCHASE_ORDERS) || savedPurchaseOrder.getCreatedBy().equals(user.getId())) {
+            if (user.getRole().canEditOthers(PermissionEntity.PURCHASE_ORDERS) || savedPurchaseOrder.getCreatedBy().equals(user.getId())) {
                 PurchaseOrder patchedPurchaseOrder = purchaseOrderService.update(id, purchaseOrder);
                 Collection<Workflow> workflows =
                         workflowService.findByMainConditionAndCompany(WFMainCondition.PURCHASE_ORDER_UPDATED,
@@ -169,7 +170,7 @@ public class PurchaseOrderController {
 
         if (optionalPurchaseOrder.isPresent()) {
             PurchaseOrder savedPurchaseOrder = optionalPurchaseOrder.get();
-            if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.PURCHASE_ORDERS)) {
+            if (user.getRole().canEditOthers(PermissionEntity.PURCHASE_ORDERS)) {
                 if (!savedPurchaseOrder.getStatus().equals(ApprovalStatus.APPROVED)) {
                     if (approved) {
                         Collection<PartQuantity> partQuantities =
@@ -202,7 +203,7 @@ public class PurchaseOrderController {
         if (optionalPurchaseOrder.isPresent()) {
             PurchaseOrder savedPurchaseOrder = optionalPurchaseOrder.get();
             if (savedPurchaseOrder.getCreatedBy().equals(user.getId()) ||
-                    user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.PURCHASE_ORDERS)) {
+                    user.getRole().canDeleteOthers(PermissionEntity.PURCHASE_ORDERS)) {
                 purchaseOrderService.delete(id);
                 return new ResponseEntity(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
@@ -58,9 +58,9 @@ public class RequestController {
                                                        HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.REQUESTS)) {
+            if (user.getRole().canView(PermissionEntity.REQUESTS)) {
                 searchCriteria.filterCompany(user);
-                boolean canViewOthers = user.getRole().getViewOtherPermissions().contains(PermissionEntity.REQUESTS);
+                boolean canViewOthers = user.getRole().canViewOthers(PermissionEntity.REQUESTS);
                 if (!canViewOthers) {
                     searchCriteria.filterCreatedBy(user);
                 }
@@ -73,7 +73,7 @@ public class RequestController {
     @PreAuthorize("permitAll()")
     public SuccessResponse getPending(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT) && user.getRole().getViewPermissions().contains(PermissionEntity.REQUESTS)) {
+        if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT) && user.getRole().canView(PermissionEntity.REQUESTS)) {
             return new SuccessResponse(true, requestService.countPending(user.getCompany().getId()).toString());
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -89,8 +89,8 @@ public class RequestController {
         Optional<Request> optionalRequest = requestService.findById(id);
         if (optionalRequest.isPresent()) {
             Request savedRequest = optionalRequest.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.REQUESTS) &&
-                    (user.getRole().getViewOtherPermissions().contains(PermissionEntity.REQUESTS) || savedRequest.getCreatedBy().equals(user.getId()))) {
+            if (user.getRole().canView(PermissionEntity.REQUESTS) &&
+                    (user.getRole().canViewOthers(PermissionEntity.REQUESTS) || savedRequest.getCreatedBy().equals(user.getId()))) {
                 return requestMapper.toShowDto(savedRequest);
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
@@ -103,12 +103,12 @@ public class RequestController {
             @ApiResponse(code = 403, message = "Access denied")})
     public RequestShowDTO create(@ApiParam("Request") @Valid @RequestBody Request requestReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.REQUESTS)) {
+        if (user.getRole().canCreate(PermissionEntity.REQUESTS)) {
             Request createdRequest = requestService.create(requestReq, user.getCompany());
             String title = messageSource.getMessage("new_request", null, Helper.getLocale(user));
             String message = messageSource.getMessage("notification_new_request", null, Helper.getLocale(user));
             List<OwnUser> usersToNotify = userService.findByCompany(user.getCompany().getId()).stream()
-                    .filter(user1 -> user1.isEnabled() && user1.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS)
+                    .filter(user1 -> user1.isEnabled() && user1.getRole().canView(PermissionEntity.SETTINGS)
                             || user1.getRole().getCode().equals(RoleCode.LIMITED_ADMIN)).collect(Collectors.toList());
             notificationService.createMultiple(usersToNotify
                     .stream().map(user1 -> new Notification(message, user1, NotificationType.REQUEST,
@@ -148,7 +148,7 @@ public class RequestController {
             if (savedRequest.getWorkOrder() != null) {
                 throw new CustomException("Can't patch an approved request", HttpStatus.NOT_ACCEPTABLE);
             }
-            if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.REQUESTS) || savedRequest.getCreatedBy().equals(user.getId())) {
+            if (user.getRole().canEditOthers(PermissionEntity.REQUESTS) || savedRequest.getCreatedBy().equals(user.getId())) {
                 Request patchedRequest = requestService.update(id, request);
                 return requestMapper.toShowDto(patchedRequest);
             } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
@@ -166,7 +166,7 @@ public class RequestController {
                                     HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         Optional<Request> optionalRequest = requestService.findById(id);
-        if (!(user.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS) || user.getRole().getCode().equals(RoleCode.LIMITED_ADMIN))) {
+        if (!(user.getRole().canView(PermissionEntity.SETTINGS) || user.getRole().getCode().equals(RoleCode.LIMITED_ADMIN))) {
             throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
         }
         if (optionalRequest.isPresent()) {
@@ -224,7 +224,7 @@ public class RequestController {
                                  HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         Optional<Request> optionalRequest = requestService.findById(id);
-        if (!(user.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS) || user.getRole().getCode().equals(RoleCode.LIMITED_ADMIN))) {
+        if (!(user.getRole().canView(PermissionEntity.SETTINGS) || user.getRole().getCode().equals(RoleCode.LIMITED_ADMIN))) {
             throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
         }
         if (optionalRequest.isPresent()) {
@@ -283,7 +283,7 @@ public class RequestController {
         if (optionalRequest.isPresent()) {
             Request savedRequest = optionalRequest.get();
             if (savedRequest.getCreatedBy().equals(user.getId()) ||
-                    user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.REQUESTS)) {
+                    user.getRole().canDeleteOthers(PermissionEntity.REQUESTS)) {
                 requestService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
@@ -42,7 +42,7 @@ public class TimeCategoryController {
     public Collection<TimeCategory> getAll(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
                 return timeCategoryService.findByCompanySettings(user.getCompany().getCompanySettings().getId());
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
         } else return timeCategoryService.getAll();
@@ -56,7 +56,7 @@ public class TimeCategoryController {
             @ApiResponse(code = 404, message = "TimeCategory not found")})
     public TimeCategory getById(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
             Optional<TimeCategory> optionalTimeCategory = timeCategoryService.findById(id);
             if (optionalTimeCategory.isPresent()) {
                 TimeCategory savedTimeCategory = optionalTimeCategory.get();
@@ -73,7 +73,7 @@ public class TimeCategoryController {
             @ApiResponse(code = 403, message = "Access denied")})
     public TimeCategory create(@ApiParam("TimeCategory") @Valid @RequestBody TimeCategory timeCategoryReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             return timeCategoryService.create(timeCategoryReq);
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -88,7 +88,7 @@ public class TimeCategoryController {
                               HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         Optional<TimeCategory> optionalTimeCategory = timeCategoryService.findById(id);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             if (optionalTimeCategory.isPresent()) {
                 TimeCategory savedTimeCategory = optionalTimeCategory.get();
                 return timeCategoryService.update(id, timeCategory);
@@ -109,7 +109,7 @@ public class TimeCategoryController {
         Optional<TimeCategory> optionalTimeCategory = timeCategoryService.findById(id);
         if (optionalTimeCategory.isPresent()) {
             TimeCategory savedTimeCategory = optionalTimeCategory.get();
-            if (savedTimeCategory.getCreatedBy()==null ||savedTimeCategory.getCreatedBy().equals(user.getId()) || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (savedTimeCategory.getCreatedBy()==null ||savedTimeCategory.getCreatedBy().equals(user.getId()) || user.getRole().canDeleteOthers(PermissionEntity.CATEGORIES)) {
                 timeCategoryService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
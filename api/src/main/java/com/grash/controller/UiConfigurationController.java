@@ -40,7 +40,7 @@ public class UiConfigurationController {
 
         if (optionalUiConfiguration.isPresent()) {
             UiConfiguration savedUiConfiguration = optionalUiConfiguration.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS)) {
+            if (user.getRole().canView(PermissionEntity.SETTINGS)) {
                 return uiConfigurationService.update(savedUiConfiguration.getId(), uiConfiguration);
             } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
         } else throw new CustomException("UiConfiguration not found", HttpStatus.NOT_FOUND);
@@ -46,7 +46,7 @@ public class UserController {
     public ResponseEntity<Page<UserResponseDTO>> search(@RequestBody SearchCriteria searchCriteria,
                                                         @ApiIgnore @CurrentUser OwnUser user) {
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.PEOPLE_AND_TEAMS)) {
+            if (user.getRole().canView(PermissionEntity.PEOPLE_AND_TEAMS)) {
                 searchCriteria.filterCompany(user);
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
         }
@@ -60,7 +60,7 @@ public class UserController {
             @ApiResponse(code = 403, message = "Access denied"),
             @ApiResponse(code = 404, message = "TeamCategory not found")})
     public SuccessResponse invite(@RequestBody UserInvitationDTO invitation, @ApiIgnore @CurrentUser OwnUser user) {
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.PEOPLE_AND_TEAMS)) {
+        if (user.getRole().canCreate(PermissionEntity.PEOPLE_AND_TEAMS)) {
             int companyUsersCount =
                     (int) userService.findByCompany(user.getCompany().getId()).stream().filter(user1 -> user1.isEnabled() && user1.isEnabledInSubscriptionAndPaid()).count();
             Optional<Role> optionalRole = roleService.findById(invitation.getRole().getId());
@@ -120,7 +120,7 @@ public class UserController {
         if (optionalUser.isPresent()) {
             OwnUser savedUser = optionalUser.get();
             if (requester.getId().equals(savedUser.getId()) ||
-                    requester.getRole().getEditOtherPermissions().contains(PermissionEntity.PEOPLE_AND_TEAMS)) {
+                    requester.getRole().canEditOthers(PermissionEntity.PEOPLE_AND_TEAMS)) {
                 return userMapper.toResponseDto(userService.update(id, userReq));
             } else {
                 throw new CustomException("You don't have permission", HttpStatus.NOT_ACCEPTABLE);
@@ -161,7 +161,7 @@ public class UserController {
 
         if (optionalUserToPatch.isPresent() && optionalRole.isPresent() && optionalRole.get().getCompanySettings().getId().equals(requester.getCompany().getCompanySettings().getId())) {
             OwnUser userToPatch = optionalUserToPatch.get();
-            if (requester.getRole().getEditOtherPermissions().contains(PermissionEntity.PEOPLE_AND_TEAMS)) {
+            if (requester.getRole().canEditOthers(PermissionEntity.PEOPLE_AND_TEAMS)) {
                 int usersCount =
                         (int) userService.findByCompany(requester.getCompany().getId()).stream().filter(OwnUser::isEnabledInSubscriptionAndPaid).count();
                 if (usersCount <= requester.getCompany().getSubscription().getUsersCount()) {
@@ -191,7 +191,7 @@ public class UserController {
 
         if (optionalUserToDisable.isPresent()) {
             OwnUser userToDisable = optionalUserToDisable.get();
-            if (requester.getRole().getEditOtherPermissions().contains(PermissionEntity.PEOPLE_AND_TEAMS)) {
+            if (requester.getRole().canEditOthers(PermissionEntity.PEOPLE_AND_TEAMS)) {
                 userToDisable.setEnabled(false);
                 userToDisable.setEnabledInSubscription(false);
                 return userMapper.toResponseDto(userService.save(userToDisable));
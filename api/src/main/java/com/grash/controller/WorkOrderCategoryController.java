@@ -42,7 +42,7 @@ public class WorkOrderCategoryController {
     public Collection<WorkOrderCategory> getAll(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
                 return workOrderCategoryService.findByCompanySettings(user.getCompany().getCompanySettings().getId());
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
         } else return workOrderCategoryService.getAll();
@@ -57,7 +57,7 @@ public class WorkOrderCategoryController {
     public WorkOrderCategory getById(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         Optional<WorkOrderCategory> optionalWorkOrderCategory = workOrderCategoryService.findById(id);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canView(PermissionEntity.CATEGORIES)) {
             if (optionalWorkOrderCategory.isPresent()) {
                 WorkOrderCategory savedWorkOrderCategory = optionalWorkOrderCategory.get();
                 return savedWorkOrderCategory;
@@ -73,7 +73,7 @@ public class WorkOrderCategoryController {
             @ApiResponse(code = 403, message = "Access denied")})
     public WorkOrderCategory create(@ApiParam("WorkOrderCategory") @Valid @RequestBody WorkOrderCategory workOrderCategory, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
             return workOrderCategoryService.create(workOrderCategory);
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -88,7 +88,7 @@ public class WorkOrderCategoryController {
                                    HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         Optional<WorkOrderCategory> optionalWorkOrderCategory = workOrderCategoryService.findById(id);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.CATEGORIES)) {
+        if (user.getRole().canCreate(PermissionEntity.CATEGORIES)) {
 
             if (optionalWorkOrderCategory.isPresent()) {
                 WorkOrderCategory savedWorkOrderCategory = optionalWorkOrderCategory.get();
@@ -110,7 +110,7 @@ public class WorkOrderCategoryController {
         Optional<WorkOrderCategory> optionalWorkOrderCategory = workOrderCategoryService.findById(id);
         if (optionalWorkOrderCategory.isPresent()) {
             WorkOrderCategory savedWorkOrderCategory = optionalWorkOrderCategory.get();
-            if (savedWorkOrderCategory.getCreatedBy().equals(user.getId()) || user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.CATEGORIES)) {
+            if (savedWorkOrderCategory.getCreatedBy().equals(user.getId()) || user.getRole().canDeleteOthers(PermissionEntity.CATEGORIES)) {
                 workOrderCategoryService.delete(id);
                 return new ResponseEntity<>(new SuccessResponse(true, "Deleted successfully"),
                         HttpStatus.OK);
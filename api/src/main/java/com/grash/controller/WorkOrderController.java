@@ -3,6 +3,10 @@ package com.grash.controller;
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.dto.*;
 import com.grash.dto.workOrder.WorkOrderPostDTO;
+import com.grash.event.DomainEventBus;
+import com.grash.event.WorkOrderArchivedEvent;
+import com.grash.event.WorkOrderAssignedEvent;
+import com.grash.event.WorkOrderStatusChangedEvent;
 import com.grash.exception.CustomException;
 import com.grash.factory.StorageServiceFactory;
 import com.grash.mapper.PreventiveMaintenanceMapper;
@@ -10,7 +14,6 @@ import com.grash.mapper.WorkOrderMapper;
 import com.grash.model.*;
 import com.grash.model.abstracts.WorkOrderBase;
 import com.grash.model.enums.*;
-import com.grash.model.enums.workflow.WFMainCondition;
 import com.grash.service.*;
 import com.grash.utils.Helper;
 import com.grash.utils.MultipartFileImpl;
@@ -66,7 +69,6 @@ public class WorkOrderController {
     private final PartService partService;
     private final FileService fileService;
     private final PartQuantityService partQuantityService;
-    private final NotificationService notificationService;
     private final EmailService2 emailService2;
     private final TeamService teamService;
     private final TaskService taskService;
@@ -75,9 +77,9 @@ public class WorkOrderController {
     private final WorkOrderHistoryService workOrderHistoryService;
     private final SpringTemplateEngine thymeleafTemplateEngine;
     private final StorageServiceFactory storageServiceFactory;
-    private final WorkflowService workflowService;
     private final Environment environment;
     private final PreventiveMaintenanceService preventiveMaintenanceService;
+    private final DomainEventBus domainEventBus;
     private final EntityManager em;
     private final PreventiveMaintenanceMapper preventiveMaintenanceMapper;
     private final BrandingService brandingService;
@@ -110,11 +112,13 @@ public class WorkOrderController {
     public Collection<CalendarEvent<WorkOrderBaseMiniDTO>> getEvents(@Valid @RequestBody DateRange
                                                                              dateRange, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.WORK_ORDERS)) {
+        if (user.getRole().canView(PermissionEntity.WORK_ORDERS)) {
             List<CalendarEvent<WorkOrderBaseMiniDTO>> result = new ArrayList<>();
-            result.addAll(preventiveMaintenanceService.getEvents(dateRange.getEnd(), user.getCompany().getId()).stream()
-                    .filter(calendarEvent -> calendarEvent.getDate().after(new Date()))
-                    .filter(calendarEvent -> canViewWorkOrderBase(user, calendarEvent.getEvent()))
+            //only upcoming preventive maintenances
+            Date now = new Date();
+            Date start = dateRange.getStart() == null || dateRange.getStart().before(now) ? now :
+                    dateRange.getStart();
+            result.addAll(preventiveMaintenanceService.getEvents(start, dateRange.getEnd(), user).stream()
                     .map(calendarEvent -> new CalendarEvent<>(calendarEvent.getType(),
                             preventiveMaintenanceMapper.toBaseMiniDto(calendarEvent.getEvent()),
                             calendarEvent.getDate()))
@@ -128,7 +132,7 @@ public class WorkOrderController {
 
     private boolean canViewWorkOrderBase(OwnUser user, WorkOrderBase workOrderBase) {
         boolean canViewOthers =
-                user.getRole().getViewOtherPermissions().contains(workOrderBase instanceof PreventiveMaintenance ?
+                user.getRole().canViewOthers(workOrderBase instanceof PreventiveMaintenance ?
                         PermissionEntity.PREVENTIVE_MAINTENANCES : PermissionEntity.WORK_ORDERS);
         return canViewOthers || (workOrderBase.getCreatedBy() != null && workOrderBase.getCreatedBy().equals(user.getId())) || workOrderBase.isAssignedTo(user);
 
@@ -163,8 +167,8 @@ public class WorkOrderController {
         Optional<WorkOrder> optionalWorkOrder = workOrderService.findById(id);
         if (optionalWorkOrder.isPresent()) {
             WorkOrder savedWorkOrder = optionalWorkOrder.get();
-            if ((user.getRole().getViewPermissions().contains(PermissionEntity.WORK_ORDERS) &&
-                    (user.getRole().getViewOtherPermissions().contains(PermissionEntity.WORK_ORDERS) || (savedWorkOrder.getCreatedBy() != null && savedWorkOrder.getCreatedBy().equals(user.getId())) || savedWorkOrder.isAssignedTo(user)))
+            if ((user.getRole().canView(PermissionEntity.WORK_ORDERS) &&
+                    (user.getRole().canViewOthers(PermissionEntity.WORK_ORDERS) || (savedWorkOrder.getCreatedBy() != null && savedWorkOrder.getCreatedBy().equals(user.getId())) || savedWorkOrder.isAssignedTo(user)))
                     || savedWorkOrder.getParentRequest() != null && savedWorkOrder.getParentRequest().getCreatedBy().equals(user.getId())
             ) {
                 return workOrderMapper.toShowDto(savedWorkOrder);
@@ -180,7 +184,7 @@ public class WorkOrderController {
     public WorkOrderShowDTO create(@ApiParam("WorkOrder") @Valid @RequestBody WorkOrderPostDTO
                                            workOrderReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getCreatePermissions().contains(PermissionEntity.WORK_ORDERS)
+        if (user.getRole().canCreate(PermissionEntity.WORK_ORDERS)
                 && (workOrderReq.getSignature() == null ||
                 user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.SIGNATURE))) {
             if (user.getCompany().getCompanySettings().getGeneralPreferences().isAutoAssignWorkOrders()) {
@@ -224,24 +228,22 @@ public class WorkOrderController {
                                           workOrder, @ApiParam("id") @PathVariable("id") Long id,
                                   HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        Optional<WorkOrder> optionalWorkOrder = workOrderService.findById(id);
+        Optional<WorkOrder> optionalWorkOrder = workOrderService.findByIdForUpdate(id);
         if (optionalWorkOrder.isPresent()) {
             WorkOrder savedWorkOrder = optionalWorkOrder.get();
             if (savedWorkOrder.canBeEditedBy(user)) {
+                Set<Long> previousAssigneeIds =
+                        savedWorkOrder.getUsers().stream().map(OwnUser::getId).collect(Collectors.toSet());
                 em.detach(savedWorkOrder);
                 WorkOrder patchedWorkOrder = workOrderService.update(id, workOrder, user);
 
-                if (patchedWorkOrder.isArchived() && !savedWorkOrder.isArchived()) {
-                    Collection<Workflow> workflows =
-                            workflowService.findByMainConditionAndCompany(WFMainCondition.WORK_ORDER_ARCHIVED,
-                                    user.getCompany().getId());
-                    workflows.forEach(workflow -> workflowService.runWorkOrder(workflow, patchedWorkOrder));
-                }
+                if (patchedWorkOrder.isArchived() && !savedWorkOrder.isArchived())
+                    domainEventBus.publish(new WorkOrderArchivedEvent(id, user.getCompany().getId()));
 
-                boolean shouldNotify =
-                        !user.getCompany().getCompanySettings().getGeneralPreferences().isDisableClosedWorkOrdersNotif() || !patchedWorkOrder.getStatus().equals(Status.COMPLETE);
-                if (shouldNotify)
-                    workOrderService.patchNotify(savedWorkOrder, patchedWorkOrder, Helper.getLocale(user));
+                if (!patchedWorkOrder.getUsers().stream().map(OwnUser::getId).collect(Collectors.toSet())
+                        .equals(previousAssigneeIds))
+                    domainEventBus.publish(new WorkOrderAssignedEvent(id, user.getCompany().getId(),
+                            previousAssigneeIds));
                 return workOrderMapper.toShowDto(patchedWorkOrder);
             } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
         } else throw new CustomException("WorkOrder not found", HttpStatus.NOT_FOUND);
@@ -254,7 +256,7 @@ public class WorkOrderController {
                                                  workOrder, @ApiParam("id") @PathVariable("id") Long id,
                                          HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        Optional<WorkOrder> optionalWorkOrder = workOrderService.findById(id);
+        Optional<WorkOrder> optionalWorkOrder = workOrderService.findByIdForUpdate(id);
         WorkOrder savedWorkOrder = optionalWorkOrder.get();
         if (savedWorkOrder.getFirstTimeToReact() == null && !workOrder.getStatus().equals(Status.ON_HOLD))
             savedWorkOrder.setFirstTimeToReact(new Date());
@@ -290,39 +292,9 @@ public class WorkOrderController {
             }
             WorkOrder patchedWorkOrder = workOrderService.saveAndFlush(savedWorkOrder);
 
-            if (patchedWorkOrder.getStatus().equals(Status.COMPLETE) && !savedWorkOrderStatusBefore.equals(Status.COMPLETE)) {
-                List<OwnUser> admins =
-                        userService.findWorkersByCompany(user.getCompany().getId()).stream().filter(ownUser -> ownUser.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS) && ownUser.isEnabled() && ownUser.getUserSettings().shouldEmailUpdatesForWorkOrders()).collect(Collectors.toList());
-                notificationService.createMultiple(admins.stream().map(admin -> new Notification(messageSource.getMessage("complete_work_order_content", new String[]{patchedWorkOrder.getTitle(), user.getFullName()}, Helper.getLocale(admin)), admin,
-                                NotificationType.WORK_ORDER, id)).collect(Collectors.toList()), true,
-                        messageSource.getMessage("complete_work_order", null, Helper.getLocale(user)));
-                Collection<Workflow> workflows =
-                        workflowService.findByMainConditionAndCompany(WFMainCondition.WORK_ORDER_CLOSED,
-                                user.getCompany().getId());
-                workflows.forEach(workflow -> workflowService.runWorkOrder(workflow, patchedWorkOrder));
-            }
-            if (user.getCompany().getCompanySettings().getGeneralPreferences().isWoUpdateForRequesters()
-                    && savedWorkOrderStatusBefore != patchedWorkOrder.getStatus()
-                    && patchedWorkOrder.getParentRequest() != null) {
-                Long requesterId = patchedWorkOrder.getParentRequest().getCreatedBy();
-                OwnUser requester = userService.findById(requesterId).get();
-                Locale locale = Helper.getLocale(user);
-                String message = messageSource.getMessage("notification_wo_request",
-                        new Object[]{patchedWorkOrder.getTitle(),
-                                messageSource.getMessage(patchedWorkOrder.getStatus().toString(), null, locale)},
-                        locale);
-                notificationService.create(new Notification(message, userService.findById(requesterId).get(),
-                        NotificationType.WORK_ORDER, id));
-                if (requester.getUserSettings().shouldEmailUpdatesForRequests() && requester.isEnabled()) {
-                    Map<String, Object> mailVariables = new HashMap<String, Object>() {{
-                        put("workOrderLink", frontendUrl + "/app/work-orders/" + id);
-                        put("message", message);
-                    }};
-                    emailService2.sendMessageUsingThymeleafTemplate(new String[]{requester.getEmail()},
-                            messageSource.getMessage("request_update", null, locale), mailVariables, "requester" +
-                                    "-update.html", Helper.getLocale(user));
-                }
-            }
+            if (savedWorkOrderStatusBefore != patchedWorkOrder.getStatus())
+                domainEventBus.publish(new WorkOrderStatusChangedEvent(id, user.getCompany().getId(), user.getId(),
+                        savedWorkOrderStatusBefore, patchedWorkOrder.getStatus()));
             return workOrderMapper.toShowDto(patchedWorkOrder);
         } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
     }
@@ -341,7 +313,7 @@ public class WorkOrderController {
             WorkOrder savedWorkOrder = optionalWorkOrder.get();
             if (
                     user.getId().equals(savedWorkOrder.getCreatedBy()) ||
-                            user.getRole().getDeleteOtherPermissions().contains(PermissionEntity.WORK_ORDERS)) {
+                            user.getRole().canDeleteOthers(PermissionEntity.WORK_ORDERS)) {
                 Map<String, Object> mailVariables = new HashMap<String, Object>() {{
                     put("featuresLink", frontendUrl + "/#key-features");
                     put("workOrdersLink", frontendUrl + "/app/work-orders");
@@ -352,7 +324,7 @@ public class WorkOrderController {
 
                 List<OwnUser> usersToMail =
                         userService.findByCompany(user.getCompany().getId()).stream().filter(user1 -> user1.getRole()
-                                        .getViewPermissions().contains(PermissionEntity.SETTINGS))
+                                        .canView(PermissionEntity.SETTINGS))
                                 .filter(user1 -> user1.isEnabled() && user1.getUserSettings().isEmailNotified()).collect(Collectors.toList());
 
                 emailService2.sendMessageUsingThymeleafTemplate(usersToMail.stream().map(OwnUser::getEmail)
@@ -376,8 +348,8 @@ public class WorkOrderController {
         Optional<WorkOrder> optionalWorkOrder = workOrderService.findById(id);
         if (optionalWorkOrder.isPresent()) {
             WorkOrder savedWorkOrder = optionalWorkOrder.get();
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.WORK_ORDERS) &&
-                    (user.getRole().getViewOtherPermissions().contains(PermissionEntity.WORK_ORDERS) || user.getId().equals(savedWorkOrder.getCreatedBy()) || savedWorkOrder.isAssignedTo(user))) {
+            if (user.getRole().canView(PermissionEntity.WORK_ORDERS) &&
+                    (user.getRole().canViewOthers(PermissionEntity.WORK_ORDERS) || user.getId().equals(savedWorkOrder.getCreatedBy()) || savedWorkOrder.isAssignedTo(user))) {
                 Context thymeleafContext = new Context();
                 thymeleafContext.setLocale(Helper.getLocale(user));
                 Optional<OwnUser> creator = savedWorkOrder.getCreatedBy() == null ? Optional.empty() :
@@ -443,7 +415,7 @@ public class WorkOrderController {
     @PreAuthorize("permitAll()")
     public SuccessResponse getUrgentCount(HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT) && user.getRole().getViewPermissions().contains(PermissionEntity.REQUESTS)) {
+        if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT) && user.getRole().canView(PermissionEntity.REQUESTS)) {
             return new SuccessResponse(true, workOrderService.countUrgent(user).toString());
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -63,7 +63,7 @@ public class WorkflowController {
             @ApiResponse(code = 403, message = "Access denied")})
     public Workflow create(@ApiParam("Workflow") @Valid @RequestBody WorkflowPostDTO workflowReq, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS)) {
+        if (user.getRole().canView(PermissionEntity.SETTINGS)) {
             int workflowsCount = (int) workflowService.findByCompany(user.getCompany().getId()).stream().filter(Workflow::isEnabled).count();
             if (user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.WORKFLOW) || workflowsCount == 0) {
                 return createWorkflow(workflowReq, user.getCompany());
@@ -341,8 +341,8 @@ public class AssetAnalyticsController {
         Asset savedAsset = assetService.findById(id).get();
         Date start = dateRange.getStart();
         Date end = dateRange.getEnd();
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.ASSETS) &&
-                (user.getRole().getViewOtherPermissions().contains(PermissionEntity.ASSETS) || savedAsset.getCreatedBy().equals(user.getId()))) {
+        if (user.getRole().canView(PermissionEntity.ASSETS) &&
+                (user.getRole().canViewOthers(PermissionEntity.ASSETS) || savedAsset.getCreatedBy().equals(user.getId()))) {
             AssetOverview result = AssetOverview.builder()
                     .mttr(assetService.getMTTR(id, start, end))
                     .mtbf(assetService.getMTBF(id, start, end))
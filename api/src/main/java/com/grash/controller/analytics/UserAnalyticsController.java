@@ -54,7 +54,7 @@ public class UserAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public ResponseEntity<List<WOStatsByDay>> getWoStatsByUserFor2Weeks(@PathVariable("id") Long id,
                                                                         @ApiIgnore @CurrentUser OwnUser user) {
-        if (user.getRole().getViewPermissions().contains(PermissionEntity.PEOPLE_AND_TEAMS)) {
+        if (user.getRole().canView(PermissionEntity.PEOPLE_AND_TEAMS)) {
             Optional<OwnUser> optionalUser = userService.findByIdAndCompany(id, user.getCompany().getId());
             if (optionalUser.isPresent()) {
                 Date firstDay = Helper.localDateToDate(LocalDate.now().minusDays(14));
@@ -0,0 +1,26 @@
+package com.grash.dto;
+
+import com.grash.model.enums.NotificationType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * What is sent over the WebSocket for a notification
+ */
+@Data
+@NoArgsConstructor
+public class NotificationMiniDTO {
+    private Long id;
+
+    private String message;
+
+    private boolean seen;
+
+    private NotificationType notificationType;
+
+    private Long resourceId;
+
+    private Date createdAt;
+}
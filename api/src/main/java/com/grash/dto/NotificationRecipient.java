@@ -0,0 +1,73 @@
+package com.grash.dto;
+
+import com.grash.model.enums.NotificationType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * What is needed to notify a user, read without loading the user
+ */
+@Data
+@NoArgsConstructor
+public class NotificationRecipient {
+    private Long userId;
+
+    private String email;
+
+    private boolean enabled;
+
+    private boolean emailNotified;
+
+    private boolean emailUpdatesForWorkOrders;
+
+    private boolean emailUpdatesForRequests;
+
+    private boolean emailUpdatesForPurchaseOrders;
+
+    private boolean notificationDigest;
+
+    private Locale locale;
+
+    private List<String> pushTokens = new ArrayList<>();
+
+    /**
+     * For the mails sent with notifications which the digest gathers, a digest user getting them in the digest email
+     */
+    public boolean shouldEmailUpdatesForWorkOrders() {
+        return enabled && email != null && emailNotified && emailUpdatesForWorkOrders && !notificationDigest;
+    }
+
+    public boolean shouldEmailUpdatesForRequests() {
+        return enabled && email != null && emailNotified && emailUpdatesForRequests && !notificationDigest;
+    }
+
+    public boolean shouldEmailUpdatesForPurchaseOrders() {
+        return enabled && email != null && emailNotified && emailUpdatesForPurchaseOrders && !notificationDigest;
+    }
+
+    public boolean shouldEmailDigests() {
+        return enabled && email != null && emailNotified && notificationDigest;
+    }
+
+    /**
+     * Whether a notification of this type is listed in the digest email, following the opt-outs of the per event
+     * emails
+     */
+    public boolean shouldEmailDigestOf(NotificationType notificationType) {
+        if (notificationType == null) return true;
+        switch (notificationType) {
+            case WORK_ORDER:
+                return emailUpdatesForWorkOrders;
+            case REQUEST:
+                return emailUpdatesForRequests;
+            case PURCHASE_ORDER:
+                return emailUpdatesForPurchaseOrders;
+            default:
+                return true;
+        }
+    }
+}
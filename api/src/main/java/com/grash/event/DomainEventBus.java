@@ -0,0 +1,187 @@
+package com.grash.event;
+
+import com.grash.configuration.EventBusProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bus for the work order events. The events of the {@link WorkOrderEventConsumer#isDurable() durable} consumers are
+ * written to the {@link DomainEventOutbox} in the transaction publishing them, and are consumed by any node at least
+ * once. The other consumers, like the caches of a node, are dispatched in process once the transaction commits, so
+ * that the side effects of a change neither see uncommitted rows nor slow down the request making it. Every in
+ * process consumer has its own partitions, each a thread and a bounded queue, and the events of a work order always
+ * go to the same partition so that a consumer sees them in order. The events waiting in a partition are handed to the
+ * consumer in batches. A partition full for longer than {@code events.offer-timeout} drops the event for its
+ * consumer, so that a stuck consumer never blocks the threads publishing. Events still queued at shutdown are
+ * processed before the bus stops, those of a node which dies are lost, which only consumers affording to miss events
+ * may subscribe in process for.
+ */
+@Slf4j
+@Component
+public class DomainEventBus {
+
+    private final EventBusProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final DomainEventOutbox domainEventOutbox;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<String> durableConsumers = new CopyOnWriteArrayList<>();
+
+    public DomainEventBus(EventBusProperties properties, MeterRegistry meterRegistry,
+                          DomainEventOutbox domainEventOutbox) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.domainEventOutbox = domainEventOutbox;
+    }
+
+    public void subscribe(WorkOrderEventConsumer consumer) {
+        if (consumer.isDurable()) {
+            durableConsumers.add(consumer.getName());
+            domainEventOutbox.subscribe(consumer);
+        } else subscriptions.add(new Subscription(consumer));
+    }
+
+    /**
+     * Writes the event to the outbox of the durable consumers within the current transaction, and dispatches it to
+     * the other consumers once the transaction commits, or right away outside of a transaction
+     */
+    public void publish(WorkOrderEvent event) {
+        Counter.builder("events.published").tag("type", event.getClass().getSimpleName()).register(meterRegistry)
+                .increment();
+        domainEventOutbox.add(durableConsumers, event);
+        if (subscriptions.isEmpty()) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else dispatch(event);
+    }
+
+    private void dispatch(WorkOrderEvent event) {
+        subscriptions.forEach(subscription -> subscription.offer(event));
+    }
+
+    /**
+     * Drains the queues on context close, before the beans the consumers use are destroyed
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void stop() throws InterruptedException {
+        subscriptions.forEach(Subscription::stop);
+        for (Subscription subscription : subscriptions) subscription.join();
+    }
+
+    private class Subscription {
+        private final WorkOrderEventConsumer consumer;
+        private final List<Partition> partitions = new ArrayList<>();
+        private final Counter succeeded;
+        private final Counter failed;
+        private final Counter dropped;
+        private final Timer duration;
+        private final Timer lag;
+
+        private Subscription(WorkOrderEventConsumer consumer) {
+            this.consumer = consumer;
+            String name = consumer.getName();
+            this.succeeded = Counter.builder("events.consumed").tag("consumer", name).tag("outcome", "success")
+                    .register(meterRegistry);
+            this.failed = Counter.builder("events.consumed").tag("consumer", name).tag("outcome", "failure")
+                    .register(meterRegistry);
+            this.dropped = Counter.builder("events.dropped").tag("consumer", name).register(meterRegistry);
+            this.duration = Timer.builder("events.batch.duration").tag("consumer", name).register(meterRegistry);
+            this.lag = Timer.builder("events.lag").tag("consumer", name).register(meterRegistry);
+            for (int i = 0; i < Math.max(1, properties.getPartitions()); i++) {
+                partitions.add(new Partition(this, name + "-events-" + i));
+            }
+            Gauge.builder("events.queue.size", partitions, list -> list.stream()
+                    .mapToInt(partition -> partition.queue.size()).sum()).tag("consumer", name)
+                    .register(meterRegistry);
+        }
+
+        private void offer(WorkOrderEvent event) {
+            int index = Math.floorMod(Long.hashCode(event.getWorkOrderId()), partitions.size());
+            boolean queued;
+            try {
+                queued = partitions.get(index).queue.offer(event, properties.getOfferTimeout().toMillis(),
+                        TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (!queued) {
+                dropped.increment();
+                log.warn("Dropped a {} of work order {} for {}, its partition is full",
+                        event.getClass().getSimpleName(), event.getWorkOrderId(), consumer.getName());
+            }
+        }
+
+        private void consume(List<WorkOrderEvent> events) {
+            long start = System.nanoTime();
+            lag.record(System.currentTimeMillis() - events.get(0).getOccurredAt().getTime(), TimeUnit.MILLISECONDS);
+            try {
+                consumer.accept(events);
+                succeeded.increment(events.size());
+            } catch (RuntimeException e) {
+                log.error("Consumer {} failed on {} events", consumer.getName(), events.size(), e);
+                failed.increment(events.size());
+            } finally {
+                duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void stop() {
+            partitions.forEach(partition -> partition.running = false);
+        }
+
+        private void join() throws InterruptedException {
+            for (Partition partition : partitions) partition.thread.join(10000);
+        }
+    }
+
+    private class Partition {
+        private final Subscription subscription;
+        private final BlockingQueue<WorkOrderEvent> queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Partition(Subscription subscription, String threadName) {
+            this.subscription = subscription;
+            this.thread = new Thread(this::run, threadName);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run() {
+            while (running || !queue.isEmpty()) {
+                WorkOrderEvent first;
+                try {
+                    first = queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (first == null) continue;
+                List<WorkOrderEvent> events = new ArrayList<>();
+                events.add(first);
+                queue.drainTo(events, properties.getMaxBatchSize() - 1);
+                subscription.consume(events);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.grash.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.configuration.EventBusProperties;
+import com.grash.job.BatchJobRunner;
+import com.grash.job.TriggerScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Work order events of the durable consumers are written to the {@code domain_event_outbox} table, one row per
+ * consumer, in the transaction of the change they are about, so that they are consumed if and only if it commits, and
+ * survive a restart or a consumer failure. Every node drains the rows of every durable consumer chunk by chunk: a short
+ * transaction claims the due events with {@code for update skip locked}, pushing their next attempt
+ * {@code events.outbox.claim-timeout} away, and they are then handed to the consumer with no row locked. Only the
+ * oldest pending event of a work order can be claimed, so that a consumer sees the events of a work order in order,
+ * whatever the node. An event is deleted once consumed, handed again if the node dies before, and retried with an
+ * exponential backoff when the consumer fails on it alone, holding back the following events of its work order, then left in the
+ * table as a dead letter.
+ */
+@Slf4j
+@Component
+public class DomainEventOutbox implements DisposableBean {
+
+    private static final String JOB = "domain-event-outbox";
+    private static final String PENDING = "PENDING";
+    private static final String DEAD = "DEAD";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BatchJobRunner batchJobRunner;
+    private final TriggerScheduler triggerScheduler;
+    private final MeterRegistry meterRegistry;
+    private final EventBusProperties properties;
+
+    public DomainEventOutbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, BatchJobRunner batchJobRunner,
+                             TriggerScheduler triggerScheduler, MeterRegistry meterRegistry,
+                             EventBusProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchJobRunner = batchJobRunner;
+        this.triggerScheduler = triggerScheduler;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    /**
+     * Starts draining the events of the consumer
+     */
+    public void subscribe(WorkOrderEventConsumer consumer) {
+        triggerScheduler.scheduleAtFixedRate(JOB, consumer.getName(), () -> dispatch(consumer), new Date(),
+                properties.getOutbox().getPollInterval().toMillis());
+    }
+
+    /**
+     * Queues the event for the consumers within the current transaction
+     */
+    public void add(Collection<String> consumers, WorkOrderEvent event) {
+        if (consumers.isEmpty()) return;
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize a " + event.getClass().getSimpleName(), e);
+        }
+        jdbcTemplate.batchUpdate("insert into domain_event_outbox (consumer, work_order_id, payload, status, " +
+                        "attempts, next_attempt_at, created_at) values (?, ?, ?, ?, 0, now(), now())",
+                consumers.stream().map(consumer -> new Object[]{consumer, event.getWorkOrderId(), payload, PENDING})
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Hands the due events to the consumer chunk by chunk until none is left. A chunk holding a single event per work
+     * order, an incomplete one does not mean that the table is drained.
+     */
+    public void dispatch(WorkOrderEventConsumer consumer) {
+        int batchSize = properties.getMaxBatchSize();
+        List<OutboxEvent> events;
+        do {
+            events = batchJobRunner.runChunk(JOB, () -> claim(consumer.getName(), batchSize), List::size);
+            if (!events.isEmpty()) consume(consumer, events);
+        } while (!events.isEmpty());
+    }
+
+    /**
+     * Claims the due events which are the oldest pending one of their work order, skipping those claimed by another
+     * node, counting the attempt about to be made
+     */
+    private List<OutboxEvent> claim(String consumer, int limit) {
+        List<OutboxEvent> events = jdbcTemplate.query("update domain_event_outbox set attempts = attempts + 1, " +
+                        "next_attempt_at = now() + ? * interval '1 millisecond' where id in (select e.id from " +
+                        "domain_event_outbox e where e.consumer = ? and e.status = ? and e.next_attempt_at <= now() " +
+                        "and not exists (select 1 from domain_event_outbox p where p.consumer = e.consumer and " +
+                        "p.work_order_id = e.work_order_id and p.status = ? and p.id < e.id) order by e.id limit ? " +
+                        "for update skip locked) returning id, payload, attempts",
+                (resultSet, rowNum) -> new OutboxEvent(resultSet.getLong("id"), resultSet.getString("payload"),
+                        resultSet.getInt("attempts")),
+                properties.getOutbox().getClaimTimeout().toMillis(), consumer, PENDING, PENDING, limit);
+        events.sort(Comparator.comparingLong(event -> event.id));
+        return events;
+    }
+
+    /**
+     * A chunk which fails is handed again event by event, so that only the failing events are retried
+     */
+    private void consume(WorkOrderEventConsumer consumer, List<OutboxEvent> outboxEvents) {
+        String name = consumer.getName();
+        Exception failure = accept(consumer, outboxEvents);
+        if (failure == null) {
+            jdbcTemplate.batchUpdate("delete from domain_event_outbox where id = ?", outboxEvents.stream()
+                    .map(outboxEvent -> new Object[]{outboxEvent.id}).collect(Collectors.toList()));
+            count(name, "success", outboxEvents.size());
+        } else if (outboxEvents.size() > 1) {
+            log.warn("Consumer {} failed on {} events, handing them one by one", name, outboxEvents.size());
+            outboxEvents.forEach(outboxEvent -> consume(consumer, Collections.singletonList(outboxEvent)));
+        } else {
+            log.error("Consumer {} failed on event {}", name, outboxEvents.get(0).id, failure);
+            count(name, "failure", 1);
+            onFailure(name, outboxEvents.get(0), failure);
+        }
+    }
+
+    /**
+     * @return the exception the consumer failed with, if any
+     */
+    private Exception accept(WorkOrderEventConsumer consumer, List<OutboxEvent> outboxEvents) {
+        String name = consumer.getName();
+        long start = System.nanoTime();
+        try {
+            List<WorkOrderEvent> events = new ArrayList<>();
+            for (OutboxEvent outboxEvent : outboxEvents) {
+                events.add(objectMapper.readValue(outboxEvent.payload, WorkOrderEvent.class));
+            }
+            Timer.builder("events.lag").tag("consumer", name).register(meterRegistry)
+                    .record(System.currentTimeMillis() - events.get(0).getOccurredAt().getTime(),
+                            TimeUnit.MILLISECONDS);
+            consumer.accept(events);
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return e;
+        } finally {
+            Timer.builder("events.batch.duration").tag("consumer", name).register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void onFailure(String consumer, OutboxEvent event, Exception e) {
+        int attempts = event.attempts;
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        EventBusProperties.Outbox outbox = properties.getOutbox();
+        if (attempts >= outbox.getMaxAttempts()) {
+            log.error("Giving up event {} of {} after {} attempts", event.id, consumer, attempts);
+            jdbcTemplate.update("update domain_event_outbox set status = ?, next_attempt_at = now(), last_error = ? " +
+                    "where id = ?", DEAD, error, event.id);
+            Counter.builder("events.dead").tag("consumer", consumer).register(meterRegistry).increment();
+        } else {
+            long backoff = outbox.getInitialBackoff().toMillis() << (attempts - 1);
+            jdbcTemplate.update("update domain_event_outbox set next_attempt_at = now() + ? * interval " +
+                    "'1 millisecond', last_error = ? where id = ?", backoff, error, event.id);
+        }
+    }
+
+    private void count(String consumer, String outcome, int events) {
+        Counter.builder("events.consumed").tag("consumer", consumer).tag("outcome", outcome).register(meterRegistry)
+                .increment(events);
+    }
+
+    @Override
+    public void destroy() {
+        triggerScheduler.cancel(JOB);
+    }
+
+    @AllArgsConstructor
+    private static class OutboxEvent {
+        private final long id;
+        private final String payload;
+        private final int attempts;
+    }
+}
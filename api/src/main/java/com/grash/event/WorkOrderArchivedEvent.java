@@ -0,0 +1,13 @@
+package com.grash.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class WorkOrderArchivedEvent extends WorkOrderEvent {
+
+    @JsonCreator
+    public WorkOrderArchivedEvent(@JsonProperty("workOrderId") Long workOrderId,
+                                  @JsonProperty("companyId") Long companyId) {
+        super(workOrderId, companyId);
+    }
+}
@@ -0,0 +1,23 @@
+package com.grash.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * The assignees of a work order may have changed, the new ones are those missing from the previous ones
+ */
+@Getter
+public class WorkOrderAssignedEvent extends WorkOrderEvent {
+    private final Set<Long> previousAssigneeIds;
+
+    @JsonCreator
+    public WorkOrderAssignedEvent(@JsonProperty("workOrderId") Long workOrderId,
+                                  @JsonProperty("companyId") Long companyId,
+                                  @JsonProperty("previousAssigneeIds") Set<Long> previousAssigneeIds) {
+        super(workOrderId, companyId);
+        this.previousAssigneeIds = previousAssigneeIds;
+    }
+}
@@ -0,0 +1,13 @@
+package com.grash.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class WorkOrderCreatedEvent extends WorkOrderEvent {
+
+    @JsonCreator
+    public WorkOrderCreatedEvent(@JsonProperty("workOrderId") Long workOrderId,
+                                 @JsonProperty("companyId") Long companyId) {
+        super(workOrderId, companyId);
+    }
+}
@@ -0,0 +1,30 @@
+package com.grash.event;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Something which happened to a work order, published through the {@link DomainEventBus} once committed. Written to
+ * the {@link DomainEventOutbox} as JSON for the durable consumers.
+ */
+@Getter
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = WorkOrderCreatedEvent.class, name = "CREATED"),
+        @JsonSubTypes.Type(value = WorkOrderAssignedEvent.class, name = "ASSIGNED"),
+        @JsonSubTypes.Type(value = WorkOrderStatusChangedEvent.class, name = "STATUS_CHANGED"),
+        @JsonSubTypes.Type(value = WorkOrderArchivedEvent.class, name = "ARCHIVED")
+})
+public abstract class WorkOrderEvent {
+    private final Long workOrderId;
+    private final Long companyId;
+    private final Date occurredAt = new Date();
+
+    protected WorkOrderEvent(Long workOrderId, Long companyId) {
+        this.workOrderId = workOrderId;
+        this.companyId = companyId;
+    }
+}
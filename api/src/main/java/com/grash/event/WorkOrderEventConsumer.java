@@ -0,0 +1,30 @@
+package com.grash.event;
+
+import java.util.List;
+
+/**
+ * Subscribed to the {@link DomainEventBus}, usually when the consumer is constructed
+ */
+public interface WorkOrderEventConsumer {
+
+    /**
+     * Tags the metrics of the consumer and names its threads
+     */
+    String getName();
+
+    /**
+     * Whether the events are written to the {@link DomainEventOutbox} rather than queued in memory, for the consumers
+     * which must not miss any
+     */
+    default boolean isDurable() {
+        return false;
+    }
+
+    /**
+     * Called with the events of a work order in the order they were published. For a durable consumer, an exception
+     * gets the events handed again one by one and the failing ones retried, so an event may be handed more than once.
+     * Otherwise it is called from one of the consumer's partition threads, the events of a work order always being
+     * handed to the same thread, and an exception is logged and the events are not retried.
+     */
+    void accept(List<WorkOrderEvent> events);
+}
@@ -0,0 +1,28 @@
+package com.grash.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.grash.model.enums.Status;
+import lombok.Getter;
+
+@Getter
+public class WorkOrderStatusChangedEvent extends WorkOrderEvent {
+    /**
+     * The user who changed the status
+     */
+    private final Long actorId;
+    private final Status previousStatus;
+    private final Status status;
+
+    @JsonCreator
+    public WorkOrderStatusChangedEvent(@JsonProperty("workOrderId") Long workOrderId,
+                                       @JsonProperty("companyId") Long companyId,
+                                       @JsonProperty("actorId") Long actorId,
+                                       @JsonProperty("previousStatus") Status previousStatus,
+                                       @JsonProperty("status") Status status) {
+        super(workOrderId, companyId);
+        this.actorId = actorId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+}
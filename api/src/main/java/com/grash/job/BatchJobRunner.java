@@ -0,0 +1,152 @@
+package com.grash.job;
+
+import com.grash.configuration.SchedulingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.*;
+
+/**
+ * Execution model shared by the scanning jobs: rows are processed chunk by chunk, each chunk in its own transaction,
+ * with the chunk duration, outcome and item count recorded under {@code batch.chunk} and {@code batch.items} tagged
+ * by job. At most {@code scheduling.batch.max-concurrent-jobs} of them run at the same time on a node, a run which
+ * finds no permit is skipped until the next fire time. Running one job on a single node at a time is left to the
+ * clustered Quartz store with {@link org.quartz.DisallowConcurrentExecution}.
+ */
+@Slf4j
+@Component
+public class BatchJobRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final SchedulingProperties.Batch properties;
+    private final Semaphore permits;
+
+    public BatchJobRunner(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry, SchedulingProperties schedulingProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.properties = schedulingProperties.getBatch();
+        this.permits = new Semaphore(properties.getMaxConcurrentJobs());
+    }
+
+    /**
+     * Drains a queue like set of rows, which leave it once processed, typically claimed with
+     * {@code for update skip locked} so that several nodes may drain it together.
+     *
+     * @param chunk processes up to the given number of rows and returns how many it processed. Chunks are run until
+     *              one comes back incomplete.
+     */
+    public void drain(String job, int chunkSize, IntUnaryOperator chunk) {
+        run(job, () -> {
+            int processed;
+            do {
+                processed = runChunk(job, () -> chunk.applyAsInt(chunkSize));
+            } while (processed == chunkSize);
+        });
+    }
+
+    /**
+     * Walks rows by increasing cursor, usually their id. The cursor of the last chunk is saved in the chunk's
+     * transaction, so a run which failed or was interrupted resumes after it, and is cleared once the end is reached.
+     *
+     * @param reader    reads up to the given number of rows after the given cursor, by increasing cursor
+     * @param processor processes a chunk of rows
+     * @param cursor    cursor of a row
+     */
+    public <T> void iterate(String job, int chunkSize, BiFunction<Long, Integer, List<T>> reader,
+                            Consumer<List<T>> processor, ToLongFunction<T> cursor) {
+        run(job, () -> {
+            Long checkpoint = getCheckpoint(job);
+            if (checkpoint != null) log.info("Resuming job {} after {}", job, checkpoint);
+            long after = checkpoint == null ? Long.MIN_VALUE : checkpoint;
+            List<T> rows;
+            do {
+                long from = after;
+                rows = runChunk(job, () -> {
+                    List<T> chunk = reader.apply(from, chunkSize);
+                    if (!chunk.isEmpty()) {
+                        processor.accept(chunk);
+                        saveCheckpoint(job, cursor.applyAsLong(chunk.get(chunk.size() - 1)));
+                    }
+                    return chunk;
+                }, List::size);
+                if (!rows.isEmpty()) after = cursor.applyAsLong(rows.get(rows.size() - 1));
+            } while (rows.size() == chunkSize);
+            clearCheckpoint(job);
+        });
+    }
+
+    /**
+     * Runs a job walking its rows itself, within the concurrency limit
+     */
+    public void run(String job, Runnable run) {
+        if (!permits.tryAcquire()) {
+            log.info("Skipping job {}, {} batch jobs are already running", job, properties.getMaxConcurrentJobs());
+            return;
+        }
+        try {
+            run.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs a chunk in its own transaction and records it
+     *
+     * @param chunk processes a chunk and returns its number of rows
+     */
+    public int runChunk(String job, IntSupplier chunk) {
+        return runChunk(job, chunk::getAsInt, Integer::intValue);
+    }
+
+    /**
+     * @param itemCount number of rows of the chunk's result
+     */
+    public <R> R runChunk(String job, Supplier<R> chunk, ToIntFunction<R> itemCount) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            R result = transactionTemplate.execute(status -> chunk.get());
+            outcome = "success";
+            Counter.builder("batch.items").tag("job", job).register(meterRegistry)
+                    .increment(itemCount.applyAsInt(result));
+            return result;
+        } finally {
+            Timer.builder("batch.chunk").tag("job", job).tag("outcome", outcome).register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Long getCheckpoint(String job) {
+        List<Long> cursors = jdbcTemplate.queryForList("select last_cursor from batch_job_checkpoint where job_name" +
+                " = ?", Long.class, job);
+        return cursors.isEmpty() ? null : cursors.get(0);
+    }
+
+    private void saveCheckpoint(String job, long cursor) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        if (jdbcTemplate.update("update batch_job_checkpoint set last_cursor = ?, updated_at = ? where job_name = ?",
+                cursor, now, job) == 0) {
+            jdbcTemplate.update("insert into batch_job_checkpoint (job_name, last_cursor, updated_at) values (?, ?, " +
+                    "?)", job, cursor, now);
+        }
+    }
+
+    private void clearCheckpoint(String job) {
+        jdbcTemplate.update("delete from batch_job_checkpoint where job_name = ?", job);
+    }
+}
@@ -0,0 +1,107 @@
+package com.grash.job;
+
+import com.grash.configuration.SchedulingProperties;
+import com.grash.service.BootstrapHealthIndicator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coordinates the API nodes sharing the database. Live nodes heartbeat in scheduler_node and entities with in-memory
+ * triggers are sharded by id across them, so that each trigger is armed on exactly one node and a lost node's share
+ * is taken over once it times out. Heartbeats are stamped and expired with the database clock.
+ */
+@Slf4j
+@Component
+public class ClusterCoordinator {
+
+    private static final String TRIGGER_OWNER = "cluster";
+    private static final String HEARTBEAT_TRIGGER = "heartbeat";
+    private static final String BOOTSTRAP_TASK = "triggers";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final JdbcTemplate jdbcTemplate;
+    private final TriggerScheduler triggerScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SchedulingProperties.Cluster properties;
+    private final BootstrapHealthIndicator bootstrapHealthIndicator;
+    private volatile List<String> liveNodes = Collections.emptyList();
+    private volatile long lastHeartbeat;
+
+    public ClusterCoordinator(JdbcTemplate jdbcTemplate, TriggerScheduler triggerScheduler,
+                              ApplicationEventPublisher eventPublisher, SchedulingProperties schedulingProperties,
+                              BootstrapHealthIndicator bootstrapHealthIndicator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.triggerScheduler = triggerScheduler;
+        this.eventPublisher = eventPublisher;
+        this.properties = schedulingProperties.getCluster();
+        this.bootstrapHealthIndicator = bootstrapHealthIndicator;
+    }
+
+    /**
+     * The first heartbeat, which arms this node's triggers, runs in the background so as not to delay startup
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void start() {
+        if (!started.compareAndSet(false, true)) return;
+        bootstrapHealthIndicator.start(BOOTSTRAP_TASK);
+        triggerScheduler.scheduleAtFixedRate(TRIGGER_OWNER, HEARTBEAT_TRIGGER, this::heartbeat, new Date(),
+                properties.getHeartbeatInterval().toMillis());
+    }
+
+    /**
+     * Leaves the cluster right away instead of waiting for the timeout, so that the others take over sooner
+     */
+    @PreDestroy
+    public void stop() {
+        triggerScheduler.cancel(TRIGGER_OWNER);
+        jdbcTemplate.update("delete from scheduler_node where node_id = ?", nodeId);
+    }
+
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        //the database clock is the only one shared by the nodes, theirs may drift apart
+        if (jdbcTemplate.update("update scheduler_node set heartbeat_at = now() where node_id = ?", nodeId) == 0) {
+            jdbcTemplate.update("insert into scheduler_node (node_id, heartbeat_at) values (?, now())", nodeId);
+        }
+        jdbcTemplate.update("delete from scheduler_node where heartbeat_at < now() - ? * interval '1 millisecond'",
+                properties.getNodeTimeout().toMillis());
+        List<String> nodes = jdbcTemplate.queryForList("select node_id from scheduler_node order by node_id",
+                String.class);
+        boolean membershipChanged = !nodes.equals(liveNodes);
+        liveNodes = nodes;
+        lastHeartbeat = now;
+        if (membershipChanged) {
+            log.info("Scheduling cluster changed, {} live node(s), this node is {}", nodes.size(), nodeId);
+        }
+        eventPublisher.publishEvent(new ClusterHeartbeatEvent(membershipChanged));
+        bootstrapHealthIndicator.complete(BOOTSTRAP_TASK);
+    }
+
+    /**
+     * A node which could not heartbeat for longer than the timeout owns nothing, its share has been taken over.
+     */
+    public boolean owns(long id) {
+        List<String> nodes = liveNodes;
+        int index = nodes.indexOf(nodeId);
+        if (index < 0 || System.currentTimeMillis() - lastHeartbeat > properties.getNodeTimeout().toMillis())
+            return false;
+        return Math.floorMod(id, nodes.size()) == index;
+    }
+
+    public Duration getNodeTimeout() {
+        return properties.getNodeTimeout();
+    }
+}
@@ -0,0 +1,17 @@
+package com.grash.job;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published after each heartbeat of this node, so that the owners of in-memory triggers can arm the ones of the
+ * entities this node owns and drop the others.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ClusterHeartbeatEvent {
+    /**
+     * When the live nodes have changed, ownership has to be re-evaluated for every entity
+     */
+    private final boolean membershipChanged;
+}
@@ -1,25 +1,42 @@
 package com.grash.job;
 
-import com.grash.model.Company;
+import com.grash.configuration.SchedulingProperties;
 import com.grash.repository.CompanyRepository;
-import com.grash.service.CompanyService;
+import com.grash.service.TenantPurgeService;
 import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 
 @Component
 @RequiredArgsConstructor
+@DisallowConcurrentExecution
 public class DeleteDemoCompaniesJob implements Job {
 
+    private static final String JOB = "deleteDemoCompanies";
+
     private final CompanyRepository companyRepository;
-    private final CompanyService companyService;
+    private final TenantPurgeService tenantPurgeService;
+    private final SchedulingProperties schedulingProperties;
+    private final BatchJobRunner batchJobRunner;
 
     @Override
     public void execute(JobExecutionContext context) {
-        List<Company> companies = companyRepository.findByDemoTrue();
-        companies.forEach(company -> companyService.delete(company.getId()));
+        batchJobRunner.run(JOB, () -> {
+            int companiesPerPurge = schedulingProperties.getTenantPurge().getCompaniesPerPurge();
+            long after = Long.MIN_VALUE;
+            List<Long> companyIds;
+            do {
+                //moving past the ids in case one of them could not be deleted
+                companyIds = companyRepository.findDemoIds(after, PageRequest.of(0, companiesPerPurge));
+                if (companyIds.isEmpty()) return;
+                tenantPurgeService.purge(JOB, companyIds);
+                after = companyIds.get(companyIds.size() - 1);
+            } while (companyIds.size() == companiesPerPurge && !Thread.currentThread().isInterrupted());
+        });
     }
 }
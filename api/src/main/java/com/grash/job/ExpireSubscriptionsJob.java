@@ -0,0 +1,32 @@
+package com.grash.job;
+
+import com.grash.configuration.SchedulingProperties;
+import com.grash.service.SubscriptionService;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Resets the subscriptions which have ended to the free plan, one locked batch per transaction so that several nodes
+ * can sweep at the same time.
+ */
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class ExpireSubscriptionsJob implements Job {
+
+    private final SubscriptionService subscriptionService;
+    private final SchedulingProperties schedulingProperties;
+    private final BatchJobRunner batchJobRunner;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        Date now = new Date();
+        batchJobRunner.drain("expireSubscriptions", schedulingProperties.getSubscriptionExpiry().getBatchSize(),
+                limit -> subscriptionService.expireEndedSubscriptions(now, limit));
+    }
+}
@@ -0,0 +1,73 @@
+package com.grash.job;
+
+import com.grash.configuration.SchedulingProperties;
+import com.grash.service.ScheduleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Creates the work orders of the schedules whose persisted next due date has passed, so that occurrences missed while
+ * no node was running are caught up according to the configured policy. When a batch fails, its schedules are
+ * processed one by one and those failing again are backed off, then draining goes on with the other due schedules.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class GeneratePreventiveMaintenanceJob implements Job {
+
+    private static final String JOB = "generatePreventiveMaintenance";
+
+    private final ScheduleService scheduleService;
+    private final SchedulingProperties schedulingProperties;
+    private final BatchJobRunner batchJobRunner;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        Date now = new Date();
+        int batchSize = schedulingProperties.getPreventiveMaintenance().getBatchSize();
+        batchJobRunner.run(JOB, () -> {
+            int processed;
+            do {
+                try {
+                    processed = batchJobRunner.runChunk(JOB, () -> scheduleService.processDueSchedules(now,
+                            batchSize));
+                } catch (RuntimeException exception) {
+                    log.error("Processing a batch of due schedules failed, retrying them one by one", exception);
+                    processed = processOneByOne(now, batchSize);
+                }
+            } while (processed == batchSize);
+        });
+    }
+
+    /**
+     * Keeps a failing schedule from holding back the rest of its batch, backing it off so that the next batches
+     * leave it out
+     *
+     * @return the number of schedules processed or backed off
+     */
+    private int processOneByOne(Date now, int batchSize) {
+        int processed = 0;
+        for (Long id : scheduleService.findDueScheduleIds(now, batchSize)) {
+            try {
+                scheduleService.processDueSchedule(id, now);
+                processed++;
+            } catch (RuntimeException exception) {
+                log.error("Processing due schedule {} failed, backing it off", id, exception);
+                try {
+                    scheduleService.backOff(id, now);
+                    processed++;
+                } catch (RuntimeException backOffException) {
+                    log.error("Backing off due schedule {} failed", id, backOffException);
+                }
+            }
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,37 @@
+package com.grash.job;
+
+import com.grash.configuration.SchedulingProperties;
+import com.grash.service.EmailOutbox;
+import com.grash.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Moves the read notifications older than the retention to {@code notification_archive}, one batch per transaction,
+ * so that the notification table only holds the recent and unread ones. The expired dead letters of the mail outbox
+ * are deleted the same way.
+ */
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class NotificationRetentionJob implements Job {
+
+    private final NotificationService notificationService;
+    private final EmailOutbox emailOutbox;
+    private final SchedulingProperties schedulingProperties;
+    private final BatchJobRunner batchJobRunner;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        SchedulingProperties.NotificationRetention properties = schedulingProperties.getNotificationRetention();
+        Date before = new Date(System.currentTimeMillis() - properties.getRetention().toMillis());
+        batchJobRunner.drain("archiveNotifications", properties.getBatchSize(),
+                limit -> notificationService.archiveReadBefore(before, limit));
+        batchJobRunner.drain("deleteDeadMails", properties.getBatchSize(), emailOutbox::deleteExpiredDeadLetters);
+    }
+}
@@ -0,0 +1,104 @@
+package com.grash.job;
+
+import com.grash.configuration.SchedulingProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single engine for in-memory time based triggers. Triggers sit in the delay queue (a binary heap ordered by next
+ * fire time) of one small worker pool, so the thread count stays constant whatever the number of triggers, and are
+ * registered by owner and name so that they can be replaced or cancelled from any thread.
+ */
+@Slf4j
+@Component
+public class TriggerScheduler implements DisposableBean {
+
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+    private final ConcurrentMap<String, ConcurrentMap<String, ScheduledFuture<?>>> triggers =
+            new ConcurrentHashMap<>();
+
+    public TriggerScheduler(SchedulingProperties schedulingProperties, MeterRegistry meterRegistry) {
+        taskScheduler.setPoolSize(schedulingProperties.getTriggerPoolSize());
+        taskScheduler.setThreadNamePrefix("trigger-scheduler-");
+        taskScheduler.setRemoveOnCancelPolicy(true);
+        taskScheduler.setErrorHandler(throwable -> log.error("Scheduled trigger failed", throwable));
+        taskScheduler.initialize();
+        Gauge.builder("scheduler.triggers", taskScheduler,
+                        scheduler -> scheduler.getScheduledThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers a trigger running at a fixed rate from {@code startTime}, replacing the one with the same owner and name
+     */
+    public void scheduleAtFixedRate(String owner, String name, Runnable task, Date startTime, long period) {
+        register(owner, name, taskScheduler.scheduleAtFixedRate(task, startTime, period));
+    }
+
+    /**
+     * Registers a trigger running once at {@code startTime}, replacing the one with the same owner and name
+     */
+    public void schedule(String owner, String name, Runnable task, Date startTime) {
+        AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+        ScheduledFuture<?> future = taskScheduler.schedule(() -> {
+            try {
+                task.run();
+            } finally {
+                unregister(owner, name, self.get());
+            }
+        }, startTime);
+        self.set(future);
+        register(owner, name, future);
+        //it may already have run before self was set
+        if (future.isDone()) unregister(owner, name, future);
+    }
+
+    public void cancel(String owner) {
+        Map<String, ScheduledFuture<?>> ownerTriggers = triggers.remove(owner);
+        if (ownerTriggers != null) {
+            ownerTriggers.values().forEach(future -> future.cancel(false));
+        }
+    }
+
+    public void cancelAll(String ownerPrefix) {
+        triggers.keySet().stream().filter(owner -> owner.startsWith(ownerPrefix)).forEach(this::cancel);
+    }
+
+    public boolean isScheduled(String owner) {
+        return triggers.containsKey(owner);
+    }
+
+    private void register(String owner, String name, ScheduledFuture<?> future) {
+        triggers.compute(owner, (key, ownerTriggers) -> {
+            ConcurrentMap<String, ScheduledFuture<?>> result = ownerTriggers == null ? new ConcurrentHashMap<>() :
+                    ownerTriggers;
+            ScheduledFuture<?> previous = result.put(name, future);
+            if (previous != null) previous.cancel(false);
+            return result;
+        });
+    }
+
+    private void unregister(String owner, String name, ScheduledFuture<?> future) {
+        if (future == null) return;
+        triggers.computeIfPresent(owner, (key, ownerTriggers) -> {
+            ownerTriggers.remove(name, future);
+            return ownerTriggers.isEmpty() ? null : ownerTriggers;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        taskScheduler.shutdown();
+    }
+}
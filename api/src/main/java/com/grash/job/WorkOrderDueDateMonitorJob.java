@@ -0,0 +1,76 @@
+package com.grash.job;
+
+import com.grash.configuration.SchedulingProperties;
+import com.grash.model.enums.Status;
+import com.grash.repository.WorkOrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Publishes a {@link WorkOrderDueEvent} for the open work orders whose due date, or due soon threshold, has passed
+ * since the previous run. The scanned window starts where the previous one ended, kept in
+ * {@code scheduler_watermark} since the job data is replaced whenever a node starts, and the clustered store runs it
+ * on one node at a time, so each work order is reported once.
+ */
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class WorkOrderDueDateMonitorJob implements Job {
+
+    private static final String JOB = "workOrderDueDateMonitor";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WorkOrderRepository workOrderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SchedulingProperties schedulingProperties;
+    private final BatchJobRunner batchJobRunner;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        SchedulingProperties.DueDateMonitor properties = schedulingProperties.getDueDateMonitor();
+        long now = System.currentTimeMillis();
+        List<Timestamp> watermarks = jdbcTemplate.queryForList("select watermark from scheduler_watermark where " +
+                "name = ?", Timestamp.class, JOB);
+        long lastScan = watermarks.isEmpty() ? now - properties.getPollInterval().toMillis() :
+                watermarks.get(0).getTime();
+        //a long outage is not replayed in full
+        long from = Math.max(lastScan, now - properties.getMaxCatchUp().toMillis());
+        long dueSoon = properties.getDueSoon().toMillis();
+        batchJobRunner.run(JOB, () -> {
+            scan(WorkOrderDueEvent.Type.OVERDUE, new Date(from), new Date(now));
+            scan(WorkOrderDueEvent.Type.DUE_SOON, new Date(from + dueSoon), new Date(now + dueSoon));
+            //not moved forward if the scan failed or was skipped, the next run covers the window again
+            jdbcTemplate.update("insert into scheduler_watermark (name, watermark) values (?, ?) on conflict (name) " +
+                    "do update set watermark = excluded.watermark", JOB, new Timestamp(now));
+        });
+    }
+
+    private void scan(WorkOrderDueEvent.Type type, Date from, Date to) {
+        int chunkSize = schedulingProperties.getBatch().getChunkSize();
+        long after = Long.MIN_VALUE;
+        List<Object[]> rows;
+        do {
+            long lastId = after;
+            rows = batchJobRunner.runChunk(JOB, () -> {
+                List<Object[]> chunk = workOrderRepository.findDueBetween(Status.COMPLETE, from, to, lastId,
+                        PageRequest.of(0, chunkSize));
+                Map<Long, List<Long>> workOrderIdsByCompany = new LinkedHashMap<>();
+                chunk.forEach(row -> workOrderIdsByCompany.computeIfAbsent((Long) row[1],
+                        companyId -> new ArrayList<>()).add((Long) row[0]));
+                workOrderIdsByCompany.forEach((companyId, workOrderIds) ->
+                        eventPublisher.publishEvent(new WorkOrderDueEvent(type, companyId, workOrderIds)));
+                return chunk;
+            }, List::size);
+            if (!rows.isEmpty()) after = (Long) rows.get(rows.size() - 1)[0];
+        } while (rows.size() == chunkSize);
+    }
+}
@@ -0,0 +1,23 @@
+package com.grash.job;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published by {@link WorkOrderDueDateMonitorJob} for the open work orders of a company whose due date, or due date
+ * minus the due soon delay, has just passed
+ */
+@Getter
+@RequiredArgsConstructor
+public class WorkOrderDueEvent {
+    private final Type type;
+    private final Long companyId;
+    private final List<Long> workOrderIds;
+
+    public enum Type {
+        DUE_SOON,
+        OVERDUE
+    }
+}
@@ -1,5 +1,6 @@
 package com.grash.mapper;
 
+import com.grash.dto.NotificationMiniDTO;
 import com.grash.dto.NotificationPatchDTO;
 import com.grash.model.Notification;
 import org.mapstruct.Mapper;
@@ -12,4 +13,6 @@ public interface NotificationMapper {
 
     @Mappings({})
     NotificationPatchDTO toPatchDto(Notification model);
+
+    NotificationMiniDTO toMiniDto(Notification model);
 }
@@ -34,6 +34,15 @@ public class CustomSequence {
         return workOrderSequence++;
     }
 
+    /**
+     * @return the first sequence of a block of {@code count}
+     */
+    public Long getAndIncrementWorkOrderSequence(int count) {
+        Long first = workOrderSequence;
+        workOrderSequence += count;
+        return first;
+    }
+
     public Long getAndIncrementAssetSequence() {
         return assetSequence++;
     }
@@ -25,7 +25,7 @@ public class PreventiveMaintenance extends WorkOrderBase {
     private Schedule schedule = new Schedule(this);
 
     public boolean canBeEditedBy(OwnUser user) {
-        return user.getRole().getEditOtherPermissions().contains(PermissionEntity.PREVENTIVE_MAINTENANCES)
+        return user.getRole().canEditOthers(PermissionEntity.PREVENTIVE_MAINTENANCES)
                 || this.getCreatedBy().equals(user.getId());
     }
 
@@ -1,9 +1,12 @@
 package com.grash.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.grash.model.enums.PermissionEntity;
 import com.grash.model.enums.RoleCode;
 import com.grash.model.enums.RoleType;
+import com.grash.security.PrincipalCacheInvalidator;
+import com.grash.security.RolePermissions;
 import lombok.*;
 
 import javax.persistence.*;
@@ -12,6 +15,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@EntityListeners(PrincipalCacheInvalidator.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -57,4 +61,37 @@ public class Role {
     @NotNull
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private CompanySettings companySettings;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient RolePermissions compiledPermissions;
+
+    /**
+     * Compiled once per role instance, principals get theirs when they are resolved.
+     */
+    @JsonIgnore
+    public RolePermissions getPermissions() {
+        if (compiledPermissions == null) compiledPermissions = RolePermissions.of(this);
+        return compiledPermissions;
+    }
+
+    public boolean canCreate(PermissionEntity entity) {
+        return getPermissions().canCreate(entity);
+    }
+
+    public boolean canView(PermissionEntity entity) {
+        return getPermissions().canView(entity);
+    }
+
+    public boolean canViewOthers(PermissionEntity entity) {
+        return getPermissions().canViewOthers(entity);
+    }
+
+    public boolean canEditOthers(PermissionEntity entity) {
+        return getPermissions().canEditOthers(entity);
+    }
+
+    public boolean canDeleteOthers(PermissionEntity entity) {
+        return getPermissions().canDeleteOthers(entity);
+    }
 }
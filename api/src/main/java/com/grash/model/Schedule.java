@@ -33,6 +33,28 @@ public class Schedule extends Audit {
 
     private Integer dueDateDelay;
 
+    /**
+     * Next occurrence for which a work order has to be created, null when nothing is left to generate
+     */
+    private Date nextDueAt;
+
+    /**
+     * When the coming work order notification of {@link #nextDueAt} is due, null once sent or when disabled
+     */
+    private Date nextNotificationAt;
+
+    /**
+     * Consecutive failures to generate the work orders of {@link #nextDueAt}
+     */
+    @JsonIgnore
+    private int failedAttempts;
+
+    /**
+     * Set after a failure, the schedule is not polled again before
+     */
+    @JsonIgnore
+    private Date nextAttemptAt;
+
     @OneToOne
     @JsonIgnore
     @OnDelete(action = OnDeleteAction.CASCADE)
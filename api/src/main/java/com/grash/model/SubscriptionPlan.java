@@ -1,6 +1,7 @@
 package com.grash.model;
 
 import com.grash.model.enums.PlanFeatures;
+import com.grash.security.PrincipalCacheInvalidator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,6 +13,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@EntityListeners(PrincipalCacheInvalidator.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -1,5 +1,6 @@
 package com.grash.model;
 
+import com.grash.security.PrincipalCacheInvalidator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,6 +9,7 @@ import lombok.NoArgsConstructor;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 @Entity
+@EntityListeners(PrincipalCacheInvalidator.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -1,15 +1,18 @@
 package com.grash.model;
 
+import com.grash.security.PrincipalCacheInvalidator;
 import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 
 @Entity
+@EntityListeners(PrincipalCacheInvalidator.class)
 @NoArgsConstructor
 @Data
 public class UserSettings {
@@ -22,6 +25,11 @@ public class UserSettings {
     private boolean emailUpdatesForRequests = true;
     private boolean emailUpdatesForPurchaseOrders = true;
     private boolean statsForAssignedWorkOrders = true;
+    /**
+     * Notifications are gathered and sent as one notification, push and email per digest window. The emails sent
+     * without a notification, or with one which is not gathered, are still sent per event.
+     */
+    private boolean notificationDigest = false;
 
     public boolean shouldEmailUpdatesForWorkOrders() {
         return emailNotified && emailUpdatesForWorkOrders;
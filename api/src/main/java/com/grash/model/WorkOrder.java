@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.grash.model.abstracts.WorkOrderBase;
 import com.grash.model.enums.PermissionEntity;
 import com.grash.model.enums.Status;
+import com.grash.service.UrgentWorkOrderCountInvalidator;
 import com.grash.utils.Helper;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -26,6 +27,7 @@ import static java.util.stream.Collectors.collectingAndThen;
 import static java.util.stream.Collectors.toCollection;
 
 @Entity
+@EntityListeners(UrgentWorkOrderCountInvalidator.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -101,7 +103,7 @@ public class WorkOrder extends WorkOrderBase {
     }
 
     public boolean canBeEditedBy(OwnUser user) {
-        return user.getRole().getEditOtherPermissions().contains(PermissionEntity.WORK_ORDERS)
+        return user.getRole().canEditOthers(PermissionEntity.WORK_ORDERS)
                 || (this.getCreatedBy() != null && this.getCreatedBy().equals(user.getId())) || isAssignedTo(user);
     }
 
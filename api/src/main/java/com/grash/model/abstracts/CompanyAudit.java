@@ -2,13 +2,14 @@ package com.grash.model.abstracts;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.grash.exception.CustomException;
-import com.grash.model.Asset;
 import com.grash.model.Company;
 import com.grash.model.File;
 import com.grash.model.OwnUser;
-import com.grash.model.enums.RoleType;
 import com.grash.security.CustomUserDetail;
 import lombok.Data;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,7 +18,11 @@ import javax.persistence.*;
 
 @MappedSuperclass
 @Data
+@FilterDef(name = CompanyAudit.TENANT_FILTER, parameters = @ParamDef(name = "companyIds", type = "long"))
+@Filter(name = CompanyAudit.TENANT_FILTER, condition = "company_id in (:companyIds)")
 public class CompanyAudit extends Audit {
+    public static final String TENANT_FILTER = "tenantFilter";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -36,32 +41,20 @@ public class CompanyAudit extends Audit {
         this.setCompany(company);
     }
 
-
+    /**
+     * Queries are already restricted to the user's companies by {@link #TENANT_FILTER}, this only guards loads by id
+     * which Hibernate filters don't apply to. Everything needed is precomputed on the principal.
+     */
     @PostLoad
     public void afterLoad() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || authentication.getPrincipal() instanceof String) return;
-        Object principal = authentication.getPrincipal();
-        OwnUser user = ((CustomUserDetail) principal).getUser();
-        Company company = user.getCompany();
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetail)) return;
+        CustomUserDetail userDetail = (CustomUserDetail) authentication.getPrincipal();
         // check if not authorized
-        if (!user.getRole().getRoleType().equals(RoleType.ROLE_SUPER_ADMIN) &&
-                !company.getId().equals(this.getCompany().getId())
-                && !makesException(user)) {
-            throw new CustomException("afterLoad:  the user (id=" + user.getId() + ")  is not authorized to load  " +
-                    "this object (" + this.getClass() + ") with id " + this.id, HttpStatus.FORBIDDEN);
-        }
-    }
-
-    private boolean makesException(OwnUser user) {
-        if (this instanceof File) {
-            return user.getSuperAccountRelations().stream()
-                    .anyMatch(relation -> relation.getChildUser().getCompany().getId().equals(this.company.getId()))
-//                    || (user.getParentSuperAccount() !=null && user.getParentSuperAccount().getSuperUser()
-//                    .getSuperAccountRelations().stream().anyMatch(sar->sar.getChildUser().getCompany().getId()
-//                    .equals(this.company.getId())))
-                    ;
+        if (!userDetail.canLoad(this.getCompany().getId(), this instanceof File)) {
+            throw new CustomException("afterLoad:  the user (id=" + userDetail.getUser().getId() + ")  is not " +
+                    "authorized to load this object (" + this.getClass() + ") with id " + this.id,
+                    HttpStatus.FORBIDDEN);
         }
-        return false;
     }
 }
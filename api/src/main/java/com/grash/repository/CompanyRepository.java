@@ -1,10 +1,14 @@
 package com.grash.repository;
 
 import com.grash.model.Company;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface CompanyRepository extends JpaRepository<Company, Long> {
-    List<Company> findByDemoTrue();
+    @Query("select c.id from Company c where c.demo = true and c.id > :after order by c.id")
+    List<Long> findDemoIds(@Param("after") Long after, Pageable pageable);
 }
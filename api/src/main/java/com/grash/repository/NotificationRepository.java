@@ -8,11 +8,24 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.Date;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long>, JpaSpecificationExecutor<Notification> {
     Collection<Notification> findByUser_Id(Long id);
 
+    /**
+     * @return the number of notifications read
+     */
     @Query("update Notification n set n.seen=true where n.user.id=:userId and n.seen=false")
     @Modifying
-    void readAll(@Param("userId") Long userId);
+    int readAll(@Param("userId") Long userId);
+
+    @Query(value = "with moved as (delete from notification where id in (select id from notification where seen = " +
+            "true and created_at < :before order by created_at limit :limit for update skip locked) returning id, " +
+            "created_at, updated_at, created_by, updated_by, message, notification_type, resource_id, user_id) " +
+            "insert into notification_archive (id, created_at, updated_at, created_by, updated_by, message, " +
+            "notification_type, resource_id, user_id, archived_at) select id, created_at, updated_at, created_by, " +
+            "updated_by, message, notification_type, resource_id, user_id, now() from moved", nativeQuery = true)
+    @Modifying
+    int archiveReadBefore(@Param("before") Date before, @Param("limit") int limit);
 }
@@ -3,6 +3,7 @@ package com.grash.repository;
 import com.grash.model.PreventiveMaintenance;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
@@ -12,5 +13,12 @@ import java.util.List;
 public interface PreventiveMaintenanceRepository extends JpaRepository<PreventiveMaintenance, Long>, JpaSpecificationExecutor<PreventiveMaintenance> {
     Collection<PreventiveMaintenance> findByCompany_Id(@Param("x") Long id);
 
-    List<PreventiveMaintenance> findByCreatedAtBeforeAndCompany_Id(Date start, Long companyId);
+    @Query("select distinct pm from PreventiveMaintenance pm join pm.schedule s left join pm.primaryUser pu " +
+            "left join pm.assignedTo a left join pm.team t left join t.users tu where pm.company.id = :companyId " +
+            "and pm.createdAt < :end and s.disabled = false and s.startsOn <= :end and (s.endsOn is null or s" +
+            ".endsOn >= :start) and (:canViewOthers = true or pm.createdBy = :userId or pu.id = :userId or a.id = " +
+            ":userId or tu.id = :userId)")
+    List<PreventiveMaintenance> findCalendarCandidates(@Param("companyId") Long companyId, @Param("start") Date start,
+                                                       @Param("end") Date end, @Param("userId") Long userId,
+                                                       @Param("canViewOthers") boolean canViewOthers);
 }
@@ -2,9 +2,23 @@ package com.grash.repository;
 
 import com.grash.model.PushNotificationToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PushNotificationTokenRepository extends JpaRepository<PushNotificationToken, Long> {
     Optional<PushNotificationToken> findByUser_Id(Long id);
+
+    @Query("select t.token from PushNotificationToken t where t.user.id in :userIds")
+    List<String> findTokensByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Transactional
+    @Modifying
+    @Query("delete from PushNotificationToken t where t.token in :tokens")
+    int deleteByTokens(@Param("tokens") Collection<String> tokens);
 }
@@ -1,13 +1,71 @@
 package com.grash.repository;
 
 import com.grash.model.Schedule;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
     @Query("SELECT s from Schedule s where s.preventiveMaintenance.company.id = :x ")
     Collection<Schedule> findByCompany_Id(@Param("x") Long id);
+
+    Collection<Schedule> findByUpdatedAtAfter(Date date);
+
+    @Query(value = "select * from schedule where disabled = false and next_due_at <= :now and (next_attempt_at is " +
+            "null or next_attempt_at <= :now) order by next_due_at limit :limit for update skip locked",
+            nativeQuery = true)
+    List<Schedule> findDueForUpdate(@Param("now") Date now, @Param("limit") int limit);
+
+    @Query(value = "select * from schedule where id = :id and disabled = false and next_due_at <= :now and " +
+            "(next_attempt_at is null or next_attempt_at <= :now) for update skip locked", nativeQuery = true)
+    Optional<Schedule> findDueByIdForUpdate(@Param("id") Long id, @Param("now") Date now);
+
+    Slice<Schedule> findByDisabledFalseAndNextNotificationAtLessThanEqual(Date date, Pageable pageable);
+
+    /**
+     * Schedules created before the next due date was persisted
+     */
+    @Query("select s from Schedule s where s.disabled = false and s.nextDueAt is null and (s.endsOn is null or s" +
+            ".endsOn > :now) order by s.id")
+    List<Schedule> findUninitialized(@Param("now") Date now, Pageable pageable);
+
+    @Query("select s.id from Schedule s where s.disabled = false and s.nextDueAt <= :now and (s.nextAttemptAt is " +
+            "null or s.nextAttemptAt <= :now) order by s.nextDueAt")
+    List<Long> findDueIds(@Param("now") Date now, Pageable pageable);
+
+    /**
+     * @return 1 if the occurrence was claimed, 0 if it already was
+     */
+    @Modifying
+    @Query(value = "insert into schedule_occurrence (schedule_id, occurs_at) values (:scheduleId, :occursAt) on " +
+            "conflict do nothing", nativeQuery = true)
+    int claimOccurrence(@Param("scheduleId") Long scheduleId, @Param("occursAt") Date occursAt);
+
+    /**
+     * Postpones the next attempt of a schedule which failed, doubling the delay with every consecutive failure
+     */
+    @Modifying
+    @Query(value = "update schedule set failed_attempts = failed_attempts + 1, next_attempt_at = cast(:now as " +
+            "timestamp) + least(:backoff * power(2, least(failed_attempts, 20)), :maxBackoff) * interval '1 " +
+            "millisecond' where id = :id", nativeQuery = true)
+    int backOff(@Param("id") Long id, @Param("now") Date now, @Param("backoff") long backoffMillis,
+                @Param("maxBackoff") long maxBackoffMillis);
+
+    /**
+     * @return 1 if the notification due at {@code notificationAt} was claimed, 0 if it was already sent or has moved
+     */
+    @Transactional
+    @Modifying
+    @Query("update Schedule s set s.nextNotificationAt = null where s.id = :id and s.nextNotificationAt = " +
+            ":notificationAt")
+    int claimNotification(@Param("id") Long id, @Param("notificationAt") Date notificationAt);
 }
@@ -2,9 +2,18 @@ package com.grash.repository;
 
 import com.grash.model.Subscription;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
     Optional<Subscription> findByFastSpringId(String id);
+
+    @Query(value = "select s.* from subscription s join subscription_plan p on p.id = s.subscription_plan_id where " +
+            "p.code <> 'FREE' and s.ends_on <= :now order by s.ends_on limit :limit for update of s skip locked",
+            nativeQuery = true)
+    List<Subscription> findEndedForUpdate(@Param("now") Date now, @Param("limit") int limit);
 }
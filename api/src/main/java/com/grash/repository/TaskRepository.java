@@ -10,4 +10,6 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> findByWorkOrder_Id(Long id);
 
     List<Task> findByPreventiveMaintenance_Id(Long id);
+
+    List<Task> findByPreventiveMaintenance_IdIn(Collection<Long> ids);
 }
@@ -20,6 +20,10 @@ public interface UserRepository extends JpaRepository<OwnUser, Long>, JpaSpecifi
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     Optional<OwnUser> findByEmailIgnoreCase(String email);
 
+    @Query("select u from OwnUser u join fetch u.role left join fetch u.company c left join fetch c.subscription s " +
+            "left join fetch s.subscriptionPlan where lower(u.email) = lower(:email)")
+    Optional<OwnUser> findPrincipalByEmail(@Param("email") String email);
+
     @Transactional
     void deleteByUsername(String username);
 
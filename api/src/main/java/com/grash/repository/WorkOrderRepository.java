@@ -2,18 +2,29 @@ package com.grash.repository;
 
 import com.grash.model.WorkOrder;
 import com.grash.model.enums.Priority;
+import com.grash.model.enums.Status;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long>, JpaSpecificationExecutor<WorkOrder> {
+    /**
+     * Locks the rows until the transaction ends, by increasing id so that two transactions never wait on each other
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from WorkOrder w where w.id in :ids order by w.id")
+    List<WorkOrder> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
     Collection<WorkOrder> findByCompany_Id(Long id);
 
     Collection<WorkOrder> findByAsset_Id(Long id);
@@ -37,6 +48,14 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long>, Jpa
     Collection<WorkOrder> findByDueDateBetweenAndCompany_Id(Date date1, Date date2, Long id);
 
     Optional<WorkOrder> findByIdAndCompany_Id(Long id, Long companyId);
+
+    /**
+     * @return the id and company id of the work orders due in (from, to], by id
+     */
+    @Query("select w.id, w.company.id from WorkOrder w where w.status <> :complete and w.dueDate > :from and w" +
+            ".dueDate <= :to and w.id > :after order by w.id")
+    List<Object[]> findDueBetween(@Param("complete") Status complete, @Param("from") Date from, @Param("to") Date to,
+                                  @Param("after") Long after, Pageable pageable);
     
     Optional<WorkOrder> findByCustomIdIgnoreCaseAndCompany_Id(String customId, Long companyId);
 
@@ -1,18 +1,27 @@
 package com.grash.security;
 
 import com.grash.model.OwnUser;
+import com.grash.model.UserSettings;
+import com.grash.model.enums.RoleType;
 import lombok.Builder;
+import org.springframework.beans.BeanUtils;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
 
 @Builder
 public class CustomUserDetail implements UserDetails {
     private static final long serialVersionUID = 1L;
     private OwnUser user;
+    /**
+     * Companies of the accounts this user is super account of, whose files it may load
+     */
+    @Builder.Default
+    private Set<Long> superAccountCompanyIds = Collections.emptySet();
 
     public OwnUser getUser() {
         return user;
@@ -22,6 +31,36 @@ public class CustomUserDetail implements UserDetails {
         this.user = user;
     }
 
+    public Set<Long> getSuperAccountCompanyIds() {
+        return superAccountCompanyIds;
+    }
+
+    /**
+     * A principal for one request, whose user and settings it may change without the other requests seeing it. The
+     * role, company and plan it was resolved with are shared, they are only read, and copying the company would build
+     * the default graph of its settings on every request. Everything read from them is loaded with the principal, see
+     * {@link CustomUserDetailsService}.
+     */
+    public CustomUserDetail copy() {
+        OwnUser userCopy = new OwnUser();
+        BeanUtils.copyProperties(user, userCopy);
+        if (user.getUserSettings() != null) {
+            UserSettings userSettings = new UserSettings();
+            BeanUtils.copyProperties(user.getUserSettings(), userSettings);
+            userCopy.setUserSettings(userSettings);
+        }
+        return CustomUserDetail.builder().user(userCopy).superAccountCompanyIds(superAccountCompanyIds).build();
+    }
+
+    public boolean isSuperAdmin() {
+        return user.getRole().getRoleType().equals(RoleType.ROLE_SUPER_ADMIN);
+    }
+
+    public boolean canLoad(Long companyId, boolean file) {
+        return isSuperAdmin() || user.getCompany().getId().equals(companyId)
+                || (file && superAccountCompanyIds.contains(companyId));
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return Collections.singleton(new SimpleGrantedAuthority(user.getRole().getRoleType().getAuthority()));
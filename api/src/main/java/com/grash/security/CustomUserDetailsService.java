@@ -1,13 +1,19 @@
 package com.grash.security;
 
+import com.grash.model.CompanySettings;
 import com.grash.model.OwnUser;
+import com.grash.model.Role;
 import com.grash.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
@@ -17,14 +23,45 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Override
     @Transactional(readOnly = true)
     public CustomUserDetail loadUserByUsername(String username) throws UsernameNotFoundException {
-        final OwnUser user = userRepository.findByEmailIgnoreCase(username).orElse(null);
+        final OwnUser user = userRepository.findPrincipalByEmail(username).orElse(null);
         if (user == null) {
             throw new UsernameNotFoundException("User '" + username + "' not found");
         }
+        initializePrincipal(user);
 
         return CustomUserDetail.builder()//
                 .user(user)//
+                .superAccountCompanyIds(user.getSuperAccountRelations().stream()//
+                        .map(relation -> relation.getChildUser().getCompany().getId())//
+                        .collect(Collectors.collectingAndThen(Collectors.toSet(), Collections::unmodifiableSet)))//
                 .build();
     }
 
+    /**
+     * The principal outlives this transaction in {@link PrincipalCache}, so everything authorization checks read is
+     * loaded here, along with the company settings and general preferences which the requests sharing the company
+     * read. None of them is left to load lazily from several requests at once.
+     */
+    private void initializePrincipal(OwnUser user) {
+        Role role = user.getRole();
+        Hibernate.initialize(role.getCreatePermissions());
+        Hibernate.initialize(role.getViewPermissions());
+        Hibernate.initialize(role.getViewOtherPermissions());
+        Hibernate.initialize(role.getEditOtherPermissions());
+        Hibernate.initialize(role.getDeleteOtherPermissions());
+        role.getPermissions();
+        if (user.getCompany() != null && user.getCompany().getSubscription() != null) {
+            Hibernate.initialize(user.getCompany().getSubscription().getSubscriptionPlan().getFeatures());
+        }
+        if (user.getCompany() != null && user.getCompany().getCompanySettings() != null) {
+            CompanySettings companySettings = user.getCompany().getCompanySettings();
+            Hibernate.initialize(companySettings);
+            Hibernate.initialize(companySettings.getGeneralPreferences());
+            if (companySettings.getGeneralPreferences() != null) {
+                Hibernate.initialize(companySettings.getGeneralPreferences().getCurrency());
+            }
+        }
+        Hibernate.initialize(user.getUserSettings());
+    }
+
 }
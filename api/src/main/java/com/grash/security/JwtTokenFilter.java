@@ -11,7 +11,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
-// We should use OncePerRequestFilter since we are doing a database call, there is no point in doing this more than once
+// We should use OncePerRequestFilter since we may do a database call, there is no point in doing this more than once
 public class JwtTokenFilter extends OncePerRequestFilter {
 
     private JwtTokenProvider jwtTokenProvider;
@@ -24,8 +24,8 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, FilterChain filterChain) throws ServletException, IOException {
         String token = jwtTokenProvider.resolveToken(httpServletRequest);
         try {
-            if (token != null && jwtTokenProvider.validateToken(token)) {
-                Authentication auth = jwtTokenProvider.getAuthentication(token);
+            if (token != null) {
+                Authentication auth = jwtTokenProvider.getAuthentication(jwtTokenProvider.parseClaims(token));
                 SecurityContextHolder.getContext().setAuthentication(auth);
             }
         } catch (CustomException ex) {
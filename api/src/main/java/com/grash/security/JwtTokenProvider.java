@@ -40,7 +40,8 @@ public class JwtTokenProvider {
 
 
     private final CustomUserDetailsService customUserDetailsService;
-    
+    private final PrincipalCache principalCache;
+
     public String createToken(String username, List<RoleType> roles) {
 
         Claims claims = Jwts.claims().setSubject(username);
@@ -59,7 +60,11 @@ public class JwtTokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(getUsername(token));
+        return getAuthentication(parseClaims(token));
+    }
+
+    public Authentication getAuthentication(Claims claims) {
+        UserDetails userDetails = principalCache.get(claims, customUserDetailsService::loadUserByUsername);
         return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
     }
 
@@ -76,9 +81,16 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String token) {
+        parseClaims(token);
+        return true;
+    }
+
+    /**
+     * Verifies the signature and expiration of the token and returns its claims, so callers parse the JWS only once.
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token);
-            return true;
+            return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
             throw new CustomException("Expired or invalid JWT token", HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -0,0 +1,182 @@
+package com.grash.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grash.model.OwnUser;
+import com.grash.service.NotificationRelay;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of resolved principals keyed by token subject and issue time, so an authenticated request does not
+ * have to reload the user, its role permissions, company and plan features from the database. Each request gets its
+ * own copy of the cached user, see {@link CustomUserDetail#copy()}. An invalidation evicts the principals of this
+ * node right away and is broadcast to every node, this one included, once the transaction making the change commits.
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    private static final String CHANNEL = "principal_cache";
+    private static final String ALL = "all";
+
+    private final Cache<Key, CustomUserDetail> cache;
+    private final NotificationRelay notificationRelay;
+
+    public PrincipalCache(@Value("${security.jwt.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${security.jwt.principal-cache.expire-after-write-seconds:300}") long ttlSeconds,
+                          NotificationRelay notificationRelay) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        this.notificationRelay = notificationRelay;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        notificationRelay.subscribe(CHANNEL, this::onInvalidation);
+    }
+
+    public CustomUserDetail get(Claims claims, Function<String, CustomUserDetail> loader) {
+        Key key = new Key(claims.getSubject(), claims.getIssuedAt());
+        return cache.get(key, k -> loader.apply(k.subject)).copy();
+    }
+
+    public void invalidateUser(Long userId) {
+        invalidate(Scope.USER, userId);
+    }
+
+    /**
+     * The settings do not reference their user, the principals holding them are matched on their id
+     */
+    public void invalidateUserSettings(Long userSettingsId) {
+        invalidate(Scope.USER_SETTINGS, userSettingsId);
+    }
+
+    public void invalidateRole(Long roleId) {
+        invalidate(Scope.ROLE, roleId);
+    }
+
+    public void invalidateCompany(Long companyId) {
+        invalidate(Scope.COMPANY, companyId);
+    }
+
+    public void invalidateSubscription(Long subscriptionId) {
+        invalidate(Scope.SUBSCRIPTION, subscriptionId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        broadcast(ALL);
+    }
+
+    private void invalidate(Scope scope, Long id) {
+        evict(scope, id);
+        broadcast(scope.name() + ":" + id);
+    }
+
+    /**
+     * Sent after the commit, the other nodes then reloading the committed rows, or right away outside of a
+     * transaction
+     */
+    private void broadcast(String payload) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(payload);
+                }
+            });
+        } else send(payload);
+    }
+
+    /**
+     * The other nodes keep serving what they cached until it expires when the database cannot be reached
+     */
+    private void send(String payload) {
+        try {
+            notificationRelay.broadcast(CHANNEL, payload);
+        } catch (RuntimeException e) {
+            log.warn("Broadcasting the principal cache invalidation {} failed", payload, e);
+        }
+    }
+
+    private void onInvalidation(String payload) {
+        if (ALL.equals(payload)) {
+            cache.invalidateAll();
+            return;
+        }
+        int separator = payload.indexOf(':');
+        evict(Scope.valueOf(payload.substring(0, separator)), Long.valueOf(payload.substring(separator + 1)));
+    }
+
+    private void evict(Scope scope, Long id) {
+        switch (scope) {
+            case USER:
+                invalidateIf(user -> Objects.equals(user.getId(), id));
+                break;
+            case USER_SETTINGS:
+                invalidateIf(user -> user.getUserSettings() != null
+                        && Objects.equals(user.getUserSettings().getId(), id));
+                break;
+            case ROLE:
+                invalidateIf(user -> user.getRole() != null && Objects.equals(user.getRole().getId(), id));
+                break;
+            case COMPANY:
+                invalidateIf(user -> user.getCompany() != null && Objects.equals(user.getCompany().getId(), id));
+                break;
+            case SUBSCRIPTION:
+                invalidateIf(user -> user.getCompany() != null && user.getCompany().getSubscription() != null
+                        && Objects.equals(user.getCompany().getSubscription().getId(), id));
+                break;
+        }
+    }
+
+    private void invalidateIf(Predicate<OwnUser> predicate) {
+        cache.asMap().values().removeIf(userDetail -> predicate.test(userDetail.getUser()));
+    }
+
+    private enum Scope {
+        USER,
+        USER_SETTINGS,
+        ROLE,
+        COMPANY,
+        SUBSCRIPTION
+    }
+
+    private static final class Key {
+        private final String subject;
+        private final long issuedAt;
+
+        private Key(String subject, Date issuedAt) {
+            this.subject = subject.toLowerCase();
+            this.issuedAt = issuedAt == null ? 0 : issuedAt.getTime();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return issuedAt == key.issuedAt && subject.equals(key.subject);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subject, issuedAt);
+        }
+    }
+}
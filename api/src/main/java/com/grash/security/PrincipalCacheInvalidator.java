@@ -0,0 +1,63 @@
+package com.grash.security;
+
+import com.grash.model.Company;
+import com.grash.model.CompanySettings;
+import com.grash.model.GeneralPreferences;
+import com.grash.model.OwnUser;
+import com.grash.model.Role;
+import com.grash.model.Subscription;
+import com.grash.model.SubscriptionPlan;
+import com.grash.model.SuperAccountRelation;
+import com.grash.model.UserSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener evicting cached principals whenever something they were resolved from changes.
+ */
+@Component
+public class PrincipalCacheInvalidator {
+
+    private PrincipalCache principalCache;
+
+    @Autowired
+    public void setDeps(@Lazy PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void afterChange(Object entity) {
+        if (entity instanceof OwnUser) {
+            principalCache.invalidateUser(((OwnUser) entity).getId());
+        } else if (entity instanceof Role) {
+            principalCache.invalidateRole(((Role) entity).getId());
+        } else if (entity instanceof Company) {
+            principalCache.invalidateCompany(((Company) entity).getId());
+        } else if (entity instanceof Subscription) {
+            principalCache.invalidateSubscription(((Subscription) entity).getId());
+        } else if (entity instanceof SuperAccountRelation) {
+            principalCache.invalidateUser(((SuperAccountRelation) entity).getSuperUser().getId());
+        } else if (entity instanceof UserSettings) {
+            principalCache.invalidateUserSettings(((UserSettings) entity).getId());
+        } else if (entity instanceof CompanySettings) {
+            invalidateCompany((CompanySettings) entity);
+        } else if (entity instanceof GeneralPreferences) {
+            invalidateCompany(((GeneralPreferences) entity).getCompanySettings());
+        } else if (entity instanceof SubscriptionPlan) {
+            principalCache.invalidateAll();
+        }
+    }
+
+    private void invalidateCompany(CompanySettings companySettings) {
+        if (companySettings != null && companySettings.getCompany() != null) {
+            principalCache.invalidateCompany(companySettings.getCompany().getId());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.grash.security;
+
+import com.grash.exception.CustomException;
+import com.grash.service.RateLimiterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Applies {@link RateLimited} policies, keyed by user for authenticated requests and by client IP otherwise. The
+ * client IP is the one forwarded by a trusted proxy, see {@code server.forward-headers-strategy}, so that the clients
+ * behind a load balancer do not share one bucket.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiterService rateLimiterService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) return true;
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        RateLimited rateLimited = handlerMethod.getMethodAnnotation(RateLimited.class);
+        if (rateLimited == null) rateLimited = handlerMethod.getBeanType().getAnnotation(RateLimited.class);
+        if (rateLimited == null) return true;
+        if (!rateLimiterService.tryConsume(rateLimited.value(), resolveKey(request))) {
+            throw new CustomException("Rate limit exceeded. Try again later.", HttpStatus.TOO_MANY_REQUESTS);
+        }
+        return true;
+    }
+
+    private String resolveKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetail) {
+            return "user:" + ((CustomUserDetail) authentication.getPrincipal()).getUser().getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,14 @@
+package com.grash.security;
+
+import java.lang.annotation.*;
+
+/**
+ * Throttles the annotated handler, or every handler of the annotated controller, with the named policy from
+ * {@code rate-limit.policies}.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimited {
+    String value();
+}
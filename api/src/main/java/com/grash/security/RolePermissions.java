@@ -0,0 +1,68 @@
+package com.grash.security;
+
+import com.grash.model.Role;
+import com.grash.model.enums.PermissionEntity;
+
+import java.util.Collection;
+
+/**
+ * Immutable snapshot of a {@link Role}'s permission collections as bitmasks indexed by {@link PermissionEntity}
+ * ordinal, so authorization checks don't touch Hibernate collections.
+ */
+public final class RolePermissions {
+
+    private final long create;
+    private final long view;
+    private final long viewOthers;
+    private final long editOthers;
+    private final long deleteOthers;
+
+    private RolePermissions(Role role) {
+        this.create = mask(role.getCreatePermissions());
+        this.view = mask(role.getViewPermissions());
+        this.viewOthers = mask(role.getViewOtherPermissions());
+        this.editOthers = mask(role.getEditOtherPermissions());
+        this.deleteOthers = mask(role.getDeleteOtherPermissions());
+    }
+
+    public static RolePermissions of(Role role) {
+        return new RolePermissions(role);
+    }
+
+    public boolean canCreate(PermissionEntity entity) {
+        return has(create, entity);
+    }
+
+    public boolean canView(PermissionEntity entity) {
+        return has(view, entity);
+    }
+
+    public boolean canViewOthers(PermissionEntity entity) {
+        return has(viewOthers, entity);
+    }
+
+    public boolean canEditOthers(PermissionEntity entity) {
+        return has(editOthers, entity);
+    }
+
+    public boolean canDeleteOthers(PermissionEntity entity) {
+        return has(deleteOthers, entity);
+    }
+
+    private static boolean has(long mask, PermissionEntity entity) {
+        return (mask & bit(entity)) != 0;
+    }
+
+    private static long bit(PermissionEntity entity) {
+        return 1L << entity.ordinal();
+    }
+
+    private static long mask(Collection<PermissionEntity> permissions) {
+        long mask = 0;
+        if (permissions == null) return mask;
+        for (PermissionEntity permission : permissions) {
+            mask |= bit(permission);
+        }
+        return mask;
+    }
+}
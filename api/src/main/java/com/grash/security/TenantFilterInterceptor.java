@@ -0,0 +1,46 @@
+package com.grash.security;
+
+import com.grash.model.abstracts.CompanyAudit;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Enables {@link CompanyAudit#TENANT_FILTER} on the request's session so tenant isolation is applied by the
+ * database instead of checking every loaded row. Relies on the open-in-view session, hence registered after it.
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantFilterInterceptor implements HandlerInterceptor {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetail)) return true;
+        CustomUserDetail userDetail = (CustomUserDetail) authentication.getPrincipal();
+        if (userDetail.isSuperAdmin()) return true;
+        Set<Long> companyIds = new HashSet<>(userDetail.getSuperAccountCompanyIds());
+        companyIds.add(userDetail.getUser().getCompany().getId());
+        entityManager.unwrap(Session.class).enableFilter(CompanyAudit.TENANT_FILTER)
+                .setParameterList("companyIds", companyIds);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (entityManager.unwrap(Session.class).getEnabledFilter(CompanyAudit.TENANT_FILTER) != null)
+            entityManager.unwrap(Session.class).disableFilter(CompanyAudit.TENANT_FILTER);
+    }
+}
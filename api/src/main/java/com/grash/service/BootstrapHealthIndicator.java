@@ -0,0 +1,37 @@
+package com.grash.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Out of service until the startup tasks running in the background are done. Part of the readiness group so that
+ * a node only gets traffic once its triggers are armed and the default roles are up to date.
+ */
+@Component
+public class BootstrapHealthIndicator implements HealthIndicator {
+
+    private final Set<String> pendingTasks = ConcurrentHashMap.newKeySet();
+
+    public void start(String task) {
+        pendingTasks.add(task);
+    }
+
+    public void complete(String task) {
+        pendingTasks.remove(task);
+    }
+
+    @Override
+    public Health health() {
+        if (pendingTasks.isEmpty()) {
+            return Health.up().build();
+        } else {
+            return Health.outOfService()
+                    .withDetail("pendingTasks", pendingTasks)
+                    .build();
+        }
+    }
+}
@@ -5,13 +5,32 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.grash.dto.BrandConfig;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
+/**
+ * The white labeling settings come from the environment, so they are parsed once at startup. Only the license check,
+ * itself cached, is run on each call.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BrandingService {
 
+    private static final String DEFAULT_MAIL_BACKGROUND_COLOR = "#00A0E3";
+    private static final BrandConfig DEFAULT_CONFIG = BrandConfig.builder()
+            .name("Atlas CMMS")
+            .shortName("Atlas")
+            .website("https://www.atlas-cmms.com")
+            .mail("contact@atlas-cmms.com")
+            .phone("+212 6 30 69 00 50")
+            .addressStreet("410, Boulevard Zerktouni, Hamad, №1")
+            .addressCity("Casablanca-Morocco 20040")
+            .build();
+
     private final ObjectMapper objectMapper;
     private final LicenseService licenseService;
     @Value("${white-labeling.custom-colors:#{null}}")
@@ -19,39 +38,34 @@ public class BrandingService {
     @Value("${white-labeling.brand-config:#{null}}")
     private String brandRawConfig;
 
-    public String getMailBackgroundColor() {
-        String backgroundColor = "#00A0E3";
+    private String mailBackgroundColor = DEFAULT_MAIL_BACKGROUND_COLOR;
+    private BrandConfig customConfig;
+
+    @PostConstruct
+    public void parseConfig() {
         if (customColors != null && !customColors.isEmpty()) {
-            ObjectMapper mapper = new ObjectMapper();
             try {
-                JsonNode node = mapper.readTree(customColors);
-                backgroundColor = node.get("emailColors").asText();
+                JsonNode node = objectMapper.readTree(customColors);
+                mailBackgroundColor = node.get("emailColors").asText();
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("Invalid white-labeling.custom-colors", e);
             }
         }
-        return backgroundColor;
-    }
-
-    public BrandConfig getBrandConfig() {
-        BrandConfig defaultConfig = BrandConfig.builder()
-                .name("Atlas CMMS")
-                .shortName("Atlas")
-                .website("https://www.atlas-cmms.com")
-                .mail("contact@atlas-cmms.com")
-                .phone("+212 6 30 69 00 50")
-                .addressStreet("410, Boulevard Zerktouni, Hamad, №1")
-                .addressCity("Casablanca-Morocco 20040")
-                .build();
-        if (!licenseService.isLicenseValid()) return defaultConfig;
-        if (brandRawConfig == null || brandRawConfig.isEmpty()) {
-            return defaultConfig;
-        } else {
+        if (brandRawConfig != null && !brandRawConfig.isEmpty()) {
             try {
-                return objectMapper.readValue(brandRawConfig, BrandConfig.class);
+                customConfig = objectMapper.readValue(brandRawConfig, BrandConfig.class);
             } catch (Exception e) {
-                return defaultConfig;
+                log.error("Invalid white-labeling.brand-config", e);
             }
         }
     }
+
+    public String getMailBackgroundColor() {
+        return mailBackgroundColor;
+    }
+
+    public BrandConfig getBrandConfig() {
+        if (customConfig == null || !licenseService.isLicenseValid()) return DEFAULT_CONFIG;
+        return customConfig;
+    }
 }
@@ -41,6 +41,13 @@ public class CustomSequenceService {
         return nextSequence;
     }
 
+    @Transactional
+    public Long getNextWorkOrderSequences(Company company, int count) {
+        CustomSequence customSequence = getOrCreateCustomSequence(company);
+        Long firstSequence = customSequence.getAndIncrementWorkOrderSequence(count);
+        customSequenceRepository.save(customSequence);
+        return firstSequence;
+    }
 
     @Transactional
     public Long getNextAssetSequence(Company company) {
@@ -0,0 +1,239 @@
+package com.grash.service;
+
+import com.grash.configuration.MailOutboxProperties;
+import com.grash.job.BatchJobRunner;
+import com.grash.job.TriggerScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.UnsupportedEncodingException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Mails are written to the {@code email_outbox} table in the transaction of the change they are about, so that they
+ * are sent if and only if it commits, and survive a restart or an SMTP outage. Every node drains the table chunk by
+ * chunk: a short transaction claims the due mails with {@code for update skip locked}, pushing their next attempt
+ * {@code mail.outbox.claim-timeout} away, and they are then sent with no row locked, over one SMTP connection kept open
+ * between chunks, at most {@code mail.outbox.max-rate} per second. A mail is deleted once sent, sent again if the
+ * node dies before, and retried with an exponential backoff when it fails, then left in the table as a dead letter
+ * until {@code mail.outbox.dead-letter-retention} elapsed, its {@code next_attempt_at} then holding when it died.
+ * Every time is taken from the database clock, shared by the nodes.
+ */
+@Slf4j
+@Service
+public class EmailOutbox implements DisposableBean {
+
+    private static final String JOB = "email-outbox";
+    private static final String PENDING = "PENDING";
+    private static final String DEAD = "DEAD";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JavaMailSenderImpl mailSender;
+    private final MailProperties mailProperties;
+    private final BrandingService brandingService;
+    private final BatchJobRunner batchJobRunner;
+    private final TriggerScheduler triggerScheduler;
+    private final MeterRegistry meterRegistry;
+    private final MailOutboxProperties properties;
+    private final long sendIntervalNanos;
+
+    private Transport transport;
+    private long transportUsedAt;
+    private long nextSendAt;
+
+    public EmailOutbox(JdbcTemplate jdbcTemplate, JavaMailSenderImpl mailSender, MailProperties mailProperties,
+                       BrandingService brandingService, BatchJobRunner batchJobRunner,
+                       TriggerScheduler triggerScheduler, MeterRegistry meterRegistry,
+                       MailOutboxProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mailSender = mailSender;
+        this.mailProperties = mailProperties;
+        this.brandingService = brandingService;
+        this.batchJobRunner = batchJobRunner;
+        this.triggerScheduler = triggerScheduler;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.sendIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getMaxRate());
+    }
+
+    @PostConstruct
+    public void start() {
+        triggerScheduler.scheduleAtFixedRate(JOB, "dispatch", this::dispatch, new Date(),
+                properties.getPollInterval().toMillis());
+    }
+
+    /**
+     * Queues a mail within the current transaction
+     */
+    public void add(String[] to, String subject, String htmlBody) {
+        if (to.length == 0) return;
+        jdbcTemplate.update("insert into email_outbox (recipients, subject, html_body, status, attempts, " +
+                "next_attempt_at, created_at) values (?, ?, ?, ?, 0, now(), now())", String.join(",", to), subject,
+                htmlBody, PENDING);
+    }
+
+    /**
+     * Sends the due mails chunk by chunk until none is left
+     */
+    public synchronized void dispatch() {
+        int batchSize = properties.getBatchSize();
+        try {
+            int processed;
+            do {
+                List<OutboxEmail> emails = batchJobRunner.runChunk(JOB, () -> claim(batchSize), List::size);
+                emails.forEach(this::deliver);
+                processed = emails.size();
+            } while (processed == batchSize);
+        } finally {
+            long idle = System.currentTimeMillis() - transportUsedAt;
+            if (idle > properties.getConnectionIdleTimeout().toMillis()) closeTransport();
+        }
+    }
+
+    /**
+     * Claims the due mails, skipping those claimed by another node, counting the attempt about to be made
+     */
+    private List<OutboxEmail> claim(int limit) {
+        return jdbcTemplate.query("update email_outbox set attempts = attempts + 1, next_attempt_at = now() + ? * " +
+                        "interval '1 millisecond' where id in (select id from email_outbox where status = ? and " +
+                        "next_attempt_at <= now() order by next_attempt_at limit ? for update skip locked) returning " +
+                        "id, recipients, subject, html_body, attempts",
+                (resultSet, rowNum) -> new OutboxEmail(resultSet.getLong("id"), resultSet.getString("recipients"),
+                        resultSet.getString("subject"), resultSet.getString("html_body"),
+                        resultSet.getInt("attempts")),
+                properties.getClaimTimeout().toMillis(), PENDING, limit);
+    }
+
+    /**
+     * Deletes up to {@code limit} dead letters which died longer than {@code mail.outbox.dead-letter-retention} ago
+     *
+     * @return the number of mails deleted
+     */
+    public int deleteExpiredDeadLetters(int limit) {
+        return jdbcTemplate.update("delete from email_outbox where id in (select id from email_outbox where status = " +
+                        "? and next_attempt_at < now() - ? * interval '1 millisecond' limit ? for update skip locked)",
+                DEAD, properties.getDeadLetterRetention().toMillis(), limit);
+    }
+
+    private void deliver(OutboxEmail email) {
+        try {
+            send(email);
+        } catch (MessagingException | RuntimeException e) {
+            closeTransport();
+            onFailure(email, e);
+            return;
+        }
+        jdbcTemplate.update("delete from email_outbox where id = ?", email.id);
+        count("sent");
+    }
+
+    private void send(OutboxEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        try {
+            helper.setFrom(new InternetAddress(mailProperties.getUsername(),
+                    brandingService.getBrandConfig().getName()));
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+        helper.setTo(email.recipients.split(","));
+        helper.setSubject(email.subject);
+        helper.setText(email.htmlBody, true);
+        message.saveChanges();
+        throttle();
+        boolean reused = transport != null;
+        try {
+            getTransport().sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            if (!reused) throw e;
+            //the server may have dropped the idle connection
+            closeTransport();
+            getTransport().sendMessage(message, message.getAllRecipients());
+        }
+        transportUsedAt = System.currentTimeMillis();
+    }
+
+    private void onFailure(OutboxEmail email, Exception e) {
+        int attempts = email.attempts;
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (attempts >= properties.getMaxAttempts()) {
+            log.error("Giving up mail {} after {} attempts", email.id, attempts, e);
+            jdbcTemplate.update("update email_outbox set status = ?, attempts = ?, next_attempt_at = now(), " +
+                    "last_error = ? where id = ?", DEAD, attempts, error, email.id);
+            count("dead");
+        } else {
+            log.warn("Sending mail {} failed, retrying: {}", email.id, error);
+            long backoff = properties.getInitialBackoff().toMillis() << (attempts - 1);
+            jdbcTemplate.update("update email_outbox set attempts = ?, next_attempt_at = now() + ? * interval " +
+                    "'1 millisecond', last_error = ? where id = ?", attempts, backoff, error, email.id);
+            count("retried");
+        }
+    }
+
+    /**
+     * Spaces the sends to stay within the maximum rate
+     */
+    private void throttle() {
+        long now = System.nanoTime();
+        if (nextSendAt - now > 0) LockSupport.parkNanos(nextSendAt - now);
+        nextSendAt = Math.max(now, nextSendAt) + sendIntervalNanos;
+    }
+
+    private Transport getTransport() throws MessagingException {
+        if (transport == null) {
+            Transport newTransport = mailSender.getSession().getTransport(mailSender.getProtocol());
+            newTransport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(),
+                    mailSender.getPassword());
+            transport = newTransport;
+        }
+        return transport;
+    }
+
+    private void closeTransport() {
+        if (transport == null) return;
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Closing the SMTP connection failed", e);
+        }
+        transport = null;
+    }
+
+    private void count(String outcome) {
+        Counter.builder("mail.messages").tag("outcome", outcome).register(meterRegistry).increment();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        triggerScheduler.cancel(JOB);
+        closeTransport();
+    }
+
+    @AllArgsConstructor
+    private static class OutboxEmail {
+        private final long id;
+        /**
+         * Comma separated
+         */
+        private final String recipients;
+        private final String subject;
+        private final String htmlBody;
+        private final int attempts;
+    }
+}
@@ -2,29 +2,21 @@ package com.grash.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.grash.exception.CustomException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.mail.MailProperties;
-import org.springframework.core.env.Environment;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpStatus;
 import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring5.SpringTemplateEngine;
 
 import javax.mail.MessagingException;
-import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import javax.transaction.Transactional;
 import java.io.File;
-import java.io.UnsupportedEncodingException;
 import java.util.Locale;
 import java.util.Map;
 
@@ -37,7 +29,7 @@ public class EmailService2 {
 
     private final SimpleMailMessage template;
     private final MailProperties mailProperties;
-    private final BrandingService brandingService;
+    private final EmailOutbox emailOutbox;
     @Value("${spring.mail.username:#{null}")
     private String smtpUsername;
 
@@ -47,13 +39,11 @@ public class EmailService2 {
     @Value("${spring.mail.password:#{null}}")
     private String smtpPassword;
 
-    private final SpringTemplateEngine thymeleafTemplateEngine;
+    private final MailRenderService mailRenderService;
 
     @Value("classpath:/static/images/logo.png")
     private Resource resourceFile;
 
-    private final Environment environment;
-
 
     public void sendSimpleMessage(String[] to, String subject, String text) {
         if (Boolean.FALSE.equals(enableEmails))
@@ -95,46 +85,27 @@ public class EmailService2 {
     }
 
 
-    @Async
+    /**
+     * Renders the mail, or reuses an identical render, and queues it in the {@link EmailOutbox} within the current
+     * transaction
+     */
     public void sendMessageUsingThymeleafTemplate(
             String[] to, String subject, Map<String, Object> templateModel, String template, Locale locale) {
         if (Boolean.FALSE.equals(enableEmails))
             return;
-        Context thymeleafContext = new Context();
-        thymeleafContext.setLocale(locale);
-        thymeleafContext.setVariables(templateModel);
-        thymeleafContext.setVariable("environment", environment);
-        thymeleafContext.setVariable("brandConfig", brandingService.getBrandConfig());
-        thymeleafContext.setVariable("backgroundColor", brandingService.getMailBackgroundColor());
-        String htmlBody = thymeleafTemplateEngine.process(template, thymeleafContext);
+        String htmlBody = mailRenderService.render(template, templateModel, locale);
 
-        try {
-            sendHtmlMessage(to, subject, htmlBody);
-        } catch (MessagingException e) {
-            throw new CustomException("Can't send the mail", HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        emailOutbox.add(to, subject, htmlBody);
     }
 
 
+    /**
+     * Queues the mail in the {@link EmailOutbox}, within the current transaction
+     */
     public void sendHtmlMessage(String[] to, String subject, String htmlBody) throws MessagingException {
         if (Boolean.FALSE.equals(enableEmails))
             return;
-        if (to.length > 0) {
-
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            try {
-                helper.setFrom(new InternetAddress(mailProperties.getUsername(),
-                        brandingService.getBrandConfig().getName()));
-            } catch (UnsupportedEncodingException e) {
-                throw new RuntimeException(e);
-            }
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlBody, true);
-            //helper.addInline("attachment.png", resourceFile);
-            emailSender.send(message);
-        }
+        emailOutbox.add(to, subject, htmlBody);
     }
 
 }
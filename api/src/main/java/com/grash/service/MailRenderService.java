@@ -0,0 +1,75 @@
+package com.grash.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the mail templates. The parsed templates are kept by the template resolver cache, the variables shared by
+ * every mail are computed once, and the result of a render is kept for a short while so that the same mail sent to
+ * many users, or to many groups of them, is rendered once per locale.
+ */
+@Service
+public class MailRenderService {
+
+    private final SpringTemplateEngine thymeleafTemplateEngine;
+    private final BrandingService brandingService;
+    private final String logoUrl;
+    private final Cache<RenderKey, String> renders;
+
+    public MailRenderService(SpringTemplateEngine thymeleafTemplateEngine, BrandingService brandingService,
+                             Environment environment,
+                             @Value("${mail.render-cache.maximum-size:200}") long maximumSize,
+                             @Value("${mail.render-cache.expire-after-write-seconds:60}") long ttlSeconds) {
+        this.thymeleafTemplateEngine = thymeleafTemplateEngine;
+        this.brandingService = brandingService;
+        String logoPaths = environment.getProperty("white-labeling.logo-paths");
+        this.logoUrl = environment.getProperty("api.host") + (logoPaths == null || logoPaths.isEmpty() ?
+                "/images/logo.png" : "/images/custom-logo.png");
+        this.renders = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public String render(String template, Map<String, Object> templateModel, Locale locale) {
+        if (!isCacheable(templateModel)) return process(template, templateModel, locale);
+        RenderKey key = new RenderKey(template, locale, new HashMap<>(templateModel));
+        return renders.get(key, k -> process(template, templateModel, locale));
+    }
+
+    private String process(String template, Map<String, Object> templateModel, Locale locale) {
+        Context thymeleafContext = new Context(locale, templateModel);
+        thymeleafContext.setVariable("logoUrl", logoUrl);
+        thymeleafContext.setVariable("brandConfig", brandingService.getBrandConfig());
+        thymeleafContext.setVariable("backgroundColor", brandingService.getMailBackgroundColor());
+        return thymeleafTemplateEngine.process(template, thymeleafContext);
+    }
+
+    /**
+     * Only models made of values compared by value are used as keys, an entity would be compared with all its
+     * associations
+     */
+    private static boolean isCacheable(Map<String, Object> templateModel) {
+        return templateModel.values().stream().allMatch(value -> value == null || value instanceof String
+                || value instanceof Number || value instanceof Boolean || value instanceof Enum
+                || value instanceof Date);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class RenderKey {
+        private final String template;
+        private final Locale locale;
+        private final Map<String, Object> templateModel;
+    }
+}
@@ -0,0 +1,140 @@
+package com.grash.service;
+
+import com.grash.configuration.WebSocketProperties;
+import com.grash.dto.NotificationMiniDTO;
+import com.grash.job.TriggerScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sends the notifications to the {@code /notifications/v2/{userId}} topics. Notifications are only queued per user by the
+ * callers, and every {@code websocket.coalesce-window} the notifications of each user are sent through the
+ * {@link NotificationRelay} as one frame holding an array, so that a burst costs one frame per user instead of one per
+ * notification. A frame also carries the unread count of the user in an {@code unread} header when it changed, a frame
+ * with no notification being sent for a count alone. Sessions falling behind are closed by the transport once their
+ * send buffer or send time limit is exceeded. The clients released before the arrays still get one notification per
+ * frame on {@code /notifications/{userId}}, with no header.
+ */
+@Slf4j
+@Service
+public class NotificationDelivery {
+
+    private static final String TRIGGER_OWNER = "notification-delivery";
+
+    private final NotificationRelay notificationRelay;
+    private final TriggerScheduler triggerScheduler;
+    private final WebSocketProperties properties;
+    private final ConcurrentMap<Long, Deque<NotificationMiniDTO>> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Long> pendingUnread = new ConcurrentHashMap<>();
+    private final Set<String> sessionIds = ConcurrentHashMap.newKeySet();
+    private final Counter queued;
+    private final Counter dropped;
+    private final Counter evictedSessions;
+
+    public NotificationDelivery(NotificationRelay notificationRelay, TriggerScheduler triggerScheduler,
+                                WebSocketProperties properties, MeterRegistry meterRegistry) {
+        this.notificationRelay = notificationRelay;
+        this.triggerScheduler = triggerScheduler;
+        this.properties = properties;
+        this.queued = Counter.builder("websocket.notifications").tag("outcome", "queued").register(meterRegistry);
+        this.dropped = Counter.builder("websocket.notifications").tag("outcome", "dropped").register(meterRegistry);
+        this.evictedSessions = Counter.builder("websocket.sessions.evicted").register(meterRegistry);
+        Gauge.builder("websocket.sessions", sessionIds, Set::size).register(meterRegistry);
+        Gauge.builder("websocket.pending.users", pending, ConcurrentMap::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        triggerScheduler.scheduleAtFixedRate(TRIGGER_OWNER, "flush", this::flush, new Date(),
+                properties.getCoalesceWindow().toMillis());
+    }
+
+    public void send(Long userId, NotificationMiniDTO notification) {
+        pending.compute(userId, (key, notifications) -> {
+            Deque<NotificationMiniDTO> result = notifications == null ? new ArrayDeque<>() : notifications;
+            result.addLast(notification);
+            if (result.size() > properties.getMaxPendingPerUser()) {
+                result.removeFirst();
+                dropped.increment();
+            }
+            return result;
+        });
+        queued.increment();
+    }
+
+    /**
+     * Queues the notifications once the current transaction commits, right away outside of one, so that a client is
+     * never sent a notification it cannot read yet, or one which was rolled back
+     */
+    public void sendAfterCommit(Map<Long, List<NotificationMiniDTO>> notificationsByUser) {
+        if (notificationsByUser.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notificationsByUser.forEach((userId, notifications) -> notifications.forEach(notification ->
+                    send(userId, notification)));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notificationsByUser.forEach((userId, notifications) -> notifications.forEach(notification ->
+                        send(userId, notification)));
+            }
+        });
+    }
+
+    /**
+     * Queues the new unread count of a user, sent with the next frame of the user or alone
+     */
+    public void sendUnread(Long userId, long unread) {
+        pendingUnread.put(userId, unread);
+    }
+
+    /**
+     * Hands the pending notifications and unread counts of each user to the relay, which turns them into one frame
+     * per user
+     */
+    public void flush() {
+        Map<Long, List<NotificationMiniDTO>> notificationsByUser = new LinkedHashMap<>();
+        for (Long userId : pending.keySet()) {
+            Deque<NotificationMiniDTO> notifications = pending.remove(userId);
+            if (notifications != null && !notifications.isEmpty()) {
+                notificationsByUser.put(userId, new ArrayList<>(notifications));
+            }
+        }
+        Map<Long, Long> unreadByUser = new HashMap<>();
+        for (Long userId : pendingUnread.keySet()) {
+            Long unread = pendingUnread.remove(userId);
+            if (unread != null) {
+                unreadByUser.put(userId, unread);
+                notificationsByUser.putIfAbsent(userId, Collections.emptyList());
+            }
+        }
+        if (!notificationsByUser.isEmpty()) notificationRelay.publish(notificationsByUser, unreadByUser);
+    }
+
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        String sessionId = (String) event.getMessage().getHeaders().get("simpSessionId");
+        if (sessionId != null) sessionIds.add(sessionId);
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        sessionIds.remove(event.getSessionId());
+        if (CloseStatus.SESSION_NOT_RELIABLE.equals(event.getCloseStatus())) evictedSessions.increment();
+    }
+}
@@ -0,0 +1,240 @@
+package com.grash.service;
+
+import com.grash.configuration.SchedulingProperties;
+import com.grash.dto.NotificationRecipient;
+import com.grash.job.BatchJobRunner;
+import com.grash.job.TriggerScheduler;
+import com.grash.mapper.NotificationMapper;
+import com.grash.model.Notification;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.NotificationType;
+import com.grash.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Gathers the notifications of the users who chose digests. They are saved in {@code notification_digest_item} in
+ * the transaction creating them, and the first one of a user opens a window of
+ * {@code scheduling.notification-digest.window}. Once it elapsed, the node which claims the rows of the user saves
+ * them as one notification, sent as one push and, if the user gets emails, as one email listing those of the
+ * categories the user gets emails for. A window holding a single notification sends it unchanged.
+ */
+@Slf4j
+@Service
+public class NotificationDigestService implements DisposableBean {
+
+    private static final String JOB = "notification-digest";
+    /**
+     * Users whose digest is sent per flush, the next flush taking the others
+     */
+    private static final int USERS_PER_FLUSH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+    private final NotificationRepository notificationRepository;
+    private final NotificationMapper notificationMapper;
+    private final NotificationDelivery notificationDelivery;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final NotificationRecipientService notificationRecipientService;
+    private final PushNotificationDispatcher pushNotificationDispatcher;
+    private final EmailService2 emailService2;
+    private final MessageSource messageSource;
+    private final BatchJobRunner batchJobRunner;
+    private final TriggerScheduler triggerScheduler;
+    private final SchedulingProperties.NotificationDigest properties;
+    private final Counter buffered;
+    private final Counter sent;
+
+    @Value("${frontend.url}")
+    private String frontendUrl;
+
+    public NotificationDigestService(JdbcTemplate jdbcTemplate, EntityManager em,
+                                     NotificationRepository notificationRepository,
+                                     NotificationMapper notificationMapper,
+                                     NotificationDelivery notificationDelivery,
+                                     UnreadNotificationCounter unreadNotificationCounter,
+                                     NotificationRecipientService notificationRecipientService,
+                                     PushNotificationDispatcher pushNotificationDispatcher,
+                                     EmailService2 emailService2, MessageSource messageSource,
+                                     BatchJobRunner batchJobRunner, TriggerScheduler triggerScheduler,
+                                     SchedulingProperties schedulingProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.em = em;
+        this.notificationRepository = notificationRepository;
+        this.notificationMapper = notificationMapper;
+        this.notificationDelivery = notificationDelivery;
+        this.unreadNotificationCounter = unreadNotificationCounter;
+        this.notificationRecipientService = notificationRecipientService;
+        this.pushNotificationDispatcher = pushNotificationDispatcher;
+        this.emailService2 = emailService2;
+        this.messageSource = messageSource;
+        this.batchJobRunner = batchJobRunner;
+        this.triggerScheduler = triggerScheduler;
+        this.properties = schedulingProperties.getNotificationDigest();
+        this.buffered = Counter.builder("notification.digest.notifications").register(meterRegistry);
+        this.sent = Counter.builder("notification.digest.sent").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        long window = properties.getWindow().toMillis();
+        triggerScheduler.scheduleAtFixedRate(JOB, "flush", this::flush, new Date(),
+                Math.max(1000, Math.min(window / 10, 60000)));
+    }
+
+    /**
+     * Saves a notification of a user in digest mode until the digest is sent
+     *
+     * @param pushTitle the title of the push the notification would have been sent with, null for no push
+     */
+    public void add(Notification notification, String pushTitle) {
+        jdbcTemplate.update("insert into notification_digest_item (user_id, message, notification_type, " +
+                        "resource_id, push_title) values (?, ?, ?, ?, ?)", notification.getUser().getId(),
+                notification.getMessage(), notification.getNotificationType() == null ? null :
+                        notification.getNotificationType().ordinal(), notification.getResourceId(), pushTitle);
+        buffered.increment();
+    }
+
+    /**
+     * Sends the digests whose window elapsed
+     */
+    public void flush() {
+        List<Long> userIds = jdbcTemplate.queryForList("select user_id from notification_digest_item group by " +
+                        "user_id having min(created_at) <= now() - ? * interval '1 millisecond' limit ?", Long.class,
+                properties.getWindow().toMillis(), USERS_PER_FLUSH);
+        for (Long userId : userIds) {
+            try {
+                int count = batchJobRunner.runChunk(JOB, () -> send(userId));
+                if (count > 0) sent.increment();
+            } catch (RuntimeException e) {
+                log.error("Sending the notification digest of user {} failed", userId, e);
+            }
+        }
+    }
+
+    /**
+     * Claims the buffered notifications of a user, skipping those another node is sending, and sends them
+     *
+     * @return the number of notifications sent
+     */
+    private int send(Long userId) {
+        List<Item> items = jdbcTemplate.query("delete from notification_digest_item where id in (select id from " +
+                "notification_digest_item where user_id = ? for update skip locked) returning id, message, " +
+                "notification_type, resource_id, push_title", this::mapItem, userId);
+        if (items.isEmpty()) return 0;
+        items.sort(Comparator.comparingLong(item -> item.id));
+        NotificationRecipient recipient = notificationRecipientService.resolve(Collections.singletonList(userId))
+                .get(userId);
+        if (recipient == null) return 0;
+        OwnUser user = em.getReference(OwnUser.class, userId);
+        Notification notification;
+        String pushTitle;
+        List<String> pushTitles = items.stream().map(item -> item.pushTitle).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (items.size() == 1) {
+            Item item = items.get(0);
+            notification = new Notification(item.message, user, item.notificationType, item.resourceId);
+            pushTitle = item.pushTitle;
+        } else {
+            String message = messageSource.getMessage("notification_digest", new Object[]{items.size()},
+                    recipient.getLocale());
+            NotificationType notificationType = shared(items, item -> item.notificationType);
+            Long resourceId = notificationType == null ? null : shared(items, item -> item.resourceId);
+            notification = new Notification(message, user,
+                    notificationType == null ? NotificationType.INFO : notificationType, resourceId);
+            pushTitle = pushTitles.isEmpty() ? null : message;
+        }
+        Notification savedNotification = notificationRepository.save(notification);
+        unreadNotificationCounter.onCreated(Collections.singletonList(savedNotification));
+        notificationDelivery.sendAfterCommit(Collections.singletonMap(userId,
+                Collections.singletonList(notificationMapper.toMiniDto(savedNotification))));
+        if (pushTitle != null && !recipient.getPushTokens().isEmpty()) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("type", savedNotification.getNotificationType());
+            data.put("id", savedNotification.getResourceId());
+            pushNotificationDispatcher.enqueue(recipient.getPushTokens(), pushTitle,
+                    items.get(items.size() - 1).message, data);
+        }
+        email(recipient, items);
+        return items.size();
+    }
+
+    /**
+     * Lists the notifications of the categories the user gets emails for
+     */
+    private void email(NotificationRecipient recipient, List<Item> items) {
+        if (!recipient.shouldEmailDigests()) return;
+        List<Item> emailed = items.stream().filter(item -> recipient.shouldEmailDigestOf(item.notificationType))
+                .collect(Collectors.toList());
+        if (emailed.isEmpty()) return;
+        Locale locale = recipient.getLocale();
+        StringBuilder notificationsHtml = new StringBuilder("<ul>");
+        for (Item item : emailed.subList(0, Math.min(emailed.size(), properties.getMaxListed()))) {
+            notificationsHtml.append("<li>").append(HtmlUtils.htmlEscape(item.message)).append("</li>");
+        }
+        notificationsHtml.append("</ul>");
+        int more = emailed.size() - properties.getMaxListed();
+        if (more > 0) {
+            notificationsHtml.append("<p>").append(HtmlUtils.htmlEscape(messageSource.getMessage(
+                    "notification_digest_more", new Object[]{more}, locale))).append("</p>");
+        }
+        Map<String, Object> templateModel = new HashMap<>();
+        templateModel.put("notificationsHtml", notificationsHtml.toString());
+        templateModel.put("notificationsLink", frontendUrl + "/app/work-orders");
+        templateModel.put("featuresLink", frontendUrl + "/#key-features");
+        emailService2.sendMessageUsingThymeleafTemplate(new String[]{recipient.getEmail()},
+                messageSource.getMessage("notification_digest", new Object[]{emailed.size()}, locale),
+                templateModel, "notification-digest.html", locale);
+    }
+
+    /**
+     * @return the value shared by all the items, null otherwise
+     */
+    private static <T> T shared(List<Item> items, Function<Item, T> getter) {
+        T value = getter.apply(items.get(0));
+        for (Item item : items) {
+            if (!Objects.equals(value, getter.apply(item))) return null;
+        }
+        return value;
+    }
+
+    private Item mapItem(ResultSet resultSet, int rowNum) throws SQLException {
+        Item item = new Item();
+        item.id = resultSet.getLong("id");
+        item.message = resultSet.getString("message");
+        int notificationType = resultSet.getInt("notification_type");
+        item.notificationType = resultSet.wasNull() ? null : NotificationType.values()[notificationType];
+        long resourceId = resultSet.getLong("resource_id");
+        item.resourceId = resultSet.wasNull() ? null : resourceId;
+        item.pushTitle = resultSet.getString("push_title");
+        return item;
+    }
+
+    @Override
+    public void destroy() {
+        triggerScheduler.cancel(JOB);
+    }
+
+    private static class Item {
+        private long id;
+        private String message;
+        private NotificationType notificationType;
+        private Long resourceId;
+        private String pushTitle;
+    }
+}
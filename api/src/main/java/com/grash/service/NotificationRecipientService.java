@@ -0,0 +1,117 @@
+package com.grash.service;
+
+import com.grash.dto.NotificationRecipient;
+import com.grash.model.enums.Language;
+import com.grash.utils.Helper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reads what is needed to notify users, their settings, push tokens and locale, in one query instead of loading
+ * every user with its eager associations, and groups them by locale so that each message is rendered once per locale.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationRecipientService {
+
+    private static final String SELECT = "select u.id, u.email, u.enabled, s.email_notified, " +
+            "s.email_updates_for_work_orders, s.email_updates_for_requests, s.email_updates_for_purchase_orders, " +
+            "s.notification_digest, gp.language, t.token from own_user u " +
+            "left join user_settings s on s.id = u.user_settings_id " +
+            "left join company c on c.id = u.company_id " +
+            "left join company_settings cs on cs.id = c.company_settings_id " +
+            "left join general_preferences gp on gp.id = cs.general_preferences_id " +
+            "left join push_notification_token t on t.user_id = u.id ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the recipients by user id
+     */
+    public Map<Long, NotificationRecipient> resolve(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return new LinkedHashMap<>();
+        Long[] ids = userIds.stream().distinct().toArray(Long[]::new);
+        return query(SELECT + "where u.id = any(?) order by u.id", ids);
+    }
+
+    /**
+     * Resolves the users a work order is assigned to, its primary user, the users of its team and its additional
+     * assignees, from the rows already written
+     *
+     * @return the recipients by work order id, then by user id
+     */
+    public Map<Long, Map<Long, NotificationRecipient>> resolveWorkOrderAssignees(Collection<Long> workOrderIds) {
+        Map<Long, Map<Long, NotificationRecipient>> recipientsByWorkOrder = new LinkedHashMap<>();
+        if (workOrderIds.isEmpty()) return recipientsByWorkOrder;
+        Long[] ids = workOrderIds.stream().distinct().toArray(Long[]::new);
+        Map<Long, Set<Long>> assigneesByWorkOrder = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("select id as work_order_id, primary_user_id " +
+                    "as user_id from work_order where id = any(?) and primary_user_id is not null " +
+                    "union select w.id, tu.id_user from work_order w join t_team_user_associations tu on tu.id_team " +
+                    "= w.team_id where w.id = any(?) " +
+                    "union select work_order_id, assigned_to_id from work_order_assigned_to where work_order_id = " +
+                    "any(?) and assigned_to_id is not null");
+            for (int i = 1; i <= 3; i++) statement.setArray(i, connection.createArrayOf("bigint", ids));
+            return statement;
+        }, (RowCallbackHandler) resultSet -> assigneesByWorkOrder.computeIfAbsent(resultSet.getLong("work_order_id"),
+                key -> new TreeSet<>()).add(resultSet.getLong("user_id")));
+        Map<Long, NotificationRecipient> recipients = resolve(assigneesByWorkOrder.values().stream()
+                .flatMap(Collection::stream).collect(Collectors.toSet()));
+        for (Long workOrderId : ids) {
+            Map<Long, NotificationRecipient> workOrderRecipients = new LinkedHashMap<>();
+            assigneesByWorkOrder.getOrDefault(workOrderId, Collections.emptySet()).forEach(userId -> {
+                NotificationRecipient recipient = recipients.get(userId);
+                if (recipient != null) workOrderRecipients.put(userId, recipient);
+            });
+            recipientsByWorkOrder.put(workOrderId, workOrderRecipients);
+        }
+        return recipientsByWorkOrder;
+    }
+
+    public static Map<Locale, List<NotificationRecipient>> groupByLocale(Collection<NotificationRecipient> recipients) {
+        return recipients.stream().collect(Collectors.groupingBy(NotificationRecipient::getLocale,
+                LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private Map<Long, NotificationRecipient> query(String sql, Long[] ids) {
+        Map<Long, NotificationRecipient> recipients = new LinkedHashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            NotificationRecipient recipient = recipients.get(resultSet.getLong("id"));
+            if (recipient == null) {
+                recipient = mapRecipient(resultSet);
+                recipients.put(recipient.getUserId(), recipient);
+            }
+            String token = resultSet.getString("token");
+            if (token != null) recipient.getPushTokens().add(token);
+        });
+        return recipients;
+    }
+
+    private static NotificationRecipient mapRecipient(ResultSet resultSet) throws SQLException {
+        NotificationRecipient recipient = new NotificationRecipient();
+        recipient.setUserId(resultSet.getLong("id"));
+        recipient.setEmail(resultSet.getString("email"));
+        recipient.setEnabled(resultSet.getBoolean("enabled"));
+        recipient.setEmailNotified(resultSet.getBoolean("email_notified"));
+        recipient.setEmailUpdatesForWorkOrders(resultSet.getBoolean("email_updates_for_work_orders"));
+        recipient.setEmailUpdatesForRequests(resultSet.getBoolean("email_updates_for_requests"));
+        recipient.setEmailUpdatesForPurchaseOrders(resultSet.getBoolean("email_updates_for_purchase_orders"));
+        recipient.setNotificationDigest(resultSet.getBoolean("notification_digest"));
+        int language = resultSet.getInt("language");
+        recipient.setLocale(Helper.getLocale(resultSet.wasNull() ? Language.EN : Language.values()[language]));
+        return recipient;
+    }
+}
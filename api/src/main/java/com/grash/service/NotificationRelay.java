@@ -0,0 +1,377 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.configuration.WebSocketProperties;
+import com.grash.dto.NotificationMiniDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Relays the notification frames to every API node over Postgres {@code LISTEN/NOTIFY}, so that a user gets them
+ * whichever node holds their WebSocket session. The frames of a flush are packed into as few NOTIFY payloads as
+ * their size limit allows, and each node, this one included, sends the frames it receives to its own sessions.
+ * Frames are numbered per user from {@code notification_sequence} and carry their number in a {@code seq} header, so
+ * that a client seeing a number skipped knows it missed some and reloads its notifications. A notification too large
+ * for a payload is sent with its message truncated, the client reading it in full from the list. Other components
+ * broadcast their own messages to every node over the same connection, on channels of their own.
+ */
+@Slf4j
+@Service
+public class NotificationRelay implements DisposableBean {
+
+    private static final String CHANNEL = "notification_events";
+    /**
+     * Frames holding an array of notifications, numbered and carrying the unread count
+     */
+    public static final String DESTINATION = "/notifications/v2/";
+    /**
+     * One notification per frame, for the clients released before {@link #DESTINATION}
+     */
+    public static final String LEGACY_DESTINATION = "/notifications/";
+    /**
+     * Postgres rejects payloads of 8000 bytes or more, some room is kept for the frame fields
+     */
+    private static final int MAX_PAYLOAD_BYTES = 7000;
+    /**
+     * Notifications are truncated beyond it, so that a frame holding one fits in a payload
+     */
+    private static final int MAX_NOTIFICATION_BYTES = MAX_PAYLOAD_BYTES - 200;
+    private static final String ELLIPSIS = "\u2026";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final WebSocketProperties properties;
+    private final Counter published;
+    private final Counter received;
+    private final Counter frames;
+    private final Map<String, Consumer<String>> subscribers = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread listener;
+
+    public NotificationRelay(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+                             SimpMessageSendingOperations messagingTemplate, ObjectMapper objectMapper,
+                             WebSocketProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.published = Counter.builder("notification.relay.payloads").tag("direction", "published")
+                .register(meterRegistry);
+        this.received = Counter.builder("notification.relay.payloads").tag("direction", "received")
+                .register(meterRegistry);
+        this.frames = Counter.builder("websocket.frames").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        listener = new Thread(this::listen, "notification-relay");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Hands the payloads broadcast on a channel by any node, this one included, to the handler. Channels subscribed
+     * to once the relay started are only listened to after it reconnects.
+     */
+    public void subscribe(String channel, Consumer<String> handler) {
+        subscribers.put(channel, handler);
+    }
+
+    /**
+     * Sends a payload to the subscribers of a channel on every node
+     */
+    public void broadcast(String channel, String payload) {
+        jdbcTemplate.queryForObject("select pg_notify(?, ?)", String.class, channel, payload);
+    }
+
+    /**
+     * Numbers and publishes the notifications of several users. The frames which could not be published, when the
+     * database cannot be reached, are sent to the local sessions only.
+     *
+     * @param unreadByUser the new unread count of some of the users, sent with their last frame
+     */
+    public void publish(Map<Long, List<NotificationMiniDTO>> notificationsByUser, Map<Long, Long> unreadByUser) {
+        //rows locked in the same order by all the nodes
+        Map<Long, List<List<NotificationMiniDTO>>> piecesByUser = new TreeMap<>();
+        notificationsByUser.forEach((userId, notifications) -> piecesByUser.put(userId, split(notifications)));
+        List<Frame> frameList = new ArrayList<>();
+        try {
+            Map<Long, Long> lastSequences = allocateSequences(piecesByUser);
+            piecesByUser.forEach((userId, pieces) -> {
+                long seq = lastSequences.get(userId) - pieces.size();
+                for (int i = 0; i < pieces.size(); i++) {
+                    Long unread = i == pieces.size() - 1 ? unreadByUser.get(userId) : null;
+                    frameList.add(new Frame(userId, ++seq, unread, pieces.get(i)));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Numbering notifications failed, sending them to the local sessions only", e);
+            piecesByUser.forEach((userId, pieces) -> pieces.forEach(piece -> deliver(new Frame(userId, null,
+                    unreadByUser.get(userId), piece))));
+            return;
+        }
+        List<Payload> payloads = pack(frameList);
+        for (int i = 0; i < payloads.size(); i++) {
+            try {
+                jdbcTemplate.queryForObject("select pg_notify(?, ?)", String.class, CHANNEL, payloads.get(i).json);
+                published.increment();
+            } catch (RuntimeException e) {
+                log.error("Relaying notifications failed, sending the {} payloads left to the local sessions only",
+                        payloads.size() - i, e);
+                payloads.subList(i, payloads.size()).forEach(payload -> payload.frames.forEach(this::deliver));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Splits the notifications of a user in frames fitting in a payload, an empty list making one empty frame
+     */
+    private List<List<NotificationMiniDTO>> split(List<NotificationMiniDTO> notifications) {
+        List<List<NotificationMiniDTO>> pieces = new ArrayList<>();
+        List<NotificationMiniDTO> piece = new ArrayList<>();
+        int size = 0;
+        for (NotificationMiniDTO notification : notifications) {
+            if (sizeOf(notification) > MAX_NOTIFICATION_BYTES) notification = truncate(notification);
+            int notificationSize = sizeOf(notification) + 1;
+            if (!piece.isEmpty() && size + notificationSize > MAX_PAYLOAD_BYTES) {
+                pieces.add(piece);
+                piece = new ArrayList<>();
+                size = 0;
+            }
+            piece.add(notification);
+            size += notificationSize;
+        }
+        if (!piece.isEmpty() || pieces.isEmpty()) pieces.add(piece);
+        return pieces;
+    }
+
+    /**
+     * @return a copy of the notification whose message is cut to fit in {@link #MAX_NOTIFICATION_BYTES}
+     */
+    private NotificationMiniDTO truncate(NotificationMiniDTO notification) {
+        NotificationMiniDTO truncated = new NotificationMiniDTO();
+        truncated.setId(notification.getId());
+        truncated.setSeen(notification.isSeen());
+        truncated.setNotificationType(notification.getNotificationType());
+        truncated.setResourceId(notification.getResourceId());
+        truncated.setCreatedAt(notification.getCreatedAt());
+        String message = notification.getMessage() == null ? "" : notification.getMessage();
+        truncated.setMessage(message);
+        int excess;
+        while ((excess = sizeOf(truncated) - MAX_NOTIFICATION_BYTES) > 0 && !message.isEmpty()) {
+            //a character takes at least a byte
+            int end = Math.max(0, message.length() - excess - 1);
+            if (end > 0 && Character.isHighSurrogate(message.charAt(end - 1))) end--;
+            message = message.substring(0, end);
+            truncated.setMessage(message + ELLIPSIS);
+        }
+        log.warn("Notification {} is too large to be relayed, its message was truncated", notification.getId());
+        return truncated;
+    }
+
+    /**
+     * Reserves as many numbers as frames for each user in one statement
+     *
+     * @return the last number reserved for each user
+     */
+    private Map<Long, Long> allocateSequences(Map<Long, List<List<NotificationMiniDTO>>> piecesByUser) {
+        Long[] userIds = piecesByUser.keySet().toArray(new Long[0]);
+        Long[] counts = piecesByUser.values().stream().map(pieces -> (long) pieces.size()).toArray(Long[]::new);
+        Map<Long, Long> lastSequences = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("insert into notification_sequence (user_id, " +
+                    "seq) select * from unnest(?::bigint[], ?::bigint[]) on conflict (user_id) do update set seq = " +
+                    "notification_sequence.seq + excluded.seq returning user_id, seq");
+            statement.setArray(1, connection.createArrayOf("bigint", userIds));
+            statement.setArray(2, connection.createArrayOf("bigint", counts));
+            return statement;
+        }, (RowCallbackHandler) resultSet -> lastSequences.put(resultSet.getLong("user_id"),
+                resultSet.getLong("seq")));
+        return lastSequences;
+    }
+
+    /**
+     * Packs the frames in as few payloads as possible
+     */
+    private List<Payload> pack(List<Frame> frameList) {
+        List<Payload> payloads = new ArrayList<>();
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        List<Frame> payloadFrames = new ArrayList<>();
+        int payloadBytes = 2;
+        for (Frame frame : frameList) {
+            String frameJson = toJson(frame);
+            int frameBytes = bytes(frameJson) + 1;
+            if (!payloadFrames.isEmpty() && payloadBytes + frameBytes > MAX_PAYLOAD_BYTES) {
+                payloads.add(new Payload(json.toString(), payloadFrames));
+                json = new StringJoiner(",", "[", "]");
+                payloadFrames = new ArrayList<>();
+                payloadBytes = 2;
+            }
+            json.add(frameJson);
+            payloadFrames.add(frame);
+            payloadBytes += frameBytes;
+        }
+        if (!payloadFrames.isEmpty()) payloads.add(new Payload(json.toString(), payloadFrames));
+        return payloads;
+    }
+
+    /**
+     * Waiting for notifications reads nothing from an idle connection, so it is checked with a query every
+     * {@code websocket.relay-keepalive-interval}, failing after {@code websocket.relay-socket-timeout} when the
+     * database is gone, TCP keepalive covering the rest.
+     */
+    private void listen() {
+        Properties connectionProperties = new Properties();
+        if (dataSourceProperties.determineUsername() != null)
+            connectionProperties.setProperty("user", dataSourceProperties.determineUsername());
+        if (dataSourceProperties.determinePassword() != null)
+            connectionProperties.setProperty("password", dataSourceProperties.determinePassword());
+        connectionProperties.setProperty("tcpKeepAlive", "true");
+        connectionProperties.setProperty("socketTimeout",
+                String.valueOf(Math.max(1, properties.getRelaySocketTimeout().getSeconds())));
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    connectionProperties)) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    for (String channel : subscribers.keySet()) statement.execute("LISTEN " + channel);
+                }
+                log.info("Listening to the relayed notifications");
+                long checkedAt = System.currentTimeMillis();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications == null || notifications.length == 0) {
+                        if (System.currentTimeMillis() - checkedAt >= properties.getRelayKeepaliveInterval()
+                                .toMillis()) {
+                            try (Statement statement = connection.createStatement()) {
+                                statement.execute("select 1");
+                            }
+                            checkedAt = System.currentTimeMillis();
+                        }
+                        continue;
+                    }
+                    checkedAt = System.currentTimeMillis();
+                    for (PGNotification notification : notifications) {
+                        if (CHANNEL.equals(notification.getName())) {
+                            received.increment();
+                            onPayload(notification.getParameter());
+                        } else onBroadcast(notification.getName(), notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Listening to the relayed notifications failed, reconnecting", e);
+                try {
+                    Thread.sleep(properties.getRelayReconnectDelay().toMillis());
+                } catch (InterruptedException interruptedException) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void onPayload(String payload) {
+        try {
+            Frame[] frameArray = objectMapper.readValue(payload, Frame[].class);
+            for (Frame frame : frameArray) deliver(frame);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Delivering relayed notifications failed", e);
+        }
+    }
+
+    private void onBroadcast(String channel, String payload) {
+        Consumer<String> handler = subscribers.get(channel);
+        if (handler == null) return;
+        try {
+            handler.accept(payload);
+        } catch (RuntimeException e) {
+            log.error("Handling a message of channel {} failed", channel, e);
+        }
+    }
+
+    /**
+     * Sends a frame to the sessions of its user connected to this node, and its notifications one by one to the
+     * sessions of the older clients
+     */
+    private void deliver(Frame frame) {
+        Map<String, Object> headers = new HashMap<>();
+        if (frame.getSeq() != null) headers.put("seq", frame.getSeq());
+        if (frame.getUnread() != null) headers.put("unread", frame.getUnread());
+        messagingTemplate.convertAndSend(DESTINATION + frame.getUserId(), frame.getNotifications(), headers);
+        frame.getNotifications().forEach(notification ->
+                messagingTemplate.convertAndSend(LEGACY_DESTINATION + frame.getUserId(), notification));
+        frames.increment();
+    }
+
+    private int sizeOf(NotificationMiniDTO notification) {
+        return bytes(toJson(notification));
+    }
+
+    private static int bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (listener != null) listener.join(2000);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class Frame {
+        private Long userId;
+        /**
+         * Null when the frame was not relayed
+         */
+        private Long seq;
+        /**
+         * Null when it did not change
+         */
+        private Long unread;
+        private List<NotificationMiniDTO> notifications;
+    }
+
+    @AllArgsConstructor
+    private static class Payload {
+        private final String json;
+        private final List<Frame> frames;
+    }
+}
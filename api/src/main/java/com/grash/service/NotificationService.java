@@ -2,27 +2,24 @@ package com.grash.service;
 
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
+import com.grash.configuration.AsyncConfig;
 import com.grash.dto.NotificationPatchDTO;
+import com.grash.dto.NotificationRecipient;
 import com.grash.exception.CustomException;
 import com.grash.mapper.NotificationMapper;
 import com.grash.model.Notification;
 import com.grash.model.OwnUser;
-import com.grash.model.PushNotificationToken;
 import com.grash.repository.NotificationRepository;
-import io.github.jav.exposerversdk.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,37 +29,103 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final NotificationMapper notificationMapper;
     private final PushNotificationTokenService pushNotificationTokenService;
-    private final SimpMessageSendingOperations messagingTemplate;
-
-    @Async
-    public Notification create(Notification notification) {
-        Notification savedNotification = notificationRepository.save(notification);
-        messagingTemplate.convertAndSend("/notifications/" + notification.getUser().getId(), savedNotification);
-        return savedNotification;
+    private final PushNotificationDispatcher pushNotificationDispatcher;
+    private final NotificationDelivery notificationDelivery;
+    private final NotificationDigestService notificationDigestService;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final NotificationRecipientService notificationRecipientService;
+
+    /**
+     * Same as {@link #createMultiple} for one notification with no push, handed to the digest when its user is in
+     * digest mode
+     */
+    @Async(AsyncConfig.NOTIFICATIONS_EXECUTOR)
+    public void create(Notification notification) {
+        createMultiple(Collections.singletonList(notification), false, null);
     }
 
-    @Async
+    @Async(AsyncConfig.NOTIFICATIONS_EXECUTOR)
     public void createMultiple(List<Notification> notifications, boolean mobile, String title) {
+        Map<Long, NotificationRecipient> recipients = resolveRecipients(notifications);
+        notifications = withoutDigested(notifications, recipients, mobile ? title : null);
         List<Notification> savedNotifications = notificationRepository.saveAll(notifications);
-        savedNotifications.forEach(notification ->
-                messagingTemplate.convertAndSend("/notifications/" + notification.getUser().getId(), notification));
+        unreadNotificationCounter.onCreated(savedNotifications);
+        deliver(savedNotifications);
         if (mobile && !notifications.isEmpty())
-            try {
-                sendPushNotifications(notifications.stream().map(Notification::getUser).collect(Collectors.toList()),
-                        title, notifications.get(0).getMessage(), new HashMap<String, Object>() {{
-                            put("type", notifications.get(0).getNotificationType());
-                            put("id", notifications.get(0).getResourceId());
-                        }});
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            push(notifications, recipients, title);
+    }
+
+    /**
+     * Same as {@link #createMultiple} for notifications about several resources: saved in one batch, then pushed
+     * once per resource
+     */
+    @Async(AsyncConfig.NOTIFICATIONS_EXECUTOR)
+    public void createMultipleByResource(List<Notification> notifications, String title) {
+        Map<Long, NotificationRecipient> recipients = resolveRecipients(notifications);
+        notifications = withoutDigested(notifications, recipients, title);
+        List<Notification> savedNotifications = notificationRepository.saveAll(notifications);
+        unreadNotificationCounter.onCreated(savedNotifications);
+        deliver(savedNotifications);
+        notifications.stream()
+                .collect(Collectors.groupingBy(Notification::getResourceId, LinkedHashMap::new, Collectors.toList()))
+                .values().forEach(resourceNotifications -> push(resourceNotifications, recipients, title));
+    }
+
+    /**
+     * Maps the notifications while their transaction is open, they are only queued once it commits
+     */
+    private void deliver(List<Notification> notifications) {
+        notificationDelivery.sendAfterCommit(notifications.stream().collect(Collectors.groupingBy(
+                notification -> notification.getUser().getId(), LinkedHashMap::new,
+                Collectors.mapping(notificationMapper::toMiniDto, Collectors.toList()))));
+    }
+
+    /**
+     * Reads the settings and push tokens of the notified users in one query, the users may be references which were
+     * never loaded
+     */
+    private Map<Long, NotificationRecipient> resolveRecipients(List<Notification> notifications) {
+        return notificationRecipientService.resolve(notifications.stream()
+                .map(notification -> notification.getUser().getId()).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Hands the notifications of the users in digest mode to the {@link NotificationDigestService}
+     *
+     * @return the notifications to send right away
+     */
+    private List<Notification> withoutDigested(List<Notification> notifications,
+                                               Map<Long, NotificationRecipient> recipients, String pushTitle) {
+        List<Notification> immediate = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            NotificationRecipient recipient = recipients.get(notification.getUser().getId());
+            if (recipient != null && recipient.isNotificationDigest()) {
+                notificationDigestService.add(notification, pushTitle);
+            } else immediate.add(notification);
+        }
+        return immediate;
+    }
+
+    private void push(List<Notification> notifications, Map<Long, NotificationRecipient> recipients, String title) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", notifications.get(0).getNotificationType());
+        data.put("id", notifications.get(0).getResourceId());
+        List<String> tokens = notifications.stream().map(notification -> notification.getUser().getId()).distinct()
+                .map(recipients::get).filter(Objects::nonNull)
+                .flatMap(recipient -> recipient.getPushTokens().stream()).collect(Collectors.toList());
+        pushNotificationDispatcher.enqueue(tokens, title, notifications.get(0).getMessage(), data);
     }
 
     public Notification update(Long id, NotificationPatchDTO notificationsPatchDTO) {
         if (notificationRepository.existsById(id)) {
             Notification savedNotification = notificationRepository.findById(id).get();
-            return notificationRepository.save(notificationMapper.updateNotification(savedNotification,
-                    notificationsPatchDTO));
+            boolean wasSeen = savedNotification.isSeen();
+            Notification updatedNotification = notificationRepository.save(
+                    notificationMapper.updateNotification(savedNotification, notificationsPatchDTO));
+            if (updatedNotification.getUser() != null && wasSeen != updatedNotification.isSeen()) {
+                unreadNotificationCounter.add(updatedNotification.getUser().getId(), wasSeen ? 1 : -1);
+            }
+            return updatedNotification;
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
@@ -71,6 +134,10 @@ public class NotificationService {
     }
 
     public void delete(Long id) {
+        notificationRepository.findById(id).ifPresent(notification -> {
+            if (!notification.isSeen() && notification.getUser() != null)
+                unreadNotificationCounter.add(notification.getUser().getId(), -1);
+        });
         notificationRepository.deleteById(id);
     }
 
@@ -91,108 +158,29 @@ public class NotificationService {
     }
 
     public void sendPushNotifications(Collection<OwnUser> users, String title, String message,
-                                      Map<String, Object> data) throws PushClientException, InterruptedException {
-
-        List<String> tokens = new ArrayList<>();
-        users.forEach(user -> {
-            Optional<PushNotificationToken> optionalPushNotificationToken =
-                    pushNotificationTokenService.findByUser(user.getId());
-            if (optionalPushNotificationToken.isPresent()) {
-                String token = optionalPushNotificationToken.get().getToken();
-                if (PushClient.isExponentPushToken(token))
-                    tokens.add(token);
-            }
-        });
-
-        ExpoPushMessage expoPushMessage = new ExpoPushMessage();
-        expoPushMessage.getTo().addAll(tokens);
-        expoPushMessage.setTitle(title);
-        expoPushMessage.setBody(message);
-        expoPushMessage.setData(data);
-
-        List<ExpoPushMessage> expoPushMessages = new ArrayList<>();
-        expoPushMessages.add(expoPushMessage);
-
-        PushClient client = new PushClient();
-        List<List<ExpoPushMessage>> chunks = client.chunkPushNotifications(expoPushMessages);
-
-        List<CompletableFuture<List<ExpoPushTicket>>> messageRepliesFutures = new ArrayList<>();
-
-        for (List<ExpoPushMessage> chunk : chunks) {
-            messageRepliesFutures.add(client.sendPushNotificationsAsync(chunk));
-        }
-
-        // Wait for each completable future to finish
-        List<ExpoPushTicket> allTickets = new ArrayList<>();
-        for (CompletableFuture<List<ExpoPushTicket>> messageReplyFuture : messageRepliesFutures) {
-            try {
-                allTickets.addAll(messageReplyFuture.get());
-            } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
-            }
-        }
+                                      Map<String, Object> data) {
+        List<Long> userIds = users.stream().map(OwnUser::getId).distinct().collect(Collectors.toList());
+        pushNotificationDispatcher.enqueue(pushNotificationTokenService.findTokensByUsers(userIds), title, message,
+                data);
+    }
 
-        List<ExpoPushMessageTicketPair<ExpoPushMessage>> zippedMessagesTickets =
-                client.zipMessagesTickets(expoPushMessages, allTickets);
-
-        List<ExpoPushMessageTicketPair<ExpoPushMessage>> okTicketMessages =
-                client.filterAllSuccessfulMessages(zippedMessagesTickets);
-        String okTicketMessagesString = okTicketMessages.stream().map(
-                p -> "Title: " + p.message.getTitle() + ", Id:" + p.ticket.getId()
-        ).collect(Collectors.joining(","));
-        System.out.println(
-                "Recieved OK ticket for " +
-                        okTicketMessages.size() +
-                        " messages: " + okTicketMessagesString
-        );
-
-        List<ExpoPushMessageTicketPair<ExpoPushMessage>> errorTicketMessages =
-                client.filterAllMessagesWithError(zippedMessagesTickets);
-        String errorTicketMessagesString = errorTicketMessages.stream().map(
-                p -> "Title: " + p.message.getTitle() + ", Error: " + p.ticket.getDetails().getError()
-        ).collect(Collectors.joining(","));
-        System.out.println(
-                "Recieved ERROR ticket for " +
-                        errorTicketMessages.size() +
-                        " messages: " +
-                        errorTicketMessagesString
-        );
-
-
-        // TODO
-        // Countdown 30s
-//            int wait = 30;
-//            for (int i = wait; i >= 0; i--) {
-//                System.out.print("Waiting for " + wait + " seconds. " + i + "s\r");
-//                Thread.sleep(1000);
-//            }
-//        System.out.println("Fetching receipts...");
-//
-//        List<String> ticketIds = (client.getTicketIdsFromPairs(okTicketMessages));
-//        CompletableFuture<List<ExpoPushReceipt>> receiptFutures = client.getPushNotificationReceiptsAsync(ticketIds);
-//
-//        List<ExpoPushReceipt> receipts = new ArrayList<>();
-//        try {
-//            receipts = receiptFutures.get();
-//        } catch (ExecutionException | InterruptedException e) {
-//            e.printStackTrace();
-//        }
-//
-//        System.out.println(
-//                "Received " + receipts.size() + " receipts:");
-//
-//        for (ExpoPushReceipt receipt : receipts) {
-//            System.out.println(
-//                    "Receipt for id: " +
-//                            receipt.getId() +
-//                            " had status: " +
-//                            receipt.getStatus());
-//
-//        }
+    /**
+     * Takes the notifications read off the counter rather than zeroing it, which would drop those created meanwhile
+     */
+    public void readAll(Long userId) {
+        unreadNotificationCounter.add(userId, -notificationRepository.readAll(userId));
+    }
 
+    /**
+     * Moves a batch of read notifications created before the given date to {@code notification_archive}
+     *
+     * @return the number of notifications moved
+     */
+    public int archiveReadBefore(Date before, int limit) {
+        return notificationRepository.archiveReadBefore(before, limit);
     }
 
-    public void readAll(Long userId) {
-        notificationRepository.readAll(userId);
+    public long getUnreadCount(Long userId) {
+        return unreadNotificationCounter.get(userId);
     }
 }
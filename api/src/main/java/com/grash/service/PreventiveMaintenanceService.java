@@ -11,7 +11,9 @@ import com.grash.model.Company;
 import com.grash.model.OwnUser;
 import com.grash.model.PreventiveMaintenance;
 import com.grash.model.Schedule;
+import com.grash.model.enums.PermissionEntity;
 import com.grash.repository.PreventiveMaintenanceRepository;
+import com.grash.utils.Helper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -22,7 +24,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -97,37 +98,21 @@ public class PreventiveMaintenanceService {
         }
     }
 
-    public List<CalendarEvent<PreventiveMaintenance>> getEvents(Date end, Long companyId) {
+    /**
+     * Occurrences within [start, end] of the enabled preventive maintenances of the user's company they can view.
+     * Disabled, ended and invisible ones are filtered out by the query.
+     */
+    public List<CalendarEvent<PreventiveMaintenance>> getEvents(Date start, Date end, OwnUser user) {
         List<PreventiveMaintenance> preventiveMaintenances =
-                preventiveMaintenanceRepository.findByCreatedAtBeforeAndCompany_Id(end, companyId);
+                preventiveMaintenanceRepository.findCalendarCandidates(user.getCompany().getId(), start, end,
+                        user.getId(), user.getRole().canViewOthers(PermissionEntity.PREVENTIVE_MAINTENANCES));
         List<CalendarEvent<PreventiveMaintenance>> result = new ArrayList<>();
         for (PreventiveMaintenance preventiveMaintenance : preventiveMaintenances) {
             Schedule schedule = preventiveMaintenance.getSchedule();
-            if (schedule.isDisabled()) continue;
-            List<Date> dates = new ArrayList<>();
-
-            // Create a Calendar instance and set the start date
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(schedule.getStartsOn());
-
-            // Add the start date to the list
-            dates.add(schedule.getStartsOn());
-
-            Date max = schedule.getEndsOn() == null ? end : schedule.getEndsOn().before(end) ? schedule.getEndsOn() :
-                    end;
-            // Loop until the calendar date is after the end date
-            while (calendar.getTime().before(max)) {
-                // Add the frequency days to the current date
-                calendar.add(Calendar.DAY_OF_MONTH, schedule.getFrequency());
-
-                // Add the new date to the list if it's before or equal to the end date
-                if (!calendar.getTime().after(max)) {
-                    dates.add(calendar.getTime());
-                }
-            }
-
-            result.addAll(dates.stream().map(date -> new CalendarEvent<>("PREVENTIVE_MAINTENANCE",
-                    preventiveMaintenance, date)).collect(Collectors.toList()));
+            Helper.getOccurrencesBetween(schedule.getStartsOn(), schedule.getFrequency(), schedule.getEndsOn(),
+                            start, end)
+                    .forEach(date -> result.add(new CalendarEvent<>("PREVENTIVE_MAINTENANCE", preventiveMaintenance,
+                            date)));
         }
         return result;
     }
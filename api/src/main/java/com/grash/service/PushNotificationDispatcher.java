@@ -0,0 +1,280 @@
+package com.grash.service;
+
+import com.grash.configuration.AsyncConfig;
+import com.grash.configuration.PushProperties;
+import com.grash.job.TriggerScheduler;
+import com.grash.repository.PushNotificationTokenRepository;
+import io.github.jav.exposerversdk.ExpoPushMessage;
+import io.github.jav.exposerversdk.ExpoPushReceipt;
+import io.github.jav.exposerversdk.ExpoPushTicket;
+import io.github.jav.exposerversdk.PushClient;
+import io.github.jav.exposerversdk.enums.ReceiptError;
+import io.github.jav.exposerversdk.enums.TicketError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers the push notifications through Expo off the request and notification threads. Messages are queued in a
+ * bounded queue, drained every {@code push.flush-interval} into requests of up to {@code push.chunk-size} messages
+ * sent without waiting for their response. Messages whose request failed are retried with an exponential backoff,
+ * which covers Expo rate limiting a request with an HTTP 429 as well as ticket errors the SDK cannot parse, such as
+ * {@code MessageRateExceeded}. The receipts of the accepted messages are fetched once Expo has delivered them, the
+ * tokens of uninstalled apps being deleted on the way.
+ */
+@Slf4j
+@Service
+public class PushNotificationDispatcher implements DisposableBean {
+
+    private static final String TRIGGER_OWNER = "push";
+    /**
+     * Receipt ids per request accepted by Expo
+     */
+    private static final int RECEIPT_CHUNK_SIZE = 1000;
+    /**
+     * Expo drops the receipts after a day
+     */
+    private static final long RECEIPT_RETENTION = TimeUnit.DAYS.toMillis(1);
+
+    private final PushClient pushClient;
+    private final PushNotificationTokenRepository pushNotificationTokenRepository;
+    private final TriggerScheduler triggerScheduler;
+    private final PushProperties properties;
+    private final MeterRegistry meterRegistry;
+    /**
+     * Handles the responses, off the threads of the HTTP client
+     */
+    private final Executor executor;
+    private final BlockingQueue<Push> queue;
+    private final PriorityBlockingQueue<Push> retries = new PriorityBlockingQueue<>(11,
+            Comparator.comparingLong((Push push) -> push.notBefore));
+    /**
+     * Token of the accepted messages by ticket id
+     */
+    private final ConcurrentMap<String, PendingReceipt> pendingReceipts = new ConcurrentHashMap<>();
+
+    public PushNotificationDispatcher(PushClient pushClient,
+                                      PushNotificationTokenRepository pushNotificationTokenRepository,
+                                      TriggerScheduler triggerScheduler, PushProperties properties,
+                                      MeterRegistry meterRegistry,
+                                      @Qualifier(AsyncConfig.PUSH_EXECUTOR) Executor executor) {
+        this.pushClient = pushClient;
+        this.pushNotificationTokenRepository = pushNotificationTokenRepository;
+        this.triggerScheduler = triggerScheduler;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        Gauge.builder("push.queue.size", queue, Collection::size).register(meterRegistry);
+        Gauge.builder("push.retries.size", retries, Collection::size).register(meterRegistry);
+        Gauge.builder("push.receipts.pending", pendingReceipts, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        triggerScheduler.scheduleAtFixedRate(TRIGGER_OWNER, "flush", this::flush, new Date(),
+                properties.getFlushInterval().toMillis());
+        triggerScheduler.scheduleAtFixedRate(TRIGGER_OWNER, "receipts", this::pollReceipts, new Date(),
+                properties.getReceiptPollInterval().toMillis());
+    }
+
+    /**
+     * Queues the same message for each token, the tokens which are not Expo tokens are skipped
+     */
+    public void enqueue(Collection<String> tokens, String title, String body, Map<String, Object> data) {
+        int dropped = 0;
+        for (String token : new LinkedHashSet<>(tokens)) {
+            if (!PushClient.isExponentPushToken(token)) continue;
+            if (!queue.offer(new Push(token, title, body, data, 1, 0))) dropped++;
+        }
+        if (dropped > 0) {
+            count("dropped", dropped);
+            log.warn("Push queue full, dropped {} messages", dropped);
+        }
+    }
+
+    /**
+     * Sends the queued messages and the retries which are due
+     */
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<Push> pushes = new ArrayList<>();
+        Push retry;
+        while ((retry = retries.peek()) != null && retry.notBefore <= now) {
+            pushes.add(retries.poll());
+        }
+        queue.drainTo(pushes);
+        partition(pushes, properties.getChunkSize()).forEach(this::send);
+    }
+
+    private void send(List<Push> chunk) {
+        List<ExpoPushMessage> messages = chunk.stream().map(Push::toMessage).collect(Collectors.toList());
+        CompletableFuture<List<ExpoPushTicket>> tickets;
+        try {
+            tickets = pushClient.sendPushNotificationsAsync(messages);
+        } catch (RuntimeException e) {
+            onSendFailure(chunk, e);
+            return;
+        }
+        tickets.whenCompleteAsync((result, throwable) -> {
+            if (throwable != null) onSendFailure(chunk, throwable);
+            else onTickets(chunk, result);
+        }, executor);
+    }
+
+    /**
+     * @param tickets one per message, in the order of the messages
+     */
+    private void onTickets(List<Push> chunk, List<ExpoPushTicket> tickets) {
+        long now = System.currentTimeMillis();
+        List<String> deadTokens = new ArrayList<>();
+        int sent = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            Push push = chunk.get(i);
+            ExpoPushTicket ticket = tickets == null || i >= tickets.size() ? null : tickets.get(i);
+            if (ticket == null) {
+                retry(push);
+            } else if (ticket.getId() != null) {
+                sent++;
+                if (pendingReceipts.size() < properties.getMaxPendingReceipts()) {
+                    pendingReceipts.put(ticket.getId(), new PendingReceipt(push.token, now));
+                }
+            } else if (ticket.getDetails() != null
+                    && ticket.getDetails().getError() == TicketError.DEVICENOTREGISTERED) {
+                deadTokens.add(push.token);
+            } else {
+                count("failed", 1);
+                log.warn("Push to {} rejected: {}", push.token, ticket.getMessage());
+            }
+        }
+        count("sent", sent);
+        pruneTokens(deadTokens);
+    }
+
+    private void onSendFailure(List<Push> chunk, Throwable throwable) {
+        log.warn("Sending {} push messages failed", chunk.size(), throwable);
+        chunk.forEach(this::retry);
+    }
+
+    private void retry(Push push) {
+        if (push.attempt >= properties.getMaxAttempts() || retries.size() >= properties.getQueueCapacity()) {
+            count("failed", 1);
+            return;
+        }
+        long backoff = properties.getInitialBackoff().toMillis() << (push.attempt - 1);
+        retries.offer(new Push(push.token, push.title, push.body, push.data, push.attempt + 1,
+                System.currentTimeMillis() + backoff));
+        count("retried", 1);
+    }
+
+    /**
+     * Fetches the receipts of the messages sent at least {@code push.receipt-delay} ago. Those not ready yet are
+     * fetched again on the next poll until Expo drops them.
+     */
+    public void pollReceipts() {
+        long now = System.currentTimeMillis();
+        pendingReceipts.values().removeIf(pending -> pending.sentAt < now - RECEIPT_RETENTION);
+        long readyBefore = now - properties.getReceiptDelay().toMillis();
+        List<String> ids = pendingReceipts.entrySet().stream()
+                .filter(entry -> entry.getValue().sentAt <= readyBefore)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        for (List<String> chunk : partition(ids, RECEIPT_CHUNK_SIZE)) {
+            CompletableFuture<List<ExpoPushReceipt>> receipts;
+            try {
+                receipts = pushClient.getPushNotificationReceiptsAsync(chunk);
+            } catch (RuntimeException e) {
+                log.warn("Fetching {} push receipts failed", chunk.size(), e);
+                continue;
+            }
+            receipts.whenCompleteAsync((result, throwable) -> {
+                if (throwable != null) log.warn("Fetching {} push receipts failed", chunk.size(), throwable);
+                else onReceipts(result);
+            }, executor);
+        }
+    }
+
+    private void onReceipts(List<ExpoPushReceipt> receipts) {
+        List<String> deadTokens = new ArrayList<>();
+        for (ExpoPushReceipt receipt : receipts) {
+            PendingReceipt pending = pendingReceipts.remove(receipt.getId());
+            if (pending != null && receipt.getDetails() != null
+                    && receipt.getDetails().getError() == ReceiptError.DEVICENOTREGISTERED) {
+                deadTokens.add(pending.token);
+            }
+        }
+        pruneTokens(deadTokens);
+    }
+
+    private void pruneTokens(List<String> tokens) {
+        if (tokens.isEmpty()) return;
+        try {
+            int deleted = pushNotificationTokenRepository.deleteByTokens(tokens);
+            Counter.builder("push.tokens.pruned").register(meterRegistry).increment(deleted);
+            log.info("Deleted {} push tokens of unregistered devices", deleted);
+        } catch (DataAccessException e) {
+            log.error("Deleting {} unregistered push tokens failed", tokens.size(), e);
+        }
+    }
+
+    private void count(String outcome, int messages) {
+        if (messages == 0) return;
+        Counter.builder("push.messages").tag("outcome", outcome).register(meterRegistry).increment(messages);
+    }
+
+    private static <T> List<List<T>> partition(List<T> list, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int start = 0; start < list.size(); start += size) {
+            chunks.add(list.subList(start, Math.min(list.size(), start + size)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Sends what is still queued, without retrying
+     */
+    @Override
+    public void destroy() {
+        triggerScheduler.cancel(TRIGGER_OWNER);
+        flush();
+    }
+
+    @AllArgsConstructor
+    private static class Push {
+        private final String token;
+        private final String title;
+        private final String body;
+        private final Map<String, Object> data;
+        /**
+         * Starting at 1
+         */
+        private final int attempt;
+        private final long notBefore;
+
+        private ExpoPushMessage toMessage() {
+            ExpoPushMessage message = new ExpoPushMessage();
+            message.getTo().add(token);
+            message.setTitle(title);
+            message.setBody(body);
+            message.setData(data);
+            return message;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PendingReceipt {
+        private final String token;
+        private final long sentAt;
+    }
+}
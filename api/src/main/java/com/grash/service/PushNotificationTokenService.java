@@ -5,6 +5,9 @@ import com.grash.repository.PushNotificationTokenRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -22,6 +25,14 @@ public class PushNotificationTokenService {
         return pushNotificationTokenRepository.findByUser_Id(userId);
     }
 
+    /**
+     * @return the tokens of the users which registered one, in a single query
+     */
+    public List<String> findTokensByUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return new ArrayList<>();
+        return pushNotificationTokenRepository.findTokensByUserIds(userIds);
+    }
+
     public PushNotificationToken save(PushNotificationToken pushNotificationToken) {
         return pushNotificationTokenRepository.save(pushNotificationToken);
     }
@@ -1,33 +1,93 @@
 package com.grash.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.grash.configuration.RateLimitProperties;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.Refill;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Token buckets per policy and key. Buckets are lock-free and kept in a cache which evicts a key once it has been idle
+ * for the longest period of its policy, at which point its bucket would be full again anyway. The cache is also
+ * bounded by {@code rate-limit.maximum-keys}: past it, the least recently used buckets are dropped while they may still
+ * be partly drained, and their keys start over with a full bucket. It has to be sized above the number of keys active
+ * within the longest period, evictions being counted by {@code rate_limiter.evictions}.
+ */
 @Component
 public class RateLimiterService {
 
-    private final ConcurrentMap<String, Bucket> cache = new ConcurrentHashMap<>();
+    public static final String DEMO_POLICY = "demo";
 
-    public Bucket resolveBucket(String key) {
-        return cache.computeIfAbsent(key, this::newBucket);
+    private final ConcurrentMap<String, PolicyBuckets> policies = new ConcurrentHashMap<>();
+    private final RateLimitProperties rateLimitProperties;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimiterService(RateLimitProperties rateLimitProperties, MeterRegistry meterRegistry) {
+        this.rateLimitProperties = rateLimitProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean tryConsume(String policy, String key) {
+        PolicyBuckets policyBuckets = policies.computeIfAbsent(policy, this::newPolicyBuckets);
+        boolean allowed = policyBuckets.buckets.get(key, k -> policyBuckets.newBucket()).tryConsume(1);
+        (allowed ? policyBuckets.allowed : policyBuckets.throttled).increment();
+        return allowed;
+    }
+
+    private PolicyBuckets newPolicyBuckets(String name) {
+        RateLimitProperties.Policy policy = rateLimitProperties.getPolicies().get(name);
+        if (policy == null || policy.getLimits().isEmpty())
+            throw new IllegalStateException("Rate limit policy " + name + " is not configured");
+        return new PolicyBuckets(name, policy);
     }
 
-    private Bucket newBucket(String key) {
-        // 1 request per minute
-        Bandwidth onePerMinute = Bandwidth.classic(1, Refill.greedy(1, Duration.ofMinutes(1)));
+    private final class PolicyBuckets {
+        private final Bandwidth[] bandwidths;
+        private final Cache<String, Bucket> buckets;
+        private final Counter allowed;
+        private final Counter throttled;
 
-        // 2 requests per 5 hours
-        Bandwidth twoPer5Hours = Bandwidth.classic(2, Refill.greedy(2, Duration.ofHours(5)));
+        private PolicyBuckets(String name, RateLimitProperties.Policy policy) {
+            this.bandwidths = policy.getLimits().stream()
+                    .map(limit -> Bandwidth.classic(limit.getCapacity(), Refill.greedy(limit.getCapacity(),
+                            limit.getPeriod())))
+                    .toArray(Bandwidth[]::new);
+            Duration longestPeriod = policy.getLimits().stream().map(RateLimitProperties.Limit::getPeriod)
+                    .max(Duration::compareTo).get();
+            Counter evictions = Counter.builder("rate_limiter.evictions").tag("policy", name)
+                    .register(meterRegistry);
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(rateLimitProperties.getMaximumKeys())
+                    .expireAfterAccess(longestPeriod)
+                    .removalListener((String key, Bucket bucket, RemovalCause cause) -> {
+                        if (cause == RemovalCause.SIZE) evictions.increment();
+                    })
+                    .build();
+            this.allowed = Counter.builder("rate_limiter.requests").tag("policy", name).tag("result", "allowed")
+                    .register(meterRegistry);
+            this.throttled = Counter.builder("rate_limiter.requests").tag("policy", name).tag("result", "throttled")
+                    .register(meterRegistry);
+            Gauge.builder("rate_limiter.keys", buckets, Cache::estimatedSize).tag("policy", name)
+                    .register(meterRegistry);
+        }
 
-        return Bucket.builder()
-                .addLimit(onePerMinute)
-                .addLimit(twoPer5Hours)
-                .build();
+        private Bucket newBucket() {
+            LocalBucketBuilder builder = Bucket.builder();
+            for (Bandwidth bandwidth : bandwidths) {
+                builder.addLimit(bandwidth);
+            }
+            return builder.build();
+        }
     }
 }
@@ -6,7 +6,10 @@ import com.grash.mapper.RoleMapper;
 import com.grash.model.Role;
 import com.grash.model.enums.RoleCode;
 import com.grash.repository.RoleRepository;
+import com.grash.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +23,7 @@ public class RoleService {
     private final RoleRepository roleRepository;
     private final RoleMapper roleMapper;
     private final CompanySettingsService companySettingsService;
+    private final PrincipalCache principalCache;
 
     public Role create(Role Role) {
         return roleRepository.save(Role);
@@ -28,7 +32,10 @@ public class RoleService {
     public Role update(Long id, RolePatchDTO role) {
         if (roleRepository.existsById(id)) {
             Role savedRole = roleRepository.findById(id).get();
-            return roleRepository.save(roleMapper.updateRole(savedRole, role));
+            Role updatedRole = roleRepository.save(roleMapper.updateRole(savedRole, role));
+            //permission collections alone don't trigger @PostUpdate
+            principalCache.invalidateRole(id);
+            return updatedRole;
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
@@ -52,11 +59,13 @@ public class RoleService {
         return roleRepository.findByCompany_Id(id);
     }
 
-    public List<Role> findDefaultRoles() {
-        return roleRepository.findDefaultRoles(RoleCode.USER_CREATED);
+    public Slice<Role> findDefaultRoles(Pageable pageable) {
+        return roleRepository.findDefaultRoles(RoleCode.USER_CREATED, pageable);
     }
 
     public List<Role> saveAll(List<Role> roles) {
-        return roleRepository.saveAll(roles);
+        List<Role> savedRoles = roleRepository.saveAll(roles);
+        savedRoles.forEach(role -> principalCache.invalidateRole(role.getId()));
+        return savedRoles;
     }
 }
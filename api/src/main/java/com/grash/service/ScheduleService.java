@@ -1,7 +1,11 @@
 package com.grash.service;
 
+import com.grash.configuration.SchedulingProperties;
 import com.grash.dto.SchedulePatchDTO;
 import com.grash.exception.CustomException;
+import com.grash.job.ClusterCoordinator;
+import com.grash.job.ClusterHeartbeatEvent;
+import com.grash.job.TriggerScheduler;
 import com.grash.mapper.ScheduleMapper;
 import com.grash.model.*;
 import com.grash.model.enums.PermissionEntity;
@@ -10,7 +14,12 @@ import com.grash.utils.Helper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +33,9 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 @Transactional
 public class ScheduleService {
+    private static final String TRIGGER_OWNER_PREFIX = "schedule-";
+    private static final String NOTIFICATION_TRIGGER = "notification";
+
     private final ScheduleRepository scheduleRepository;
     private final PreventiveMaintenanceService preventiveMaintenanceService;
     private final ScheduleMapper scheduleMapper;
@@ -34,7 +46,12 @@ public class ScheduleService {
     private final UserService userService;
     @Value("${frontend.url}")
     private String frontendUrl;
-    private final Map<Long, Map<String, Timer>> timersState = new HashMap<>();
+    private final TriggerScheduler triggerScheduler;
+    private final SchedulingProperties schedulingProperties;
+    private final ClusterCoordinator clusterCoordinator;
+    private final CustomSequenceService customSequenceService;
+    private volatile Date lastTriggerSync;
+    private volatile Date lastTriggerRefill;
 
     public Schedule create(Schedule Schedule) {
         return scheduleRepository.save(Schedule);
@@ -52,6 +69,7 @@ public class ScheduleService {
     }
 
     public void delete(Long id) {
+        stopScheduleTimers(id);
         scheduleRepository.deleteById(id);
     }
 
@@ -64,116 +82,282 @@ public class ScheduleService {
     }
 
     public void scheduleWorkOrder(Schedule schedule) {
-        int limit = 10; //inclusive schedules at 10
-        PreventiveMaintenance preventiveMaintenance = schedule.getPreventiveMaintenance();
-        Page<WorkOrder> workOrdersPage = workOrderService.findLastByPM(preventiveMaintenance.getId(), limit);
-        boolean isStale = false;
-        if (workOrdersPage.getTotalElements() >= limit && workOrdersPage.getContent().stream().allMatch(workOrder -> workOrder.getFirstTimeToReact() == null)) {
-            isStale = true;
-            schedule.setDisabled(true);
-            scheduleRepository.save(schedule);
-        }
         boolean shouldSchedule = !schedule.isDisabled() && (schedule.getEndsOn() == null || schedule.getEndsOn()
-                .after(new Date())) && !isStale;
-        if (shouldSchedule) {
-            Timer timer = new Timer();
-            //  Collection<WorkOrder> workOrders = workOrderService.findByPM(schedule.getPreventiveMaintenance()
-            //  .getId());
-            Date startsOn = Helper.getNextOccurence(schedule.getStartsOn(), schedule.getFrequency());
-            TimerTask timerTask = new TimerTask() {
-                @Override
-                public void run() {//create WO
-                    PreventiveMaintenance preventiveMaintenance = schedule.getPreventiveMaintenance();
-                    WorkOrder workOrder = workOrderService.getWorkOrderFromWorkOrderBase(preventiveMaintenance);
-                    Collection<Task> tasks = taskService.findByPreventiveMaintenance(preventiveMaintenance.getId());
-                    workOrder.setParentPreventiveMaintenance(preventiveMaintenance);
-                    if (schedule.getDueDateDelay() != null) {
-                        workOrder.setDueDate(Helper.incrementDays(new Date(), schedule.getDueDateDelay()));
-                    }
-                    WorkOrder savedWorkOrder = workOrderService.create(workOrder, preventiveMaintenance.getCompany());
-                    tasks.forEach(task -> {
-                        Task copiedTask = new Task(task.getTaskBase(), savedWorkOrder, null, task.getValue());
-                        copiedTask.setCompany(preventiveMaintenance.getCompany());
-                        taskService.create(copiedTask);
-                    });
-                }
-            };
-            timer.scheduleAtFixedRate(timerTask, startsOn, (long) schedule.getFrequency() * 24 * 60 * 60 * 1000);
-            Map<String, Timer> localTimers = new HashMap<>();
-            localTimers.put("wo_creation", timer);//first wo creation
-
-            Timer timer1 = new Timer();// use daysBeforePrevMaintNotification
-            int daysBeforePMNotification = preventiveMaintenance.getCompany()
-                    .getCompanySettings().getGeneralPreferences().getDaysBeforePrevMaintNotification();
-            if (daysBeforePMNotification > 0) {
-                Date trueStartsOn = preventiveMaintenance.getEstimatedStartDate() == null ? startsOn :
-                        preventiveMaintenance.getEstimatedStartDate();
-                TimerTask timerTask1 = new TimerTask() {
-                    @Override
-                    public void run() {
-                        //send notification to assigned users
-                        PreventiveMaintenance preventiveMaintenance = schedule.getPreventiveMaintenance();
-                        Locale locale = Helper.getLocale(preventiveMaintenance.getCompany());
-                        String title = messageSource.getMessage("coming_wo", null, locale);
-                        Collection<OwnUser> admins =
-                                userService.findWorkersByCompany(preventiveMaintenance.getCompany().getId()).stream().filter(ownUser -> ownUser.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS)).collect(Collectors.toList());
-                        List<OwnUser> usersToMail = new ArrayList<>(Stream.concat(
-                                        preventiveMaintenance.getUsers().stream(),
-                                        admins.stream()).filter(user -> user.isEnabled() && user.getUserSettings().shouldEmailUpdatesForWorkOrders())
-                                .collect(Collectors.toMap(
-                                        OwnUser::getId,  // key by ID
-                                        Function.identity(), // value is the user object
-                                        (existing, replacement) -> existing))  // if duplicate keys, keep existing
-                                .values());
-                        Map<String, Object> mailVariables = new HashMap<String, Object>() {{
-                            put("pmLink",
-                                    frontendUrl + "/app/preventive-maintenances/" + preventiveMaintenance.getId());
-                            put("featuresLink", frontendUrl + "/#key-features");
-                            put("pmTitle", preventiveMaintenance.getTitle());
-                        }};
-                        emailService2.sendMessageUsingThymeleafTemplate(usersToMail.stream().map(OwnUser::getEmail)
-                                .toArray(String[]::new), title, mailVariables, "coming-work-order.html", locale);
-                    }
-                };
-                timer1.scheduleAtFixedRate(timerTask1, Helper.getNextOccurence(Helper.minusDays(trueStartsOn,
-                                daysBeforePMNotification), 1),
-                        (long) schedule.getFrequency() * 24 * 60 * 60 * 1000);
-                localTimers.put("notification", timer1);
-            }
-            if (schedule.getEndsOn() != null) {
-                Timer timer2 = new Timer();
-                TimerTask timerTask2 = new TimerTask() {
-                    @Override
-                    public void run() {
-                        //stop other timers
-                        timersState.get(schedule.getId()).get("wo_creation").cancel();
-                        timersState.get(schedule.getId()).get("wo_creation").purge();
-                        if (timersState.get(schedule.getId()).containsKey("notification")) {
-                            timersState.get(schedule.getId()).get("notification").cancel();
-                            timersState.get(schedule.getId()).get("notification").purge();
-                        }
-                    }
-                };
-                timer2.schedule(timerTask2, schedule.getEndsOn());
-                localTimers.put("stop", timer2); //third schedule stopping
+                .after(new Date())) && !disableIfStale(schedule);
+        if (!shouldSchedule) {
+            stopScheduleTimers(schedule.getId());
+            if (schedule.getNextDueAt() != null || schedule.getNextNotificationAt() != null) {
+                schedule.setNextDueAt(null);
+                schedule.setNextNotificationAt(null);
+                scheduleRepository.save(schedule);
             }
-            timersState.put(schedule.getId(), localTimers);
+            return;
+        }
+        if (schedule.getNextDueAt() == null) {
+            //first wo creation, picked up by GeneratePreventiveMaintenanceJob
+            schedule.setNextDueAt(Helper.getNextOccurence(schedule.getStartsOn(), schedule.getFrequency()));
+            updateNextNotification(schedule);
+            scheduleRepository.save(schedule);
         }
+        armTriggers(schedule, getTriggerHorizonEnd(new Date()));
     }
 
     public void reScheduleWorkOrder(Long id, Schedule schedule) {
         stopScheduleTimers(id);
+        //the timing may have changed, start over from startsOn
+        schedule.setNextDueAt(null);
         scheduleWorkOrder(schedule);
     }
 
     public void stopScheduleTimers(Long id) {
-        if (!timersState.containsKey(id)) {
-            return;
+        triggerScheduler.cancel(getTriggerOwner(id));
+    }
+
+    /**
+     * Persists the next due date of up to {@code limit} schedules created before it was introduced
+     *
+     * @return the number of schedules initialized
+     */
+    public int initializeNextDueDates(Date now, int limit) {
+        List<Schedule> schedules = scheduleRepository.findUninitialized(now, PageRequest.of(0, limit));
+        schedules.forEach(this::scheduleWorkOrder);
+        return schedules.size();
+    }
+
+    /**
+     * Only the notifications due within the trigger horizon are kept in memory. Every half horizon the ones
+     * approaching are loaded page by page, and in between only the schedules modified since the last sync, whichever
+     * node modified them, are re-armed. A membership change drops them all and starts over with the new share.
+     */
+    @EventListener
+    public void syncTriggers(ClusterHeartbeatEvent event) {
+        Date syncStart = new Date();
+        if (event.isMembershipChanged()) {
+            triggerScheduler.cancelAll(TRIGGER_OWNER_PREFIX);
+            lastTriggerRefill = null;
+        } else if (lastTriggerSync != null) {
+            Date horizonEnd = getTriggerHorizonEnd(syncStart);
+            scheduleRepository.findByUpdatedAtAfter(new Date(lastTriggerSync.getTime()
+                            - clusterCoordinator.getNodeTimeout().toMillis()))
+                    .forEach(schedule -> armTriggers(schedule, horizonEnd));
+        }
+        if (lastTriggerRefill == null || syncStart.getTime() - lastTriggerRefill.getTime()
+                >= schedulingProperties.getTriggerHorizon().toMillis() / 2) {
+            refillTriggers(syncStart);
+            lastTriggerRefill = syncStart;
+        }
+        lastTriggerSync = syncStart;
+    }
+
+    private void refillTriggers(Date now) {
+        Date horizonEnd = getTriggerHorizonEnd(now);
+        Pageable pageable = PageRequest.of(0, schedulingProperties.getPageSize(), Sort.by("id"));
+        Slice<Schedule> schedules;
+        do {
+            schedules = scheduleRepository.findByDisabledFalseAndNextNotificationAtLessThanEqual(horizonEnd,
+                    pageable);
+            schedules.forEach(schedule -> {
+                if (clusterCoordinator.owns(schedule.getId())
+                        && !triggerScheduler.isScheduled(getTriggerOwner(schedule.getId()))) {
+                    armTriggers(schedule, horizonEnd);
+                }
+            });
+            pageable = schedules.nextPageable();
+        } while (schedules.hasNext());
+    }
+
+    /**
+     * Arms the coming work order notification of {@code schedule} if this node owns it and it is due before
+     * {@code horizonEnd}. A notification missed while no node was up fires right away.
+     */
+    private void armTriggers(Schedule schedule, Date horizonEnd) {
+        String owner = getTriggerOwner(schedule.getId());
+        triggerScheduler.cancel(owner);
+        Date notificationAt = schedule.getNextNotificationAt();
+        if (schedule.isDisabled() || notificationAt == null || notificationAt.after(horizonEnd)
+                || !clusterCoordinator.owns(schedule.getId())) return;
+        Long scheduleId = schedule.getId();
+        triggerScheduler.schedule(owner, NOTIFICATION_TRIGGER, () -> {
+            //claimed before sending so that it is sent once, even if the schedule changed owner meanwhile
+            if (scheduleRepository.claimNotification(scheduleId, notificationAt) == 1) {
+                scheduleRepository.findById(scheduleId).ifPresent(this::sendComingWorkOrderNotification);
+            }
+        }, notificationAt);
+    }
+
+    private Date getTriggerHorizonEnd(Date now) {
+        return new Date(now.getTime() + schedulingProperties.getTriggerHorizon().toMillis());
+    }
+
+    private void updateNextNotification(Schedule schedule) {
+        int daysBeforePMNotification = schedule.getPreventiveMaintenance().getCompany()
+                .getCompanySettings().getGeneralPreferences().getDaysBeforePrevMaintNotification();
+        schedule.setNextNotificationAt(schedule.getNextDueAt() == null || daysBeforePMNotification <= 0 ? null :
+                Helper.minusDays(schedule.getNextDueAt(), daysBeforePMNotification));
+    }
+
+    /**
+     * Disables the schedule when its last work orders have all been ignored
+     *
+     * @return whether the schedule is stale
+     */
+    private boolean disableIfStale(Schedule schedule) {
+        int limit = 10; //inclusive schedules at 10
+        Page<WorkOrder> workOrdersPage = workOrderService.findLastByPM(schedule.getPreventiveMaintenance().getId(),
+                limit);
+        if (workOrdersPage.getTotalElements() >= limit && workOrdersPage.getContent().stream().allMatch(workOrder -> workOrder.getFirstTimeToReact() == null)) {
+            schedule.setDisabled(true);
+            scheduleRepository.save(schedule);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Locks up to {@code limit} due schedules, skipping the ones locked by another poller, creates the work orders of
+     * their due occurrences and moves their next due date forward, all in the current transaction.
+     *
+     * @return the number of schedules processed
+     */
+    public int processDueSchedules(Date now, int limit) {
+        List<Schedule> schedules = scheduleRepository.findDueForUpdate(now, limit);
+        materializeWorkOrders(schedules, now);
+        return schedules.size();
+    }
+
+    public void processDueSchedule(Long id, Date now) {
+        scheduleRepository.findDueByIdForUpdate(id, now).ifPresent(schedule ->
+                materializeWorkOrders(Collections.singletonList(schedule), now));
+    }
+
+    public List<Long> findDueScheduleIds(Date now, int limit) {
+        return scheduleRepository.findDueIds(now, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Keeps a schedule whose work orders could not be generated out of the polls for a growing delay, so that it
+     * does not hold back the other due schedules
+     */
+    public void backOff(Long id, Date now) {
+        SchedulingProperties.PreventiveMaintenance properties = schedulingProperties.getPreventiveMaintenance();
+        scheduleRepository.backOff(id, now, properties.getFailureBackoff().toMillis(),
+                properties.getMaxFailureBackoff().toMillis());
+    }
+
+    /**
+     * Creates the work orders of the due occurrences of {@code schedules} in bulk: custom ids are allocated in one
+     * block per company, work orders and their copied tasks are inserted in JDBC batches, and their creation is
+     * published so that notifications and workflows run once the transaction has committed.
+     */
+    private void materializeWorkOrders(List<Schedule> schedules, Date now) {
+        if (schedules.isEmpty()) return;
+        Map<Long, List<Task>> tasksByPreventiveMaintenance = taskService.findByPreventiveMaintenances(
+                        schedules.stream().map(schedule -> schedule.getPreventiveMaintenance().getId())
+                                .collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(task -> task.getPreventiveMaintenance().getId()));
+        Map<Long, List<WorkOrder>> workOrdersByCompany = new LinkedHashMap<>();
+        for (Schedule schedule : schedules) {
+            for (Date occurrence : claimDueOccurrences(schedule, now)) {
+                workOrdersByCompany.computeIfAbsent(schedule.getPreventiveMaintenance().getCompany().getId(),
+                        companyId -> new ArrayList<>()).add(getWorkOrder(schedule, occurrence));
+            }
         }
-        timersState.get(id).forEach((key, timer) -> {
-            timer.cancel();
-            timer.purge();
+        List<WorkOrder> workOrders = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>();
+        workOrdersByCompany.values().forEach(companyWorkOrders -> {
+            Company company = companyWorkOrders.get(0).getCompany();
+            long sequence = customSequenceService.getNextWorkOrderSequences(company, companyWorkOrders.size());
+            for (WorkOrder workOrder : companyWorkOrders) {
+                workOrder.setCustomId(WorkOrderService.formatWorkOrderNumber(sequence++));
+                tasksByPreventiveMaintenance.getOrDefault(workOrder.getParentPreventiveMaintenance().getId(),
+                        Collections.emptyList()).forEach(task -> {
+                    Task copiedTask = new Task(task.getTaskBase(), workOrder, null, task.getValue());
+                    copiedTask.setCompany(company);
+                    tasks.add(copiedTask);
+                });
+            }
+            workOrders.addAll(companyWorkOrders);
         });
+        workOrderService.saveAll(workOrders);
+        taskService.saveAll(tasks);
+        workOrderService.onCreatedInBulk(workOrders);
+    }
+
+    /**
+     * Moves the next due date of {@code schedule} past {@code now}
+     *
+     * @return the due occurrences to create a work order for, according to the catch-up policy
+     */
+    private List<Date> claimDueOccurrences(Schedule schedule, Date now) {
+        if (disableIfStale(schedule)) {
+            schedule.setNextDueAt(null);
+            schedule.setNextNotificationAt(null);
+            scheduleRepository.save(schedule);
+            return Collections.emptyList();
+        }
+        SchedulingProperties.PreventiveMaintenance properties = schedulingProperties.getPreventiveMaintenance();
+        int maxOccurrences = properties.getCatchUp() == SchedulingProperties.CatchUpPolicy.ALL ?
+                properties.getMaxCatchUpOccurrences() : 1;
+        Deque<Date> dueOccurrences = new ArrayDeque<>();
+        Date occurrence = schedule.getNextDueAt();
+        while (!occurrence.after(now) && (schedule.getEndsOn() == null || !occurrence.after(schedule.getEndsOn()))) {
+            if (dueOccurrences.size() == maxOccurrences) dueOccurrences.removeFirst();
+            dueOccurrences.addLast(occurrence);
+            occurrence = Helper.incrementDays(occurrence, schedule.getFrequency());
+        }
+        if (properties.getCatchUp() == SchedulingProperties.CatchUpPolicy.SKIP) {
+            Date missedBefore = new Date(now.getTime() - properties.getMissedThreshold().toMillis());
+            dueOccurrences.removeIf(dueOccurrence -> dueOccurrence.before(missedBefore));
+        }
+        //the unique key on schedule and occurrence makes a replayed occurrence a no-op
+        dueOccurrences.removeIf(dueOccurrence -> scheduleRepository.claimOccurrence(schedule.getId(),
+                dueOccurrence) == 0);
+        boolean ended = schedule.getEndsOn() != null && occurrence.after(schedule.getEndsOn());
+        schedule.setNextDueAt(ended ? null : occurrence);
+        schedule.setFailedAttempts(0);
+        schedule.setNextAttemptAt(null);
+        updateNextNotification(schedule);
+        scheduleRepository.save(schedule);
+        return new ArrayList<>(dueOccurrences);
+    }
+
+    private WorkOrder getWorkOrder(Schedule schedule, Date occurrence) {
+        PreventiveMaintenance preventiveMaintenance = schedule.getPreventiveMaintenance();
+        WorkOrder workOrder = workOrderService.getWorkOrderFromWorkOrderBase(preventiveMaintenance);
+        workOrder.setParentPreventiveMaintenance(preventiveMaintenance);
+        if (schedule.getDueDateDelay() != null) {
+            workOrder.setDueDate(Helper.incrementDays(occurrence, schedule.getDueDateDelay()));
+        }
+        return workOrder;
+    }
+
+    private void sendComingWorkOrderNotification(Schedule schedule) {
+        //send notification to assigned users
+        PreventiveMaintenance preventiveMaintenance = schedule.getPreventiveMaintenance();
+        Locale locale = Helper.getLocale(preventiveMaintenance.getCompany());
+        String title = messageSource.getMessage("coming_wo", null, locale);
+        Collection<OwnUser> admins =
+                userService.findWorkersByCompany(preventiveMaintenance.getCompany().getId()).stream().filter(ownUser -> ownUser.getRole().canView(PermissionEntity.SETTINGS)).collect(Collectors.toList());
+        List<OwnUser> usersToMail = new ArrayList<>(Stream.concat(
+                        preventiveMaintenance.getUsers().stream(),
+                        admins.stream()).filter(user -> user.isEnabled() && user.getUserSettings().shouldEmailUpdatesForWorkOrders())
+                .collect(Collectors.toMap(
+                        OwnUser::getId,  // key by ID
+                        Function.identity(), // value is the user object
+                        (existing, replacement) -> existing))  // if duplicate keys, keep existing
+                .values());
+        Map<String, Object> mailVariables = new HashMap<String, Object>() {{
+            put("pmLink",
+                    frontendUrl + "/app/preventive-maintenances/" + preventiveMaintenance.getId());
+            put("featuresLink", frontendUrl + "/#key-features");
+            put("pmTitle", preventiveMaintenance.getTitle());
+        }};
+        emailService2.sendMessageUsingThymeleafTemplate(usersToMail.stream().map(OwnUser::getEmail)
+                .toArray(String[]::new), title, mailVariables, "coming-work-order.html", locale);
+    }
+
+    private static String getTriggerOwner(Long scheduleId) {
+        return TRIGGER_OWNER_PREFIX + scheduleId;
     }
 
     public Schedule save(Schedule schedule) {
@@ -4,6 +4,7 @@ import com.grash.dto.SubscriptionPatchDTO;
 import com.grash.exception.CustomException;
 import com.grash.mapper.SubscriptionMapper;
 import com.grash.model.Subscription;
+import com.grash.model.SubscriptionPlan;
 import com.grash.repository.SubscriptionRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -57,19 +58,20 @@ public class SubscriptionService {
         return subscriptionRepository.findById(id);
     }
 
-    public void scheduleEnd(Subscription subscription) {
-        boolean shouldSchedule =
-                !subscription.getSubscriptionPlan().getCode().equals("FREE") && subscription.getEndsOn() != null;
-        if (shouldSchedule) {
-            Timer timer = new Timer();
-            TimerTask timerTask = new TimerTask() {
-                @Override
-                public void run() {
-                    resetToFreePlan(subscription);
-                }
-            };
-            timer.schedule(timerTask, subscription.getEndsOn());
-        }
+    /**
+     * Locks up to {@code limit} non free subscriptions which have ended, skipping the ones locked by another node,
+     * and resets them to the free plan in the current transaction. A renewal moves endsOn forward, so a renewed
+     * subscription simply stops matching.
+     *
+     * @return the number of subscriptions reset
+     */
+    @Transactional
+    public int expireEndedSubscriptions(Date now, int limit) {
+        List<Subscription> subscriptions = subscriptionRepository.findEndedForUpdate(now, limit);
+        if (subscriptions.isEmpty()) return 0;
+        SubscriptionPlan freePlan = subscriptionPlanService.findByCode("FREE").get();
+        subscriptions.forEach(subscription -> resetToFreePlan(subscription, freePlan));
+        return subscriptions.size();
     }
 
     public Optional<Subscription> findByFastSpringId(String id) {
@@ -77,12 +79,16 @@ public class SubscriptionService {
     }
 
     public void resetToFreePlan(Subscription subscription) {
+        resetToFreePlan(subscription, subscriptionPlanService.findByCode("FREE").get());
+    }
+
+    private void resetToFreePlan(Subscription subscription, SubscriptionPlan freePlan) {
         subscription.setActivated(false);
         subscription.setUsersCount(3);
         subscription.setMonthly(true);
         subscription.setFastSpringId(null);
         subscription.setCancelled(false);
-        subscription.setSubscriptionPlan(subscriptionPlanService.findByCode("FREE").get());
+        subscription.setSubscriptionPlan(freePlan);
         subscription.setStartsOn(new Date());
         subscription.setEndsOn(null);
         subscriptionRepository.save(subscription);
@@ -61,4 +61,15 @@ public class TaskService {
     public List<Task> findByPreventiveMaintenance(Long id) {
         return taskRepository.findByPreventiveMaintenance_Id(id);
     }
+
+    public List<Task> findByPreventiveMaintenances(Collection<Long> ids) {
+        return taskRepository.findByPreventiveMaintenance_IdIn(ids);
+    }
+
+    /**
+     * Inserted in JDBC batches on flush, without the per task flush and refresh of {@link #create(Task)}
+     */
+    public List<Task> saveAll(Collection<Task> tasks) {
+        return taskRepository.saveAll(tasks);
+    }
 }
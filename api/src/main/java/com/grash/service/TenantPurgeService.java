@@ -0,0 +1,144 @@
+package com.grash.service;
+
+import com.grash.configuration.SchedulingProperties;
+import com.grash.job.BatchJobRunner;
+import com.grash.security.PrincipalCache;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes whole companies with set based statements instead of removing their entities one by one, which also skips
+ * the Envers revisions a JPA removal writes for every audited entity. The largest tables are emptied first, children
+ * before parents, in chunks short enough to keep row locks below {@code max-lock-time}, then the company row goes
+ * with whatever is left through the foreign keys cascading from it. Deleted rows are gone for good, so an
+ * interrupted purge just carries on where it stopped the next time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TenantPurgeService {
+
+    private static final List<PurgeStep> STEPS = Arrays.asList(
+            new PurgeStep("notification", "select n.id from notification n join own_user u on u.id = n.user_id where " +
+                    "u.company_id in (:companyIds) limit :limit", null),
+            step("task"),
+            new PurgeStep("work_order", "select id from work_order where company_id in (:companyIds) limit :limit",
+                    "work_order_aud"),
+            step("request"),
+            step("preventive_maintenance"),
+            step("asset_downtime"),
+            step("meter"),
+            step("asset"),
+            step("location"),
+            step("part"),
+            step("purchase_order"),
+            step("file")
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BatchJobRunner batchJobRunner;
+    private final PrincipalCache principalCache;
+    private final SchedulingProperties schedulingProperties;
+
+    /**
+     * @param job the job the chunks are recorded under
+     */
+    public void purge(String job, List<Long> companyIds) {
+        SchedulingProperties.TenantPurge properties = schedulingProperties.getTenantPurge();
+        int chunkSize = properties.getChunkSize();
+        for (PurgeStep step : STEPS) {
+            int requested;
+            int selected;
+            do {
+                int limit = chunkSize;
+                requested = limit;
+                long start = System.nanoTime();
+                try {
+                    selected = batchJobRunner.runChunk(job, () -> deleteChunk(step, companyIds, limit));
+                } catch (DataAccessException e) {
+                    log.warn("Bulk delete from {} failed, leaving it to the company cascade", step.table, e);
+                    break;
+                }
+                chunkSize = adjustChunkSize(chunkSize, System.nanoTime() - start, properties);
+                if (!pause(properties)) return;
+            } while (selected == requested);
+        }
+        for (Long companyId : companyIds) {
+            try {
+                batchJobRunner.runChunk(job, () -> jdbcTemplate.update("delete from company where id = :id",
+                        new MapSqlParameterSource("id", companyId)));
+                principalCache.invalidateCompany(companyId);
+            } catch (DataAccessException e) {
+                log.error("Deleting company {} failed", companyId, e);
+            }
+            if (!pause(properties)) return;
+        }
+    }
+
+    /**
+     * @return the number of rows selected for deletion
+     */
+    private int deleteChunk(PurgeStep step, List<Long> companyIds, int limit) {
+        List<Long> ids = jdbcTemplate.queryForList(step.idQuery, new MapSqlParameterSource("companyIds", companyIds)
+                .addValue("limit", limit), Long.class);
+        if (ids.isEmpty()) return 0;
+        MapSqlParameterSource idsParameter = new MapSqlParameterSource("ids", ids);
+        if (step.auditTable != null) {
+            jdbcTemplate.update("delete from " + step.auditTable + " where id in (:ids)", idsParameter);
+        }
+        jdbcTemplate.update("delete from " + step.table + " where id in (:ids)", idsParameter);
+        return ids.size();
+    }
+
+    /**
+     * Halves the chunk when it held its locks for too long and doubles it back when it was well below
+     */
+    private static int adjustChunkSize(int chunkSize, long elapsedNanos, SchedulingProperties.TenantPurge properties) {
+        long maxLockNanos = properties.getMaxLockTime().toNanos();
+        if (elapsedNanos > maxLockNanos) return Math.max(properties.getMinChunkSize(), chunkSize / 2);
+        if (elapsedNanos < maxLockNanos / 2) return Math.min(properties.getMaxChunkSize(), chunkSize * 2);
+        return chunkSize;
+    }
+
+    /**
+     * Leaves room to the regular traffic between two chunks
+     *
+     * @return false if interrupted
+     */
+    private static boolean pause(SchedulingProperties.TenantPurge properties) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(properties.getPause().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static PurgeStep step(String table) {
+        return new PurgeStep(table, "select id from " + table + " where company_id in (:companyIds) limit :limit",
+                null);
+    }
+
+    @AllArgsConstructor
+    private static class PurgeStep {
+        private final String table;
+        /**
+         * Selects up to :limit ids of the rows of :companyIds
+         */
+        private final String idQuery;
+        /**
+         * Envers table of the rows, cleared with them
+         */
+        private final String auditTable;
+    }
+}
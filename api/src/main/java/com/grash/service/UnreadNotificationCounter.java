@@ -0,0 +1,83 @@
+package com.grash.service;
+
+import com.grash.model.Notification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the number of unread notifications of each user in {@code notification_unread}, updated in the transaction
+ * which creates or reads them, so that the badge is read from one row instead of counted. The new counts are sent to
+ * the users once the transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class UnreadNotificationCounter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationDelivery notificationDelivery;
+
+    public long get(Long userId) {
+        List<Long> counts = jdbcTemplate.queryForList("select unread from notification_unread where user_id = ?",
+                Long.class, userId);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    /**
+     * Counts the unseen notifications among the created ones
+     */
+    public void onCreated(Collection<Notification> notifications) {
+        Map<Long, Long> countsByUser = notifications.stream()
+                .filter(notification -> !notification.isSeen() && notification.getUser() != null)
+                .collect(Collectors.groupingBy(notification -> notification.getUser().getId(), TreeMap::new,
+                        Collectors.counting()));
+        if (countsByUser.isEmpty()) return;
+        Long[] userIds = countsByUser.keySet().toArray(new Long[0]);
+        Long[] counts = countsByUser.values().toArray(new Long[0]);
+        Map<Long, Long> unreadByUser = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("insert into notification_unread (user_id, " +
+                    "unread) select * from unnest(?::bigint[], ?::bigint[]) on conflict (user_id) do update set " +
+                    "unread = notification_unread.unread + excluded.unread returning user_id, unread");
+            statement.setArray(1, connection.createArrayOf("bigint", userIds));
+            statement.setArray(2, connection.createArrayOf("bigint", counts));
+            return statement;
+        }, (RowCallbackHandler) resultSet -> unreadByUser.put(resultSet.getLong("user_id"),
+                resultSet.getLong("unread")));
+        afterCommit(unreadByUser);
+    }
+
+    /**
+     * @param delta positive when notifications were marked unread, negative when they were read
+     */
+    public void add(Long userId, long delta) {
+        if (delta == 0) return;
+        List<Long> unread = delta > 0 ?
+                jdbcTemplate.queryForList("insert into notification_unread (user_id, unread) values (?, ?) on " +
+                        "conflict (user_id) do update set unread = notification_unread.unread + excluded.unread " +
+                        "returning unread", Long.class, userId, delta) :
+                jdbcTemplate.queryForList("update notification_unread set unread = greatest(unread + ?, 0) where " +
+                        "user_id = ? returning unread", Long.class, delta, userId);
+        afterCommit(Collections.singletonMap(userId, unread.isEmpty() ? 0L : unread.get(0)));
+    }
+
+    private void afterCommit(Map<Long, Long> unreadByUser) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            unreadByUser.forEach(notificationDelivery::sendUnread);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                unreadByUser.forEach(notificationDelivery::sendUnread);
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.grash.service;
+
+import com.grash.model.WorkOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Entity listener evicting the cached urgent counts of a company whenever one of its work orders changes. The
+ * companies are gathered per transaction and evicted once it commits, so that a transaction saving many work orders
+ * scans the cache once, and a count read before the commit is not cached with the old value.
+ */
+@Component
+public class UrgentWorkOrderCountInvalidator {
+
+    private static final Object PENDING_COMPANIES = UrgentWorkOrderCountInvalidator.class.getName() + ".companies";
+
+    private UrgentWorkOrderCounter urgentWorkOrderCounter;
+
+    @Autowired
+    public void setDeps(@Lazy UrgentWorkOrderCounter urgentWorkOrderCounter) {
+        this.urgentWorkOrderCounter = urgentWorkOrderCounter;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void afterChange(WorkOrder workOrder) {
+        if (workOrder.getCompany() == null) return;
+        Long companyId = workOrder.getCompany().getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            urgentWorkOrderCounter.invalidateCompany(companyId);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> companyIds = (Set<Long>) TransactionSynchronizationManager.getResource(PENDING_COMPANIES);
+        if (companyIds == null) {
+            Set<Long> pending = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(PENDING_COMPANIES, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    urgentWorkOrderCounter.invalidateCompanies(pending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_COMPANIES);
+                }
+            });
+            companyIds = pending;
+        }
+        companyIds.add(companyId);
+    }
+}
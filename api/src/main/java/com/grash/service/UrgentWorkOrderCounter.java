@@ -0,0 +1,64 @@
+package com.grash.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grash.job.WorkOrderDueEvent;
+import com.grash.model.OwnUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Urgent work order count per user, read by every client polling /work-orders/urgent. A count is computed once and
+ * then served from memory until a work order of the company changes or crosses the due soon threshold on this node,
+ * the expiry bounding how late a change made on another node shows up.
+ */
+@Component
+public class UrgentWorkOrderCounter {
+
+    private final Cache<Long, Count> cache;
+
+    public UrgentWorkOrderCounter(@Value("${work-order.urgent-count.maximum-size:10000}") long maximumSize,
+                                  @Value("${work-order.urgent-count.expire-after-write-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public int get(OwnUser user, ToIntFunction<OwnUser> counter) {
+        return cache.get(user.getId(), userId -> new Count(user.getCompany().getId(), counter.applyAsInt(user))).value;
+    }
+
+    public void invalidateCompany(Long companyId) {
+        invalidateCompanies(Collections.singleton(companyId));
+    }
+
+    /**
+     * Evicts the counts of several companies in one pass over the cache
+     */
+    public void invalidateCompanies(Collection<Long> companyIds) {
+        if (companyIds.isEmpty()) return;
+        cache.asMap().values().removeIf(count -> companyIds.contains(count.companyId));
+    }
+
+    @EventListener
+    public void onWorkOrderDue(WorkOrderDueEvent event) {
+        invalidateCompany(event.getCompanyId());
+    }
+
+    private static final class Count {
+        private final Long companyId;
+        private final int value;
+
+        private Count(Long companyId, int value) {
+            this.companyId = companyId;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.grash.service;
+
+import com.grash.event.DomainEventBus;
+import com.grash.event.WorkOrderEvent;
+import com.grash.event.WorkOrderEventConsumer;
+import com.grash.utils.CacheKeyUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.util.*;
+
+/**
+ * Evicts the cached work order analytics of the users of the companies whose work orders changed, so that the
+ * dashboards show a change right away instead of when their entries expire. The users of all the companies of a batch
+ * are read in one query.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkOrderAnalyticsCacheEvictor implements WorkOrderEventConsumer {
+
+    private static final List<String> CACHE_NAMES = Arrays.asList("getCompleteStats", "getIncompleteStats",
+            "getIncompleteByPriority", "getWOStatuses", "getIncompleteByAsset", "getIncompleteByUser", "getWOHours",
+            "getWOCountsByUser", "getWOCountsByCompletedBy", "getWOCountsByPriority", "getWOCountsByCategory",
+            "getWOCompleteByWeek", "getWOCompleteTimeByWeek", "getWOCompleteCostsAndTime", "getWOCompleteCostsByDate",
+            "getWOStatusesByDate", "getUserWOStats");
+
+    private final DomainEventBus domainEventBus;
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void subscribe() {
+        domainEventBus.subscribe(this);
+    }
+
+    @Override
+    public String getName() {
+        return "work-order-analytics-cache";
+    }
+
+    @Override
+    public void accept(List<WorkOrderEvent> events) {
+        Long[] companyIds = events.stream().map(WorkOrderEvent::getCompanyId).filter(Objects::nonNull).distinct()
+                .toArray(Long[]::new);
+        if (companyIds.length == 0) return;
+        Set<Long> userIds = new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("select id from own_user where company_id = " +
+                    "any(?)");
+            statement.setArray(1, connection.createArrayOf("bigint", companyIds));
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getLong("id")));
+        if (userIds.isEmpty()) return;
+        for (String cacheName : CACHE_NAMES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache == null) continue;
+            Object nativeCache = cache.getNativeCache();
+            if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+                ((com.github.benmanes.caffeine.cache.Cache<?, ?>) nativeCache).asMap().keySet()
+                        .removeIf(key -> userIds.contains(CacheKeyUtils.userIdOf(key)));
+            } else cache.clear();
+        }
+    }
+}
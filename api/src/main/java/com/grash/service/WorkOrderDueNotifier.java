@@ -0,0 +1,71 @@
+package com.grash.service;
+
+import com.grash.dto.NotificationRecipient;
+import com.grash.job.WorkOrderDueEvent;
+import com.grash.model.Notification;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.NotificationType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.MessageSource;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.util.*;
+
+/**
+ * Notifies the assignees of the work orders reported by the due-date monitor, with one push per work order. The
+ * messages are rendered once per locale and the users are referenced by id, without being loaded.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkOrderDueNotifier {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+    private final NotificationService notificationService;
+    private final NotificationRecipientService notificationRecipientService;
+    private final MessageSource messageSource;
+
+    @EventListener
+    public void onWorkOrderDue(WorkOrderDueEvent event) {
+        boolean overdue = event.getType() == WorkOrderDueEvent.Type.OVERDUE;
+        String titleKey = overdue ? "work_order_overdue" : "work_order_due_soon";
+        String messageKey = overdue ? "notification_wo_overdue" : "notification_wo_due_soon";
+        Map<Long, String> titles = findTitles(event.getWorkOrderIds());
+        Map<Long, Map<Long, NotificationRecipient>> recipientsByWorkOrder =
+                notificationRecipientService.resolveWorkOrderAssignees(titles.keySet());
+        Map<Locale, List<Notification>> notificationsByLocale = new LinkedHashMap<>();
+        recipientsByWorkOrder.forEach((workOrderId, recipients) -> NotificationRecipientService
+                .groupByLocale(recipients.values()).forEach((locale, localeRecipients) -> {
+                    String message = messageSource.getMessage(messageKey, new Object[]{titles.get(workOrderId)},
+                            locale);
+                    List<Notification> notifications = notificationsByLocale.computeIfAbsent(locale,
+                            key -> new ArrayList<>());
+                    localeRecipients.forEach(recipient -> notifications.add(new Notification(message,
+                            em.getReference(OwnUser.class, recipient.getUserId()), NotificationType.WORK_ORDER,
+                            workOrderId)));
+                }));
+        notificationsByLocale.forEach((locale, notifications) -> notificationService.createMultipleByResource(
+                notifications, messageSource.getMessage(titleKey, null, locale)));
+    }
+
+    /**
+     * @return the titles of the work orders still there, by id
+     */
+    private Map<Long, String> findTitles(Collection<Long> workOrderIds) {
+        Map<Long, String> titles = new LinkedHashMap<>();
+        if (workOrderIds.isEmpty()) return titles;
+        Long[] ids = workOrderIds.stream().distinct().toArray(Long[]::new);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("select id, title from work_order where id = " +
+                    "any(?) order by id");
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            return statement;
+        }, (RowCallbackHandler) resultSet -> titles.put(resultSet.getLong("id"), resultSet.getString("title")));
+        return titles;
+    }
+}
@@ -0,0 +1,61 @@
+package com.grash.service;
+
+import com.grash.event.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notifies and mails the users concerned by work order events. Consecutive creations are notified together, so that
+ * the work orders created in bulk cost one batch of notifications per locale.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkOrderNotificationConsumer implements WorkOrderEventConsumer {
+
+    private final DomainEventBus domainEventBus;
+    private final WorkOrderService workOrderService;
+
+    @PostConstruct
+    public void subscribe() {
+        domainEventBus.subscribe(this);
+    }
+
+    @Override
+    public String getName() {
+        return "work-order-notifications";
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+
+    @Override
+    public void accept(List<WorkOrderEvent> events) {
+        List<Long> createdIds = new ArrayList<>();
+        for (WorkOrderEvent event : events) {
+            if (event instanceof WorkOrderCreatedEvent) {
+                createdIds.add(event.getWorkOrderId());
+                continue;
+            }
+            notifyCreated(createdIds);
+            if (event instanceof WorkOrderAssignedEvent) {
+                workOrderService.notifyNewAssignees(event.getWorkOrderId(),
+                        ((WorkOrderAssignedEvent) event).getPreviousAssigneeIds());
+            } else if (event instanceof WorkOrderStatusChangedEvent) {
+                workOrderService.notifyStatusChange((WorkOrderStatusChangedEvent) event);
+            }
+        }
+        notifyCreated(createdIds);
+    }
+
+    private void notifyCreated(List<Long> createdIds) {
+        if (createdIds.isEmpty()) return;
+        workOrderService.notifyCreated(new ArrayList<>(createdIds));
+        createdIds.clear();
+    }
+}
@@ -3,9 +3,14 @@ package com.grash.service;
 import com.grash.advancedsearch.FilterField;
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
+import com.grash.configuration.SchedulingProperties;
+import com.grash.dto.NotificationRecipient;
 import com.grash.dto.WorkOrderPatchDTO;
 import com.grash.dto.imports.WorkOrderImportDTO;
 import com.grash.dto.workOrder.WorkOrderPostDTO;
+import com.grash.event.DomainEventBus;
+import com.grash.event.WorkOrderCreatedEvent;
+import com.grash.event.WorkOrderStatusChangedEvent;
 import com.grash.exception.CustomException;
 import com.grash.mapper.WorkOrderMapper;
 import com.grash.model.*;
@@ -31,6 +36,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.criteria.JoinType;
 import javax.transaction.Transactional;
 import java.util.*;
@@ -58,6 +64,10 @@ public class WorkOrderService {
     private WorkflowService workflowService;
     private final MessageSource messageSource;
     private final CustomSequenceService customSequenceService;
+    private final UrgentWorkOrderCounter urgentWorkOrderCounter;
+    private final SchedulingProperties schedulingProperties;
+    private final NotificationRecipientService notificationRecipientService;
+    private final DomainEventBus domainEventBus;
 
     @Value("${frontend.url}")
     private String frontendUrl;
@@ -83,17 +93,34 @@ public class WorkOrderService {
 
         WorkOrder savedWorkOrder = workOrderRepository.saveAndFlush(workOrder);
         em.refresh(savedWorkOrder);
-        notify(savedWorkOrder, Helper.getLocale(company));
-        Collection<Workflow> workflows =
-                workflowService.findByMainConditionAndCompany(WFMainCondition.WORK_ORDER_CREATED, company.getId());
-        workflows.forEach(workflow -> workflowService.runWorkOrder(workflow, savedWorkOrder));
+        domainEventBus.publish(new WorkOrderCreatedEvent(savedWorkOrder.getId(), company.getId()));
 
         return savedWorkOrder;
     }
 
     private String getWorkOrderNumber(Company company) {
         Long nextSequence = customSequenceService.getNextWorkOrderSequence(company);
-        return "WO" + String.format("%06d", nextSequence);
+        return formatWorkOrderNumber(nextSequence);
+    }
+
+    public static String formatWorkOrderNumber(Long sequence) {
+        return "WO" + String.format("%06d", sequence);
+    }
+
+    /**
+     * Inserted in JDBC batches on flush, without the per work order flush and refresh of {@link #create}
+     */
+    public List<WorkOrder> saveAll(Collection<WorkOrder> workOrders) {
+        return workOrderRepository.saveAll(workOrders);
+    }
+
+    /**
+     * Publishes the creation of work orders saved through {@link #saveAll}, their side effects running once the
+     * transaction commits
+     */
+    public void onCreatedInBulk(List<WorkOrder> workOrders) {
+        workOrders.forEach(workOrder -> domainEventBus.publish(new WorkOrderCreatedEvent(workOrder.getId(),
+                workOrder.getCompany().getId())));
     }
 
     @Autowired
@@ -108,7 +135,7 @@ public class WorkOrderService {
     @Transactional
     public WorkOrder update(Long id, WorkOrderPatchDTO workOrder, OwnUser user) {
         if (workOrderRepository.existsById(id)) {
-            WorkOrder savedWorkOrder = workOrderRepository.findById(id).get();
+            WorkOrder savedWorkOrder = findByIdForUpdate(id).get();
             if (savedWorkOrder.getFirstTimeToReact() == null) savedWorkOrder.setFirstTimeToReact(new Date());
             WorkOrder updatedWorkOrder =
                     workOrderRepository.saveAndFlush(workOrderMapper.updateWorkOrder(savedWorkOrder, workOrder));
@@ -129,6 +156,14 @@ public class WorkOrderService {
         return workOrderRepository.findById(id);
     }
 
+    /**
+     * Locks the row until the transaction ends, so that a concurrent change, like the workflows run on an event,
+     * cannot be overwritten by a save based on what was read before it
+     */
+    public Optional<WorkOrder> findByIdForUpdate(Long id) {
+        return Optional.ofNullable(em.find(WorkOrder.class, id, LockModeType.PESSIMISTIC_WRITE));
+    }
+
     public Optional<WorkOrder> findByIdAndCompany(Long id, Long companyId) {
         return workOrderRepository.findByIdAndCompany_Id(id, companyId);
     }
@@ -144,44 +179,139 @@ public class WorkOrderService {
         return workOrderRepository.findByCompany_Id(id);
     }
 
-    public void notify(WorkOrder workOrder, Locale locale) {
-        String title = messageSource.getMessage("new_wo", null, locale);
-        String message = messageSource.getMessage("notification_wo_assigned", new Object[]{workOrder.getTitle()},
-                locale);
-        Collection<OwnUser> users = workOrder.getUsers();
-        notificationService.createMultiple(users.stream().map(user -> new Notification(message, user,
-                NotificationType.WORK_ORDER, workOrder.getId())).collect(Collectors.toList()), true, title);
+    /**
+     * Notifies the assignees of created work orders, the notifications being saved in one batch per locale
+     */
+    @Transactional
+    public void notifyCreated(Collection<Long> workOrderIds) {
+        List<WorkOrder> workOrders = workOrderRepository.findAllById(workOrderIds);
+        Map<Long, Map<Long, NotificationRecipient>> recipientsByWorkOrder =
+                notificationRecipientService.resolveWorkOrderAssignees(workOrderIds);
+        Map<Locale, List<Notification>> notificationsByLocale = new LinkedHashMap<>();
+        for (WorkOrder workOrder : workOrders) {
+            Map<Locale, List<NotificationRecipient>> recipientsByLocale = NotificationRecipientService.groupByLocale(
+                    recipientsByWorkOrder.getOrDefault(workOrder.getId(), Collections.emptyMap()).values());
+            recipientsByLocale.forEach((locale, recipients) -> {
+                notificationsByLocale.computeIfAbsent(locale, key -> new ArrayList<>())
+                        .addAll(toNotifications(workOrder, recipients, locale));
+                sendNewWorkOrderMail(workOrder, recipients, locale);
+            });
+        }
+        notificationsByLocale.forEach((locale, notifications) -> notificationService.createMultipleByResource(
+                notifications, messageSource.getMessage("new_wo", null, locale)));
+    }
 
-        Map<String, Object> mailVariables = new HashMap<String, Object>() {{
-            put("workOrderLink", frontendUrl + "/app/work-orders/" + workOrder.getId());
-            put("featuresLink", frontendUrl + "/#key-features");
-            put("workOrderTitle", workOrder.getTitle());
-        }};
-        Collection<OwnUser> usersToMail =
-                users.stream().filter(user -> user.isEnabled() && user.getUserSettings().shouldEmailUpdatesForWorkOrders()).collect(Collectors.toList());
-        if (!usersToMail.isEmpty()) {
-            emailService2.sendMessageUsingThymeleafTemplate(usersToMail.stream().map(OwnUser::getEmail).toArray(String[]::new), messageSource.getMessage("new_wo", null, locale), mailVariables, "new-work-order.html", Helper.getLocale(users.stream().findFirst().get()));
+    /**
+     * Notifies the assignees of a work order who were not among {@code previousAssigneeIds}
+     */
+    @Transactional
+    public void notifyNewAssignees(Long workOrderId, Set<Long> previousAssigneeIds) {
+        Optional<WorkOrder> optionalWorkOrder = workOrderRepository.findById(workOrderId);
+        if (!optionalWorkOrder.isPresent()) return;
+        WorkOrder workOrder = optionalWorkOrder.get();
+        if (workOrder.getStatus() == Status.COMPLETE && workOrder.getCompany().getCompanySettings()
+                .getGeneralPreferences().isDisableClosedWorkOrdersNotif()) return;
+        List<NotificationRecipient> newRecipients = notificationRecipientService.resolveWorkOrderAssignees(
+                        Collections.singletonList(workOrderId)).getOrDefault(workOrderId, Collections.emptyMap())
+                .values().stream().filter(recipient -> !previousAssigneeIds.contains(recipient.getUserId()))
+                .collect(Collectors.toList());
+        notifyAssignees(workOrder, newRecipients, "new_assignment");
+    }
+
+    /**
+     * Notifies the admins of a work order completion, and the requester of the work order of its new status if the
+     * company wants it
+     */
+    @Transactional
+    public void notifyStatusChange(WorkOrderStatusChangedEvent event) {
+        Optional<WorkOrder> optionalWorkOrder = workOrderRepository.findById(event.getWorkOrderId());
+        Optional<OwnUser> optionalActor = userService.findById(event.getActorId());
+        if (!optionalWorkOrder.isPresent() || !optionalActor.isPresent()) return;
+        WorkOrder workOrder = optionalWorkOrder.get();
+        OwnUser actor = optionalActor.get();
+        Locale actorLocale = Helper.getLocale(actor);
+        if (event.getStatus() == Status.COMPLETE && event.getPreviousStatus() != Status.COMPLETE) {
+            List<OwnUser> admins = userService.findWorkersByCompany(event.getCompanyId()).stream()
+                    .filter(user -> user.getRole().canView(PermissionEntity.SETTINGS) && user.isEnabled()
+                            && user.getUserSettings().shouldEmailUpdatesForWorkOrders()).collect(Collectors.toList());
+            notificationService.createMultiple(admins.stream().map(admin -> new Notification(
+                            messageSource.getMessage("complete_work_order_content",
+                                    new String[]{workOrder.getTitle(), actor.getFullName()}, Helper.getLocale(admin)),
+                            admin, NotificationType.WORK_ORDER, workOrder.getId())).collect(Collectors.toList()), true,
+                    messageSource.getMessage("complete_work_order", null, actorLocale));
+        }
+        if (workOrder.getCompany().getCompanySettings().getGeneralPreferences().isWoUpdateForRequesters()
+                && event.getPreviousStatus() != event.getStatus() && workOrder.getParentRequest() != null) {
+            Optional<OwnUser> optionalRequester = userService.findById(workOrder.getParentRequest().getCreatedBy());
+            if (!optionalRequester.isPresent()) return;
+            OwnUser requester = optionalRequester.get();
+            String message = messageSource.getMessage("notification_wo_request",
+                    new Object[]{workOrder.getTitle(),
+                            messageSource.getMessage(event.getStatus().toString(), null, actorLocale)},
+                    actorLocale);
+            notificationService.create(new Notification(message, requester, NotificationType.WORK_ORDER,
+                    workOrder.getId()));
+            if (requester.getUserSettings().shouldEmailUpdatesForRequests() && requester.isEnabled()
+                    && !requester.getUserSettings().isNotificationDigest()) {
+                Map<String, Object> mailVariables = new HashMap<String, Object>() {{
+                    put("workOrderLink", frontendUrl + "/app/work-orders/" + workOrder.getId());
+                    put("message", message);
+                }};
+                emailService2.sendMessageUsingThymeleafTemplate(new String[]{requester.getEmail()},
+                        messageSource.getMessage("request_update", null, actorLocale), mailVariables,
+                        "requester-update.html", actorLocale);
+            }
         }
     }
 
-    public void patchNotify(WorkOrder oldWorkOrder, WorkOrder newWorkOrder, Locale locale) {
-        String title = messageSource.getMessage("new_assignment", null, locale);
-        String message = messageSource.getMessage("notification_wo_assigned", new Object[]{newWorkOrder.getTitle()},
-                Helper.getLocale(newWorkOrder.getCompany()));
-        List<OwnUser> usersToNotify = oldWorkOrder.getNewUsersToNotify(newWorkOrder.getUsers());
-        notificationService.createMultiple(usersToNotify.stream().map(user ->
-                new Notification(message, user, NotificationType.WORK_ORDER, newWorkOrder.getId())).collect(Collectors.toList()), true, title);
+    /**
+     * Runs the workflows of {@code mainCondition} on work orders, the workflows of each company being looked up once.
+     * The work orders are locked so that the changes of the workflows and of the users are applied one after the other.
+     */
+    @Transactional
+    public void runWorkflows(Collection<Long> workOrderIds, WFMainCondition mainCondition) {
+        Map<Long, Collection<Workflow>> workflowsByCompany = new HashMap<>();
+        for (WorkOrder workOrder : workOrderRepository.findAllByIdForUpdate(workOrderIds)) {
+            workflowsByCompany.computeIfAbsent(workOrder.getCompany().getId(), companyId ->
+                            workflowService.findByMainConditionAndCompany(mainCondition, companyId))
+                    .forEach(workflow -> workflowService.runWorkOrder(workflow, workOrder));
+        }
+    }
+
+    /**
+     * Notifies the recipients and mails those who want it, rendering the messages once per locale
+     */
+    private void notifyAssignees(WorkOrder workOrder, Collection<NotificationRecipient> recipients, String titleKey) {
+        NotificationRecipientService.groupByLocale(recipients).forEach((locale, localeRecipients) -> {
+            notificationService.createMultiple(toNotifications(workOrder, localeRecipients, locale), true,
+                    messageSource.getMessage(titleKey, null, locale));
+            sendNewWorkOrderMail(workOrder, localeRecipients, locale);
+        });
+    }
+
+    /**
+     * The users are referenced by id, without being loaded
+     */
+    private List<Notification> toNotifications(WorkOrder workOrder, List<NotificationRecipient> recipients,
+                                               Locale locale) {
+        String message = messageSource.getMessage("notification_wo_assigned", new Object[]{workOrder.getTitle()},
+                locale);
+        return recipients.stream().map(recipient -> new Notification(message,
+                em.getReference(OwnUser.class, recipient.getUserId()), NotificationType.WORK_ORDER,
+                workOrder.getId())).collect(Collectors.toList());
+    }
 
+    private void sendNewWorkOrderMail(WorkOrder workOrder, List<NotificationRecipient> recipients, Locale locale) {
+        String[] emails = recipients.stream().filter(NotificationRecipient::shouldEmailUpdatesForWorkOrders)
+                .map(NotificationRecipient::getEmail).toArray(String[]::new);
+        if (emails.length == 0) return;
         Map<String, Object> mailVariables = new HashMap<String, Object>() {{
-            put("workOrderLink", frontendUrl + "/app/work-orders/" + newWorkOrder.getId());
+            put("workOrderLink", frontendUrl + "/app/work-orders/" + workOrder.getId());
             put("featuresLink", frontendUrl + "/#key-features");
-            put("workOrderTitle", newWorkOrder.getTitle());
+            put("workOrderTitle", workOrder.getTitle());
         }};
-        Collection<OwnUser> usersToMail =
-                usersToNotify.stream().filter(user -> user.isEnabled() && user.getUserSettings().shouldEmailUpdatesForWorkOrders()).collect(Collectors.toList());
-        if (!usersToMail.isEmpty()) {
-            emailService2.sendMessageUsingThymeleafTemplate(usersToMail.stream().map(OwnUser::getEmail).toArray(String[]::new), messageSource.getMessage("new_wo", null, locale), mailVariables, "new-work-order.html", Helper.getLocale(usersToMail.stream().findFirst().get()));
-        }
+        emailService2.sendMessageUsingThymeleafTemplate(emails, messageSource.getMessage("new_wo", null, locale),
+                mailVariables, "new-work-order.html", locale);
     }
 
     public Collection<WorkOrder> findByAsset(Long id) {
@@ -385,8 +515,8 @@ public class WorkOrderService {
     public SearchCriteria getSearchCriteria(OwnUser user, SearchCriteria searchCriteria) {
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
             searchCriteria.filterCompany(user);
-            if (user.getRole().getViewPermissions().contains(PermissionEntity.WORK_ORDERS)) {
-                boolean canViewOthers = user.getRole().getViewOtherPermissions().contains(PermissionEntity.WORK_ORDERS);
+            if (user.getRole().canView(PermissionEntity.WORK_ORDERS)) {
+                boolean canViewOthers = user.getRole().canViewOthers(PermissionEntity.WORK_ORDERS);
                 if (!canViewOthers) {
                     searchCriteria.getFilterFields().add(FilterField.builder()
                             .field("createdBy")
@@ -449,11 +579,16 @@ public class WorkOrderService {
     }
 
     public Integer countUrgent(OwnUser user) {
+        return urgentWorkOrderCounter.get(user, this::countUrgentInDatabase);
+    }
+
+    private int countUrgentInDatabase(OwnUser user) {
         SpecificationBuilder<WorkOrder> builder = new SpecificationBuilder<>();
         SearchCriteria searchCriteria = new SearchCriteria();
         searchCriteria.getFilterFields().addAll(Arrays.asList(FilterField.builder()
                         .field("dueDate")
-                        .value(Helper.addSeconds(new Date(), 2 * 24 * 3600))
+                        .value(new Date(System.currentTimeMillis()
+                                + schedulingProperties.getDueDateMonitor().getDueSoon().toMillis()))
                         .operation("le").build(),
                 FilterField.builder().field("status")
                         .value(Status.COMPLETE)
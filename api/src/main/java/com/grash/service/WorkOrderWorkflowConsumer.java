@@ -0,0 +1,69 @@
+package com.grash.service;
+
+import com.grash.event.*;
+import com.grash.model.enums.Status;
+import com.grash.model.enums.workflow.WFMainCondition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the {@link WFMainCondition#WORK_ORDER_CREATED} workflows on created work orders, the
+ * {@link WFMainCondition#WORK_ORDER_CLOSED} ones on completed work orders and the
+ * {@link WFMainCondition#WORK_ORDER_ARCHIVED} ones on archived work orders, consecutive events of the same condition
+ * being run together.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkOrderWorkflowConsumer implements WorkOrderEventConsumer {
+
+    private final DomainEventBus domainEventBus;
+    private final WorkOrderService workOrderService;
+
+    @PostConstruct
+    public void subscribe() {
+        domainEventBus.subscribe(this);
+    }
+
+    @Override
+    public String getName() {
+        return "work-order-workflows";
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+
+    @Override
+    public void accept(List<WorkOrderEvent> events) {
+        WFMainCondition pendingCondition = null;
+        List<Long> pendingIds = new ArrayList<>();
+        for (WorkOrderEvent event : events) {
+            WFMainCondition condition = getMainCondition(event);
+            if (condition == null) continue;
+            if (condition != pendingCondition && !pendingIds.isEmpty()) {
+                workOrderService.runWorkflows(pendingIds, pendingCondition);
+                pendingIds = new ArrayList<>();
+            }
+            pendingCondition = condition;
+            pendingIds.add(event.getWorkOrderId());
+        }
+        if (!pendingIds.isEmpty()) workOrderService.runWorkflows(pendingIds, pendingCondition);
+    }
+
+    private WFMainCondition getMainCondition(WorkOrderEvent event) {
+        if (event instanceof WorkOrderCreatedEvent) return WFMainCondition.WORK_ORDER_CREATED;
+        if (event instanceof WorkOrderArchivedEvent) return WFMainCondition.WORK_ORDER_ARCHIVED;
+        if (event instanceof WorkOrderStatusChangedEvent) {
+            WorkOrderStatusChangedEvent statusChangedEvent = (WorkOrderStatusChangedEvent) event;
+            if (statusChangedEvent.getStatus() == Status.COMPLETE
+                    && statusChangedEvent.getPreviousStatus() != Status.COMPLETE)
+                return WFMainCondition.WORK_ORDER_CLOSED;
+        }
+        return null;
+    }
+}
@@ -12,4 +12,19 @@ public class CacheKeyUtils {
     public static String dateRangeKey(Long userId, Date start, Date end) {
         return userId + "_" + roundToNearest20Minutes(start) + "_" + roundToNearest20Minutes(end);
     }
+
+    /**
+     * The user of a key made by {@link #dateRangeKey} or of a user id key, null for other keys
+     */
+    public static Long userIdOf(Object key) {
+        if (key instanceof Long) return (Long) key;
+        if (!(key instanceof String)) return null;
+        String text = (String) key;
+        int separator = text.indexOf('_');
+        try {
+            return Long.valueOf(separator < 0 ? text : text.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
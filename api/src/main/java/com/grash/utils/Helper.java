@@ -27,6 +27,7 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -90,6 +91,31 @@ public class Helper {
         return result;
     }
 
+    /**
+     * Occurrences every {@code days} days from {@code startsOn}, bounded by {@code endsOn} when set, which fall
+     * within [{@code from}, {@code to}]. The first one in the window is computed arithmetically so the cost only
+     * depends on the number of occurrences returned.
+     */
+    public static List<Date> getOccurrencesBetween(Date startsOn, int days, Date endsOn, Date from, Date to) {
+        if (days < 1)
+            throw new CustomException("getOccurrencesBetween should have a positive frequency",
+                    HttpStatus.INTERNAL_SERVER_ERROR);
+        ZoneId zoneId = ZoneId.systemDefault();
+        LocalDateTime start = LocalDateTime.ofInstant(startsOn.toInstant(), zoneId);
+        LocalDateTime windowStart = LocalDateTime.ofInstant(from.toInstant(), zoneId);
+        Date max = endsOn != null && endsOn.before(to) ? endsOn : to;
+        long periods = Math.max(0, ChronoUnit.DAYS.between(start, windowStart) / days);
+        LocalDateTime occurrence = start.plusDays(periods * days);
+        List<Date> result = new ArrayList<>();
+        while (true) {
+            Date date = localDateTimeToDate(occurrence);
+            if (date.after(max)) break;
+            if (!date.before(from)) result.add(date);
+            occurrence = occurrence.plusDays(days);
+        }
+        return result;
+    }
+
     public static Date localDateToDate(LocalDate localDate) {
         return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
     }
@@ -111,7 +137,10 @@ public class Helper {
     }
 
     public static Locale getLocale(Company company) {
-        Language language = company.getCompanySettings().getGeneralPreferences().getLanguage();
+        return getLocale(company.getCompanySettings().getGeneralPreferences().getLanguage());
+    }
+
+    public static Locale getLocale(Language language) {
         switch (language) {
             case FR:
                 return Locale.FRANCE;
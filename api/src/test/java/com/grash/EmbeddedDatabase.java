@@ -0,0 +1,119 @@
+package com.grash;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.CompositeResourceAccessor;
+import liquibase.resource.DirectoryResourceAccessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One Postgres per test JVM with the schema of the Liquibase changelogs, for the tests of the code relying on
+ * Postgres features. Changelogs included by db/master.xml which are not in the tree are replaced by empty ones.
+ */
+public final class EmbeddedDatabase {
+
+    private static final String MASTER = "db/master.xml";
+    private static final Pattern INCLUDE = Pattern.compile("<include file=\"([^\"]+)\"");
+
+    private static final AtomicLong ids = new AtomicLong(1000000);
+
+    private static EmbeddedPostgres postgres;
+
+    private EmbeddedDatabase() {
+    }
+
+    public static synchronized EmbeddedPostgres get() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+                try (Connection connection = postgres.getPostgresDatabase().getConnection()) {
+                    Database database = DatabaseFactory.getInstance()
+                            .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+                    new Liquibase(MASTER, new CompositeResourceAccessor(new ClassLoaderResourceAccessor(),
+                            new DirectoryResourceAccessor(missingChangelogs())), database).update(new Contexts());
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Starting the embedded database failed", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                }
+            }));
+        }
+        return postgres;
+    }
+
+    private static Path missingChangelogs() throws IOException {
+        Path directory = Files.createTempDirectory("changelogs");
+        ClassLoader classLoader = EmbeddedDatabase.class.getClassLoader();
+        String master = new String(readAll(classLoader.getResourceAsStream(MASTER)), StandardCharsets.UTF_8);
+        Matcher matcher = INCLUDE.matcher(master);
+        while (matcher.find()) {
+            String file = "db/" + matcher.group(1);
+            if (classLoader.getResource(file) != null) continue;
+            Path path = directory.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.write(path, "databaseChangeLog: []\n".getBytes(StandardCharsets.UTF_8));
+        }
+        return directory;
+    }
+
+    private static byte[] readAll(java.io.InputStream inputStream) throws IOException {
+        try (java.io.InputStream input = inputStream) {
+            java.io.ByteArrayOutputStream outputStream = new java.io.ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) != -1) outputStream.write(buffer, 0, read);
+            return outputStream.toByteArray();
+        }
+    }
+
+    public static DataSource dataSource() {
+        return get().getPostgresDatabase();
+    }
+
+    public static JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource());
+    }
+
+    /**
+     * Inserts an enabled user of no company, with its role and settings, getting every email
+     *
+     * @return the id of the user
+     */
+    public static long insertUser(String email, boolean notificationDigest) {
+        JdbcTemplate jdbcTemplate = jdbcTemplate();
+        long companySettingsId = ids.incrementAndGet();
+        jdbcTemplate.update("insert into company_settings (id) values (?)", companySettingsId);
+        long roleId = ids.incrementAndGet();
+        jdbcTemplate.update("insert into role (id, name, paid, role_type, company_settings_id) values (?, 'Admin', " +
+                "true, 0, ?)", roleId, companySettingsId);
+        long userSettingsId = ids.incrementAndGet();
+        jdbcTemplate.update("insert into user_settings (id, email_notified, email_updates_for_purchase_orders, " +
+                "email_updates_for_requests, email_updates_for_work_orders, stats_for_assigned_work_orders, " +
+                "notification_digest) values (?, true, true, true, true, true, ?)", userSettingsId, notificationDigest);
+        long userId = ids.incrementAndGet();
+        jdbcTemplate.update("insert into own_user (id, created_at, updated_at, email, enabled, first_name, last_name, " +
+                        "owns_company, password, rate, username, role_id, user_settings_id, enabled_in_subscription) " +
+                        "values (?, now(), now(), ?, true, 'First', 'Last', false, 'password', 0, ?, ?, ?, true)",
+                userId, email, email, roleId, userSettingsId);
+        return userId;
+    }
+}
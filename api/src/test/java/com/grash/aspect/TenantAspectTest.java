@@ -0,0 +1,227 @@
+package com.grash.aspect;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.exception.CustomException;
+import com.grash.model.Company;
+import com.grash.model.File;
+import com.grash.model.OwnUser;
+import com.grash.model.Role;
+import com.grash.model.WorkOrder;
+import com.grash.model.enums.RoleType;
+import com.grash.security.CustomUserDetail;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the references of request bodies against the rows of an embedded Postgres
+ */
+@ExtendWith(MockitoExtension.class)
+class TenantAspectTest {
+
+    private static final AtomicLong ids = new AtomicLong(5000000);
+
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private JoinPoint joinPoint;
+    @Mock
+    private MethodSignature signature;
+
+    private final JdbcTemplate jdbcTemplate = EmbeddedDatabase.jdbcTemplate();
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    private TenantAspect tenantAspect;
+    private long companyId;
+    private long superAccountCompanyId;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        companyId = insertCompany();
+        superAccountCompanyId = insertCompany();
+        lenient().when(entityManager.createNativeQuery(anyString()))
+                .thenAnswer(invocation -> nativeQuery(invocation.getArgument(0)));
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+        MetamodelImplementor metamodel = mock(MetamodelImplementor.class);
+        lenient().when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        lenient().when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        lenient().when(sessionFactory.getMetamodel()).thenReturn(metamodel);
+        AbstractEntityPersister workOrderPersister = persister("work_order");
+        AbstractEntityPersister filePersister = persister("file");
+        lenient().when(metamodel.entityPersister(WorkOrder.class)).thenReturn(workOrderPersister);
+        lenient().when(metamodel.entityPersister(File.class)).thenReturn(filePersister);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(Handler.class.getMethod("post", Body.class));
+        tenantAspect = new TenantAspect(entityManager);
+        authenticate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void acceptsTheRowsOfTheUserCompany() {
+        Body body = new Body();
+        body.workOrder = workOrder(insertWorkOrder(companyId));
+        body.workOrders = Collections.singletonList(workOrder(insertWorkOrder(companyId)));
+        when(joinPoint.getArgs()).thenReturn(new Object[]{body});
+
+        assertThatCode(() -> tenantAspect.validateTenant(joinPoint)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void rejectsAReferenceToAnotherCompanyRow() {
+        long otherCompanyId = insertCompany();
+        Body body = new Body();
+        body.workOrder = workOrder(insertWorkOrder(companyId));
+        body.workOrders = Arrays.asList(workOrder(insertWorkOrder(companyId)),
+                workOrder(insertWorkOrder(otherCompanyId)));
+        when(joinPoint.getArgs()).thenReturn(new Object[]{body});
+
+        assertThatThrownBy(() -> tenantAspect.validateTenant(joinPoint)).isInstanceOf(CustomException.class)
+                .hasMessageContaining("WorkOrder of company " + otherCompanyId);
+    }
+
+    @Test
+    void checksTheIdsInChunks() {
+        long otherCompanyId = insertCompany();
+        Body body = new Body();
+        body.workOrders = LongStream.range(0, 1000).mapToObj(i -> workOrder(ids.incrementAndGet()))
+                .collect(Collectors.toList());
+        when(joinPoint.getArgs()).thenReturn(new Object[]{body});
+
+        assertThatCode(() -> tenantAspect.validateTenant(joinPoint)).doesNotThrowAnyException();
+        verify(entityManager, times(1)).createNativeQuery(anyString());
+
+        List<WorkOrder> workOrders = new ArrayList<>(body.workOrders);
+        workOrders.add(workOrder(insertWorkOrder(otherCompanyId)));
+        body.workOrders = workOrders;
+
+        assertThatThrownBy(() -> tenantAspect.validateTenant(joinPoint)).isInstanceOf(CustomException.class)
+                .hasMessageContaining("WorkOrder of company " + otherCompanyId);
+        verify(entityManager, times(3)).createNativeQuery(anyString());
+    }
+
+    @Test
+    void letsASuperAccountReferenceTheFilesOfItsAccounts() {
+        Body body = new Body();
+        body.file = file(insertFile(superAccountCompanyId));
+        when(joinPoint.getArgs()).thenReturn(new Object[]{body});
+
+        assertThatCode(() -> tenantAspect.validateTenant(joinPoint)).doesNotThrowAnyException();
+
+        body.file = null;
+        body.workOrder = workOrder(insertWorkOrder(superAccountCompanyId));
+
+        assertThatThrownBy(() -> tenantAspect.validateTenant(joinPoint)).isInstanceOf(CustomException.class)
+                .hasMessageContaining("WorkOrder of company " + superAccountCompanyId);
+    }
+
+    private void authenticate() {
+        Role role = new Role();
+        role.setRoleType(RoleType.ROLE_CLIENT);
+        Company company = new Company();
+        company.setId(companyId);
+        OwnUser user = new OwnUser();
+        user.setId(1L);
+        user.setRole(role);
+        user.setCompany(company);
+        CustomUserDetail userDetail = CustomUserDetail.builder().user(user)
+                .superAccountCompanyIds(Collections.singleton(superAccountCompanyId)).build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(userDetail,
+                null, Collections.emptyList()));
+    }
+
+    /**
+     * Runs the native query of the aspect on the embedded database
+     */
+    private Query nativeQuery(String sql) {
+        Query query = mock(Query.class);
+        Map<String, Object> parameters = new HashMap<>();
+        when(query.setParameter(anyString(), any())).thenAnswer(invocation -> {
+            parameters.put(invocation.getArgument(0), invocation.getArgument(1));
+            return query;
+        });
+        when(query.getResultList()).thenAnswer(invocation ->
+                namedParameterJdbcTemplate.queryForList(sql, parameters, Long.class));
+        return query;
+    }
+
+    private static AbstractEntityPersister persister(String tableName) {
+        AbstractEntityPersister persister = mock(AbstractEntityPersister.class);
+        lenient().when(persister.getTableName()).thenReturn(tableName);
+        return persister;
+    }
+
+    private static WorkOrder workOrder(long id) {
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setId(id);
+        return workOrder;
+    }
+
+    private static File file(long id) {
+        File file = new File();
+        file.setId(id);
+        return file;
+    }
+
+    private long insertCompany() {
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update("insert into company (id, created_at, updated_at, employees_count) values (?, now(), " +
+                "now(), 1)", id);
+        return id;
+    }
+
+    private long insertWorkOrder(long companyId) {
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update("insert into work_order (id, created_at, updated_at, estimated_duration, " +
+                "required_signature, title, archived, company_id) values (?, now(), now(), 0, false, 'Pump', false, " +
+                "?)", id, companyId);
+        return id;
+    }
+
+    private long insertFile(long companyId) {
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update("insert into file (id, created_at, updated_at, name, path, hidden, company_id) values " +
+                "(?, now(), now(), 'manual.pdf', 'manual.pdf', false, ?)", id, companyId);
+        return id;
+    }
+
+    static class Body {
+        WorkOrder workOrder;
+        List<WorkOrder> workOrders;
+        File file;
+    }
+
+    static class Handler {
+        public void post(@RequestBody Body body) {
+        }
+    }
+}
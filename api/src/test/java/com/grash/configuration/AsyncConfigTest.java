@@ -0,0 +1,125 @@
+package com.grash.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncConfigTest {
+
+    private final AsyncProperties asyncProperties = new AsyncProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AsyncConfig asyncConfig = new AsyncConfig(asyncProperties, meterRegistry);
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        pool("notifications", AsyncProperties.RejectionPolicy.CALLER_RUNS);
+        pool("mail", AsyncProperties.RejectionPolicy.ABORT);
+        pool("push", AsyncProperties.RejectionPolicy.SHED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    @Test
+    void runsTheTasksRejectedByASaturatedPoolInTheCaller() {
+        ThreadPoolTaskExecutor executor = saturated(asyncConfig.notificationsExecutor());
+        List<String> threads = new CopyOnWriteArrayList<>();
+
+        executor.execute(() -> threads.add(Thread.currentThread().getName()));
+
+        assertThat(threads).containsExactly(Thread.currentThread().getName());
+        assertThat(rejected("notifications")).isEqualTo(1);
+    }
+
+    @Test
+    void throwsTheTasksRejectedByASaturatedPoolToTheCaller() {
+        ThreadPoolTaskExecutor executor = saturated(asyncConfig.mailExecutor());
+
+        assertThatThrownBy(() -> executor.execute(() -> {
+        })).isInstanceOf(TaskRejectedException.class);
+        assertThat(rejected("mail")).isEqualTo(1);
+    }
+
+    @Test
+    void dropsTheTasksRejectedByASaturatedPool() {
+        ThreadPoolTaskExecutor executor = saturated(asyncConfig.pushExecutor());
+        AtomicInteger ran = new AtomicInteger();
+
+        executor.execute(ran::incrementAndGet);
+
+        assertThat(ran).hasValue(0);
+        assertThat(rejected("push")).isEqualTo(1);
+        assertThat(meterRegistry.get("async.queue.size").tag("executor", "push").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("async.active").tag("executor", "push").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void timesTheTasks() throws InterruptedException {
+        ThreadPoolTaskExecutor executor = asyncConfig.mailExecutor();
+        executors.add(executor);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("async.task.wait").tag("executor", "mail").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("async.task.duration").tag("executor", "mail").timer().count()).isEqualTo(1);
+    }
+
+    private void pool(String name, AsyncProperties.RejectionPolicy rejectionPolicy) {
+        AsyncProperties.Pool pool = new AsyncProperties.Pool();
+        pool.setCoreSize(1);
+        pool.setMaxSize(1);
+        pool.setQueueCapacity(1);
+        pool.setRejectionPolicy(rejectionPolicy);
+        asyncProperties.getExecutors().put(name, pool);
+    }
+
+    /**
+     * Keeps the thread of the pool busy and its queue full until the test ends
+     */
+    private ThreadPoolTaskExecutor saturated(ThreadPoolTaskExecutor executor) {
+        executors.add(executor);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        executor.execute(() -> {
+        });
+        return executor;
+    }
+
+    private double rejected(String executor) {
+        return meterRegistry.get("async.rejected").tag("executor", executor).counter().count();
+    }
+}
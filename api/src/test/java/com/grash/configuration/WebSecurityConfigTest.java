@@ -0,0 +1,81 @@
+package com.grash.configuration;
+
+import com.grash.security.JwtTokenProvider;
+import com.grash.security.OAuth2AuthenticationFailureHandler;
+import com.grash.security.OAuth2AuthenticationSuccessHandler;
+import com.grash.service.LicenseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.DelegatingFilterProxy;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringJUnitWebConfig(WebSecurityConfigTest.Config.class)
+@TestPropertySource(properties = "enable-sso=false")
+class WebSecurityConfigTest {
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+    @MockBean
+    private OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
+    @MockBean
+    private OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler;
+    @MockBean
+    private LicenseService licenseService;
+    @MockBean
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(new DelegatingFilterProxy("springSecurityFilterChain", context)).build();
+    }
+
+    @Test
+    void letsProbesReadTheHealthAnonymously() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health/readiness")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+    }
+
+    @Test
+    void keepsTheOtherActuatorEndpointsAuthenticated() throws Exception {
+        int status = mockMvc.perform(get("/actuator/metrics")).andReturn().getResponse().getStatus();
+        assertThat(status).isIn(401, 403);
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @Import({WebSecurityConfig.class, ProbesController.class})
+    static class Config {
+    }
+
+    @RestController
+    static class ProbesController {
+        @GetMapping({"/actuator/health", "/actuator/health/readiness", "/actuator/health/liveness",
+                "/actuator/metrics"})
+        public String status() {
+            return "{\"status\":\"UP\"}";
+        }
+    }
+}
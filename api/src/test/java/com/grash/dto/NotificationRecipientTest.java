@@ -0,0 +1,43 @@
+package com.grash.dto;
+
+import com.grash.model.enums.NotificationType;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationRecipientTest {
+
+    @Test
+    void emailsDigestsOfEnabledUsersOnly() {
+        NotificationRecipient recipient = digestRecipient();
+        assertThat(recipient.shouldEmailDigests()).isTrue();
+        assertThat(recipient.shouldEmailUpdatesForWorkOrders()).isFalse();
+
+        recipient.setEnabled(false);
+        assertThat(recipient.shouldEmailDigests()).isFalse();
+    }
+
+    @Test
+    void listsOnlyTheCategoriesTheUserGetsEmailsFor() {
+        NotificationRecipient recipient = digestRecipient();
+        recipient.setEmailUpdatesForPurchaseOrders(false);
+
+        assertThat(recipient.shouldEmailDigestOf(NotificationType.WORK_ORDER)).isTrue();
+        assertThat(recipient.shouldEmailDigestOf(NotificationType.REQUEST)).isTrue();
+        assertThat(recipient.shouldEmailDigestOf(NotificationType.PURCHASE_ORDER)).isFalse();
+        assertThat(recipient.shouldEmailDigestOf(NotificationType.INFO)).isTrue();
+        assertThat(recipient.shouldEmailDigestOf(null)).isTrue();
+    }
+
+    private static NotificationRecipient digestRecipient() {
+        NotificationRecipient recipient = new NotificationRecipient();
+        recipient.setEmail("user@example.com");
+        recipient.setEnabled(true);
+        recipient.setEmailNotified(true);
+        recipient.setEmailUpdatesForWorkOrders(true);
+        recipient.setEmailUpdatesForRequests(true);
+        recipient.setEmailUpdatesForPurchaseOrders(true);
+        recipient.setNotificationDigest(true);
+        return recipient;
+    }
+}
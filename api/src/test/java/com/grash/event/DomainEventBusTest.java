@@ -0,0 +1,193 @@
+package com.grash.event;
+
+import com.grash.configuration.EventBusProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class DomainEventBusTest {
+
+    private EventBusProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private DomainEventOutbox outbox;
+    private DomainEventBus bus;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EventBusProperties();
+        properties.setPartitions(3);
+        properties.setMaxBatchSize(10);
+        meterRegistry = new SimpleMeterRegistry();
+        outbox = mock(DomainEventOutbox.class);
+        bus = new DomainEventBus(properties, meterRegistry, outbox);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        bus.stop();
+    }
+
+    @Test
+    void deliversTheEventsOfAWorkOrderInOrder() throws InterruptedException {
+        RecordingConsumer consumer = new RecordingConsumer(null);
+        bus.subscribe(consumer);
+        List<WorkOrderEvent> published = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            WorkOrderEvent event = new WorkOrderCreatedEvent((long) i % 7, 1L);
+            published.add(event);
+            bus.publish(event);
+        }
+        bus.stop();
+
+        List<WorkOrderEvent> events = consumer.events();
+        assertThat(events).containsExactlyInAnyOrderElementsOf(published);
+        for (long workOrderId = 0; workOrderId < 7; workOrderId++) {
+            assertThat(ofWorkOrder(events, workOrderId)).containsExactlyElementsOf(ofWorkOrder(published,
+                    workOrderId));
+        }
+        assertThat(consumer.threadsByWorkOrder.values()).allMatch(threads -> threads.size() == 1);
+    }
+
+    @Test
+    void batchesTheEventsWaitingInAPartition() throws InterruptedException {
+        properties.setPartitions(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingConsumer consumer = new RecordingConsumer(release);
+        bus.subscribe(consumer);
+        bus.publish(new WorkOrderCreatedEvent(1L, 1L));
+        assertThat(consumer.firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long i = 2; i <= 25; i++) bus.publish(new WorkOrderCreatedEvent(i, 1L));
+        release.countDown();
+        bus.stop();
+
+        assertThat(consumer.batchSizes).containsExactly(1, 10, 10, 4);
+        assertThat(consumer.events()).extracting(WorkOrderEvent::getWorkOrderId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 25).boxed().collect(Collectors.toList()));
+        assertThat(meterRegistry.get("events.consumed").tag("consumer", "recording").tag("outcome", "success")
+                .counter().count()).isEqualTo(25);
+    }
+
+    @Test
+    void dropsEventsInsteadOfBlockingWhenAPartitionIsFull() throws InterruptedException {
+        properties.setPartitions(1);
+        properties.setQueueCapacity(2);
+        properties.setOfferTimeout(Duration.ofMillis(10));
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingConsumer consumer = new RecordingConsumer(release);
+        bus.subscribe(consumer);
+        bus.publish(new WorkOrderCreatedEvent(1L, 1L));
+        assertThat(consumer.firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long start = System.nanoTime();
+        for (long i = 2; i <= 6; i++) bus.publish(new WorkOrderCreatedEvent(i, 1L));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+        release.countDown();
+        bus.stop();
+
+        assertThat(consumer.events()).hasSize(3);
+        assertThat(meterRegistry.get("events.dropped").tag("consumer", "recording").counter().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void keepsConsumingAfterAConsumerFails() throws InterruptedException {
+        List<WorkOrderEvent> accepted = new CopyOnWriteArrayList<>();
+        bus.subscribe(new WorkOrderEventConsumer() {
+            @Override
+            public String getName() {
+                return "failing";
+            }
+
+            @Override
+            public void accept(List<WorkOrderEvent> events) {
+                if (events.stream().anyMatch(event -> event.getWorkOrderId() == 1L))
+                    throw new IllegalStateException("boom");
+                accepted.addAll(events);
+            }
+        });
+        bus.publish(new WorkOrderCreatedEvent(1L, 1L));
+        Thread.sleep(200);
+        bus.publish(new WorkOrderCreatedEvent(2L, 1L));
+        bus.stop();
+
+        assertThat(accepted).extracting(WorkOrderEvent::getWorkOrderId).containsExactly(2L);
+        assertThat(meterRegistry.get("events.consumed").tag("consumer", "failing").tag("outcome", "failure")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void writesTheEventsOfTheDurableConsumersToTheOutbox() throws InterruptedException {
+        RecordingConsumer consumer = new RecordingConsumer(null);
+        WorkOrderEventConsumer durableConsumer = new RecordingConsumer(null) {
+            @Override
+            public String getName() {
+                return "durable";
+            }
+
+            @Override
+            public boolean isDurable() {
+                return true;
+            }
+        };
+        bus.subscribe(consumer);
+        bus.subscribe(durableConsumer);
+        WorkOrderEvent event = new WorkOrderCreatedEvent(1L, 1L);
+        bus.publish(event);
+        bus.stop();
+
+        verify(outbox).subscribe(durableConsumer);
+        verify(outbox).add(Collections.singletonList("durable"), event);
+        assertThat(consumer.events()).containsExactly(event);
+    }
+
+    private static List<WorkOrderEvent> ofWorkOrder(List<WorkOrderEvent> events, long workOrderId) {
+        return events.stream().filter(event -> event.getWorkOrderId() == workOrderId).collect(Collectors.toList());
+    }
+
+    private static class RecordingConsumer implements WorkOrderEventConsumer {
+        private final CountDownLatch release;
+        private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        private final List<WorkOrderEvent> events = new CopyOnWriteArrayList<>();
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private final Map<Long, Set<String>> threadsByWorkOrder = new ConcurrentHashMap<>();
+
+        private RecordingConsumer(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+
+        @Override
+        public void accept(List<WorkOrderEvent> batch) {
+            batchSizes.add(batch.size());
+            events.addAll(batch);
+            batch.forEach(event -> threadsByWorkOrder.computeIfAbsent(event.getWorkOrderId(),
+                    workOrderId -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName()));
+            firstBatchStarted.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private List<WorkOrderEvent> events() {
+            return new ArrayList<>(events);
+        }
+    }
+}
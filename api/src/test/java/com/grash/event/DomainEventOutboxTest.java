@@ -0,0 +1,192 @@
+package com.grash.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.EventBusProperties;
+import com.grash.configuration.SchedulingProperties;
+import com.grash.job.BatchJobRunner;
+import com.grash.job.TriggerScheduler;
+import com.grash.model.enums.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drains the outbox of an embedded Postgres
+ */
+@ExtendWith(MockitoExtension.class)
+class DomainEventOutboxTest {
+
+    private static final List<String> CONSUMERS = Arrays.asList("workflows", "notifications");
+
+    @Mock
+    private TriggerScheduler triggerScheduler;
+
+    private final DataSource dataSource = EmbeddedDatabase.dataSource();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final EventBusProperties properties = new EventBusProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DomainEventOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from domain_event_outbox");
+        properties.setMaxBatchSize(2);
+        properties.getOutbox().setMaxAttempts(2);
+        properties.getOutbox().setInitialBackoff(Duration.ZERO);
+        outbox = new DomainEventOutbox(jdbcTemplate, new ObjectMapper(), new BatchJobRunner(jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), meterRegistry, new SchedulingProperties()),
+                triggerScheduler, meterRegistry, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outbox.destroy();
+    }
+
+    @Test
+    void writesTheEventsWithTheTransactionPublishingThem() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(
+                dataSource));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outbox.add(CONSUMERS, new WorkOrderCreatedEvent(1L, 1L));
+            status.setRollbackOnly();
+        });
+        assertThat(pending()).isZero();
+
+        transactionTemplate.executeWithoutResult(status -> outbox.add(CONSUMERS, new WorkOrderCreatedEvent(1L, 1L)));
+        assertThat(jdbcTemplate.queryForList("select consumer from domain_event_outbox", String.class))
+                .containsExactlyInAnyOrderElementsOf(CONSUMERS);
+    }
+
+    @Test
+    void handsEveryEventTypeBackAndDeletesIt() {
+        List<WorkOrderEvent> published = Arrays.asList(new WorkOrderCreatedEvent(1L, 2L),
+                new WorkOrderAssignedEvent(1L, 2L, Collections.singleton(3L)),
+                new WorkOrderStatusChangedEvent(1L, 2L, 4L, Status.OPEN, Status.COMPLETE),
+                new WorkOrderArchivedEvent(1L, 2L));
+        published.forEach(event -> outbox.add(CONSUMERS, event));
+        RecordingConsumer consumer = new RecordingConsumer("workflows");
+
+        outbox.dispatch(consumer);
+
+        assertThat(consumer.events).hasSize(4);
+        assertThat(consumer.events).extracting(Object::getClass)
+                .containsExactly(WorkOrderCreatedEvent.class, WorkOrderAssignedEvent.class,
+                        WorkOrderStatusChangedEvent.class, WorkOrderArchivedEvent.class);
+        assertThat(consumer.events).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(published);
+        assertThat(pending()).isEqualTo(4);
+        assertThat(meterRegistry.get("events.consumed").tag("consumer", "workflows").tag("outcome", "success")
+                .counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    void handsTheEventsOfAWorkOrderOneAfterTheOther() {
+        for (long i = 1; i <= 3; i++) {
+            outbox.add(CONSUMERS, new WorkOrderCreatedEvent(1L, 1L));
+            outbox.add(CONSUMERS, new WorkOrderCreatedEvent(2L, 1L));
+        }
+        RecordingConsumer consumer = new RecordingConsumer("notifications");
+
+        outbox.dispatch(consumer);
+
+        assertThat(consumer.batches).allMatch(batch -> batch.stream().map(WorkOrderEvent::getWorkOrderId)
+                .distinct().count() == batch.size());
+        assertThat(consumer.events).extracting(WorkOrderEvent::getWorkOrderId).containsExactly(1L, 2L, 1L, 2L, 1L,
+                2L);
+    }
+
+    @Test
+    void retriesAFailingEventBeforeTheNextOnesOfItsWorkOrderThenGivesUp() {
+        outbox.add(CONSUMERS, new WorkOrderCreatedEvent(1L, 1L));
+        outbox.add(CONSUMERS, new WorkOrderArchivedEvent(1L, 1L));
+        List<Class<?>> calls = new ArrayList<>();
+        RecordingConsumer consumer = new RecordingConsumer("workflows") {
+            @Override
+            public void accept(List<WorkOrderEvent> events) {
+                events.forEach(event -> calls.add(event.getClass()));
+                if (events.get(0) instanceof WorkOrderCreatedEvent) throw new IllegalStateException("boom");
+                super.accept(events);
+            }
+        };
+
+        outbox.dispatch(consumer);
+
+        assertThat(calls).containsExactly(WorkOrderCreatedEvent.class, WorkOrderCreatedEvent.class,
+                WorkOrderArchivedEvent.class);
+        assertThat(consumer.events).extracting(Object::getClass).containsExactly(WorkOrderArchivedEvent.class);
+        assertThat(jdbcTemplate.queryForList("select status from domain_event_outbox where consumer = 'workflows'",
+                String.class)).containsExactly("DEAD");
+        assertThat(jdbcTemplate.queryForObject("select last_error from domain_event_outbox where consumer = " +
+                "'workflows'", String.class)).isEqualTo("IllegalStateException: boom");
+        assertThat(meterRegistry.get("events.dead").tag("consumer", "workflows").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void holdsBackTheNextEventsOfAWorkOrderUntilItsRetry() {
+        properties.getOutbox().setInitialBackoff(Duration.ofMinutes(1));
+        outbox.add(CONSUMERS, new WorkOrderCreatedEvent(1L, 1L));
+        outbox.add(CONSUMERS, new WorkOrderArchivedEvent(1L, 1L));
+        outbox.add(CONSUMERS, new WorkOrderCreatedEvent(2L, 1L));
+        RecordingConsumer consumer = new RecordingConsumer("workflows") {
+            @Override
+            public void accept(List<WorkOrderEvent> events) {
+                if (events.stream().anyMatch(event -> event.getWorkOrderId() == 1L))
+                    throw new IllegalStateException("boom");
+                super.accept(events);
+            }
+        };
+
+        outbox.dispatch(consumer);
+
+        assertThat(consumer.events).extracting(WorkOrderEvent::getWorkOrderId).containsExactly(2L);
+        assertThat(jdbcTemplate.queryForList("select attempts from domain_event_outbox where consumer = " +
+                "'workflows' and status = 'PENDING' order by id", Integer.class)).containsExactly(1, 0);
+    }
+
+    private int pending() {
+        return jdbcTemplate.queryForObject("select count(*) from domain_event_outbox where status = 'PENDING'",
+                Integer.class);
+    }
+
+    private static class RecordingConsumer implements WorkOrderEventConsumer {
+        private final String name;
+        private final List<WorkOrderEvent> events = new ArrayList<>();
+        private final List<List<WorkOrderEvent>> batches = new ArrayList<>();
+
+        private RecordingConsumer(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isDurable() {
+            return true;
+        }
+
+        @Override
+        public void accept(List<WorkOrderEvent> batch) {
+            batches.add(batch);
+            events.addAll(batch);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.grash.job;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.SchedulingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchJobRunnerTest {
+
+    private final DataSource dataSource = EmbeddedDatabase.dataSource();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private SchedulingProperties schedulingProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private BatchJobRunner batchJobRunner;
+    private String job;
+
+    @BeforeEach
+    void setUp() {
+        schedulingProperties = new SchedulingProperties();
+        schedulingProperties.getBatch().setMaxConcurrentJobs(1);
+        meterRegistry = new SimpleMeterRegistry();
+        batchJobRunner = new BatchJobRunner(jdbcTemplate, new DataSourceTransactionManager(dataSource), meterRegistry,
+                schedulingProperties);
+        job = "test-" + UUID.randomUUID();
+    }
+
+    @Test
+    void drainsUntilAChunkComesBackIncomplete() {
+        List<Integer> chunks = new ArrayList<>();
+        int[] processed = {3, 3, 1, 3};
+
+        batchJobRunner.drain(job, 3, limit -> {
+            chunks.add(limit);
+            return processed[chunks.size() - 1];
+        });
+
+        assertThat(chunks).containsExactly(3, 3, 3);
+        assertThat(meterRegistry.get("batch.items").tag("job", job).counter().count()).isEqualTo(7);
+        assertThat(meterRegistry.get("batch.chunk").tag("job", job).tag("outcome", "success").timer().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void resumesAFailedIterationAfterTheLastCommittedChunk() {
+        List<Long> rows = LongStream.rangeClosed(1, 10).boxed().collect(Collectors.toList());
+        List<Long> processed = new ArrayList<>();
+        AtomicBoolean fail = new AtomicBoolean(true);
+
+        assertThatThrownBy(() -> batchJobRunner.iterate(job, 3, (after, limit) -> read(rows, after, limit), chunk -> {
+            if (fail.get() && chunk.contains(7L)) throw new IllegalStateException("boom");
+            processed.addAll(chunk);
+        }, Long::longValue)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(processed).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(checkpoint()).containsExactly(6L);
+        assertThat(meterRegistry.get("batch.chunk").tag("job", job).tag("outcome", "failure").timer().count())
+                .isEqualTo(1);
+
+        fail.set(false);
+        processed.clear();
+        batchJobRunner.iterate(job, 3, (after, limit) -> read(rows, after, limit), processed::addAll,
+                Long::longValue);
+
+        assertThat(processed).containsExactly(7L, 8L, 9L, 10L);
+        assertThat(checkpoint()).isEmpty();
+    }
+
+    @Test
+    void rollsBackTheCheckpointOfAFailedChunk() {
+        List<Long> rows = LongStream.rangeClosed(1, 4).boxed().collect(Collectors.toList());
+
+        assertThatThrownBy(() -> batchJobRunner.iterate(job, 2, (after, limit) -> read(rows, after, limit),
+                chunk -> {
+                    jdbcTemplate.update("insert into batch_job_checkpoint (job_name, last_cursor, updated_at) " +
+                            "values (?, 0, now()) on conflict (job_name) do nothing", job);
+                    if (chunk.contains(1L)) throw new IllegalStateException("boom");
+                }, Long::longValue)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(checkpoint()).isEmpty();
+    }
+
+    @Test
+    void skipsARunWhenTheConcurrentJobsLimitIsReached() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread running = new Thread(() -> batchJobRunner.run("running", () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        running.start();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicInteger runs = new AtomicInteger();
+
+        batchJobRunner.run(job, runs::incrementAndGet);
+        release.countDown();
+        running.join(5000);
+        batchJobRunner.run(job, runs::incrementAndGet);
+
+        assertThat(runs).hasValue(1);
+    }
+
+    private static List<Long> read(List<Long> rows, long after, int limit) {
+        return rows.stream().filter(row -> row > after).limit(limit).collect(Collectors.toList());
+    }
+
+    private List<Long> checkpoint() {
+        return jdbcTemplate.queryForList("select last_cursor from batch_job_checkpoint where job_name = ?",
+                Long.class, job);
+    }
+}
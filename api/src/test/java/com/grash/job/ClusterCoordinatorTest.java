@@ -0,0 +1,140 @@
+package com.grash.job;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.SchedulingProperties;
+import com.grash.service.BootstrapHealthIndicator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two nodes sharing an embedded Postgres
+ */
+@ExtendWith(MockitoExtension.class)
+class ClusterCoordinatorTest {
+
+    @Mock
+    private TriggerScheduler triggerScheduler;
+    @Mock
+    private ApplicationEventPublisher eventPublisher1;
+    @Mock
+    private ApplicationEventPublisher eventPublisher2;
+    @Mock
+    private BootstrapHealthIndicator bootstrapHealthIndicator;
+
+    private final JdbcTemplate jdbcTemplate = EmbeddedDatabase.jdbcTemplate();
+    private SchedulingProperties schedulingProperties;
+    private ClusterCoordinator node1;
+    private ClusterCoordinator node2;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from scheduler_node");
+        schedulingProperties = new SchedulingProperties();
+        schedulingProperties.getCluster().setNodeTimeout(Duration.ofSeconds(30));
+        node1 = new ClusterCoordinator(jdbcTemplate, triggerScheduler, eventPublisher1, schedulingProperties,
+                bootstrapHealthIndicator);
+        node2 = new ClusterCoordinator(jdbcTemplate, triggerScheduler, eventPublisher2, schedulingProperties,
+                bootstrapHealthIndicator);
+    }
+
+    @Test
+    void splitsTheIdsBetweenTheLiveNodes() {
+        node1.heartbeat();
+        node2.heartbeat();
+        node1.heartbeat();
+
+        List<Long> owned1 = owned(node1);
+        List<Long> owned2 = owned(node2);
+        assertThat(owned1).hasSize(50).doesNotContainAnyElementsOf(owned2);
+        assertThat(owned2).hasSize(50);
+        assertThat(nodes()).isEqualTo(2);
+    }
+
+    @Test
+    void reportsTheMembershipChanges() {
+        node1.heartbeat();
+        node2.heartbeat();
+        node1.heartbeat();
+        node1.heartbeat();
+
+        assertThat(membershipChanges(eventPublisher1, 3)).containsExactly(true, true, false);
+        assertThat(membershipChanges(eventPublisher2, 1)).containsExactly(true);
+    }
+
+    @Test
+    void takesOverTheShareOfANodeWhichLeft() {
+        node1.heartbeat();
+        node2.heartbeat();
+        node1.heartbeat();
+
+        node2.stop();
+        node1.heartbeat();
+
+        assertThat(owned(node1)).hasSize(100);
+        assertThat(nodes()).isEqualTo(1);
+        verify(triggerScheduler).cancel("cluster");
+    }
+
+    @Test
+    void takesOverTheShareOfANodeWhichStoppedHeartbeating() throws InterruptedException {
+        schedulingProperties.getCluster().setNodeTimeout(Duration.ofSeconds(1));
+        node1.heartbeat();
+        node2.heartbeat();
+        node1.heartbeat();
+        assertThat(owned(node2)).hasSize(50);
+
+        Thread.sleep(1200);
+        node1.heartbeat();
+
+        assertThat(owned(node1)).hasSize(100);
+        assertThat(owned(node2)).isEmpty();
+        assertThat(nodes()).isEqualTo(1);
+
+        node2.heartbeat();
+        node1.heartbeat();
+        assertThat(owned(node1)).hasSize(50).doesNotContainAnyElementsOf(owned(node2));
+    }
+
+    @Test
+    void expiresTheHeartbeatsWithTheDatabaseClock() {
+        jdbcTemplate.update("insert into scheduler_node (node_id, heartbeat_at) values ('live', now() - interval " +
+                "'20 seconds'), ('lost', now() - interval '40 seconds')");
+
+        node1.heartbeat();
+
+        assertThat(jdbcTemplate.queryForList("select node_id from scheduler_node where node_id in ('live', 'lost')",
+                String.class)).containsExactly("live");
+        assertThat(jdbcTemplate.queryForObject("select extract(epoch from now() - heartbeat_at) from " +
+                "scheduler_node where node_id not in ('live', 'lost')", Double.class)).isBetween(0.0, 5.0);
+        assertThat(owned(node1)).hasSize(50);
+    }
+
+    private static List<Long> owned(ClusterCoordinator node) {
+        return LongStream.range(0, 100).filter(node::owns).boxed().collect(Collectors.toList());
+    }
+
+    private List<Boolean> membershipChanges(ApplicationEventPublisher eventPublisher, int heartbeats) {
+        ArgumentCaptor<ClusterHeartbeatEvent> events = ArgumentCaptor.forClass(ClusterHeartbeatEvent.class);
+        verify(eventPublisher, times(heartbeats)).publishEvent(events.capture());
+        return events.getAllValues().stream().map(ClusterHeartbeatEvent::isMembershipChanged)
+                .collect(Collectors.toList());
+    }
+
+    private int nodes() {
+        return jdbcTemplate.queryForObject("select count(*) from scheduler_node", Integer.class);
+    }
+}
@@ -0,0 +1,132 @@
+package com.grash.job;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.SchedulingProperties;
+import com.grash.model.Subscription;
+import com.grash.model.SubscriptionPlan;
+import com.grash.repository.SubscriptionRepository;
+import com.grash.service.SubscriptionPlanService;
+import com.grash.service.SubscriptionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpireSubscriptionsJobTest {
+
+    private static final AtomicLong ids = new AtomicLong(3000000);
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+    @Mock
+    private SubscriptionPlanService subscriptionPlanService;
+
+    private final JdbcTemplate jdbcTemplate = EmbeddedDatabase.jdbcTemplate();
+
+    @Test
+    void resetsTheEndedSubscriptionsChunkByChunk() {
+        SubscriptionPlan freePlan = new SubscriptionPlan();
+        freePlan.setCode("FREE");
+        when(subscriptionPlanService.findByCode("FREE")).thenReturn(Optional.of(freePlan));
+        List<Subscription> ended = Arrays.asList(subscription(), subscription(), subscription());
+        when(subscriptionRepository.findEndedForUpdate(any(Date.class), eq(2)))
+                .thenReturn(ended.subList(0, 2), ended.subList(2, 3));
+        SchedulingProperties schedulingProperties = new SchedulingProperties();
+        schedulingProperties.getSubscriptionExpiry().setBatchSize(2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BatchJobRunner batchJobRunner = new BatchJobRunner(jdbcTemplate,
+                new DataSourceTransactionManager(EmbeddedDatabase.dataSource()), meterRegistry, schedulingProperties);
+        SubscriptionService subscriptionService = new SubscriptionService(subscriptionRepository, null,
+                subscriptionPlanService, null, null);
+
+        new ExpireSubscriptionsJob(subscriptionService, schedulingProperties, batchJobRunner).execute(null);
+
+        verify(subscriptionRepository, times(2)).findEndedForUpdate(any(Date.class), eq(2));
+        verify(subscriptionPlanService, times(2)).findByCode("FREE");
+        assertThat(ended).allSatisfy(subscription -> {
+            assertThat(subscription.getSubscriptionPlan()).isSameAs(freePlan);
+            assertThat(subscription.isActivated()).isFalse();
+            assertThat(subscription.getUsersCount()).isEqualTo(3);
+            assertThat(subscription.getFastSpringId()).isNull();
+            assertThat(subscription.getEndsOn()).isNull();
+        });
+        verify(subscriptionRepository, times(3)).save(any(Subscription.class));
+        assertThat(meterRegistry.get("batch.items").tag("job", "expireSubscriptions").counter().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void claimsEachEndedSubscriptionOnASingleNode() throws Exception {
+        long freePlanId = insertPlan("FREE");
+        long businessPlanId = insertPlan("BUSINESS");
+        Timestamp now = Timestamp.valueOf("2000-01-01 00:00:00");
+        long first = insertSubscription(businessPlanId, Timestamp.valueOf("1999-12-01 00:00:00"));
+        long second = insertSubscription(businessPlanId, Timestamp.valueOf("1999-12-02 00:00:00"));
+        long third = insertSubscription(businessPlanId, Timestamp.valueOf("1999-12-03 00:00:00"));
+        insertSubscription(businessPlanId, Timestamp.valueOf("2000-02-01 00:00:00"));
+        insertSubscription(freePlanId, Timestamp.valueOf("1999-12-01 00:00:00"));
+        String query = SubscriptionRepository.class.getMethod("findEndedForUpdate", Date.class, int.class)
+                .getAnnotation(Query.class).value();
+
+        try (Connection node1 = EmbeddedDatabase.dataSource().getConnection();
+             Connection node2 = EmbeddedDatabase.dataSource().getConnection()) {
+            node1.setAutoCommit(false);
+            node2.setAutoCommit(false);
+
+            List<Long> claimedByNode1 = claim(node1, query, now, 2);
+            List<Long> claimedByNode2 = claim(node2, query, now, 10);
+
+            assertThat(claimedByNode1).containsExactly(first, second);
+            assertThat(claimedByNode2).containsExactly(third);
+            node1.rollback();
+            node2.rollback();
+        }
+    }
+
+    private static List<Long> claim(Connection connection, String query, Date now, int limit) {
+        return new NamedParameterJdbcTemplate(new SingleConnectionDataSource(connection, true)).query(query,
+                new MapSqlParameterSource("now", now).addValue("limit", limit),
+                (resultSet, rowNum) -> resultSet.getLong("id"));
+    }
+
+    private long insertPlan(String code) {
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update("insert into subscription_plan (id, code, monthly_cost_per_user, name, " +
+                "yearly_cost_per_user) values (?, ?, 0, ?, 0)", id, code, code);
+        return id;
+    }
+
+    private long insertSubscription(long subscriptionPlanId, Timestamp endsOn) {
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update("insert into subscription (id, created_at, updated_at, activated, cancelled, ends_on, " +
+                        "monthly, users_count, subscription_plan_id, downgrade_needed, upgrade_needed) values (?, " +
+                        "now(), now(), true, false, ?, true, 10, ?, false, false)", id, endsOn, subscriptionPlanId);
+        return id;
+    }
+
+    private static Subscription subscription() {
+        Subscription subscription = new Subscription();
+        subscription.setActivated(true);
+        subscription.setUsersCount(10);
+        subscription.setFastSpringId("fs-" + UUID.randomUUID());
+        subscription.setEndsOn(new Date(System.currentTimeMillis() - 1000));
+        return subscription;
+    }
+}
@@ -0,0 +1,79 @@
+package com.grash.job;
+
+import com.grash.configuration.SchedulingProperties;
+import com.grash.service.ScheduleService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeneratePreventiveMaintenanceJobTest {
+
+    @Mock
+    private ScheduleService scheduleService;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GeneratePreventiveMaintenanceJob job;
+
+    @BeforeEach
+    void setUp() {
+        SchedulingProperties schedulingProperties = new SchedulingProperties();
+        schedulingProperties.getPreventiveMaintenance().setBatchSize(3);
+        job = new GeneratePreventiveMaintenanceJob(scheduleService, schedulingProperties,
+                new BatchJobRunner(jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                        schedulingProperties));
+    }
+
+    @Test
+    void backsOffTheFailingScheduleAndKeepsDraining() {
+        when(scheduleService.processDueSchedules(any(Date.class), eq(3)))
+                .thenThrow(new IllegalStateException("batch failed"))
+                .thenReturn(3)
+                .thenReturn(1);
+        when(scheduleService.findDueScheduleIds(any(Date.class), eq(3))).thenReturn(Arrays.asList(1L, 2L, 3L));
+        lenient().doThrow(new IllegalStateException("schedule 2 failed")).when(scheduleService)
+                .processDueSchedule(eq(2L), any(Date.class));
+
+        job.execute(null);
+
+        InOrder inOrder = inOrder(scheduleService);
+        inOrder.verify(scheduleService).processDueSchedules(any(Date.class), eq(3));
+        inOrder.verify(scheduleService).processDueSchedule(eq(1L), any(Date.class));
+        inOrder.verify(scheduleService).processDueSchedule(eq(2L), any(Date.class));
+        inOrder.verify(scheduleService).backOff(eq(2L), any(Date.class));
+        inOrder.verify(scheduleService).processDueSchedule(eq(3L), any(Date.class));
+        inOrder.verify(scheduleService, times(2)).processDueSchedules(any(Date.class), eq(3));
+        verify(scheduleService, never()).backOff(eq(1L), any(Date.class));
+    }
+
+    @Test
+    void stopsWhenNoFailingScheduleCanBeBackedOff() {
+        when(scheduleService.processDueSchedules(any(Date.class), eq(3)))
+                .thenThrow(new IllegalStateException("database down"));
+        when(scheduleService.findDueScheduleIds(any(Date.class), eq(3))).thenReturn(Arrays.asList(1L, 2L, 3L));
+        doThrow(new IllegalStateException("database down")).when(scheduleService)
+                .processDueSchedule(any(), any(Date.class));
+        doThrow(new IllegalStateException("database down")).when(scheduleService).backOff(any(), any(Date.class));
+
+        job.execute(null);
+
+        verify(scheduleService, times(1)).processDueSchedules(any(Date.class), eq(3));
+        verify(scheduleService, times(3)).backOff(any(), any(Date.class));
+    }
+}
@@ -0,0 +1,108 @@
+package com.grash.job;
+
+import com.grash.configuration.SchedulingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TriggerSchedulerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TriggerScheduler triggerScheduler;
+
+    @BeforeEach
+    void setUp() {
+        SchedulingProperties schedulingProperties = new SchedulingProperties();
+        schedulingProperties.setTriggerPoolSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        triggerScheduler = new TriggerScheduler(schedulingProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        triggerScheduler.destroy();
+    }
+
+    @Test
+    void runsManyTriggersOnTheThreadsOfOnePool() throws InterruptedException {
+        int count = 500;
+        CountDownLatch fired = new CountDownLatch(count);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Date startTime = new Date(System.currentTimeMillis() + 200);
+        for (int i = 0; i < count; i++) {
+            triggerScheduler.schedule("schedule-" + i, "next", () -> {
+                threads.add(Thread.currentThread().getName());
+                fired.countDown();
+            }, startTime);
+        }
+        assertThat(meterRegistry.get("scheduler.triggers").gauge().value()).isPositive();
+
+        assertThat(fired.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads).hasSizeLessThanOrEqualTo(2).allMatch(name -> name.startsWith("trigger-scheduler-"));
+        awaitUnscheduled("schedule-" + (count - 1));
+        assertThat(triggerScheduler.isScheduled("schedule-0")).isFalse();
+    }
+
+    @Test
+    void replacesTheTriggerWithTheSameOwnerAndName() throws InterruptedException {
+        AtomicInteger first = new AtomicInteger();
+        CountDownLatch second = new CountDownLatch(1);
+        Date startTime = new Date(System.currentTimeMillis() + 200);
+        triggerScheduler.schedule("schedule-1", "next", first::incrementAndGet, startTime);
+
+        triggerScheduler.schedule("schedule-1", "next", second::countDown, startTime);
+
+        assertThat(second.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(first).hasValue(0);
+    }
+
+    @Test
+    void cancelsTheTriggersOfAnOwner() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        Date startTime = new Date(System.currentTimeMillis() + 200);
+        triggerScheduler.schedule("schedule-1", "next", fired::incrementAndGet, startTime);
+        triggerScheduler.scheduleAtFixedRate("schedule-1", "notification", fired::incrementAndGet, startTime, 50);
+        triggerScheduler.schedule("schedule-2", "next", fired::incrementAndGet, startTime);
+        triggerScheduler.schedule("other-1", "next", fired::incrementAndGet, new Date(System.currentTimeMillis()
+                + 60000));
+
+        triggerScheduler.cancel("schedule-1");
+        triggerScheduler.cancelAll("schedule-");
+
+        assertThat(triggerScheduler.isScheduled("schedule-1")).isFalse();
+        assertThat(triggerScheduler.isScheduled("schedule-2")).isFalse();
+        assertThat(triggerScheduler.isScheduled("other-1")).isTrue();
+        Thread.sleep(400);
+        assertThat(fired).hasValue(0);
+    }
+
+    @Test
+    void keepsRunningAfterATriggerFails() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        triggerScheduler.schedule("schedule-1", "next", () -> {
+            throw new IllegalStateException("boom");
+        }, new Date());
+
+        triggerScheduler.schedule("schedule-2", "next", fired::countDown, new Date(System.currentTimeMillis() + 100));
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitUnscheduled("schedule-1");
+    }
+
+    private void awaitUnscheduled(String owner) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (triggerScheduler.isScheduled(owner) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertThat(triggerScheduler.isScheduled(owner)).isFalse();
+    }
+}
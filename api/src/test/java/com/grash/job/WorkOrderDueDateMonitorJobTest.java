@@ -0,0 +1,140 @@
+package com.grash.job;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.SchedulingProperties;
+import com.grash.model.enums.Status;
+import com.grash.repository.WorkOrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkOrderDueDateMonitorJobTest {
+
+    private static final String JOB = "workOrderDueDateMonitor";
+
+    @Mock
+    private WorkOrderRepository workOrderRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final JdbcTemplate jdbcTemplate = EmbeddedDatabase.jdbcTemplate();
+    private SchedulingProperties schedulingProperties;
+
+    @BeforeEach
+    void setUp() {
+        schedulingProperties = new SchedulingProperties();
+        schedulingProperties.getDueDateMonitor().setDueSoon(Duration.ofDays(2));
+        jdbcTemplate.update("delete from scheduler_watermark where name = ?", JOB);
+        lenient().when(workOrderRepository.findDueBetween(eq(Status.COMPLETE), any(Date.class), any(Date.class),
+                anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    void resumesFromTheWatermarkOfThePreviousRunAfterARestart() {
+        long outageStart = System.currentTimeMillis() - Duration.ofHours(3).toMillis();
+        jdbcTemplate.update("insert into scheduler_watermark (name, watermark) values (?, ?)", JOB,
+                new Timestamp(outageStart));
+
+        newJob().execute(null);
+
+        ArgumentCaptor<Date> from = ArgumentCaptor.forClass(Date.class);
+        ArgumentCaptor<Date> to = ArgumentCaptor.forClass(Date.class);
+        verify(workOrderRepository, times(2)).findDueBetween(eq(Status.COMPLETE), from.capture(), to.capture(),
+                eq(Long.MIN_VALUE), any(Pageable.class));
+        assertThat(from.getAllValues().get(0).getTime()).isEqualTo(outageStart);
+        assertThat(from.getAllValues().get(1).getTime()).isEqualTo(outageStart + Duration.ofDays(2).toMillis());
+        assertThat(watermark()).isEqualTo(to.getAllValues().get(0).getTime());
+        long firstRunEnd = watermark();
+
+        reset(workOrderRepository);
+        when(workOrderRepository.findDueBetween(eq(Status.COMPLETE), any(Date.class), any(Date.class), anyLong(),
+                any(Pageable.class))).thenReturn(Collections.emptyList());
+        newJob().execute(null);
+
+        verify(workOrderRepository).findDueBetween(eq(Status.COMPLETE), eq(new Date(firstRunEnd)), any(Date.class),
+                eq(Long.MIN_VALUE), any(Pageable.class));
+    }
+
+    @Test
+    void replaysALongOutageForTheMaximumCatchUpOnly() {
+        schedulingProperties.getDueDateMonitor().setMaxCatchUp(Duration.ofHours(1));
+        jdbcTemplate.update("insert into scheduler_watermark (name, watermark) values (?, ?)", JOB,
+                new Timestamp(System.currentTimeMillis() - Duration.ofDays(3).toMillis()));
+
+        newJob().execute(null);
+
+        ArgumentCaptor<Date> from = ArgumentCaptor.forClass(Date.class);
+        ArgumentCaptor<Date> to = ArgumentCaptor.forClass(Date.class);
+        verify(workOrderRepository, times(2)).findDueBetween(eq(Status.COMPLETE), from.capture(), to.capture(),
+                anyLong(), any(Pageable.class));
+        assertThat(to.getAllValues().get(0).getTime() - from.getAllValues().get(0).getTime())
+                .isEqualTo(Duration.ofHours(1).toMillis());
+    }
+
+    @Test
+    void publishesTheDueWorkOrdersByCompany() {
+        when(workOrderRepository.findDueBetween(eq(Status.COMPLETE), any(Date.class), any(Date.class), anyLong(),
+                any(Pageable.class))).thenReturn(Arrays.asList(new Object[]{1L, 10L}, new Object[]{2L, 20L},
+                new Object[]{3L, 10L}), Collections.emptyList());
+
+        newJob().execute(null);
+
+        ArgumentCaptor<WorkOrderDueEvent> events = ArgumentCaptor.forClass(WorkOrderDueEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).extracting(WorkOrderDueEvent::getType, WorkOrderDueEvent::getCompanyId,
+                        WorkOrderDueEvent::getWorkOrderIds)
+                .containsExactly(tuple(WorkOrderDueEvent.Type.OVERDUE, 10L, Arrays.asList(1L, 3L)),
+                        tuple(WorkOrderDueEvent.Type.OVERDUE, 20L, Collections.singletonList(2L)));
+        assertThat(watermark()).isCloseTo(System.currentTimeMillis(), within(60000L));
+    }
+
+    @Test
+    void keepsTheWatermarkWhenTheScanFails() {
+        long lastRun = System.currentTimeMillis() - Duration.ofMinutes(5).toMillis();
+        jdbcTemplate.update("insert into scheduler_watermark (name, watermark) values (?, ?)", JOB,
+                new Timestamp(lastRun));
+        when(workOrderRepository.findDueBetween(eq(Status.COMPLETE), any(Date.class), any(Date.class), anyLong(),
+                any(Pageable.class))).thenThrow(new IllegalStateException("database down"));
+
+        assertThatThrownBy(() -> newJob().execute(null)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(watermark()).isEqualTo(lastRun);
+    }
+
+    /**
+     * A new instance each time, as Quartz creates one per execution
+     */
+    private WorkOrderDueDateMonitorJob newJob() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new WorkOrderDueDateMonitorJob(jdbcTemplate, workOrderRepository, eventPublisher, schedulingProperties,
+                new BatchJobRunner(jdbcTemplate, new DataSourceTransactionManager(EmbeddedDatabase.dataSource()),
+                        meterRegistry, schedulingProperties));
+    }
+
+    private long watermark() {
+        return jdbcTemplate.queryForObject("select watermark from scheduler_watermark where name = ?",
+                Timestamp.class, JOB).getTime();
+    }
+}
@@ -0,0 +1,21 @@
+package com.grash.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserSettingsTest {
+
+    @Test
+    void keepsThePerEventEmailsOfDigestUsers() {
+        UserSettings userSettings = new UserSettings();
+        userSettings.setNotificationDigest(true);
+
+        assertThat(userSettings.shouldEmailUpdatesForRequests()).isTrue();
+        assertThat(userSettings.shouldEmailUpdatesForWorkOrders()).isTrue();
+        assertThat(userSettings.shouldEmailUpdatesForPurchaseOrders()).isTrue();
+
+        userSettings.setEmailUpdatesForRequests(false);
+        assertThat(userSettings.shouldEmailUpdatesForRequests()).isFalse();
+    }
+}
@@ -0,0 +1,93 @@
+package com.grash.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatWebServerFactoryCustomizer;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts a Tomcat with the server settings of application.yml and checks the remote address the rate limiter keys
+ * anonymous requests by
+ */
+class ForwardedClientIpTest {
+
+    private StandardEnvironment environment;
+    private ServerProperties serverProperties;
+    private WebServer webServer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        environment = new StandardEnvironment();
+        for (PropertySource<?> propertySource : new YamlPropertySourceLoader().load("application",
+                new ClassPathResource("application.yml"))) {
+            environment.getPropertySources().addLast(propertySource);
+        }
+        serverProperties = Binder.get(environment).bind("server", ServerProperties.class).get();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (webServer != null) webServer.stop();
+    }
+
+    @Test
+    void takesTheClientIpForwardedByATrustedProxy() throws IOException {
+        start();
+
+        assertThat(get("203.0.113.7, 10.0.0.2")).isEqualTo("203.0.113.7");
+        assertThat(get(null)).isEqualTo("127.0.0.1");
+    }
+
+    @Test
+    void ignoresTheForwardedIpOfAnUntrustedPeer() throws IOException {
+        serverProperties.getTomcat().getRemoteip().setInternalProxies("192\\.0\\.2\\.1");
+        start();
+
+        assertThat(get("203.0.113.7")).isEqualTo("127.0.0.1");
+    }
+
+    private void start() {
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        new TomcatWebServerFactoryCustomizer(environment, serverProperties).customize(factory);
+        webServer = factory.getWebServer(servletContext -> servletContext.addServlet("remoteAddr", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.getWriter().write(request.getRemoteAddr());
+            }
+        }).addMapping("/"));
+        webServer.start();
+    }
+
+    private String get(String forwardedFor) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + webServer.getPort() + "/")
+                .openConnection();
+        if (forwardedFor != null) connection.setRequestProperty("X-Forwarded-For", forwardedFor);
+        try (InputStream inputStream = connection.getInputStream()) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) outputStream.write(buffer, 0, read);
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
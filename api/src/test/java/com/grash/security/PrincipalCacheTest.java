@@ -0,0 +1,213 @@
+package com.grash.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.WebSocketProperties;
+import com.grash.model.Company;
+import com.grash.model.CompanySettings;
+import com.grash.model.OwnUser;
+import com.grash.model.Role;
+import com.grash.model.UserSettings;
+import com.grash.service.NotificationRelay;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two nodes relaying their invalidations through the LISTEN/NOTIFY of an embedded Postgres
+ */
+class PrincipalCacheTest {
+
+    private final JdbcTemplate jdbcTemplate = EmbeddedDatabase.jdbcTemplate();
+    private final Claims claims = new DefaultClaims().setSubject("John@Example.com").setIssuedAt(new Date(1000));
+    private final AtomicInteger loads1 = new AtomicInteger();
+    private final AtomicInteger loads2 = new AtomicInteger();
+    private NotificationRelay relay1;
+    private NotificationRelay relay2;
+    private PrincipalCache node1;
+    private PrincipalCache node2;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        relay1 = newRelay();
+        relay2 = newRelay();
+        node1 = new PrincipalCache(100, 300, relay1);
+        node2 = new PrincipalCache(100, 300, relay2);
+        node1.subscribe();
+        node2.subscribe();
+        relay1.start();
+        relay2.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (listeners() < 2 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertThat(listeners()).isGreaterThanOrEqualTo(2);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        relay1.destroy();
+        relay2.destroy();
+    }
+
+    @Test
+    void handsEachRequestItsOwnCopyOfTheUser() {
+        CustomUserDetail first = node1.get(claims, loader(loads1));
+        first.getUser().setFirstName("Changed");
+        first.getUser().getUserSettings().setEmailNotified(false);
+        CustomUserDetail second = node1.get(claims, loader(loads1));
+
+        assertThat(loads1).hasValue(1);
+        assertThat(second.getUser()).isNotSameAs(first.getUser());
+        assertThat(second.getUser().getFirstName()).isEqualTo("John");
+        assertThat(second.getUser().getUserSettings().isEmailNotified()).isTrue();
+        assertThat(second.getUser().getRole()).isSameAs(first.getUser().getRole());
+        assertThat(second.getSuperAccountCompanyIds()).containsExactly(7L);
+    }
+
+    @Test
+    void evictsTheUserOnEveryNode() throws InterruptedException {
+        node1.get(claims, loader(loads1));
+        node2.get(claims, loader(loads2));
+
+        node1.invalidateUser(1L);
+
+        assertThat(awaitReload(node2, loads2)).isTrue();
+        node1.get(claims, loader(loads1));
+        assertThat(loads1).hasValue(2);
+    }
+
+    @Test
+    void broadcastsOnceTheTransactionCommits() throws InterruptedException {
+        node2.get(claims, loader(loads2));
+
+        new TransactionTemplate(new DataSourceTransactionManager(EmbeddedDatabase.dataSource())).execute(status -> {
+            node1.invalidateUser(1L);
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            node2.get(claims, loader(loads2));
+            assertThat(loads2).hasValue(1);
+            return null;
+        });
+
+        assertThat(awaitReload(node2, loads2)).isTrue();
+    }
+
+    @Test
+    void evictsTheUsersOfARoleOrCompanyOnEveryNode() throws InterruptedException {
+        node2.get(claims, loader(loads2));
+        node1.invalidateRole(2L);
+        assertThat(awaitReload(node2, loads2)).isTrue();
+
+        node1.invalidateCompany(3L);
+        assertThat(awaitReload(node2, loads2)).isTrue();
+
+        node1.invalidateAll();
+        assertThat(awaitReload(node2, loads2)).isTrue();
+    }
+
+    @Test
+    void keepsTheUsersOfOtherCompanies() throws InterruptedException {
+        node2.get(claims, loader(loads2));
+
+        node1.invalidateCompany(4L);
+        node1.invalidateUser(1L);
+
+        assertThat(awaitReload(node2, loads2)).isTrue();
+        assertThat(loads2).hasValue(2);
+    }
+
+    @Test
+    void evictsTheUserOfChangedSettingsOnEveryNode() throws InterruptedException {
+        node2.get(claims, loader(loads2));
+
+        node1.invalidateUserSettings(6L);
+        node1.invalidateUserSettings(5L);
+
+        assertThat(awaitReload(node2, loads2)).isTrue();
+        assertThat(loads2).hasValue(2);
+    }
+
+    @Test
+    void mapsTheSettingsToTheirUserOrCompany() {
+        PrincipalCache principalCache = mock(PrincipalCache.class);
+        PrincipalCacheInvalidator invalidator = new PrincipalCacheInvalidator();
+        invalidator.setDeps(principalCache);
+        OwnUser user = loader(loads1).apply("John@Example.com").getUser();
+        CompanySettings companySettings = user.getCompany().getCompanySettings();
+
+        invalidator.afterChange(user.getUserSettings());
+        invalidator.afterChange(companySettings);
+        invalidator.afterChange(companySettings.getGeneralPreferences());
+
+        verify(principalCache).invalidateUserSettings(5L);
+        verify(principalCache, times(2)).invalidateCompany(3L);
+        verifyNoMoreInteractions(principalCache);
+    }
+
+    /**
+     * Reads the principal from the cache of a node until the node loads it again
+     */
+    private boolean awaitReload(PrincipalCache node, AtomicInteger loads) throws InterruptedException {
+        int before = loads.get();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            node.get(claims, loader(loads));
+            if (loads.get() > before) return true;
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private static Function<String, CustomUserDetail> loader(AtomicInteger loads) {
+        return subject -> {
+            loads.incrementAndGet();
+            Role role = new Role();
+            role.setId(2L);
+            Company company = new Company();
+            company.setId(3L);
+            OwnUser user = new OwnUser();
+            user.setId(1L);
+            user.setEmail(subject);
+            user.setFirstName("John");
+            user.setRole(role);
+            user.setCompany(company);
+            UserSettings userSettings = new UserSettings();
+            userSettings.setId(5L);
+            userSettings.setEmailNotified(true);
+            user.setUserSettings(userSettings);
+            return CustomUserDetail.builder().user(user)
+                    .superAccountCompanyIds(Collections.singleton(7L)).build();
+        };
+    }
+
+    private NotificationRelay newRelay() {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(EmbeddedDatabase.get().getJdbcUrl("postgres", "postgres"));
+        dataSourceProperties.setUsername("postgres");
+        return new NotificationRelay(jdbcTemplate, dataSourceProperties, mock(SimpMessageSendingOperations.class),
+                new ObjectMapper(), new WebSocketProperties(), new SimpleMeterRegistry());
+    }
+
+    private int listeners() {
+        return jdbcTemplate.queryForObject("select count(*) from pg_stat_activity where query = 'LISTEN " +
+                "principal_cache'", Integer.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.grash.security;
+
+import com.grash.model.Role;
+import com.grash.model.enums.PermissionEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RolePermissionsTest {
+
+    @Test
+    void compilesEachPermissionKindSeparately() {
+        Role role = new Role();
+        role.setCreatePermissions(new HashSet<>(Arrays.asList(PermissionEntity.WORK_ORDERS)));
+        role.setViewPermissions(EnumSet.allOf(PermissionEntity.class));
+        role.setEditOtherPermissions(new HashSet<>(Arrays.asList(PermissionEntity.AI_BROWSER)));
+
+        RolePermissions permissions = RolePermissions.of(role);
+
+        assertThat(permissions.canCreate(PermissionEntity.WORK_ORDERS)).isTrue();
+        assertThat(permissions.canCreate(PermissionEntity.ASSETS)).isFalse();
+        for (PermissionEntity entity : PermissionEntity.values()) {
+            assertThat(permissions.canView(entity)).isTrue();
+            assertThat(permissions.canViewOthers(entity)).isFalse();
+            assertThat(permissions.canDeleteOthers(entity)).isFalse();
+        }
+        assertThat(permissions.canEditOthers(PermissionEntity.AI_BROWSER)).isTrue();
+        assertThat(permissions.canEditOthers(PermissionEntity.PEOPLE_AND_TEAMS)).isFalse();
+    }
+
+    @Test
+    void toleratesMissingCollections() {
+        Role role = Role.builder().name("Technician").build();
+
+        assertThat(role.canView(PermissionEntity.WORK_ORDERS)).isFalse();
+        assertThat(role.getPermissions()).isSameAs(role.getPermissions());
+    }
+}
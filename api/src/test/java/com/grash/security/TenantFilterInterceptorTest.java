@@ -0,0 +1,127 @@
+package com.grash.security;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.model.Company;
+import com.grash.model.OwnUser;
+import com.grash.model.Role;
+import com.grash.model.abstracts.CompanyAudit;
+import com.grash.model.enums.RoleType;
+import org.hibernate.Filter;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenantFilterInterceptorTest {
+
+    private static final AtomicLong ids = new AtomicLong(5500000);
+
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+    @Mock
+    private Filter filter;
+    @Captor
+    private ArgumentCaptor<Collection<Long>> companyIds;
+
+    private final JdbcTemplate jdbcTemplate = EmbeddedDatabase.jdbcTemplate();
+    private TenantFilterInterceptor tenantFilterInterceptor;
+
+    /**
+     * Built by hand, a mocked Session being an EntityManager too
+     */
+    @BeforeEach
+    void setUp() {
+        tenantFilterInterceptor = new TenantFilterInterceptor(entityManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void filtersTheRowsOfTheUserAndSuperAccountCompanies() {
+        long companyId = insertCompany();
+        long superAccountCompanyId = insertCompany();
+        long otherCompanyId = insertCompany();
+        long workOrder = insertWorkOrder(companyId);
+        long superAccountWorkOrder = insertWorkOrder(superAccountCompanyId);
+        insertWorkOrder(otherCompanyId);
+        authenticate(RoleType.ROLE_CLIENT, companyId, superAccountCompanyId);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.enableFilter(CompanyAudit.TENANT_FILTER)).thenReturn(filter);
+
+        assertThat(tenantFilterInterceptor.preHandle(null, null, null)).isTrue();
+
+        verify(filter).setParameterList(eq("companyIds"), companyIds.capture());
+        assertThat(companyIds.getValue()).containsExactlyInAnyOrder(companyId, superAccountCompanyId);
+        String condition = CompanyAudit.class.getAnnotation(org.hibernate.annotations.Filter.class).condition();
+        assertThat(new NamedParameterJdbcTemplate(jdbcTemplate).queryForList("select id from work_order where " +
+                        condition + " and company_id in (:all)", new MapSqlParameterSource("companyIds",
+                        companyIds.getValue()).addValue("all", Arrays.asList(companyId, superAccountCompanyId,
+                        otherCompanyId)), Long.class)).containsExactlyInAnyOrder(workOrder, superAccountWorkOrder);
+    }
+
+    @Test
+    void leavesTheSuperAdminsUnfiltered() {
+        authenticate(RoleType.ROLE_SUPER_ADMIN, 1L, null);
+
+        assertThat(tenantFilterInterceptor.preHandle(null, null, null)).isTrue();
+
+        verifyNoInteractions(entityManager);
+    }
+
+    private void authenticate(RoleType roleType, long companyId, Long superAccountCompanyId) {
+        Role role = new Role();
+        role.setRoleType(roleType);
+        Company company = new Company();
+        company.setId(companyId);
+        OwnUser user = new OwnUser();
+        user.setId(1L);
+        user.setRole(role);
+        user.setCompany(company);
+        CustomUserDetail userDetail = CustomUserDetail.builder().user(user)
+                .superAccountCompanyIds(superAccountCompanyId == null ? Collections.emptySet() :
+                        Collections.singleton(superAccountCompanyId)).build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(userDetail,
+                null, Collections.emptyList()));
+    }
+
+    private long insertCompany() {
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update("insert into company (id, created_at, updated_at, employees_count) values (?, now(), " +
+                "now(), 1)", id);
+        return id;
+    }
+
+    private long insertWorkOrder(long companyId) {
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update("insert into work_order (id, created_at, updated_at, estimated_duration, " +
+                "required_signature, title, archived, company_id) values (?, now(), now(), 0, false, 'Pump', false, " +
+                "?)", id, companyId);
+        return id;
+    }
+}
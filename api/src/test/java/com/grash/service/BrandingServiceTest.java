@@ -0,0 +1,46 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BrandingServiceTest {
+
+    @Mock
+    private LicenseService licenseService;
+
+    @Test
+    void usesTheCustomBrandWhileTheLicenseIsValid() {
+        BrandingService brandingService = newService("{\"emailColors\": \"#123456\"}",
+                "{\"name\": \"Acme\", \"shortName\": \"Acme\"}");
+        when(licenseService.isLicenseValid()).thenReturn(true, false);
+
+        assertThat(brandingService.getMailBackgroundColor()).isEqualTo("#123456");
+        assertThat(brandingService.getBrandConfig().getName()).isEqualTo("Acme");
+        assertThat(brandingService.getBrandConfig().getName()).isEqualTo("Atlas CMMS");
+    }
+
+    @Test
+    void keepsTheDefaultsWhenTheSettingsAreInvalid() {
+        BrandingService brandingService = newService("not json", "{\"name\":");
+
+        assertThat(brandingService.getMailBackgroundColor()).isEqualTo("#00A0E3");
+        assertThat(brandingService.getBrandConfig().getName()).isEqualTo("Atlas CMMS");
+        verifyNoInteractions(licenseService);
+    }
+
+    private BrandingService newService(String customColors, String brandConfig) {
+        BrandingService brandingService = new BrandingService(new ObjectMapper(), licenseService);
+        ReflectionTestUtils.setField(brandingService, "customColors", customColors);
+        ReflectionTestUtils.setField(brandingService, "brandRawConfig", brandConfig);
+        brandingService.parseConfig();
+        return brandingService;
+    }
+}
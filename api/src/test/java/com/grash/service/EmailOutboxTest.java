@@ -0,0 +1,182 @@
+package com.grash.service;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.MailOutboxProperties;
+import com.grash.configuration.SchedulingProperties;
+import com.grash.dto.BrandConfig;
+import com.grash.job.BatchJobRunner;
+import com.grash.job.TriggerScheduler;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drains the outbox of an embedded Postgres into a local SMTP server
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private BrandingService brandingService;
+    @Mock
+    private TriggerScheduler triggerScheduler;
+
+    private final JdbcTemplate jdbcTemplate = EmbeddedDatabase.jdbcTemplate();
+    private final MailOutboxProperties properties = new MailOutboxProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    private EmailOutbox emailOutbox;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from email_outbox");
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender.setProtocol("smtp");
+        MailProperties mailProperties = new MailProperties();
+        mailProperties.setUsername("noreply@example.com");
+        properties.setMaxRate(1000);
+        properties.setBatchSize(2);
+        emailOutbox = new EmailOutbox(jdbcTemplate, mailSender, mailProperties, brandingService,
+                new BatchJobRunner(jdbcTemplate, new DataSourceTransactionManager(EmbeddedDatabase.dataSource()),
+                        meterRegistry, new SchedulingProperties()), triggerScheduler, meterRegistry, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emailOutbox.destroy();
+    }
+
+    @Test
+    void sendsTheQueuedMailsAndDeletesThem() throws Exception {
+        when(brandingService.getBrandConfig()).thenReturn(brand());
+        for (int i = 1; i <= 5; i++) {
+            emailOutbox.add(new String[]{"user" + i + "@example.com"}, "Subject " + i, "<p>Body " + i + "</p>");
+        }
+
+        emailOutbox.dispatch();
+
+        MimeMessage[] messages = greenMail.getReceivedMessages();
+        assertThat(messages).hasSize(5);
+        List<String> subjects = new ArrayList<>();
+        for (MimeMessage message : messages) subjects.add(message.getSubject());
+        assertThat(subjects).containsExactlyInAnyOrder("Subject 1", "Subject 2", "Subject 3", "Subject 4",
+                "Subject 5");
+        assertThat(pending()).isZero();
+        assertThat(meterRegistry.get("mail.messages").tag("outcome", "sent").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void holdsNoRowLockWhileSending() {
+        List<Long> lockedWhileSending = new ArrayList<>();
+        when(brandingService.getBrandConfig()).thenAnswer(invocation -> {
+            //fails with "could not obtain lock" if the claimed rows were still locked
+            lockedWhileSending.addAll(jdbcTemplate.queryForList("select id from email_outbox for update nowait",
+                    Long.class));
+            return brand();
+        });
+        emailOutbox.add(new String[]{"user@example.com"}, "Subject", "<p>Body</p>");
+
+        emailOutbox.dispatch();
+
+        assertThat(lockedWhileSending).hasSize(1);
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void leavesTheClaimedMailsToTheNodeSendingThem() {
+        emailOutbox.add(new String[]{"user@example.com"}, "Subject", "<p>Body</p>");
+        List<Integer> claimedByOtherNode = new ArrayList<>();
+        when(brandingService.getBrandConfig()).thenAnswer(invocation -> {
+            claimedByOtherNode.add(jdbcTemplate.update("update email_outbox set attempts = attempts + 1 where " +
+                    "next_attempt_at <= now()"));
+            return brand();
+        });
+
+        emailOutbox.dispatch();
+
+        assertThat(claimedByOtherNode).containsExactly(0);
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    @Test
+    void retriesAFailedMailThenMovesItToTheDeadLetters() {
+        when(brandingService.getBrandConfig()).thenReturn(brand());
+        properties.setMaxAttempts(2);
+        properties.setInitialBackoff(Duration.ZERO);
+        mailSender.setPort(1);
+        emailOutbox.add(new String[]{"user@example.com"}, "Subject", "<p>Body</p>");
+
+        emailOutbox.dispatch();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("select status, attempts, last_error from email_outbox");
+        assertThat(row.get("status")).isEqualTo("PENDING");
+        assertThat(row.get("attempts")).isEqualTo(1);
+        assertThat((String) row.get("last_error")).isNotBlank();
+
+        emailOutbox.dispatch();
+
+        row = jdbcTemplate.queryForMap("select status, attempts from email_outbox");
+        assertThat(row.get("status")).isEqualTo("DEAD");
+        assertThat(row.get("attempts")).isEqualTo(2);
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+
+    @Test
+    void deletesTheDeadLettersOnceTheirRetentionElapsed() {
+        properties.setDeadLetterRetention(Duration.ofDays(7));
+        jdbcTemplate.update("insert into email_outbox (recipients, subject, html_body, status, attempts, " +
+                "next_attempt_at, created_at) values ('expired@example.com', 'Reset', '<p>Link</p>', 'DEAD', 5, now() " +
+                "- interval '8 days', now()), ('recent@example.com', 'Reset', '<p>Link</p>', 'DEAD', 5, now() - " +
+                "interval '6 days', now()), ('pending@example.com', 'Reset', '<p>Link</p>', 'PENDING', 1, now() - " +
+                "interval '8 days', now())");
+
+        assertThat(emailOutbox.deleteExpiredDeadLetters(10)).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForList("select recipients from email_outbox", String.class))
+                .containsExactlyInAnyOrder("recent@example.com", "pending@example.com");
+    }
+
+    @Test
+    void waitsForTheBackoffOnTheDatabaseClock() {
+        emailOutbox.add(new String[]{"user@example.com"}, "Subject", "<p>Body</p>");
+        jdbcTemplate.update("update email_outbox set next_attempt_at = now() + interval '1 minute'");
+
+        emailOutbox.dispatch();
+
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("select attempts from email_outbox", Integer.class)).isZero();
+    }
+
+    private long pending() {
+        return jdbcTemplate.queryForObject("select count(*) from email_outbox", Long.class);
+    }
+
+    private static BrandConfig brand() {
+        return BrandConfig.builder().name("Atlas CMMS").build();
+    }
+}
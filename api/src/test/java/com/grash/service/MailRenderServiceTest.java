@@ -0,0 +1,92 @@
+package com.grash.service;
+
+import com.grash.dto.BrandConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailRenderServiceTest {
+
+    private static final String TEMPLATE = "<p th:text=\"${brandConfig.name} + '|' + ${backgroundColor} + '|' + " +
+            "${logoUrl} + '|' + ${title} + '|' + ${#locale.language}\"></p>";
+
+    @Mock
+    private BrandingService brandingService;
+
+    private MailRenderService mailRenderService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(brandingService.getBrandConfig()).thenReturn(BrandConfig.builder().name("Acme").build());
+        lenient().when(brandingService.getMailBackgroundColor()).thenReturn("#123456");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+        MockEnvironment environment = new MockEnvironment().withProperty("api.host", "https://api.example.com");
+        mailRenderService = new MailRenderService(templateEngine, brandingService, environment, 200, 60);
+    }
+
+    @Test
+    void rendersTheSameMailOncePerLocale() {
+        String english = mailRenderService.render(TEMPLATE, model("Work order 1"), Locale.ENGLISH);
+        String englishAgain = mailRenderService.render(TEMPLATE, model("Work order 1"), Locale.ENGLISH);
+        String french = mailRenderService.render(TEMPLATE, model("Work order 1"), Locale.FRENCH);
+
+        assertThat(english).isEqualTo("<p>Acme|#123456|https://api.example.com/images/logo.png|Work order 1|en</p>")
+                .isEqualTo(englishAgain);
+        assertThat(french).isEqualTo("<p>Acme|#123456|https://api.example.com/images/logo.png|Work order 1|fr</p>");
+        verify(brandingService, times(2)).getBrandConfig();
+    }
+
+    @Test
+    void rendersEachModelSeparately() {
+        String first = mailRenderService.render(TEMPLATE, model("Work order 1"), Locale.ENGLISH);
+        String second = mailRenderService.render(TEMPLATE, model("Work order 2"), Locale.ENGLISH);
+
+        assertThat(first).contains("Work order 1");
+        assertThat(second).contains("Work order 2");
+        verify(brandingService, times(2)).getBrandConfig();
+    }
+
+    @Test
+    void rendersModelsHoldingObjectsEveryTime() {
+        Map<String, Object> model = model("Work order 1");
+        model.put("assignees", Collections.singletonList("John"));
+
+        mailRenderService.render(TEMPLATE, model, Locale.ENGLISH);
+        mailRenderService.render(TEMPLATE, model, Locale.ENGLISH);
+
+        verify(brandingService, times(2)).getBrandConfig();
+    }
+
+    @Test
+    void usesTheCustomLogoWhenOneIsConfigured() {
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+        MockEnvironment environment = new MockEnvironment().withProperty("api.host", "https://api.example.com")
+                .withProperty("white-labeling.logo-paths", "{\"white\": \"logo.png\"}");
+        MailRenderService customLogo = new MailRenderService(templateEngine, brandingService, environment, 200, 60);
+
+        assertThat(customLogo.render(TEMPLATE, model("Work order 1"), Locale.ENGLISH))
+                .contains("https://api.example.com/images/custom-logo.png");
+    }
+
+    private static Map<String, Object> model(String title) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("title", title);
+        return model;
+    }
+}
@@ -0,0 +1,68 @@
+package com.grash.service;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.WebSocketProperties;
+import com.grash.dto.NotificationMiniDTO;
+import com.grash.job.TriggerScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDeliveryTest {
+
+    @Mock
+    private NotificationRelay notificationRelay;
+    @Mock
+    private TriggerScheduler triggerScheduler;
+
+    private NotificationDelivery notificationDelivery;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        notificationDelivery = new NotificationDelivery(notificationRelay, triggerScheduler, new WebSocketProperties(),
+                new SimpleMeterRegistry());
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(EmbeddedDatabase.dataSource()));
+    }
+
+    @Test
+    void queuesTheNotificationsOnceTheTransactionCommits() {
+        NotificationMiniDTO notification = new NotificationMiniDTO();
+        Map<Long, List<NotificationMiniDTO>> notificationsByUser = Collections.singletonMap(7L,
+                Collections.singletonList(notification));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationDelivery.sendAfterCommit(notificationsByUser);
+            notificationDelivery.flush();
+        });
+        verify(notificationRelay, never()).publish(anyMap(), anyMap());
+
+        notificationDelivery.flush();
+        verify(notificationRelay).publish(notificationsByUser, Collections.emptyMap());
+    }
+
+    @Test
+    void dropsTheNotificationsOfARolledBackTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationDelivery.sendAfterCommit(Collections.singletonMap(7L,
+                    Collections.singletonList(new NotificationMiniDTO())));
+            status.setRollbackOnly();
+        });
+
+        notificationDelivery.flush();
+        verifyNoInteractions(notificationRelay);
+    }
+}
@@ -0,0 +1,192 @@
+package com.grash.service;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.SchedulingProperties;
+import com.grash.job.BatchJobRunner;
+import com.grash.job.TriggerScheduler;
+import com.grash.mapper.NotificationMapper;
+import com.grash.model.Notification;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.NotificationType;
+import com.grash.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDigestServiceTest {
+
+    @Mock
+    private EntityManager em;
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private NotificationMapper notificationMapper;
+    @Mock
+    private NotificationDelivery notificationDelivery;
+    @Mock
+    private UnreadNotificationCounter unreadNotificationCounter;
+    @Mock
+    private PushNotificationDispatcher pushNotificationDispatcher;
+    @Mock
+    private EmailService2 emailService2;
+    @Mock
+    private TriggerScheduler triggerScheduler;
+
+    private final JdbcTemplate jdbcTemplate = EmbeddedDatabase.jdbcTemplate();
+    private final List<Notification> saved = new CopyOnWriteArrayList<>();
+    private SchedulingProperties schedulingProperties;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        schedulingProperties = new SchedulingProperties();
+        schedulingProperties.getNotificationDigest().setWindow(Duration.ZERO);
+        userId = EmbeddedDatabase.insertUser("digest-" + UUID.randomUUID() + "@example.com", true);
+        lenient().when(em.getReference(eq(OwnUser.class), anyLong())).thenAnswer(invocation -> user(
+                invocation.getArgument(1)));
+        lenient().when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> {
+            saved.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+    }
+
+    @Test
+    void sendsTheNotificationsBufferedByAnotherNodeAsOneDigest() {
+        NotificationDigestService node1 = newService();
+        node1.add(notification("Work order 1 assigned", NotificationType.WORK_ORDER, 1L), "Assigned");
+        node1.add(notification("Work order 2 assigned", NotificationType.WORK_ORDER, 2L), "Assigned");
+        node1.add(notification("Purchase order 3 created", NotificationType.PURCHASE_ORDER, 3L), null);
+        jdbcTemplate.update("update user_settings set email_updates_for_purchase_orders = false where id = (select " +
+                "user_settings_id from own_user where id = ?)", userId);
+
+        newService().flush();
+
+        assertThat(saved).hasSize(1);
+        assertThat(saved.get(0).getMessage()).isEqualTo("3 new notifications");
+        assertThat(saved.get(0).getNotificationType()).isEqualTo(NotificationType.INFO);
+        assertThat(saved.get(0).getResourceId()).isNull();
+        verify(unreadNotificationCounter).onCreated(Collections.singletonList(saved.get(0)));
+        ArgumentCaptor<Map<String, Object>> templateModel = ArgumentCaptor.forClass(Map.class);
+        verify(emailService2).sendMessageUsingThymeleafTemplate(any(String[].class), eq("2 new notifications"),
+                templateModel.capture(), eq("notification-digest.html"), any(Locale.class));
+        assertThat((String) templateModel.getValue().get("notificationsHtml"))
+                .contains("Work order 1 assigned", "Work order 2 assigned").doesNotContain("Purchase order");
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void sendsASingleNotificationUnchanged() {
+        NotificationDigestService service = newService();
+        service.add(notification("Work order 1 assigned", NotificationType.WORK_ORDER, 1L), "Assigned");
+
+        service.flush();
+
+        assertThat(saved).hasSize(1);
+        assertThat(saved.get(0).getMessage()).isEqualTo("Work order 1 assigned");
+        assertThat(saved.get(0).getNotificationType()).isEqualTo(NotificationType.WORK_ORDER);
+        assertThat(saved.get(0).getResourceId()).isEqualTo(1L);
+    }
+
+    @Test
+    void waitsForTheWindowToElapse() {
+        schedulingProperties.getNotificationDigest().setWindow(Duration.ofHours(1));
+        NotificationDigestService service = newService();
+        service.add(notification("Work order 1 assigned", NotificationType.WORK_ORDER, 1L), "Assigned");
+
+        service.flush();
+
+        assertThat(saved).isEmpty();
+        assertThat(pending()).isEqualTo(1);
+        jdbcTemplate.update("delete from notification_digest_item where user_id = ?", userId);
+    }
+
+    @Test
+    void skipsTheEmailOfDisabledUsers() {
+        jdbcTemplate.update("update own_user set enabled = false where id = ?", userId);
+        NotificationDigestService service = newService();
+        service.add(notification("Work order 1 assigned", NotificationType.WORK_ORDER, 1L), "Assigned");
+        service.add(notification("Work order 2 assigned", NotificationType.WORK_ORDER, 2L), "Assigned");
+
+        service.flush();
+
+        assertThat(saved).hasSize(1);
+        verifyNoInteractions(emailService2);
+    }
+
+    @Test
+    void sendsADigestOnceWhenNodesFlushTogether() throws Exception {
+        NotificationDigestService node1 = newService();
+        NotificationDigestService node2 = newService();
+        for (long i = 1; i <= 20; i++) {
+            node1.add(notification("Work order " + i + " assigned", NotificationType.WORK_ORDER, i), "Assigned");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> flushes = new ArrayList<>();
+            for (NotificationDigestService node : Arrays.asList(node1, node2)) {
+                flushes.add(executor.submit(() -> {
+                    start.await();
+                    node.flush();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> flush : flushes) flush.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(saved).extracting(Notification::getMessage).containsOnly("20 new notifications");
+        assertThat(saved).hasSize(1);
+        assertThat(pending()).isZero();
+    }
+
+    private NotificationDigestService newService() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        BatchJobRunner batchJobRunner = new BatchJobRunner(jdbcTemplate,
+                new DataSourceTransactionManager(EmbeddedDatabase.dataSource()), meterRegistry, schedulingProperties);
+        NotificationDigestService service = new NotificationDigestService(jdbcTemplate, em, notificationRepository,
+                notificationMapper, notificationDelivery, unreadNotificationCounter,
+                new NotificationRecipientService(jdbcTemplate), pushNotificationDispatcher, emailService2,
+                messageSource, batchJobRunner, triggerScheduler, schedulingProperties, meterRegistry);
+        ReflectionTestUtils.setField(service, "frontendUrl", "http://localhost:3000");
+        return service;
+    }
+
+    private Notification notification(String message, NotificationType notificationType, Long resourceId) {
+        return new Notification(message, user(userId), notificationType, resourceId);
+    }
+
+    private static OwnUser user(Long id) {
+        OwnUser user = new OwnUser();
+        user.setId(id);
+        return user;
+    }
+
+    private long pending() {
+        return jdbcTemplate.queryForObject("select count(*) from notification_digest_item where user_id = ?",
+                Long.class, userId);
+    }
+}
@@ -0,0 +1,237 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.WebSocketProperties;
+import com.grash.dto.NotificationMiniDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Relays notifications through the LISTEN/NOTIFY of an embedded Postgres
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationRelayTest {
+
+    private static final String PG_NOTIFY = "select pg_notify(?, ?)";
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    private final JdbcTemplate jdbcTemplate = spy(EmbeddedDatabase.jdbcTemplate());
+    private final List<Delivery> deliveries = new CopyOnWriteArrayList<>();
+    private final Map<String, List<Object>> legacyDeliveries = new ConcurrentHashMap<>();
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationRelay relay;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        doAnswer(invocation -> {
+            deliveries.add(new Delivery(invocation.getArgument(0), invocation.getArgument(1),
+                    invocation.getArgument(2)));
+            return null;
+        }).when(messagingTemplate).convertAndSend(anyString(), any(Object.class), anyMap());
+        lenient().doAnswer(invocation -> {
+            legacyDeliveries.computeIfAbsent(invocation.getArgument(0), destination -> new CopyOnWriteArrayList<>())
+                    .add(invocation.getArgument(1));
+            return null;
+        }).when(messagingTemplate).convertAndSend(anyString(), any(Object.class));
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(EmbeddedDatabase.get().getJdbcUrl("postgres", "postgres"));
+        dataSourceProperties.setUsername("postgres");
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new NotificationRelay(jdbcTemplate, dataSourceProperties, messagingTemplate, new ObjectMapper(),
+                new WebSocketProperties(), meterRegistry);
+        relay.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (listeners() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertThat(listeners()).isPositive();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        relay.destroy();
+    }
+
+    @Test
+    void packsTheFramesOfSeveralUsersInOnePayload() throws InterruptedException {
+        long user1 = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+        long user2 = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+        Map<Long, List<NotificationMiniDTO>> notificationsByUser = new HashMap<>();
+        notificationsByUser.put(user1, notifications(2, 20));
+        notificationsByUser.put(user2, notifications(1, 20));
+
+        relay.publish(notificationsByUser, Collections.singletonMap(user2, 5L));
+
+        awaitDeliveries(2);
+        assertThat(published()).isEqualTo(1);
+        Delivery delivery1 = delivery(user1, 1);
+        assertThat(delivery1.notifications).hasSize(2);
+        assertThat(delivery1.headers).doesNotContainKey("unread");
+        assertThat(delivery(user2, 1).headers).containsEntry("unread", 5L);
+    }
+
+    @Test
+    void splitsTheNotificationsOfAUserInFramesNumberedInOrder() throws InterruptedException {
+        long userId = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+        List<NotificationMiniDTO> notifications = notifications(30, 1000);
+
+        relay.publish(Collections.singletonMap(userId, notifications), Collections.singletonMap(userId, 30L));
+        relay.publish(Collections.singletonMap(userId, notifications(1, 20)), Collections.emptyMap());
+
+        int frames = awaitFramesOf(userId, 31);
+        assertThat(frames).isGreaterThan(5);
+        List<Delivery> userDeliveries = deliveriesOf(userId);
+        assertThat(userDeliveries).extracting(delivery -> delivery.headers.get("seq"))
+                .containsExactlyElementsOf(sequences(1, userDeliveries.size()));
+        List<Long> ids = userDeliveries.subList(0, userDeliveries.size() - 1).stream()
+                .flatMap(delivery -> delivery.notifications.stream()).map(NotificationMiniDTO::getId)
+                .collect(Collectors.toList());
+        assertThat(ids).containsExactlyElementsOf(notifications.stream().map(NotificationMiniDTO::getId)
+                .collect(Collectors.toList()));
+        assertThat(userDeliveries.get(userDeliveries.size() - 2).headers).containsEntry("unread", 30L);
+        assertThat(userDeliveries.get(0).headers).doesNotContainKey("unread");
+    }
+
+    @Test
+    void sendsTheNotificationsOneByOneToTheOlderClients() throws InterruptedException {
+        long userId = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+        List<NotificationMiniDTO> notifications = notifications(3, 20);
+
+        relay.publish(Collections.singletonMap(userId, notifications), Collections.singletonMap(userId, 3L));
+        relay.publish(Collections.singletonMap(userId, Collections.emptyList()),
+                Collections.singletonMap(userId, 2L));
+
+        awaitFramesOf(userId, 3);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (deliveriesOf(userId).size() < 2 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertThat(deliveriesOf(userId)).hasSize(2);
+        assertThat(legacyDeliveries.get(NotificationRelay.LEGACY_DESTINATION + userId))
+                .allMatch(payload -> payload instanceof NotificationMiniDTO)
+                .extracting(payload -> ((NotificationMiniDTO) payload).getId()).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void truncatesANotificationTooLargeForAPayload() throws InterruptedException {
+        long userId = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+        NotificationMiniDTO notification = notifications(1, 20000).get(0);
+
+        relay.publish(Collections.singletonMap(userId, Collections.singletonList(notification)),
+                Collections.emptyMap());
+
+        awaitFramesOf(userId, 1);
+        NotificationMiniDTO relayed = deliveriesOf(userId).get(0).notifications.get(0);
+        assertThat(relayed.getId()).isEqualTo(notification.getId());
+        assertThat(relayed.getMessage()).endsWith("…").hasSizeLessThan(7000);
+        assertThat(notification.getMessage()).hasSize(20000);
+    }
+
+    @Test
+    void sendsOnlyTheUnpublishedPayloadsToTheLocalSessions() throws InterruptedException {
+        long userId = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+        AtomicInteger notifies = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (notifies.incrementAndGet() == 2) throw new DataAccessResourceFailureException("connection lost");
+            return invocation.callRealMethod();
+        }).when(jdbcTemplate).queryForObject(eq(PG_NOTIFY), eq(String.class), any(), any());
+
+        relay.publish(Collections.singletonMap(userId, notifications(20, 1000)), Collections.emptyMap());
+
+        assertThat(notifies.get()).isEqualTo(2);
+        int frames = awaitFramesOf(userId, 20);
+        Thread.sleep(300);
+        List<Delivery> userDeliveries = deliveriesOf(userId);
+        assertThat(userDeliveries).hasSize(frames);
+        assertThat(userDeliveries).extracting(delivery -> delivery.headers.get("seq")).doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(sequences(1, frames));
+        assertThat(published()).isEqualTo(1);
+    }
+
+    private static List<Long> sequences(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(Long::valueOf).collect(Collectors.toList());
+    }
+
+    private int listeners() {
+        return jdbcTemplate.queryForObject("select count(*) from pg_stat_activity where query = 'LISTEN " +
+                "notification_events'", Integer.class);
+    }
+
+    private double published() {
+        return meterRegistry.get("notification.relay.payloads").tag("direction", "published").counter().count();
+    }
+
+    private void awaitDeliveries(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (deliveries.size() < count && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertThat(deliveries).hasSizeGreaterThanOrEqualTo(count);
+    }
+
+    /**
+     * @return the number of frames delivered to the user once they hold the given number of notifications
+     */
+    private int awaitFramesOf(long userId, int notificationCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (deliveriesOf(userId).stream().mapToInt(delivery -> delivery.notifications.size()).sum()
+                < notificationCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(deliveriesOf(userId).stream().mapToInt(delivery -> delivery.notifications.size()).sum())
+                .isEqualTo(notificationCount);
+        return deliveriesOf(userId).size();
+    }
+
+    private List<Delivery> deliveriesOf(long userId) {
+        return deliveries.stream().filter(delivery -> delivery.destination.equals(NotificationRelay.DESTINATION + userId))
+                .sorted(Comparator.comparing(delivery -> (Long) delivery.headers.get("seq")))
+                .collect(Collectors.toList());
+    }
+
+    private Delivery delivery(long userId, long seq) {
+        return deliveriesOf(userId).stream().filter(delivery -> Objects.equals(delivery.headers.get("seq"), seq))
+                .findFirst().orElseThrow(AssertionError::new);
+    }
+
+    private static List<NotificationMiniDTO> notifications(int count, int messageLength) {
+        List<NotificationMiniDTO> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            NotificationMiniDTO notification = new NotificationMiniDTO();
+            notification.setId((long) i + 1);
+            notification.setMessage(String.join("", Collections.nCopies(messageLength, "x")));
+            notifications.add(notification);
+        }
+        return notifications;
+    }
+
+    private static class Delivery {
+        private final String destination;
+        private final List<NotificationMiniDTO> notifications;
+        private final Map<String, Object> headers;
+
+        @SuppressWarnings("unchecked")
+        private Delivery(String destination, Object payload, Map<String, Object> headers) {
+            this.destination = destination;
+            this.notifications = (List<NotificationMiniDTO>) payload;
+            this.headers = headers;
+        }
+    }
+}
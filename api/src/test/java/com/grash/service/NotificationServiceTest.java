@@ -0,0 +1,64 @@
+package com.grash.service;
+
+import com.grash.dto.NotificationRecipient;
+import com.grash.mapper.NotificationMapper;
+import com.grash.model.Notification;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.NotificationType;
+import com.grash.repository.NotificationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private UnreadNotificationCounter unreadNotificationCounter;
+    @Mock
+    private NotificationRecipientService notificationRecipientService;
+    @Mock
+    private NotificationDigestService notificationDigestService;
+    @Mock
+    private NotificationDelivery notificationDelivery;
+    @Mock
+    private NotificationMapper notificationMapper;
+    @InjectMocks
+    private NotificationService notificationService;
+
+    @Test
+    void readAllTakesTheNotificationsReadOffTheCounter() {
+        when(notificationRepository.readAll(7L)).thenReturn(3);
+
+        notificationService.readAll(7L);
+
+        verify(unreadNotificationCounter).add(7L, -3);
+    }
+
+    @Test
+    void createHandsTheNotificationOfADigestUserToTheDigest() {
+        OwnUser user = new OwnUser();
+        user.setId(7L);
+        NotificationRecipient recipient = new NotificationRecipient();
+        recipient.setUserId(7L);
+        recipient.setNotificationDigest(true);
+        when(notificationRecipientService.resolve(Collections.singleton(7L)))
+                .thenReturn(Collections.singletonMap(7L, recipient));
+        Notification notification = new Notification("Work order updated", user, NotificationType.WORK_ORDER, 3L);
+
+        notificationService.create(notification);
+
+        verify(notificationDigestService).add(notification, null);
+        verify(notificationRepository).saveAll(Collections.emptyList());
+        verify(notificationRepository, never()).save(any());
+        verify(notificationDelivery).sendAfterCommit(Collections.emptyMap());
+    }
+}
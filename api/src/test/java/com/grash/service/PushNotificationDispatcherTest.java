@@ -0,0 +1,137 @@
+package com.grash.service;
+
+import com.grash.configuration.PushProperties;
+import com.grash.job.TriggerScheduler;
+import com.grash.repository.PushNotificationTokenRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.github.jav.exposerversdk.PushClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the dispatcher against a local stand-in of the Expo push API
+ */
+@ExtendWith(MockitoExtension.class)
+class PushNotificationDispatcherTest {
+
+    private static final String LIVE_TOKEN = "ExponentPushToken[live]";
+    private static final String DEAD_TOKEN = "ExponentPushToken[dead]";
+
+    @Mock
+    private PushNotificationTokenRepository pushNotificationTokenRepository;
+    @Mock
+    private TriggerScheduler triggerScheduler;
+
+    private HttpServer server;
+    private final Map<String, Response> responses = new ConcurrentHashMap<>();
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Runnable> handled = new LinkedBlockingQueue<>();
+    private SimpleMeterRegistry meterRegistry;
+    private PushNotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requestBodies.add(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8));
+            Response response = responses.get(exchange.getRequestURI().getPath());
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        PushClient pushClient = new PushClient();
+        pushClient.setBaseApiUrl(new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/--/api/v2"));
+        PushProperties properties = new PushProperties();
+        properties.setReceiptDelay(Duration.ZERO);
+        properties.setInitialBackoff(Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new PushNotificationDispatcher(pushClient, pushNotificationTokenRepository, triggerScheduler,
+                properties, meterRegistry, handled::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void prunesTokensOfUnregisteredDevicesFromTicketsAndReceipts() throws Exception {
+        responses.put("/--/api/v2/push/send", new Response(200, "{\"data\":[" +
+                "{\"status\":\"ok\",\"id\":\"ticket-1\"}," +
+                "{\"status\":\"error\",\"message\":\"not registered\"," +
+                "\"details\":{\"error\":\"DeviceNotRegistered\"}}]}"));
+        dispatcher.enqueue(Arrays.asList(LIVE_TOKEN, DEAD_TOKEN), "title", "body", Collections.emptyMap());
+        dispatcher.flush();
+        awaitHandled();
+
+        verify(pushNotificationTokenRepository).deleteByTokens(Collections.singletonList(DEAD_TOKEN));
+        assertThat(requestBodies.get(0)).contains(LIVE_TOKEN, DEAD_TOKEN);
+
+        responses.put("/--/api/v2/push/getReceipts", new Response(200, "{\"data\":{\"ticket-1\":" +
+                "{\"status\":\"error\",\"details\":{\"error\":\"DeviceNotRegistered\"}}}}"));
+        dispatcher.pollReceipts();
+        awaitHandled();
+
+        verify(pushNotificationTokenRepository).deleteByTokens(Collections.singletonList(LIVE_TOKEN));
+        assertThat(requestBodies.get(1)).contains("ticket-1");
+    }
+
+    @Test
+    void retriesRateLimitedRequests() throws Exception {
+        responses.put("/--/api/v2/push/send", new Response(429, "{\"errors\":[{\"code\":\"TOO_MANY_REQUESTS\"," +
+                "\"message\":\"rate limited\"}]}"));
+        dispatcher.enqueue(Collections.singletonList(LIVE_TOKEN), "title", "body", Collections.emptyMap());
+        dispatcher.flush();
+        awaitHandled();
+
+        assertThat(meterRegistry.get("push.messages").tag("outcome", "retried").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("push.retries.size").gauge().value()).isEqualTo(1);
+        verify(pushNotificationTokenRepository, never()).deleteByTokens(anyCollection());
+    }
+
+    private void awaitHandled() throws InterruptedException {
+        Runnable handler = handled.poll(10, TimeUnit.SECONDS);
+        assertThat(handler).isNotNull();
+        handler.run();
+    }
+
+    private static byte[] readAll(java.io.InputStream inputStream) throws java.io.IOException {
+        java.io.ByteArrayOutputStream outputStream = new java.io.ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) outputStream.write(buffer, 0, read);
+        return outputStream.toByteArray();
+    }
+
+    private static class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.grash.service;
+
+import com.grash.configuration.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterServiceTest {
+
+    private RateLimitProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimiterService rateLimiterService;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(2);
+        limit.setPeriod(Duration.ofHours(1));
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setLimits(Collections.singletonList(limit));
+        properties = new RateLimitProperties();
+        properties.getPolicies().put("login", policy);
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiterService = new RateLimiterService(properties, meterRegistry);
+    }
+
+    @Test
+    void throttlesEachKeyOnItsOwn() {
+        assertThat(rateLimiterService.tryConsume("login", "ip:203.0.113.7")).isTrue();
+        assertThat(rateLimiterService.tryConsume("login", "ip:203.0.113.7")).isTrue();
+        assertThat(rateLimiterService.tryConsume("login", "ip:203.0.113.7")).isFalse();
+        assertThat(rateLimiterService.tryConsume("login", "ip:203.0.113.8")).isTrue();
+        assertThat(meterRegistry.get("rate_limiter.requests").tag("policy", "login").tag("result", "throttled")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsTheBucketsEvictedPastTheMaximumKeys() throws InterruptedException {
+        properties.setMaximumKeys(10);
+        for (int i = 0; i < 100; i++) rateLimiterService.tryConsume("login", "ip:10.0.0." + i);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (evictions() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertThat(evictions()).isPositive();
+    }
+
+    private double evictions() {
+        return meterRegistry.get("rate_limiter.evictions").tag("policy", "login").counter().count();
+    }
+}
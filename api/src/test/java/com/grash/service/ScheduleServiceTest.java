@@ -0,0 +1,296 @@
+package com.grash.service;
+
+import com.grash.configuration.SchedulingProperties;
+import com.grash.job.ClusterCoordinator;
+import com.grash.job.ClusterHeartbeatEvent;
+import com.grash.job.TriggerScheduler;
+import com.grash.mapper.ScheduleMapper;
+import com.grash.model.*;
+import com.grash.repository.ScheduleRepository;
+import com.grash.utils.Helper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduleServiceTest {
+
+    private static final long HOUR = 3600 * 1000;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+    @Mock
+    private PreventiveMaintenanceService preventiveMaintenanceService;
+    @Mock
+    private ScheduleMapper scheduleMapper;
+    @Mock
+    private MessageSource messageSource;
+    @Mock
+    private EmailService2 emailService2;
+    @Mock
+    private WorkOrderService workOrderService;
+    @Mock
+    private TaskService taskService;
+    @Mock
+    private UserService userService;
+    @Mock
+    private TriggerScheduler triggerScheduler;
+    @Mock
+    private ClusterCoordinator clusterCoordinator;
+    @Mock
+    private CustomSequenceService customSequenceService;
+
+    private final SchedulingProperties schedulingProperties = new SchedulingProperties();
+    private final Set<String> claimedOccurrences = new HashSet<>();
+    private final Date now = new Date();
+    private ScheduleService scheduleService;
+    private Schedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        scheduleService = new ScheduleService(scheduleRepository, preventiveMaintenanceService, scheduleMapper,
+                messageSource, emailService2, workOrderService, taskService, userService, triggerScheduler,
+                schedulingProperties, clusterCoordinator, customSequenceService);
+        schedule = schedule(new Date(now.getTime() - 74 * HOUR - HOUR / 2));
+        lenient().when(scheduleRepository.findDueForUpdate(now, 10)).thenAnswer(invocation ->
+                Collections.singletonList(schedule));
+        lenient().when(scheduleRepository.claimOccurrence(anyLong(), any(Date.class))).thenAnswer(invocation ->
+                claimedOccurrences.add(invocation.getArgument(0) + "@" + ((Date) invocation.getArgument(1))
+                        .getTime()) ? 1 : 0);
+        lenient().when(workOrderService.findLastByPM(anyLong(), anyInt())).thenReturn(new PageImpl<>(
+                Collections.emptyList()));
+        lenient().when(workOrderService.getWorkOrderFromWorkOrderBase(any())).thenAnswer(invocation -> {
+            WorkOrder workOrder = new WorkOrder();
+            workOrder.setCompany(schedule.getPreventiveMaintenance().getCompany());
+            return workOrder;
+        });
+        lenient().when(customSequenceService.getNextWorkOrderSequences(any(Company.class), anyInt()))
+                .thenReturn(1L);
+    }
+
+    @Test
+    void createsAWorkOrderForEveryMissedOccurrenceWithAll() {
+        schedulingProperties.getPreventiveMaintenance().setCatchUp(SchedulingProperties.CatchUpPolicy.ALL);
+
+        assertThat(scheduleService.processDueSchedules(now, 10)).isEqualTo(1);
+
+        Date first = new Date(now.getTime() - 74 * HOUR - HOUR / 2);
+        assertThat(createdOccurrences()).containsExactly(first, Helper.incrementDays(first, 1),
+                Helper.incrementDays(first, 2), Helper.incrementDays(first, 3));
+        assertThat(schedule.getNextDueAt()).isEqualTo(Helper.incrementDays(first, 4));
+    }
+
+    @Test
+    void createsAWorkOrderForTheLatestMissedOccurrenceWithLatest() {
+        schedulingProperties.getPreventiveMaintenance().setCatchUp(SchedulingProperties.CatchUpPolicy.LATEST);
+
+        scheduleService.processDueSchedules(now, 10);
+
+        Date first = new Date(now.getTime() - 74 * HOUR - HOUR / 2);
+        assertThat(createdOccurrences()).containsExactly(Helper.incrementDays(first, 3));
+        assertThat(schedule.getNextDueAt()).isEqualTo(Helper.incrementDays(first, 4));
+    }
+
+    @Test
+    void dropsTheOccurrencesMissedForLongerThanTheThresholdWithSkip() {
+        SchedulingProperties.PreventiveMaintenance properties = schedulingProperties.getPreventiveMaintenance();
+        properties.setCatchUp(SchedulingProperties.CatchUpPolicy.SKIP);
+        properties.setMissedThreshold(Duration.ofHours(1));
+
+        scheduleService.processDueSchedules(now, 10);
+
+        verify(workOrderService, never()).getWorkOrderFromWorkOrderBase(any());
+        assertThat(schedule.getNextDueAt()).isAfter(now);
+
+        schedule.setNextDueAt(new Date(now.getTime() - HOUR / 2));
+        scheduleService.processDueSchedules(now, 10);
+
+        assertThat(createdOccurrences()).containsExactly(new Date(now.getTime() - HOUR / 2));
+    }
+
+    @Test
+    void doesNotCreateTheWorkOrderOfAReplayedOccurrenceTwice() {
+        schedulingProperties.getPreventiveMaintenance().setCatchUp(SchedulingProperties.CatchUpPolicy.ALL);
+        Date nextDueAt = schedule.getNextDueAt();
+        scheduleService.processDueSchedules(now, 10);
+
+        //a node which read the schedule before it moved forward replays the same occurrences
+        schedule.setNextDueAt(nextDueAt);
+        scheduleService.processDueSchedules(now, 10);
+
+        ArgumentCaptor<List<WorkOrder>> workOrders = ArgumentCaptor.forClass(List.class);
+        verify(workOrderService, times(2)).saveAll(workOrders.capture());
+        assertThat(workOrders.getAllValues().get(0)).hasSize(4);
+        assertThat(workOrders.getAllValues().get(1)).isEmpty();
+    }
+
+    @Test
+    void createsTheWorkOrdersOfABatchAndTheirTasksInBulk() {
+        schedulingProperties.getPreventiveMaintenance().setCatchUp(SchedulingProperties.CatchUpPolicy.ALL);
+        Schedule otherCompanySchedule = schedule(new Date(now.getTime() - HOUR));
+        otherCompanySchedule.setId(4L);
+        otherCompanySchedule.getPreventiveMaintenance().setId(5L);
+        otherCompanySchedule.getPreventiveMaintenance().getCompany().setId(6L);
+        when(scheduleRepository.findDueForUpdate(now, 10)).thenReturn(Arrays.asList(schedule, otherCompanySchedule));
+        when(workOrderService.getWorkOrderFromWorkOrderBase(any())).thenAnswer(invocation -> {
+            WorkOrder workOrder = new WorkOrder();
+            workOrder.setCompany(((PreventiveMaintenance) invocation.getArgument(0)).getCompany());
+            return workOrder;
+        });
+        when(customSequenceService.getNextWorkOrderSequences(any(Company.class), anyInt())).thenReturn(10L, 20L);
+        TaskBase taskBase = new TaskBase();
+        when(taskService.findByPreventiveMaintenances(Arrays.asList(2L, 5L))).thenReturn(Arrays.asList(
+                task(schedule.getPreventiveMaintenance(), taskBase, "a"),
+                task(schedule.getPreventiveMaintenance(), taskBase, "b"),
+                task(otherCompanySchedule.getPreventiveMaintenance(), taskBase, "c")));
+
+        assertThat(scheduleService.processDueSchedules(now, 10)).isEqualTo(2);
+
+        verify(customSequenceService).getNextWorkOrderSequences(schedule.getPreventiveMaintenance().getCompany(), 4);
+        verify(customSequenceService).getNextWorkOrderSequences(otherCompanySchedule.getPreventiveMaintenance()
+                .getCompany(), 1);
+        ArgumentCaptor<List<WorkOrder>> workOrders = ArgumentCaptor.forClass(List.class);
+        verify(workOrderService).saveAll(workOrders.capture());
+        assertThat(workOrders.getValue()).extracting(WorkOrder::getCustomId)
+                .containsExactly("WO000010", "WO000011", "WO000012", "WO000013", "WO000020");
+        ArgumentCaptor<List<Task>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(taskService).saveAll(tasks.capture());
+        assertThat(tasks.getValue()).hasSize(9).allMatch(task -> task.getTaskBase() == taskBase
+                && task.getCompany() == task.getWorkOrder().getCompany());
+        assertThat(tasks.getValue()).filteredOn(task -> task.getWorkOrder() == workOrders.getValue().get(4))
+                .extracting(Task::getValue).containsExactly("c");
+        verify(workOrderService).onCreatedInBulk(workOrders.getValue());
+        verify(taskService, never()).findByPreventiveMaintenance(anyLong());
+    }
+
+    @Test
+    void clearsTheBackOffOnceTheWorkOrdersAreCreated() {
+        schedule.setFailedAttempts(3);
+        schedule.setNextAttemptAt(new Date(now.getTime() - HOUR));
+
+        scheduleService.processDueSchedules(now, 10);
+
+        assertThat(schedule.getFailedAttempts()).isZero();
+        assertThat(schedule.getNextAttemptAt()).isNull();
+        verify(scheduleRepository).save(schedule);
+    }
+
+    @Test
+    void backsOffAFailedScheduleWithTheConfiguredDelays() {
+        SchedulingProperties.PreventiveMaintenance properties = schedulingProperties.getPreventiveMaintenance();
+        properties.setFailureBackoff(Duration.ofMinutes(2));
+        properties.setMaxFailureBackoff(Duration.ofHours(1));
+
+        scheduleService.backOff(7L, now);
+
+        verify(scheduleRepository).backOff(7L, now, 120000, 3600000);
+    }
+
+    @Test
+    void armsTheOwnedNotificationsDueWithinTheHorizonPageByPage() {
+        schedulingProperties.setPageSize(2);
+        Schedule owned = notifiedSchedule(10L, new Date(now.getTime() + HOUR));
+        Schedule notOwned = notifiedSchedule(11L, new Date(now.getTime() + 2 * HOUR));
+        Schedule ownedOnNextPage = notifiedSchedule(12L, new Date(now.getTime() + 3 * HOUR));
+        when(scheduleRepository.findByDisabledFalseAndNextNotificationAtLessThanEqual(any(Date.class),
+                any(Pageable.class))).thenReturn(new SliceImpl<>(Arrays.asList(owned, notOwned), PageRequest.of(0, 2),
+                true), new SliceImpl<>(Collections.singletonList(ownedOnNextPage), PageRequest.of(1, 2), false));
+        when(clusterCoordinator.owns(anyLong())).thenAnswer(invocation -> !invocation.getArgument(0).equals(11L));
+
+        scheduleService.syncTriggers(new ClusterHeartbeatEvent(true));
+
+        verify(triggerScheduler).cancelAll("schedule-");
+        ArgumentCaptor<Date> horizonEnd = ArgumentCaptor.forClass(Date.class);
+        ArgumentCaptor<Pageable> pages = ArgumentCaptor.forClass(Pageable.class);
+        verify(scheduleRepository, times(2)).findByDisabledFalseAndNextNotificationAtLessThanEqual(
+                horizonEnd.capture(), pages.capture());
+        assertThat(horizonEnd.getValue().getTime() - now.getTime())
+                .isCloseTo(schedulingProperties.getTriggerHorizon().toMillis(), within(5000L));
+        assertThat(pages.getAllValues()).extracting(Pageable::getPageNumber).containsExactly(0, 1);
+        verify(triggerScheduler).schedule(eq("schedule-10"), eq("notification"), any(Runnable.class),
+                eq(owned.getNextNotificationAt()));
+        verify(triggerScheduler).schedule(eq("schedule-12"), eq("notification"), any(Runnable.class),
+                eq(ownedOnNextPage.getNextNotificationAt()));
+        verify(triggerScheduler, never()).schedule(eq("schedule-11"), anyString(), any(Runnable.class),
+                any(Date.class));
+    }
+
+    @Test
+    void onlyReArmsTheModifiedSchedulesBetweenRefills() {
+        when(scheduleRepository.findByDisabledFalseAndNextNotificationAtLessThanEqual(any(Date.class),
+                any(Pageable.class))).thenReturn(new SliceImpl<>(Collections.emptyList()));
+        when(clusterCoordinator.getNodeTimeout()).thenReturn(Duration.ofSeconds(30));
+        when(clusterCoordinator.owns(anyLong())).thenReturn(true);
+        Schedule modified = notifiedSchedule(13L, new Date(now.getTime() + HOUR));
+        Schedule outsideHorizon = notifiedSchedule(14L, new Date(now.getTime() + 24 * HOUR));
+        when(scheduleRepository.findByUpdatedAtAfter(any(Date.class))).thenReturn(Arrays.asList(modified,
+                outsideHorizon));
+        scheduleService.syncTriggers(new ClusterHeartbeatEvent(true));
+
+        scheduleService.syncTriggers(new ClusterHeartbeatEvent(false));
+
+        verify(scheduleRepository, times(1)).findByDisabledFalseAndNextNotificationAtLessThanEqual(any(Date.class),
+                any(Pageable.class));
+        verify(triggerScheduler).cancel("schedule-13");
+        verify(triggerScheduler).schedule(eq("schedule-13"), eq("notification"), any(Runnable.class),
+                eq(modified.getNextNotificationAt()));
+        verify(triggerScheduler).cancel("schedule-14");
+        verify(triggerScheduler, never()).schedule(eq("schedule-14"), anyString(), any(Runnable.class),
+                any(Date.class));
+    }
+
+    private List<Date> createdOccurrences() {
+        ArgumentCaptor<List<WorkOrder>> workOrders = ArgumentCaptor.forClass(List.class);
+        verify(workOrderService, atLeastOnce()).saveAll(workOrders.capture());
+        List<Date> occurrences = new ArrayList<>();
+        workOrders.getAllValues().forEach(saved -> saved.forEach(workOrder ->
+                occurrences.add(Helper.minusDays(workOrder.getDueDate(), 1))));
+        return occurrences;
+    }
+
+    private static Task task(PreventiveMaintenance preventiveMaintenance, TaskBase taskBase, String value) {
+        return new Task(taskBase, null, preventiveMaintenance, value);
+    }
+
+    private static Schedule notifiedSchedule(Long id, Date nextNotificationAt) {
+        Schedule notifiedSchedule = schedule(new Date(nextNotificationAt.getTime() + 24 * HOUR));
+        notifiedSchedule.setId(id);
+        notifiedSchedule.setNextNotificationAt(nextNotificationAt);
+        return notifiedSchedule;
+    }
+
+    private static Schedule schedule(Date nextDueAt) {
+        GeneralPreferences generalPreferences = new GeneralPreferences();
+        generalPreferences.setDaysBeforePrevMaintNotification(0);
+        CompanySettings companySettings = new CompanySettings();
+        companySettings.setGeneralPreferences(generalPreferences);
+        Company company = new Company();
+        company.setId(1L);
+        company.setCompanySettings(companySettings);
+        PreventiveMaintenance preventiveMaintenance = new PreventiveMaintenance();
+        preventiveMaintenance.setId(2L);
+        preventiveMaintenance.setCompany(company);
+        Schedule schedule = new Schedule(preventiveMaintenance);
+        schedule.setId(3L);
+        schedule.setFrequency(1);
+        schedule.setDueDateDelay(1);
+        schedule.setNextDueAt(nextDueAt);
+        return schedule;
+    }
+}
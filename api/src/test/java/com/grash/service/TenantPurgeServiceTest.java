@@ -0,0 +1,140 @@
+package com.grash.service;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.configuration.SchedulingProperties;
+import com.grash.job.BatchJobRunner;
+import com.grash.security.PrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenantPurgeServiceTest {
+
+    private static final String JOB = "deleteDemoCompanies";
+    private static final AtomicLong ids = new AtomicLong(4000000);
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    private final DataSource dataSource = EmbeddedDatabase.dataSource();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private SchedulingProperties schedulingProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private TenantPurgeService tenantPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        schedulingProperties = new SchedulingProperties();
+        schedulingProperties.getTenantPurge().setChunkSize(2);
+        schedulingProperties.getTenantPurge().setMinChunkSize(2);
+        schedulingProperties.getTenantPurge().setMaxChunkSize(2);
+        schedulingProperties.getTenantPurge().setPause(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        BatchJobRunner batchJobRunner = new BatchJobRunner(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                meterRegistry, schedulingProperties);
+        tenantPurgeService = new TenantPurgeService(new NamedParameterJdbcTemplate(jdbcTemplate), batchJobRunner,
+                principalCache, schedulingProperties);
+    }
+
+    @Test
+    void deletesTheCompaniesWithTheirRowsAndAuditTrail() {
+        long purged1 = insertCompany();
+        long purged2 = insertCompany();
+        long kept = insertCompany();
+        long purgedUser = insertUser(purged1);
+        long keptUser = insertUser(kept);
+        for (int i = 0; i < 3; i++) insertWorkOrder(purged1);
+        insertWorkOrder(purged2);
+        long keptWorkOrder = insertWorkOrder(kept);
+        insertNotification(purgedUser);
+        insertNotification(keptUser);
+
+        tenantPurgeService.purge(JOB, Arrays.asList(purged1, purged2));
+
+        assertThat(jdbcTemplate.queryForList("select id from company where id in (?, ?, ?)", Long.class, purged1,
+                purged2, kept)).containsExactly(kept);
+        assertThat(jdbcTemplate.queryForList("select w.id from work_order w join work_order_aud a on a.id = w.id " +
+                "where w.company_id in (?, ?, ?)", Long.class, purged1, purged2, kept)).containsExactly(keptWorkOrder);
+        assertThat(jdbcTemplate.queryForList("select a.id from work_order_aud a where not exists (select 1 from " +
+                "work_order w where w.id = a.id)", Long.class)).isEmpty();
+        assertThat(jdbcTemplate.queryForList("select user_id from notification where user_id in (?, ?)", Long.class,
+                purgedUser, keptUser)).containsExactly(keptUser);
+        verify(principalCache).invalidateCompany(purged1);
+        verify(principalCache).invalidateCompany(purged2);
+        verifyNoMoreInteractions(principalCache);
+        assertThat(meterRegistry.get("batch.items").tag("job", JOB).counter().count()).isEqualTo(1 + 4 + 2);
+    }
+
+    @Test
+    void carriesOnAnInterruptedPurge() {
+        schedulingProperties.getTenantPurge().setPause(Duration.ofMillis(1));
+        long deleted = insertCompany();
+        long interrupted = insertCompany();
+        insertWorkOrder(deleted);
+        insertWorkOrder(interrupted);
+        doAnswer(invocation -> {
+            Thread.currentThread().interrupt();
+            return null;
+        }).when(principalCache).invalidateCompany(deleted);
+
+        tenantPurgeService.purge(JOB, Arrays.asList(deleted, interrupted));
+
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(jdbcTemplate.queryForList("select id from company where id in (?, ?)", Long.class, deleted,
+                interrupted)).containsExactly(interrupted);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from work_order where company_id = ?", Long.class,
+                interrupted)).isZero();
+
+        tenantPurgeService.purge(JOB, Collections.singletonList(interrupted));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from company where id = ?", Long.class, interrupted))
+                .isZero();
+        verify(principalCache).invalidateCompany(interrupted);
+    }
+
+    private long insertCompany() {
+        long companyId = ids.incrementAndGet();
+        jdbcTemplate.update("insert into company (id, created_at, updated_at, employees_count) values (?, now(), " +
+                "now(), 1)", companyId);
+        return companyId;
+    }
+
+    private long insertUser(long companyId) {
+        long userId = EmbeddedDatabase.insertUser("purge-" + UUID.randomUUID() + "@example.com", false);
+        jdbcTemplate.update("update own_user set company_id = ? where id = ?", companyId, userId);
+        return userId;
+    }
+
+    private long insertWorkOrder(long companyId) {
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update("insert into work_order (id, created_at, updated_at, estimated_duration, " +
+                "required_signature, title, archived, company_id) values (?, now(), now(), 0, false, 'Pump', false, " +
+                "?)", id, companyId);
+        int rev = (int) ids.incrementAndGet();
+        jdbcTemplate.update("insert into revinfo (rev, revtstmp) values (?, 0)", rev);
+        jdbcTemplate.update("insert into work_order_aud (id, rev, revtype) values (?, ?, 0)", id, rev);
+        return id;
+    }
+
+    private void insertNotification(long userId) {
+        jdbcTemplate.update("insert into notification (id, created_at, updated_at, message, seen, user_id) values " +
+                "(?, now(), now(), 'Work order assigned', false, ?)", ids.incrementAndGet(), userId);
+    }
+}
@@ -0,0 +1,63 @@
+package com.grash.service;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.model.Notification;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.NotificationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadNotificationCounterTest {
+
+    @Mock
+    private NotificationDelivery notificationDelivery;
+
+    private UnreadNotificationCounter counter;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        counter = new UnreadNotificationCounter(EmbeddedDatabase.jdbcTemplate(), notificationDelivery);
+        userId = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+    }
+
+    @Test
+    void keepsTheNotificationsCreatedWhileReadingAll() {
+        counter.onCreated(notifications(3));
+        //a notification is created between the bulk update of the read all and the counter update
+        counter.onCreated(notifications(1));
+        counter.add(userId, -3);
+
+        assertThat(counter.get(userId)).isEqualTo(1);
+        verify(notificationDelivery).sendUnread(userId, 1L);
+    }
+
+    @Test
+    void neverCountsBelowZero() {
+        counter.onCreated(notifications(1));
+        counter.add(userId, -5);
+
+        assertThat(counter.get(userId)).isZero();
+    }
+
+    private List<Notification> notifications(int count) {
+        OwnUser user = new OwnUser();
+        user.setId(userId);
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            notifications.add(new Notification("Work order assigned", user, NotificationType.WORK_ORDER, 1L));
+        }
+        return notifications;
+    }
+}
@@ -0,0 +1,114 @@
+package com.grash.service;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.job.WorkOrderDueEvent;
+import com.grash.model.Company;
+import com.grash.model.OwnUser;
+import com.grash.model.WorkOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrgentWorkOrderCounterTest {
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final ToIntFunction<OwnUser> counter = user -> queries.incrementAndGet();
+    private UrgentWorkOrderCounter urgentWorkOrderCounter;
+    private OwnUser user1;
+    private OwnUser user2;
+    private OwnUser otherCompanyUser;
+
+    @BeforeEach
+    void setUp() {
+        urgentWorkOrderCounter = new UrgentWorkOrderCounter(100, 60);
+        user1 = user(1L, 10L);
+        user2 = user(2L, 10L);
+        otherCompanyUser = user(3L, 20L);
+    }
+
+    @Test
+    void countsOncePerUserUntilInvalidated() {
+        assertThat(urgentWorkOrderCounter.get(user1, counter)).isEqualTo(1);
+        assertThat(urgentWorkOrderCounter.get(user1, counter)).isEqualTo(1);
+        assertThat(urgentWorkOrderCounter.get(user2, counter)).isEqualTo(2);
+
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void recountsTheCompanyOfAChangedWorkOrder() {
+        urgentWorkOrderCounter.get(user1, counter);
+        urgentWorkOrderCounter.get(user2, counter);
+        urgentWorkOrderCounter.get(otherCompanyUser, counter);
+        UrgentWorkOrderCountInvalidator invalidator = new UrgentWorkOrderCountInvalidator();
+        invalidator.setDeps(urgentWorkOrderCounter);
+
+        invalidator.afterChange(workOrder(user1.getCompany()));
+
+        assertThat(urgentWorkOrderCounter.get(user1, counter)).isEqualTo(4);
+        assertThat(urgentWorkOrderCounter.get(user2, counter)).isEqualTo(5);
+        assertThat(urgentWorkOrderCounter.get(otherCompanyUser, counter)).isEqualTo(3);
+    }
+
+    @Test
+    void evictsTheCompaniesOfATransactionOnceItCommits() {
+        urgentWorkOrderCounter.get(user1, counter);
+        urgentWorkOrderCounter.get(otherCompanyUser, counter);
+        UrgentWorkOrderCountInvalidator invalidator = new UrgentWorkOrderCountInvalidator();
+        invalidator.setDeps(urgentWorkOrderCounter);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(
+                EmbeddedDatabase.dataSource()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                invalidator.afterChange(workOrder(user1.getCompany()));
+                invalidator.afterChange(workOrder(otherCompanyUser.getCompany()));
+            }
+            assertThat(urgentWorkOrderCounter.get(user1, counter)).isEqualTo(1);
+        });
+
+        assertThat(urgentWorkOrderCounter.get(user1, counter)).isEqualTo(3);
+        assertThat(urgentWorkOrderCounter.get(otherCompanyUser, counter)).isEqualTo(4);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            invalidator.afterChange(workOrder(user1.getCompany()));
+            status.setRollbackOnly();
+        });
+
+        assertThat(urgentWorkOrderCounter.get(user1, counter)).isEqualTo(3);
+    }
+
+    @Test
+    void recountsTheCompanyOfAWorkOrderBecomingDue() {
+        urgentWorkOrderCounter.get(user1, counter);
+        urgentWorkOrderCounter.get(otherCompanyUser, counter);
+
+        urgentWorkOrderCounter.onWorkOrderDue(new WorkOrderDueEvent(WorkOrderDueEvent.Type.DUE_SOON, 20L,
+                Collections.singletonList(1L)));
+
+        assertThat(urgentWorkOrderCounter.get(user1, counter)).isEqualTo(1);
+        assertThat(urgentWorkOrderCounter.get(otherCompanyUser, counter)).isEqualTo(3);
+    }
+
+    private static WorkOrder workOrder(Company company) {
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setCompany(company);
+        return workOrder;
+    }
+
+    private static OwnUser user(Long id, Long companyId) {
+        Company company = new Company();
+        company.setId(companyId);
+        OwnUser user = new OwnUser();
+        user.setId(id);
+        user.setCompany(company);
+        return user;
+    }
+}
@@ -0,0 +1,125 @@
+package com.grash.service;
+
+import com.grash.EmbeddedDatabase;
+import com.grash.job.WorkOrderDueEvent;
+import com.grash.model.Notification;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.NotificationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkOrderDueNotifierTest {
+
+    private static final AtomicLong ids = new AtomicLong(2000000);
+
+    @Mock
+    private EntityManager em;
+    @Mock
+    private NotificationService notificationService;
+
+    private final JdbcTemplate jdbcTemplate = EmbeddedDatabase.jdbcTemplate();
+    private WorkOrderDueNotifier notifier;
+    private long companyId;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(em.getReference(eq(OwnUser.class), anyLong())).thenAnswer(invocation -> {
+            OwnUser user = new OwnUser();
+            user.setId(invocation.getArgument(1));
+            return user;
+        });
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        notifier = new WorkOrderDueNotifier(jdbcTemplate, em, notificationService,
+                new NotificationRecipientService(jdbcTemplate), messageSource);
+        companyId = ids.incrementAndGet();
+        jdbcTemplate.update("insert into company (id, created_at, updated_at, employees_count) values (?, now(), " +
+                "now(), 1)", companyId);
+    }
+
+    @Test
+    void notifiesTheAssigneesOfEachWorkOrder() {
+        long primaryUser = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+        long assignee = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+        long workOrder1 = insertWorkOrder("Pump", primaryUser);
+        long workOrder2 = insertWorkOrder("Valve", null);
+        jdbcTemplate.update("insert into work_order_assigned_to (work_order_id, assigned_to_id) values (?, ?)",
+                workOrder2, assignee);
+        long unassigned = insertWorkOrder("Belt", null);
+
+        notifier.onWorkOrderDue(new WorkOrderDueEvent(WorkOrderDueEvent.Type.OVERDUE, companyId,
+                Arrays.asList(workOrder1, workOrder2, unassigned, -1L)));
+
+        ArgumentCaptor<List<Notification>> notifications = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).createMultipleByResource(notifications.capture(), eq("A Work Order is overdue"));
+        assertThat(notifications.getValue())
+                .extracting(Notification::getMessage, notification -> notification.getUser().getId(),
+                        Notification::getNotificationType, Notification::getResourceId)
+                .containsExactly(tuple("Work order Pump is overdue", primaryUser, NotificationType.WORK_ORDER,
+                                workOrder1),
+                        tuple("Work order Valve is overdue", assignee, NotificationType.WORK_ORDER, workOrder2));
+    }
+
+    @Test
+    void rendersTheMessagesInTheLanguageOfTheCompany() {
+        long generalPreferencesId = ids.incrementAndGet();
+        jdbcTemplate.update("insert into general_preferences (id, language, ask_feed_back_onwoclosed, " +
+                "auto_assign_requests, auto_assign_work_orders, disable_closed_work_orders_notif, " +
+                "labor_cost_in_total_cost, wo_update_for_requesters) values (?, 1, false, false, false, false, " +
+                "false, false)", generalPreferencesId);
+        long userId = EmbeddedDatabase.insertUser(UUID.randomUUID() + "@example.com", false);
+        jdbcTemplate.update("update company_settings set general_preferences_id = ? where id = ?",
+                generalPreferencesId, jdbcTemplate.queryForObject("select r.company_settings_id from own_user u join " +
+                        "role r on r.id = u.role_id where u.id = ?", Long.class, userId));
+        jdbcTemplate.update("update company set company_settings_id = (select r.company_settings_id from own_user u " +
+                "join role r on r.id = u.role_id where u.id = ?) where id = ?", userId, companyId);
+        jdbcTemplate.update("update own_user set company_id = ? where id = ?", companyId, userId);
+        long workOrderId = insertWorkOrder("Pump", userId);
+
+        notifier.onWorkOrderDue(new WorkOrderDueEvent(WorkOrderDueEvent.Type.DUE_SOON, companyId,
+                Arrays.asList(workOrderId)));
+
+        ArgumentCaptor<List<Notification>> notifications = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).createMultipleByResource(notifications.capture(),
+                eq("Un ordre de travail arrive à échéance"));
+        assertThat(notifications.getValue()).extracting(Notification::getMessage)
+                .containsExactly("L'ordre de travail Pump arrive bientôt à échéance");
+    }
+
+    @Test
+    void notifiesNobodyForUnassignedWorkOrders() {
+        long workOrderId = insertWorkOrder("Belt", null);
+
+        notifier.onWorkOrderDue(new WorkOrderDueEvent(WorkOrderDueEvent.Type.OVERDUE, companyId,
+                Arrays.asList(workOrderId)));
+
+        verifyNoInteractions(notificationService);
+    }
+
+    private long insertWorkOrder(String title, Long primaryUserId) {
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update("insert into work_order (id, created_at, updated_at, estimated_duration, " +
+                        "required_signature, title, archived, company_id, primary_user_id) values (?, now(), now(), " +
+                        "0, false, ?, false, ?, ?)", id, title, companyId, primaryUserId);
+        return id;
+    }
+}
@@ -0,0 +1,45 @@
+package com.grash.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HelperTest {
+
+    private static Date date(int year, int month, int day) {
+        return Helper.localDateTimeToDate(LocalDateTime.of(year, month, day, 8, 0));
+    }
+
+    @Test
+    void returnsOnlyOccurrencesInsideTheWindow() {
+        List<Date> occurrences = Helper.getOccurrencesBetween(date(2019, 1, 1), 7, null, date(2025, 3, 1),
+                date(2025, 3, 31));
+
+        assertThat(occurrences).hasSize(4);
+        for (Date occurrence : occurrences) {
+            assertThat(occurrence).isBetween(date(2025, 3, 1), date(2025, 3, 31), true, true);
+        }
+        assertThat(occurrences.get(0)).isEqualTo(date(2025, 3, 4));
+    }
+
+    @Test
+    void stopsAtEndsOn() {
+        List<Date> occurrences = Helper.getOccurrencesBetween(date(2025, 3, 1), 1, date(2025, 3, 10),
+                date(2025, 3, 5), date(2025, 3, 31));
+
+        assertThat(occurrences).hasSize(6);
+        assertThat(occurrences.get(5)).isEqualTo(date(2025, 3, 10));
+    }
+
+    @Test
+    void startsAtStartsOnWhenItIsInsideTheWindow() {
+        List<Date> occurrences = Helper.getOccurrencesBetween(date(2025, 3, 20), 30, null, date(2025, 3, 1),
+                date(2025, 4, 30));
+
+        assertThat(occurrences).containsExactly(date(2025, 3, 20), date(2025, 4, 19));
+    }
+}
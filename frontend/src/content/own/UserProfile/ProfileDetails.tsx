@@ -63,6 +63,10 @@ function ProfileDetails() {
       emailUpdatesForRequests: {
         value: userSettings?.emailUpdatesForRequests,
         title: t('email_updates_requests')
+      },
+      notificationDigest: {
+        value: userSettings?.notificationDigest,
+        title: t('notification_digest')
       }
       // dailyEmailSummary: { value: userSettings?., title: t('Daily Summary Emails') },
       // emailUpdatesForPurchaseOrders: {
@@ -955,6 +955,7 @@ const locale = {
   email_notifications: 'إشعارات البريد الإلكتروني',
   email_updates_wo: 'تحديثات البريد الإلكتروني لأوامر العمل والرسائل',
   email_updates_requests: 'تحديثات البريد الإلكتروني لأوامر العمل المطلوبة',
+  notification_digest: 'تجميع الإشعارات في ملخصات',
   po_emails: 'رسائل البريد الإلكتروني لطلبات الشراء',
   required_job_title: 'حقل عنوان الوظيفة مطلوب',
   required_old_password: 'يرجى تقديم كلمة المرور الحالية.',
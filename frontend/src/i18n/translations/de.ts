@@ -1065,6 +1065,7 @@ const deJSON = {
   email_notifications: 'E-Mail-Benachrichtigungen',
   email_updates_wo: 'E-Mail-Updates für Arbeitsaufträge und Nachrichten',
   email_updates_requests: 'E-Mail-Updates für angeforderte Arbeitsaufträge',
+  notification_digest: 'Benachrichtigungen in Zusammenfassungen bündeln',
   po_emails: 'E-Mails zu Bestellungen',
   required_job_title: 'Das Feld für die Berufsbezeichnung ist erforderlich',
   required_old_password: 'Bitte geben Sie das aktuelle Passwort ein.',
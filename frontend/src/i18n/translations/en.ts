@@ -975,6 +975,7 @@ const locale = {
   email_notifications: 'Email notifications',
   email_updates_wo: 'Email Updates for Work Orders and Messages',
   email_updates_requests: 'Email Updates for Requested Work Orders',
+  notification_digest: 'Group Notifications in Digests',
   po_emails: 'Purchase Order Emails',
   required_job_title: 'The Job title field is required',
   required_old_password: 'Please provide the current password.',
@@ -1031,6 +1031,7 @@ const esJSON = {
     'Actualizaciones por correo electrónico para órdenes de trabajo y mensaje',
   email_updates_requests:
     'Actualizaciones por correo electrónico para órdenes de trabajo solicitadas',
+  notification_digest: 'Agrupar notificaciones en resúmenes',
   po_emails: 'Correos electrónicos de pedidos de compra',
   required_job_title: 'El campo título del puesto es obligatorio',
   required_old_password: 'Por favor proporcione la contraseña actual.',
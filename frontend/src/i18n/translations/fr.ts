@@ -1141,6 +1141,7 @@ const frJSON = {
   email_updates_wo:
     'Notifications par e-mail pour les ordres de travail et les messages',
   email_updates_requests: 'Notifications par e-mail pour les demandes',
+  notification_digest: 'Regrouper les notifications en résumés',
   po_emails: 'E-mails de bon de commande',
   required_job_title: 'Le champ Intitulé du poste est obligatoire',
   required_old_password: 'Veuillez fournir le mot de passe actuel.',
@@ -1028,6 +1028,7 @@ const plJSON = {
   email_notifications: 'Powiadomienia e-mail',
   email_updates_wo: 'Aktualizacje e-mail dla zleceń pracy i wiadomości',
   email_updates_requests: 'Aktualizacje e-mail dla zgłoszonych zleceń pracy',
+  notification_digest: 'Grupuj powiadomienia w podsumowania',
   po_emails: 'E-maile dotyczące zamówień',
   required_job_title: 'Pole stanowiska jest wymagane',
   required_old_password: 'Podaj obecne hasło',
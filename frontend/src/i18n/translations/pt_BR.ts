@@ -1049,6 +1049,7 @@ const ptBRJSON = {
     'Atualizações por e-mail para Ordens de Serviço e Mensagens',
   email_updates_requests:
     'Atualizações por e-mail para Ordens de Serviço Solicitadas',
+  notification_digest: 'Agrupar notificações em resumos',
   po_emails: 'E-mails de Ordem de Compra',
   required_job_title: 'O campo de cargo é obrigatório',
   required_old_password: 'Por favor, forneça a senha atual.',
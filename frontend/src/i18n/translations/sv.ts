@@ -1004,6 +1004,7 @@ const locale = {
   email_notifications: 'E-postmeddelanden',
   email_updates_wo: 'E-postuppdateringar för arbetsordrar och meddelanden',
   email_updates_requests: 'E-postuppdateringar för begärda arbetsordrar',
+  notification_digest: 'Samla aviseringar i sammanfattningar',
   po_emails: 'E-postmeddelanden för inköpsorder',
   required_job_title: 'Fältet för jobbtitel är obligatoriskt',
   required_old_password: 'Vänligen ange det nuvarande lösenordet.',
@@ -36,7 +36,10 @@ import {
   editNotification,
   getMoreNotifications,
   getNotifications,
-  newReceivedNotification, readAllNotifications
+  getUnreadCount,
+  newReceivedNotification,
+  readAllNotifications,
+  setUnreadCount
 } from '../../../../../slices/notification';
 import Notification, {
   NotificationType
@@ -130,9 +133,8 @@ function HeaderNotifications() {
   const theme = useTheme();
   const dispatch = useDispatch();
   const navigate = useNavigate();
-  const { notifications, currentPageNum, lastPage, loadingGet } = useSelector(
-    (state) => state.notifications
-  );
+  const { notifications, currentPageNum, lastPage, loadingGet, unreadCount } =
+    useSelector((state) => state.notifications);
   const { getFormattedDate } = useContext(CompanySettingsContext);
   const initialCriteria: SearchCriteria = {
     filterFields: [],
@@ -145,6 +147,7 @@ function HeaderNotifications() {
   const { user } = useAuth();
   useEffect(() => {
     dispatch(getNotifications(criteria));
+    dispatch(getUnreadCount());
   }, []);
   useEffect(() => {
     const disconnect = () => {
@@ -158,13 +161,26 @@ function HeaderNotifications() {
         const socket = new SockJS(`${apiUrl}ws`);
         const client = Stomp.over(socket);
         client.connect({ token: localStorage.getItem('accessToken') }, function(frame) {
+          let lastSeq: number = null;
           const subscription = client.subscribe(
-            `/notifications/${user.id}`,
+            `/notifications/v2/${user.id}`,
             function(message) {
-              const notification: Notification = JSON.parse(message.body);
-              dispatch(
-                newReceivedNotification(notification)
+              // notifications are sent in batches
+              const notifications: Notification[] = JSON.parse(message.body);
+              notifications.forEach((notification) =>
+                dispatch(newReceivedNotification(notification))
               );
+              if (message.headers.unread !== undefined)
+                dispatch(setUnreadCount(Number(message.headers.unread)));
+              // frames are numbered per user, a skipped number means some were missed
+              if (message.headers.seq) {
+                const seq = Number(message.headers.seq);
+                if (lastSeq !== null && seq > lastSeq + 1) {
+                  dispatch(getNotifications(initialCriteria));
+                  dispatch(getUnreadCount());
+                }
+                lastSeq = seq;
+              }
             }
           );
           setStompClient(client);
@@ -258,8 +274,7 @@ function HeaderNotifications() {
             horizontal: 'right'
           }}
           sx={
-            notifications.content.filter((notification) => !notification.seen)
-              .length
+            unreadCount
               ? {
                 '.MuiBadge-badge': {
                   background: theme.colors.success.main,
@@ -336,19 +351,13 @@ function HeaderNotifications() {
               <Typography textAlign="center" variant="subtitle2">
                 {t('you_have')}{' '}
                 <Text color="success">
-                  <b>
-                    {
-                      notifications.content.filter(
-                        (notification) => !notification.seen
-                      ).length
-                    }
-                  </b>
+                  <b>{unreadCount}</b>
                 </Text>{' '}
                 {t('new_messages')}
               </Typography>
             </BoxComposedContent>
           </BoxComposed>
-          {!!notifications.content.filter(notification => !notification.seen).length &&
+          {!!unreadCount &&
             <Button onClick={() => dispatch(readAllNotifications())}
                     startIcon={
                       <CheckCircleOutlineIcon />}>{t('mark_all_as_seen')}</Button>}
@@ -39,7 +39,12 @@ import analytics from '@react-native-firebase/analytics';
 import { useDispatch } from '../store';
 import { revertAll } from '../utils/redux';
 import { getApiUrl } from '../config';
-import { newReceivedNotification } from '../slices/notification';
+import {
+  getNotifications,
+  getUnreadCount,
+  newReceivedNotification,
+  setUnreadCount
+} from '../slices/notification';
 import Notification from '../models/notification';
 import { getMobileOverviewStats } from '../slices/analytics/workOrder';
 import Meter from '../models/meter';
@@ -541,12 +546,43 @@ export const AuthProvider: FC<AuthProviderProps> = (props) => {
           client.connect(
             { token: await AsyncStorage.getItem('accessToken') },
             function (frame) {
+              let lastSeq: number = null;
               const subscription = client.subscribe(
-                `/notifications/${state.user.id}`,
+                `/notifications/v2/${state.user.id}`,
                 function (message) {
-                  const notification: Notification = JSON.parse(message.body);
-                  globalDispatch(newReceivedNotification(notification));
-                  if (notification.notificationType === 'WORK_ORDER') {
+                  // notifications are sent in batches
+                  const notifications: Notification[] = JSON.parse(
+                    message.body
+                  );
+                  notifications.forEach((notification) =>
+                    globalDispatch(newReceivedNotification(notification))
+                  );
+                  if (message.headers.unread !== undefined)
+                    globalDispatch(
+                      setUnreadCount(Number(message.headers.unread))
+                    );
+                  // frames are numbered per user, a skipped number means some were missed
+                  if (message.headers.seq) {
+                    const seq = Number(message.headers.seq);
+                    if (lastSeq !== null && seq > lastSeq + 1) {
+                      globalDispatch(
+                        getNotifications({
+                          filterFields: [],
+                          pageSize: 15,
+                          pageNum: 0,
+                          direction: 'DESC'
+                        })
+                      );
+                      globalDispatch(getUnreadCount());
+                    }
+                    lastSeq = seq;
+                  }
+                  if (
+                    notifications.some(
+                      (notification) =>
+                        notification.notificationType === 'WORK_ORDER'
+                    )
+                  ) {
                     if (
                       state.userSettings?.statsForAssignedWorkOrders !==
                       undefined
@@ -1025,6 +1025,7 @@ const locale = {
     'Actualizaciones por correo electrónico para Órdenes de Trabajo y mensajes',
   email_updates_requests:
     'Actualizaciones por correo electrónico para Órdenes de Trabajobsolicitadas',
+  notification_digest: 'Agrupar notificaciones en resúmenes',
   po_emails: 'Correos electrónicos de órdenes de compra',
   required_job_title: 'El campo Título del puesto es obligatorio',
   required_old_password: 'Por favor proporcione la contraseña actual.',
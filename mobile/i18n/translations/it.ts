@@ -864,6 +864,7 @@ const locale = {
   "email_notifications": "Notifiche e-mail",
   "email_updates_wo": "Aggiornamenti via e-mail per ordini di lavoro e messaggi",
   "email_updates_requests": "Aggiornamenti via e-mail per gli ordini di lavoro richiesti",
+  "notification_digest": "Raggruppa le notifiche in riepiloghi",
   "po_emails": "Email di ordini di acquisto",
   "required_job_title": "Il campo Titolo del lavoro è obbligatorio",
   "required_old_password": "Inserisci la password attuale.",
@@ -1010,6 +1010,7 @@ const plJSON = {
     'Aktualizacje e-mailowe dotyczące zleceń roboczych i wiadomości',
   email_updates_requests:
     'Aktualizacje e-mailowe dla żądanych zleceń roboczych',
+  notification_digest: 'Grupuj powiadomienia w podsumowania',
   po_emails: 'E-maile z zamówieniami zakupu',
   required_job_title: 'Pole „Tytuł stanowiska” jest wymagane',
   required_old_password: 'Proszę podać aktualne hasło.',
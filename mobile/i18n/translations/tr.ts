@@ -987,6 +987,7 @@ const trJSON = {
   email_updates_wo: 'İş Emirleri ve Mesajlar için E-posta Güncellemeleri',
   email_updates_requests:
     'Talep Edilen İş Emirleri için E-posta Güncellemeleri',
+  notification_digest: 'Bildirimleri özetlerde grupla',
   po_emails: 'Satın Alma Siparişi E-postaları',
   required_job_title: 'İş unvanı alanı zorunludur',
   required_old_password: 'Lütfen mevcut şifreyi girin.',
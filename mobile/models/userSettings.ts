@@ -4,5 +4,6 @@ export default interface UserSettings {
   emailUpdatesForWorkOrders: boolean;
   emailUpdatesForRequests: boolean;
   emailUpdatesForPurchaseOrders: boolean;
+  notificationDigest: boolean;
   statsForAssignedWorkOrders: boolean;
 }
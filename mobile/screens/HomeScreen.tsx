@@ -15,7 +15,7 @@ import * as React from 'react';
 import { useContext, useEffect, useState } from 'react';
 import { getMobileOverviewStats } from '../slices/analytics/workOrder';
 import { useDispatch, useSelector } from '../store';
-import { getNotifications } from '../slices/notification';
+import { getNotifications, getUnreadCount } from '../slices/notification';
 import { useNetInfo } from '@react-native-community/netinfo';
 import { CustomSnackBarContext } from '../contexts/CustomSnackBarContext';
 import { PermissionEntity } from '../models/role';
@@ -35,7 +35,7 @@ export default function HomeScreen({ navigation }: RootTabScreenProps<'Home'>) {
     user
   } = useAuth();
   const { showSnackBar } = useContext(CustomSnackBarContext);
-  const { notifications } = useSelector((state) => state.notifications);
+  const { unreadCount } = useSelector((state) => state.notifications);
   const { mobileOverview, loading } = useSelector((state) => state.woAnalytics);
   const iconButtonStyle = {
     ...styles.iconButton,
@@ -61,6 +61,7 @@ export default function HomeScreen({ navigation }: RootTabScreenProps<'Home'>) {
   useEffect(() => {
     fetchUserSettings();
     dispatch(getNotifications(notificationsCriteria));
+    dispatch(getUnreadCount());
   }, []);
 
   useEffect(() => {
@@ -221,15 +222,9 @@ export default function HomeScreen({ navigation }: RootTabScreenProps<'Home'>) {
               right: 0,
               backgroundColor: theme.colors.error
             }}
-            visible={
-              notifications.content.filter((notification) => !notification.seen)
-                .length > 0
-            }
+            visible={unreadCount > 0}
           >
-            {
-              notifications.content.filter((notification) => !notification.seen)
-                .length
-            }
+            {unreadCount}
           </Badge>
         </View>
         {hasViewPermission(PermissionEntity.ASSETS) && (
@@ -108,6 +108,11 @@ export default function UserProfile({
       value: userSettings?.emailUpdatesForPurchaseOrders,
       title: t('po_emails'),
       accessor: 'emailUpdatesForPurchaseOrders'
+    },
+    {
+      value: userSettings?.notificationDigest,
+      title: t('notification_digest'),
+      accessor: 'notificationDigest'
     }
   ];
 
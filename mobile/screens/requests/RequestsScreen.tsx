@@ -30,7 +30,7 @@ import { RootTabScreenProps } from '../../types';
 import Tag from '../../components/Tag';
 import { useDebouncedEffect } from '../../hooks/useDebouncedEffect';
 import { dayDiff } from '../../utils/dates';
-import { getNotifications } from '../../slices/notification';
+import { getNotifications, getUnreadCount } from '../../slices/notification';
 import { SheetManager } from 'react-native-actions-sheet';
 import _ from 'lodash';
 import EnumFilter from '../workOrders/EnumFilter';
@@ -48,7 +48,7 @@ export default function RequestsScreen({
   );
   const theme = useAppTheme();
   const dispatch = useDispatch();
-  const { notifications } = useSelector((state) => state.notifications);
+  const { unreadCount } = useSelector((state) => state.notifications);
   const [searchQuery, setSearchQuery] = useState('');
   const { getFormattedDate, getUserNameById } = useContext(
     CompanySettingsContext
@@ -134,17 +134,9 @@ export default function RequestsScreen({
                   right: 0,
                   backgroundColor: theme.colors.error
                 }}
-                visible={
-                  notifications.content.filter(
-                    (notification) => !notification.seen
-                  ).length > 0
-                }
+                visible={unreadCount > 0}
               >
-                {
-                  notifications.content.filter(
-                    (notification) => !notification.seen
-                  ).length
-                }
+                {unreadCount}
               </Badge>
             </Pressable>
             <Pressable
@@ -157,11 +149,13 @@ export default function RequestsScreen({
           </View>
         )
       });
-  }, []);
+  }, [unreadCount]);
 
   useEffect(() => {
-    if (user.role.code === 'REQUESTER')
+    if (user.role.code === 'REQUESTER') {
       dispatch(getNotifications(notificationsCriteria));
+      dispatch(getUnreadCount());
+    }
   }, []);
 
   const onRefresh = () => {
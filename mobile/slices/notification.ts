@@ -14,13 +14,15 @@ interface NotificationState {
   currentPageNum: number;
   lastPage: boolean;
   loadingGet: boolean;
+  unreadCount: number;
 }
 
 const initialState: NotificationState = {
   notifications: getInitialPage<Notification>(),
   currentPageNum: 0,
   lastPage: true,
-  loadingGet: false
+  loadingGet: false,
+  unreadCount: 0
 };
 
 const slice = createSlice({
@@ -80,6 +82,14 @@ const slice = createSlice({
           return { ...notification1, seen: true };
         }
       );
+      state.unreadCount = 0;
+    },
+    setUnreadCount(
+      state: NotificationState,
+      action: PayloadAction<{ unreadCount: number }>
+    ) {
+      const { unreadCount } = action.payload;
+      state.unreadCount = unreadCount;
     },
     setLoadingGet(
       state: NotificationState,
@@ -145,6 +155,19 @@ export const readAllNotifications =
           slice.actions.readAll({})
         );
     };
+export const getUnreadCount = (): AppThunk => async (dispatch) => {
+  const response = await api.get<{ success: boolean; message: string }>(
+    `${basePath}/unread-count`
+  );
+  dispatch(
+    slice.actions.setUnreadCount({ unreadCount: Number(response.message) })
+  );
+};
+export const setUnreadCount =
+  (unreadCount: number): AppThunk =>
+    async (dispatch) => {
+      dispatch(slice.actions.setUnreadCount({ unreadCount }));
+    };
 export const newReceivedNotification =
   (notification: Notification): AppThunk =>
     async (dispatch) => {